@@ -53,6 +53,24 @@ public interface AdvancedProductMapper {
     )
     List<Product> findByCategoryConditional(String category);
     
+    /**
+     * 组合条件查询 - SQL模板示例
+     * 只拼接非空的条件，相同的条件组合复用同一条SQL
+     */
+    @SelectTemplate(
+        "SELECT id, name, price, category, description, stock_quantity FROM products " +
+        "<where>" +
+        "<if test=\"category != null\">AND category = #{category}</if>" +
+        "<if test=\"minPrice != null\">AND price &gt;= #{minPrice}</if>" +
+        "<if test=\"ids != null\">AND id IN " +
+        "<foreach collection=\"ids\" item=\"id\" open=\"(\" separator=\",\" close=\")\">#{id}</foreach>" +
+        "</if>" +
+        "</where> ORDER BY id"
+    )
+    List<Product> searchProducts(@Param("category") String category,
+                                 @Param("minPrice") BigDecimal minPrice,
+                                 @Param("ids") List<Long> ids);
+    
     // ========== 缓存演示 ==========
     
     /**
@@ -95,11 +113,12 @@ public interface AdvancedProductMapper {
     List<Product> searchProductsSafely(String namePattern, String descPattern);
     
     /**
-     * 参数化查询示例
+     * 参数化查询示例 - IN列表
+     * 集合参数展开为2的幂个占位符（不足时用最后一个元素填充），不同长度的列表共用少量SQL
      */
     @Select("SELECT id, name, price, category, description, stock_quantity " +
-            "FROM products WHERE category IN (?, ?, ?) ORDER BY price")
-    List<Product> findByMultipleCategories(String category1, String category2, String category3);
+            "FROM products WHERE category IN (#{categories}) ORDER BY price")
+    List<Product> findByMultipleCategories(@Param("categories") List<String> categories);
     
     // ========== 复杂查询演示 ==========
     
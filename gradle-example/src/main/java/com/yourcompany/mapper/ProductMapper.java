@@ -2,9 +2,12 @@ package com.yourcompany.mapper;
 
 import com.yourcompany.entity.Product;
 import com.example.mybatis.annotation.*;
+import com.example.mybatis.cursor.Cursor;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 商品Mapper接口
@@ -29,6 +32,13 @@ public interface ProductMapper {
             "FROM products ORDER BY created_time DESC")
     List<Product> findAll();
     
+    /**
+     * 游标方式遍历所有商品 - 适合全量导出，逐行读取不占用大量内存
+     */
+    @Select("SELECT id, name, price, category, description, stock_quantity, created_time, updated_time " +
+            "FROM products ORDER BY id")
+    Cursor<Product> scanAll();
+    
     /**
      * 根据分类查询商品
      */
@@ -51,8 +61,9 @@ public interface ProductMapper {
     List<Product> findByNameLike(String namePattern);
     
     /**
-     * 查询库存低于指定数量的商品
+     * 查询库存低于指定数量的商品 - 用于补货，需要实时库存，不缓存
      */
+    @Cached(false)
     @Select("SELECT id, name, price, category, description, stock_quantity, created_time, updated_time " +
             "FROM products WHERE stock_quantity < ? ORDER BY stock_quantity ASC")
     List<Product> findLowStockProducts(Integer threshold);
@@ -63,6 +74,12 @@ public interface ProductMapper {
     @Select("SELECT COUNT(*) FROM products")
     Long countAll();
     
+    /**
+     * 异步统计各分类的商品数量 - 在有界异步执行器上执行
+     */
+    @Select("SELECT COUNT(*) FROM products WHERE category = ?")
+    CompletableFuture<Long> countByCategoryAsync(String category);
+    
     /**
      * 统计指定分类的商品数量
      */
@@ -70,9 +87,17 @@ public interface ProductMapper {
     Long countByCategory(String category);
     
     /**
-     * 获取所有商品分类
+     * 按分类查询库存不少于指定数量的商品 - 使用命名参数
+     */
+    @Select("SELECT id, name, price, category, description, stock_quantity, created_time, updated_time " +
+            "FROM products WHERE category = #{category} AND stock_quantity >= #{minStock} ORDER BY id")
+    List<Product> findInStockByCategory(@Param("category") String category, @Param("minStock") Integer minStock);
+    
+    /**
+     * 获取所有商品分类 - 参考数据，缓存6小时，5小时后在后台刷新；写入products表时仍会失效
      */
     @Select("SELECT DISTINCT category FROM products ORDER BY category")
+    @Cached(region = "categories", expireTime = 6, refreshTime = 5, timeUnit = TimeUnit.HOURS)
     List<String> findAllCategories();
     
     // ========== 插入操作 ==========
@@ -0,0 +1,634 @@
+package com.example.mybatis.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mapper实现类生成器
+ *
+ * 编译期读取 @MyBatisMapper 接口，为每个接口生成 <接口名>_MiniMyBatisImpl 实现类：
+ * 1. 语句ID在编译期确定，写成字符串常量
+ * 2. 参数按与运行时ParameterBinding相同的规则绑定：位置参数直接组成数组，#{a.b} 展开为getter调用
+ * 3. 每个方法直接调用SqlSession，没有动态代理和反射分派，调用点对JIT是单态的
+ * 4. @SelectIf 方法由注册时编译的条件选择分支，每个分支各自生成参数表达式
+ * 5. @SelectTemplate / @UpdateTemplate 方法直接传递全部实参，SQL由运行时编译的模板按参数渲染
+ *
+ * 运行时由MapperProxyFactory优先加载生成的类。无法静态生成的接口（如泛型方法、
+ * 继承的抽象方法、无法静态解析的属性）会输出提示并跳过，运行时继续使用动态代理
+ */
+@SupportedAnnotationTypes(MapperImplementationProcessor.MAPPER_ANNOTATION)
+public class MapperImplementationProcessor extends AbstractProcessor {
+
+    static final String MAPPER_ANNOTATION = "com.example.mybatis.annotation.MyBatisMapper";
+
+    private static final String ANNOTATION_PACKAGE = "com.example.mybatis.annotation.";
+
+    private static final String IMPLEMENTATION_SUFFIX = "_MiniMyBatisImpl";
+
+    private static final String SQL_SESSION = "com.example.mybatis.core.SqlSession";
+
+    private static final String SUPPORT = "com.example.mybatis.core.GeneratedMapperSupport";
+
+    private static final String RESULT_HANDLER = "com.example.mybatis.result.ResultHandler";
+
+    private static final String CURSOR = "com.example.mybatis.cursor.Cursor";
+
+    private static final String ELSE_BRANCH_SUFFIX = "#else";
+
+    private Elements elements;
+
+    private Types types;
+
+    private Messager messager;
+
+    private Filer filer;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.messager = processingEnv.getMessager();
+        this.filer = processingEnv.getFiler();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.INTERFACE) {
+                    processMapper((TypeElement) element);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void processMapper(TypeElement mapper) {
+        if (elements.getTypeElement(SQL_SESSION) == null) {
+            messager.printMessage(Diagnostic.Kind.WARNING,
+                    "编译类路径中没有mini-mybatis starter，跳过Mapper实现生成", mapper);
+            return;
+        }
+        try {
+            String source = new MapperWriter(mapper).write();
+            String implementationName = elements.getBinaryName(mapper) + IMPLEMENTATION_SUFFIX;
+            JavaFileObject file = filer.createSourceFile(implementationName, mapper);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source);
+            }
+        } catch (UnsupportedMapperException e) {
+            messager.printMessage(Diagnostic.Kind.NOTE,
+                    "跳过Mapper实现生成，运行时使用动态代理: " + e.getMessage(), e.element != null ? e.element : mapper);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "写入生成的Mapper实现失败: " + e.getMessage(), mapper);
+        }
+    }
+
+    /**
+     * 单个Mapper接口的源码生成
+     */
+    private final class MapperWriter {
+
+        private final TypeElement mapper;
+
+        private final String binaryName;
+
+        private final StringBuilder helpers = new StringBuilder();
+
+        private int helperCount;
+
+        MapperWriter(TypeElement mapper) {
+            this.mapper = mapper;
+            this.binaryName = elements.getBinaryName(mapper).toString();
+        }
+
+        String write() {
+            if (!mapper.getTypeParameters().isEmpty()) {
+                throw new UnsupportedMapperException("泛型Mapper接口", mapper);
+            }
+            String packageName = elements.getPackageOf(mapper).getQualifiedName().toString();
+            String simpleName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+            String className = simpleName + IMPLEMENTATION_SUFFIX;
+
+            StringBuilder methods = new StringBuilder();
+            for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(mapper))) {
+                Set<Modifier> modifiers = method.getModifiers();
+                if (!modifiers.contains(Modifier.ABSTRACT)) {
+                    continue;
+                }
+                if (!method.getEnclosingElement().equals(mapper)) {
+                    throw new UnsupportedMapperException("继承的抽象方法 " + method.getSimpleName(), method);
+                }
+                writeMethod(method, methods);
+            }
+
+            StringBuilder out = new StringBuilder();
+            if (!packageName.isEmpty()) {
+                out.append("package ").append(packageName).append(";\n\n");
+            }
+            out.append("/**\n")
+               .append(" * ").append(mapper.getQualifiedName()).append(" 的编译期实现，由mini-mybatis-processor生成，请勿修改\n")
+               .append(" */\n")
+               .append("public final class ").append(className)
+               .append(" implements ").append(mapper.getQualifiedName()).append(" {\n\n")
+               .append("    private final ").append(SQL_SESSION).append(" sqlSession;\n\n")
+               .append("    public ").append(className).append("(").append(SQL_SESSION).append(" sqlSession) {\n")
+               .append("        this.sqlSession = sqlSession;\n")
+               .append("    }\n")
+               .append(methods)
+               .append(helpers)
+               .append("\n    @Override\n")
+               .append("    public String toString() {\n")
+               .append("        return \"").append(className).append("\";\n")
+               .append("    }\n")
+               .append("}\n");
+            return out.toString();
+        }
+
+        private void writeMethod(ExecutableElement method, StringBuilder out) {
+            if (!method.getTypeParameters().isEmpty()) {
+                throw new UnsupportedMapperException("泛型方法 " + method.getSimpleName(), method);
+            }
+            String methodName = method.getSimpleName().toString();
+            List<? extends VariableElement> parameters = method.getParameters();
+
+            out.append("\n    @Override\n    public ").append(method.getReturnType()).append(' ')
+               .append(methodName).append('(');
+            for (int i = 0; i < parameters.size(); i++) {
+                if (i > 0) {
+                    out.append(", ");
+                }
+                VariableElement parameter = parameters.get(i);
+                TypeMirror type = parameter.asType();
+                if (method.isVarArgs() && i == parameters.size() - 1 && type.getKind() == TypeKind.ARRAY) {
+                    out.append(((ArrayType) type).getComponentType()).append("...");
+                } else {
+                    out.append(type);
+                }
+                out.append(' ').append(parameter.getSimpleName());
+            }
+            out.append(") {\n");
+
+            String sql = null;
+            String command = null;
+            AnnotationMirror selectIf = null;
+            for (String candidate : new String[]{"Select", "SelectIf", "SelectTemplate", "Insert", "Update",
+                    "UpdateTemplate", "Delete"}) {
+                AnnotationMirror mirror = annotation(method, candidate);
+                if (mirror != null) {
+                    sql = annotationValue(mirror, "value");
+                    command = candidate;
+                    if ("SelectIf".equals(candidate)) {
+                        selectIf = mirror;
+                    }
+                    break;
+                }
+            }
+            if (command == null) {
+                out.append("        throw ").append(SUPPORT).append(".missingSqlAnnotation(\"")
+                   .append(methodName).append("\");\n    }\n");
+                return;
+            }
+
+            TypeMirror returnType = method.getReturnType();
+            boolean async = isType(returnType, "java.util.concurrent.CompletableFuture");
+            TypeMirror resultType = async ? firstTypeArgument(returnType) : returnType;
+            String statementId = binaryName + "." + methodName;
+
+            int handlerIndex = resultHandlerIndex(parameters);
+            boolean template = command.endsWith("Template");
+            String parameterExpression;
+            if (template) {
+                String args = argumentList(method);
+                parameterExpression = args.isEmpty() ? "null" : "new Object[]{" + args + "}";
+            } else {
+                parameterExpression = parameterExpression(method, sql, handlerIndex);
+            }
+
+            List<String> body = new ArrayList<>();
+            if (selectIf != null) {
+                writeSelectIf(method, selectIf, resultType, statementId, parameterExpression, handlerIndex, body, async);
+            } else if (command.startsWith("Select")) {
+                writeSelect(method, resultType, statementId, parameterExpression, handlerIndex, body, async);
+            } else if ("UpdateTemplate".equals(command)) {
+                writeUpdate(method, "update", resultType, statementId, parameterExpression, body, async);
+            } else {
+                writeUpdate(method, command.toLowerCase(), resultType, statementId, parameterExpression, body, async);
+            }
+
+            if (async) {
+                String boxed = resultType.getKind() == TypeKind.VOID ? "java.lang.Void" : resultType.toString();
+                out.append("        return ").append(SUPPORT).append(".<")
+                   .append(boxed).append(">submitAsync(this.sqlSession, () -> {\n");
+                for (String line : body) {
+                    out.append("            ").append(line).append('\n');
+                }
+                out.append("        });\n");
+            } else {
+                for (String line : body) {
+                    out.append("        ").append(line).append('\n');
+                }
+            }
+            out.append("    }\n");
+        }
+
+        private void writeSelect(ExecutableElement method, TypeMirror resultType, String statementId,
+                                 String parameter, int handlerIndex, List<String> body, boolean async) {
+            String id = quote(statementId);
+            boolean isVoid = isVoid(resultType);
+
+            if (handlerIndex >= 0) {
+                body.add("this.sqlSession.select(" + id + ", " + parameter + ", "
+                        + method.getParameters().get(handlerIndex).getSimpleName() + ");");
+                if (resultType.getKind().isPrimitive()) {
+                    throw new UnsupportedMapperException("带ResultHandler参数的方法返回基本类型", method);
+                }
+                if (!isVoid || async) {
+                    body.add("return null;");
+                }
+                return;
+            }
+
+            if (isVoid) {
+                body.add("this.sqlSession.selectOne(" + id + ", " + parameter + ");");
+                if (async) {
+                    body.add("return null;");
+                }
+            } else if (resultType.getKind().isPrimitive()) {
+                String boxed = types.boxedClass((PrimitiveType) resultType).getQualifiedName().toString();
+                body.add("return " + SUPPORT + ".requirePrimitiveResult(this.sqlSession.<" + boxed + ">selectOne("
+                        + id + ", " + parameter + "), " + quote(method.getSimpleName().toString()) + ", "
+                        + quote(resultType.toString()) + ");");
+            } else if (isType(resultType, CURSOR)) {
+                body.add("return this.sqlSession.selectCursor(" + id + ", " + parameter + ");");
+            } else if (isType(resultType, "java.util.stream.Stream")) {
+                TypeMirror element = firstTypeArgument(resultType);
+                body.add("return " + SUPPORT + ".stream(this.sqlSession.<" + element + ">selectCursor("
+                        + id + ", " + parameter + "));");
+            } else if (isListCompatible(resultType)) {
+                body.add("return this.sqlSession.selectList(" + id + ", " + parameter + ");");
+            } else {
+                body.add("return this.sqlSession.selectOne(" + id + ", " + parameter + ");");
+            }
+        }
+
+        /**
+         * 条件查询：由运行时编译的条件选择分支，每个分支是注册时编译好的独立语句
+         */
+        private void writeSelectIf(ExecutableElement method, AnnotationMirror selectIf, TypeMirror resultType,
+                                   String statementId, String parameter, int handlerIndex, List<String> body,
+                                   boolean async) {
+            String args = argumentList(method);
+            body.add("Object[] mapper$args = " + (args.isEmpty() ? "new Object[0]" : "new Object[]{" + args + "}") + ";");
+            body.add("if (" + quote(statementId) + ".equals(" + SUPPORT + ".selectBranch(this.sqlSession, "
+                    + quote(statementId) + ", mapper$args))) {");
+            List<String> thenBody = new ArrayList<>();
+            writeSelect(method, resultType, statementId, parameter, handlerIndex, thenBody, async);
+            if (!thenBody.get(thenBody.size() - 1).startsWith("return")) {
+                thenBody.add("return;");
+            }
+            for (String line : thenBody) {
+                body.add("    " + line);
+            }
+            body.add("}");
+
+            String elseSql = annotationValue(selectIf, "elseSql");
+            if (elseSql != null && !elseSql.isEmpty()) {
+                writeSelect(method, resultType, statementId + ELSE_BRANCH_SUFFIX,
+                        parameterExpression(method, elseSql, handlerIndex), handlerIndex, body, async);
+            } else {
+                writeEmptyResult(method, resultType, handlerIndex, body, async);
+            }
+        }
+
+        /**
+         * 条件不满足且没有else分支时的结果，与运行时代理一致
+         */
+        private void writeEmptyResult(ExecutableElement method, TypeMirror resultType, int handlerIndex,
+                                      List<String> body, boolean async) {
+            if (handlerIndex >= 0 || isVoid(resultType)) {
+                if (async || !isVoid(resultType)) {
+                    body.add("return null;");
+                }
+            } else if (resultType.getKind().isPrimitive()) {
+                String boxed = types.boxedClass((PrimitiveType) resultType).getQualifiedName().toString();
+                body.add("return " + SUPPORT + ".requirePrimitiveResult((" + boxed + ") null, "
+                        + quote(method.getSimpleName().toString()) + ", " + quote(resultType.toString()) + ");");
+            } else if (isType(resultType, CURSOR)) {
+                body.add("return " + SUPPORT + ".emptyCursor();");
+            } else if (isType(resultType, "java.util.stream.Stream")) {
+                body.add("return java.util.stream.Stream.empty();");
+            } else if (isListCompatible(resultType)) {
+                body.add("return new java.util.ArrayList<>();");
+            } else {
+                body.add("return null;");
+            }
+        }
+
+        private void writeUpdate(ExecutableElement method, String operation, TypeMirror resultType,
+                                 String statementId, String parameter, List<String> body, boolean async) {
+            String call = "this.sqlSession." + operation + "(" + quote(statementId) + ", " + parameter + ")";
+            if (isVoid(resultType)) {
+                body.add(call + ";");
+                if (async) {
+                    body.add("return null;");
+                }
+                return;
+            }
+            String type = resultType.toString();
+            switch (type) {
+                case "int":
+                case "java.lang.Integer":
+                    body.add("return " + call + ";");
+                    break;
+                case "long":
+                case "java.lang.Long":
+                    body.add("return (long) " + call + ";");
+                    break;
+                case "boolean":
+                case "java.lang.Boolean":
+                    body.add("return " + call + " > 0;");
+                    break;
+                default:
+                    TypeMirror integer = elements.getTypeElement("java.lang.Integer").asType();
+                    if (!types.isAssignable(integer, resultType)) {
+                        throw new UnsupportedMapperException("更新方法返回类型 " + type, method);
+                    }
+                    body.add("return " + call + ";");
+            }
+        }
+
+        /**
+         * 全部参数名，逗号分隔，与运行时代理收到的实参数组一致
+         */
+        private String argumentList(ExecutableElement method) {
+            StringBuilder args = new StringBuilder();
+            for (VariableElement argument : method.getParameters()) {
+                args.append(args.length() == 0 ? "" : ", ").append(argument.getSimpleName());
+            }
+            return args.toString();
+        }
+
+        /**
+         * 生成参数表达式，规则与运行时ParameterBinding一致
+         */
+        private String parameterExpression(ExecutableElement method, String sql, int handlerIndex) {
+            List<VariableElement> arguments = new ArrayList<>();
+            for (int i = 0; i < method.getParameters().size(); i++) {
+                if (i != handlerIndex) {
+                    arguments.add(method.getParameters().get(i));
+                }
+            }
+
+            SqlPlaceholders placeholders;
+            try {
+                placeholders = SqlPlaceholders.parse(sql);
+            } catch (IllegalArgumentException e) {
+                throw new UnsupportedMapperException(e.getMessage(), method);
+            }
+            if (placeholders.names.isEmpty()) {
+                if (arguments.size() == 1 && "java.lang.Object[]".equals(arguments.get(0).asType().toString())) {
+                    return arguments.get(0).getSimpleName().toString();
+                }
+                if (placeholders.positionalCount < arguments.size() && annotation(method, "SelectIf") == null) {
+                    throw new UnsupportedMapperException("SQL中的 ? 占位符少于方法参数", method);
+                }
+                int count = Math.min(placeholders.positionalCount, arguments.size());
+                if (count == 0) {
+                    return "null";
+                }
+                StringBuilder array = new StringBuilder("new Object[]{");
+                for (int i = 0; i < count; i++) {
+                    if (i > 0) {
+                        array.append(", ");
+                    }
+                    array.append(arguments.get(i).getSimpleName());
+                }
+                return array.append('}').toString();
+            }
+            if (placeholders.positionalCount > 0) {
+                throw new UnsupportedMapperException("SQL中混用 ? 和 #{} 占位符", method);
+            }
+
+            StringBuilder array = new StringBuilder("new Object[]{");
+            for (int i = 0; i < placeholders.names.size(); i++) {
+                if (i > 0) {
+                    array.append(", ");
+                }
+                array.append(namedSlot(method, placeholders.names.get(i), arguments));
+            }
+            return array.append('}').toString();
+        }
+
+        private String namedSlot(ExecutableElement method, String expression, List<VariableElement> arguments) {
+            String[] path = expression.split("\\.");
+            VariableElement root = null;
+            for (int i = 0; i < arguments.size() && root == null; i++) {
+                VariableElement argument = arguments.get(i);
+                AnnotationMirror param = annotation(argument, "Param");
+                if (param != null ? path[0].equals(annotationValue(param, "value"))
+                        : path[0].equals(argument.getSimpleName().toString())) {
+                    root = argument;
+                } else if (path[0].equals("param" + (i + 1))) {
+                    root = argument;
+                }
+            }
+            int propertyStart = 1;
+            if (root == null) {
+                if (arguments.size() != 1) {
+                    throw new UnsupportedMapperException("找不到参数 '" + path[0] + "'", method);
+                }
+                root = arguments.get(0);
+                propertyStart = 0;
+            }
+            if (propertyStart == path.length) {
+                return root.getSimpleName().toString();
+            }
+
+            // 属性路径生成为私有静态方法，逐级判空，与运行时一致
+            String helperName = "slot" + (helperCount++);
+            TypeMirror type = root.asType();
+            helpers.append("\n    private static Object ").append(helperName).append('(')
+                   .append(types.erasure(type)).append(" value0) {\n");
+            for (int i = propertyStart; i < path.length; i++) {
+                int level = i - propertyStart;
+                if (type.getKind().isPrimitive()) {
+                    throw new UnsupportedMapperException("基本类型没有属性: " + expression, method);
+                }
+                helpers.append("        if (value").append(level).append(" == null) {\n")
+                       .append("            return null;\n")
+                       .append("        }\n");
+                String access;
+                if (isAssignableToErasure(type, "java.util.Map")) {
+                    access = "((java.util.Map<?, ?>) value" + level + ").get(" + quote(path[i]) + ")";
+                    type = elements.getTypeElement("java.lang.Object").asType();
+                    if (i < path.length - 1) {
+                        throw new UnsupportedMapperException("Map值的属性无法静态解析: " + expression, method);
+                    }
+                } else {
+                    ExecutableElement getter = findGetter(type, path[i]);
+                    if (getter == null) {
+                        throw new UnsupportedMapperException("类型 " + type + " 没有可读属性 " + path[i], method);
+                    }
+                    access = "value" + level + "." + getter.getSimpleName() + "()";
+                    type = ((ExecutableType) types.asMemberOf((DeclaredType) type, getter)).getReturnType();
+                }
+                if (i < path.length - 1) {
+                    helpers.append("        ").append(types.erasure(type)).append(" value").append(level + 1)
+                           .append(" = ").append(access).append(";\n");
+                } else {
+                    helpers.append("        return ").append(access).append(";\n");
+                }
+            }
+            helpers.append("    }\n");
+            return helperName + "(" + root.getSimpleName() + ")";
+        }
+
+        private ExecutableElement findGetter(TypeMirror type, String property) {
+            if (type.getKind() != TypeKind.DECLARED) {
+                return null;
+            }
+            TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+            String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+            for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(typeElement))) {
+                String name = method.getSimpleName().toString();
+                if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)
+                        || !method.getParameters().isEmpty()) {
+                    continue;
+                }
+                if (name.equals("get" + capitalized)
+                        || (name.equals("is" + capitalized) && method.getReturnType().getKind() == TypeKind.BOOLEAN)) {
+                    return method;
+                }
+            }
+            return null;
+        }
+
+        private int resultHandlerIndex(List<? extends VariableElement> parameters) {
+            for (int i = 0; i < parameters.size(); i++) {
+                if (isAssignableToErasure(parameters.get(i).asType(), RESULT_HANDLER)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 与运行时判断一致：返回类型是List的父类型（List、Collection、Iterable、Object）时按列表返回
+         */
+        private boolean isListCompatible(TypeMirror type) {
+            TypeElement list = elements.getTypeElement("java.util.List");
+            return types.isAssignable(types.erasure(list.asType()), types.erasure(type));
+        }
+    }
+
+    private boolean isVoid(TypeMirror type) {
+        return type.getKind() == TypeKind.VOID || isType(type, "java.lang.Void");
+    }
+
+    private boolean isType(TypeMirror type, String qualifiedName) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(qualifiedName);
+    }
+
+    private boolean isAssignableToErasure(TypeMirror type, String qualifiedName) {
+        TypeElement target = elements.getTypeElement(qualifiedName);
+        return target != null && types.isAssignable(types.erasure(type), types.erasure(target.asType()));
+    }
+
+    private TypeMirror firstTypeArgument(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED) {
+            List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+            if (!arguments.isEmpty() && arguments.get(0).getKind() == TypeKind.DECLARED) {
+                return arguments.get(0);
+            }
+        }
+        return elements.getTypeElement("java.lang.Object").asType();
+    }
+
+    private static AnnotationMirror annotation(Element element, String simpleName) {
+        String qualifiedName = ANNOTATION_PACKAGE + simpleName;
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(qualifiedName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static String annotationValue(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return String.valueOf(entry.getValue().getValue());
+            }
+        }
+        return null;
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\');
+            }
+            quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * 当前接口无法静态生成
+     */
+    private static final class UnsupportedMapperException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        /** 报告诊断信息的位置，只在当前编译轮次内使用，不参与序列化 */
+        private final transient Element element;
+
+        UnsupportedMapperException(String message, Element element) {
+            super(message);
+            this.element = element;
+        }
+    }
+}
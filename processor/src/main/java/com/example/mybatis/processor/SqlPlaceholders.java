@@ -0,0 +1,60 @@
+package com.example.mybatis.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL占位符扫描结果
+ *
+ * 扫描规则与运行时ParameterBinding一致：忽略字符串字面量和引号标识符中的占位符，
+ * #{name,jdbcType=...} 只取逗号前的参数表达式
+ */
+final class SqlPlaceholders {
+
+    final List<String> names;
+
+    final int positionalCount;
+
+    private SqlPlaceholders(List<String> names, int positionalCount) {
+        this.names = names;
+        this.positionalCount = positionalCount;
+    }
+
+    static SqlPlaceholders parse(String sql) {
+        List<String> names = new ArrayList<>();
+        if (sql == null) {
+            return new SqlPlaceholders(names, 0);
+        }
+        int positional = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                positional++;
+            } else if (c == '#' && i + 1 < sql.length() && sql.charAt(i + 1) == '{') {
+                int end = sql.indexOf('}', i + 2);
+                if (end < 0) {
+                    throw new IllegalArgumentException("#{ 占位符未闭合");
+                }
+                String expression = sql.substring(i + 2, end);
+                int comma = expression.indexOf(',');
+                if (comma >= 0) {
+                    expression = expression.substring(0, comma);
+                }
+                expression = expression.trim();
+                if (expression.isEmpty()) {
+                    throw new IllegalArgumentException("#{} 占位符缺少参数名");
+                }
+                names.add(expression);
+                i = end;
+            }
+        }
+        return new SqlPlaceholders(names, positional);
+    }
+}
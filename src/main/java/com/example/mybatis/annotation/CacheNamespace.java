@@ -0,0 +1,54 @@
+package com.example.mybatis.annotation;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapper缓存策略注解 - Mapper中所有语句的默认缓存设置，方法上的 {@link Cached} 可以逐项覆盖
+ * <pre>
+ * &#64;MyBatisMapper
+ * &#64;CacheNamespace(expireTime = 10, timeUnit = TimeUnit.MINUTES, maxEntries = 5000)
+ * public interface CategoryMapper { ... }
+ * </pre>
+ * 标注后Mapper中的查询属于同一个缓存区域（默认为Mapper的全限定名），其他Mapper的写语句可以通过
+ * {@link Cached#flush()} 清除该区域
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CacheNamespace {
+    /**
+     * 是否缓存查询结果
+     */
+    boolean value() default true;
+
+    /**
+     * 缓存区域，为空时使用Mapper的全限定名
+     */
+    String region() default "";
+
+    /**
+     * 过期时间，0表示使用全局配置
+     */
+    long expireTime() default 0;
+
+    /**
+     * 刷新时间，0表示使用全局配置
+     */
+    long refreshTime() default 0;
+
+    /**
+     * 过期时间和刷新时间的单位
+     */
+    TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * 区域的最大缓存项数，大于0时该区域使用独立的二级缓存
+     */
+    int maxEntries() default 0;
+
+    /**
+     * Mapper中的写语句执行后清除的缓存区域
+     */
+    String[] flush() default {};
+}
@@ -0,0 +1,64 @@
+package com.example.mybatis.annotation;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语句缓存策略注解 - 覆盖 {@link CacheNamespace} 和全局缓存配置
+ *
+ * 参考数据可以缓存较长时间，变化频繁或需要实时结果的查询可以不缓存：
+ * <pre>
+ * &#64;Select("SELECT DISTINCT category FROM products ORDER BY category")
+ * &#64;Cached(region = "categories", expireTime = 6, refreshTime = 5, timeUnit = TimeUnit.HOURS)
+ * List&lt;String&gt; findAllCategories();
+ *
+ * &#64;Select("SELECT * FROM products WHERE stock_quantity &lt; ?")
+ * &#64;Cached(false)
+ * List&lt;Product&gt; findLowStockProducts(Integer threshold);
+ *
+ * &#64;Insert("INSERT INTO categories(name) VALUES(?)")
+ * &#64;Cached(flush = "categories")
+ * int insertCategory(String name);
+ * </pre>
+ * 未设置的属性使用Mapper上 {@link CacheNamespace} 的设置，再使用全局缓存配置；
+ * 按表失效仍然生效，缓存时间只是结果可以使用的上限
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cached {
+    /**
+     * 是否缓存查询结果，为false时每次都查询数据库
+     */
+    boolean value() default true;
+
+    /**
+     * 缓存区域，为空时使用 {@link CacheNamespace} 的区域；写语句可以通过 {@link #flush()} 清除整个区域
+     */
+    String region() default "";
+
+    /**
+     * 过期时间，0表示使用全局配置
+     */
+    long expireTime() default 0;
+
+    /**
+     * 刷新时间，超过后读取仍返回缓存的结果并异步重新加载，需小于过期时间；0表示使用全局配置
+     */
+    long refreshTime() default 0;
+
+    /**
+     * 过期时间和刷新时间的单位
+     */
+    TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * 区域的最大缓存项数，大于0时该区域使用独立的二级缓存，不与其他语句争用容量
+     */
+    int maxEntries() default 0;
+
+    /**
+     * 执行后清除的缓存区域，用于写语句
+     */
+    String[] flush() default {};
+}
@@ -0,0 +1,18 @@
+package com.example.mybatis.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 参数注解 - 为Mapper方法参数指定名称，供SQL中的 #{name} 占位符引用
+ *
+ * 未标注时依次使用编译参数名（需要-parameters编译选项）和 param1、param2... 形式的通用名称
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Param {
+    /**
+     * 参数名称
+     */
+    String value();
+}
@@ -0,0 +1,26 @@
+package com.example.mybatis.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 动态SQL模板查询注解
+ *
+ * 支持以下标签，模板在注册时编译一次：
+ * <pre>
+ * &lt;if test="name != null"&gt;...&lt;/if&gt;        条件片段，test语法与 @SelectIf 的condition相同
+ * &lt;where&gt;...&lt;/where&gt;                       内容非空时加上WHERE，并去掉开头的AND/OR
+ * &lt;set&gt;...&lt;/set&gt;                           内容非空时加上SET，并去掉多余的逗号
+ * &lt;foreach collection="ids" item="id" open="(" separator="," close=")"&gt;#{id}&lt;/foreach&gt;
+ * </pre>
+ * 参数使用 #{name} 占位符，foreach内可用 #{item}、#{item.property} 和 #{index} 引用当前元素
+ * test条件只能引用方法参数，不能引用foreach的当前元素
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface SelectTemplate {
+    /**
+     * SQL模板
+     */
+    String value();
+}
@@ -0,0 +1,30 @@
+package com.example.mybatis.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 表依赖注解 - 指定语句读取和写入的表，覆盖从SQL中自动提取的结果
+ *
+ * 查询结果缓存按表失效：写入某个表的语句执行后，读取该表的语句的缓存全部失效。
+ * 自动提取无法识别的情况需要手动指定，例如查询视图、调用存储过程或函数内部访问了其他表
+ * <pre>
+ * &#64;Select("SELECT * FROM product_summary_view")
+ * &#64;TableDependency(reads = {"products", "categories"})
+ * List&lt;ProductSummary&gt; findSummaries();
+ * </pre>
+ * 未指定的一侧仍从SQL中提取
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TableDependency {
+    /**
+     * 读取的表
+     */
+    String[] reads() default {};
+
+    /**
+     * 写入的表
+     */
+    String[] writes() default {};
+}
@@ -0,0 +1,18 @@
+package com.example.mybatis.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 动态SQL模板更新注解 - 用于INSERT、UPDATE、DELETE
+ *
+ * 模板语法与 {@link SelectTemplate} 相同，操作类型按SQL开头的关键字判断
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface UpdateTemplate {
+    /**
+     * SQL模板
+     */
+    String value();
+}
@@ -0,0 +1,69 @@
+package com.example.mybatis.async;
+
+/**
+ * 异步执行器指标快照
+ */
+public class AsyncExecutorMetrics {
+
+    private final String name;
+    private final AsyncExecutorMode mode;
+    private final long submittedTasks;
+    private final long completedTasks;
+    private final long failedTasks;
+    private final long callerRunsTasks;
+    private final long inlineTransactionalTasks;
+    private final int activeThreads;
+    private final int poolSize;
+    private final int largestPoolSize;
+    private final int queueSize;
+    private final int queueRemainingCapacity;
+
+    public AsyncExecutorMetrics(String name, AsyncExecutorMode mode, long submittedTasks, long completedTasks,
+                                long failedTasks, long callerRunsTasks, long inlineTransactionalTasks, int activeThreads,
+                                int poolSize, int largestPoolSize, int queueSize, int queueRemainingCapacity) {
+        this.name = name;
+        this.mode = mode;
+        this.submittedTasks = submittedTasks;
+        this.completedTasks = completedTasks;
+        this.failedTasks = failedTasks;
+        this.callerRunsTasks = callerRunsTasks;
+        this.inlineTransactionalTasks = inlineTransactionalTasks;
+        this.activeThreads = activeThreads;
+        this.poolSize = poolSize;
+        this.largestPoolSize = largestPoolSize;
+        this.queueSize = queueSize;
+        this.queueRemainingCapacity = queueRemainingCapacity;
+    }
+
+    public String getName() { return name; }
+    public AsyncExecutorMode getMode() { return mode; }
+    public long getSubmittedTasks() { return submittedTasks; }
+    public long getCompletedTasks() { return completedTasks; }
+    public long getFailedTasks() { return failedTasks; }
+    /** 队列已满（虚拟线程模式下为在途任务达到上限）、由调用线程执行的任务数 */
+    public long getCallerRunsTasks() { return callerRunsTasks; }
+    /** 调用方处于事务中、在当前线程执行的任务数 */
+    public long getInlineTransactionalTasks() { return inlineTransactionalTasks; }
+    /** 活跃线程数，虚拟线程模式下为在途任务数 */
+    public int getActiveThreads() { return activeThreads; }
+    public int getPoolSize() { return poolSize; }
+    public int getLargestPoolSize() { return largestPoolSize; }
+    public int getQueueSize() { return queueSize; }
+    public int getQueueRemainingCapacity() { return queueRemainingCapacity; }
+
+    @Override
+    public String toString() {
+        return "AsyncExecutorMetrics{" +
+                "name='" + name + '\'' +
+                ", mode=" + mode +
+                ", submitted=" + submittedTasks +
+                ", completed=" + completedTasks +
+                ", failed=" + failedTasks +
+                ", callerRuns=" + callerRunsTasks +
+                ", inlineTransactional=" + inlineTransactionalTasks +
+                ", active=" + activeThreads +
+                ", poolSize=" + poolSize +
+                ", queueSize=" + queueSize +
+                '}';
+    }
+}
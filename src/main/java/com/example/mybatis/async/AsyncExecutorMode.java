@@ -0,0 +1,11 @@
+package com.example.mybatis.async;
+
+/**
+ * 异步Mapper执行器的线程模式
+ */
+public enum AsyncExecutorMode {
+    /** 有界平台线程池（默认） */
+    PLATFORM,
+    /** 每个任务一个虚拟线程，需要Java 21及以上运行时 */
+    VIRTUAL
+}
@@ -0,0 +1,322 @@
+package com.example.mybatis.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 异步Mapper执行器 - 执行返回CompletableFuture的Mapper方法
+ *
+ * 特性：
+ * 1. 有界线程池 + 有界队列，队列满时由调用线程执行（背压），不会无限堆积任务
+ * 2. 每个线程池独立统计提交、完成、失败、调用方执行次数等指标
+ * 3. 上下文传递：MDC日志上下文、线程上下文类加载器，以及可选的TaskDecorator
+ * 4. 事务传递：JDBC事务绑定在调用线程的连接上，无法跨线程共享，
+ *    因此调用方处于Spring事务中时直接在当前线程执行，保证读写仍在同一事务内
+ * 5. 虚拟线程模式（Java 21+）：每个任务一个虚拟线程，不再需要按并发量调整线程池大小，
+ *    仅用信号量限制同时在途的任务数，超出时同样由调用线程执行
+ *
+ * 虚拟线程中执行的查询会经过配置、缓存等组件的临界区。Java 21的虚拟线程在synchronized块内
+ * 阻塞时会钉住载体线程，少量载体线程被占满后其他虚拟线程都无法运行，
+ * 因此这些组件中可能等待的锁都使用ReentrantLock
+ */
+public class AsyncMapperExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncMapperExecutor.class);
+
+    private final String name;
+
+    private final AsyncExecutorMode mode;
+
+    /** 实际执行任务的线程池，平台线程模式下是threadPool本身 */
+    private final ExecutorService executorService;
+
+    /** 平台线程池，虚拟线程模式下为null */
+    private final ThreadPoolExecutor threadPool;
+
+    /** 虚拟线程模式下的在途任务许可，平台线程模式下为null */
+    private final Semaphore inFlightPermits;
+
+    private final int maxConcurrency;
+
+    private final TaskDecorator taskDecorator;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder inlineTransactional = new LongAdder();
+    private final AtomicInteger largestInFlight = new AtomicInteger();
+
+    /**
+     * 创建平台线程模式的执行器
+     */
+    public AsyncMapperExecutor(String name, int corePoolSize, int maxPoolSize, int queueCapacity,
+                               TaskDecorator taskDecorator) {
+        this.name = name;
+        this.mode = AsyncExecutorMode.PLATFORM;
+        this.taskDecorator = taskDecorator;
+        this.threadPool = new ThreadPoolExecutor(
+                corePoolSize,
+                Math.max(corePoolSize, maxPoolSize),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                new NamedThreadFactory(name),
+                new CountingCallerRunsPolicy());
+        this.threadPool.allowCoreThreadTimeOut(true);
+        this.executorService = threadPool;
+        this.inFlightPermits = null;
+        this.maxConcurrency = threadPool.getMaximumPoolSize() + queueCapacity;
+    }
+
+    private AsyncMapperExecutor(String name, int maxConcurrency, TaskDecorator taskDecorator) {
+        this.name = name;
+        this.mode = AsyncExecutorMode.VIRTUAL;
+        this.taskDecorator = taskDecorator;
+        this.executorService = VirtualThreadSupport.newVirtualThreadPerTaskExecutor(name);
+        this.threadPool = null;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.inFlightPermits = new Semaphore(this.maxConcurrency);
+    }
+
+    /**
+     * 创建虚拟线程模式的执行器
+     *
+     * @param maxConcurrency 同时在途的最大任务数，通常按连接池大小的若干倍设置
+     * @throws UnsupportedOperationException 当前运行时不支持虚拟线程
+     */
+    public static AsyncMapperExecutor virtualThreads(String name, int maxConcurrency, TaskDecorator taskDecorator) {
+        if (!isVirtualThreadsAvailable()) {
+            throw new UnsupportedOperationException("虚拟线程需要Java 21及以上运行时");
+        }
+        return new AsyncMapperExecutor(name, maxConcurrency, taskDecorator);
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程模式
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return VirtualThreadSupport.isAvailable();
+    }
+
+    /**
+     * 异步执行任务
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        submitted.increment();
+
+        // 调用方处于事务中：在当前线程执行，保持事务语义
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            inlineTransactional.increment();
+            logger.debug("调用方处于事务中，异步Mapper方法在当前线程执行");
+            return runInline(task);
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable runnable = wrap(() -> {
+            try {
+                T result = task.get();
+                completed.increment();
+                future.complete(result);
+            } catch (Throwable e) {
+                failed.increment();
+                future.completeExceptionally(e);
+            }
+        });
+
+        if (inFlightPermits == null) {
+            threadPool.execute(runnable);
+        } else {
+            executeOnVirtualThread(runnable);
+        }
+        return future;
+    }
+
+    /**
+     * 在虚拟线程上执行，在途任务达到上限或执行器已关闭时由调用线程执行
+     */
+    private void executeOnVirtualThread(Runnable runnable) {
+        if (!inFlightPermits.tryAcquire()) {
+            callerRuns.increment();
+            runnable.run();
+            return;
+        }
+        largestInFlight.accumulateAndGet(maxConcurrency - inFlightPermits.availablePermits(), Math::max);
+        try {
+            executorService.execute(() -> {
+                try {
+                    runnable.run();
+                } finally {
+                    inFlightPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightPermits.release();
+            callerRuns.increment();
+            logger.warn("异步Mapper执行器已关闭，任务在调用线程执行");
+            runnable.run();
+        }
+    }
+
+    /**
+     * 在调用线程执行任务，返回已完成的Future
+     *
+     * 用于执行器绑定在会话上、不能跨线程使用的会话（语句复用和批处理）
+     */
+    public <T> CompletableFuture<T> executeInline(Supplier<T> task) {
+        submitted.increment();
+        return runInline(task);
+    }
+
+    private <T> CompletableFuture<T> runInline(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(task.get());
+            completed.increment();
+        } catch (Throwable e) {
+            failed.increment();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 包装任务：传递调用线程的MDC和上下文类加载器，并应用TaskDecorator
+     */
+    private Runnable wrap(Runnable task) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        Runnable contextual = () -> {
+            Thread thread = Thread.currentThread();
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            ClassLoader previousClassLoader = thread.getContextClassLoader();
+            setMdc(mdc);
+            thread.setContextClassLoader(contextClassLoader);
+            try {
+                task.run();
+            } finally {
+                thread.setContextClassLoader(previousClassLoader);
+                setMdc(previousMdc);
+            }
+        };
+        return taskDecorator != null ? taskDecorator.decorate(contextual) : contextual;
+    }
+
+    private static void setMdc(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+
+    /**
+     * 获取线程池指标快照
+     */
+    public AsyncExecutorMetrics getMetrics() {
+        if (threadPool == null) {
+            // 虚拟线程没有池和队列，活跃数即在途任务数，剩余容量即剩余许可
+            int inFlight = maxConcurrency - inFlightPermits.availablePermits();
+            return new AsyncExecutorMetrics(
+                    name,
+                    mode,
+                    submitted.sum(),
+                    completed.sum(),
+                    failed.sum(),
+                    callerRuns.sum(),
+                    inlineTransactional.sum(),
+                    inFlight,
+                    inFlight,
+                    largestInFlight.get(),
+                    0,
+                    inFlightPermits.availablePermits());
+        }
+        return new AsyncExecutorMetrics(
+                name,
+                mode,
+                submitted.sum(),
+                completed.sum(),
+                failed.sum(),
+                callerRuns.sum(),
+                inlineTransactional.sum(),
+                threadPool.getActiveCount(),
+                threadPool.getPoolSize(),
+                threadPool.getLargestPoolSize(),
+                threadPool.getQueue().size(),
+                threadPool.getQueue().remainingCapacity());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public AsyncExecutorMode getMode() {
+        return mode;
+    }
+
+    /**
+     * 关闭执行器，等待已提交的任务执行完毕
+     */
+    public void shutdown() {
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("异步Mapper执行器已关闭: {}", getMetrics());
+    }
+
+    /**
+     * 队列已满时由调用线程执行，并记录次数
+     */
+    private class CountingCallerRunsPolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            callerRuns.increment();
+            if (executor.isShutdown()) {
+                // 已关闭时仍在调用线程执行，避免返回的Future永远不完成
+                logger.warn("异步Mapper执行器已关闭，任务在调用线程执行");
+            }
+            r.run();
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.mybatis.async;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 虚拟线程支持
+ *
+ * 本类是Java 8基线版本，始终报告不可用。
+ * Java 21构建会把覆盖版本编译进多版本JAR的META-INF/versions/21目录，
+ * 在Java 21及以上运行时自动加载覆盖版本，无需反射
+ */
+final class VirtualThreadSupport {
+
+    private VirtualThreadSupport() {
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     */
+    static boolean isAvailable() {
+        return false;
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        throw new UnsupportedOperationException("虚拟线程需要Java 21及以上运行时");
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.mybatis.binding;
+
+import com.example.mybatis.annotation.Param;
+import com.example.mybatis.annotation.SelectIf;
+import com.example.mybatis.exception.MyBatisException;
+import com.example.mybatis.result.ResultHandler;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 参数绑定计划 - 每个Mapper方法在注册时编译一次
+ *
+ * 支持两种占位符写法（同一条SQL中不能混用）：
+ * 1. 位置占位符 ?：按顺序绑定方法参数（ResultHandler参数除外），除 @SelectIf 分支外占位符不能少于参数
+ * 2. 命名占位符 #{name}：按 @Param 名称、编译参数名或 param1、param2... 绑定，
+ *    支持 #{user.name} 形式的属性路径；方法只有一个参数时可直接写属性名 #{name}
+ *
+ * 编译结果包括改写为 ? 的SQL、每个JDBC参数位置的取值方式和SQL类型，
+ * 调用时只需按位置取值，不再做字符串替换和参数数组重排
+ */
+public final class ParameterBinding {
+
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    private final String sql;
+
+    /** 每个JDBC参数位置的取值方式 */
+    private final Slot[] slots;
+
+    /** 每个JDBC参数位置的SQL类型，类型未知时为 SqlTypeValue.TYPE_UNKNOWN */
+    private final int[] sqlTypes;
+
+    /** 参数名 -> 方法参数下标，不含ResultHandler参数 */
+    private final Map<String, Integer> parameterIndexes;
+
+    /** 方法参数即为JDBC参数（位置占位符且没有ResultHandler参数），可直接使用方法实参数组 */
+    private final boolean identity;
+
+    /** 唯一参数是Object[]时按数组展开，兼容直接传入参数数组的写法；该参数的下标，-1表示不展开 */
+    private final int spreadIndex;
+
+    private ParameterBinding(String sql, Slot[] slots, Map<String, Integer> parameterIndexes,
+                             boolean identity, int spreadIndex) {
+        this.sql = sql;
+        this.slots = slots;
+        this.parameterIndexes = parameterIndexes;
+        this.identity = identity;
+        this.spreadIndex = spreadIndex;
+        this.sqlTypes = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            sqlTypes[i] = slots[i].sqlType;
+        }
+    }
+
+    /**
+     * 根据方法签名和注解中的SQL编译绑定计划
+     */
+    public static ParameterBinding compile(Method method, String sql) {
+        List<Integer> argIndexes = new ArrayList<>();
+        Map<String, Integer> names = parameterNames(method, argIndexes);
+
+        ParsedSql parsed = ParsedSql.parse(sql);
+        if (parsed.names.isEmpty()) {
+            return compilePositional(method, parsed.sql, parsed.positionalCount, argIndexes, names);
+        }
+        if (parsed.positionalCount > 0) {
+            throw new MyBatisException("PARAMETER_BINDING_ERROR",
+                    "SQL中不能混用 ? 和 #{} 占位符: " + method, sql, null);
+        }
+
+        Slot[] slots = new Slot[parsed.names.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = resolveNamedSlot(method, parsed.names.get(i), argIndexes, names);
+        }
+        return new ParameterBinding(parsed.sql, slots, names, false, -1);
+    }
+
+    /**
+     * 收集参数名 -> 方法参数下标（param1、param2...、@Param 名称和编译参数名），
+     * 并把参与绑定的参数下标（ResultHandler参数除外）按顺序写入argIndexes
+     */
+    static Map<String, Integer> parameterNames(Method method, List<Integer> argIndexes) {
+        Parameter[] parameters = method.getParameters();
+        Map<String, Integer> names = new LinkedHashMap<>();
+        for (int i = 0; i < parameters.length; i++) {
+            if (ResultHandler.class.isAssignableFrom(parameters[i].getType())) {
+                continue;
+            }
+            argIndexes.add(i);
+            names.put("param" + argIndexes.size(), i);
+            Param param = parameters[i].getAnnotation(Param.class);
+            if (param != null) {
+                names.put(param.value(), i);
+            } else if (parameters[i].isNamePresent()) {
+                names.put(parameters[i].getName(), i);
+            }
+        }
+        return names;
+    }
+
+    private static ParameterBinding compilePositional(Method method, String sql, int placeholderCount,
+                                                      List<Integer> argIndexes, Map<String, Integer> names) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (argIndexes.size() == 1 && Object[].class.equals(parameterTypes[argIndexes.get(0)])) {
+            Slot[] slots = new Slot[placeholderCount];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = new Slot(new ParameterPath(i, null, Object.class), SqlTypeValue.TYPE_UNKNOWN);
+            }
+            return new ParameterBinding(sql, slots, names, false, argIndexes.get(0));
+        }
+
+        // 占位符少于参数说明有参数不会被绑定（多为漏写了 ?），注册时直接拒绝；
+        // @SelectIf 的参数可能只在条件中使用，分支SQL只绑定前面的参数；
+        // 占位符多于参数时按参数绑定，执行时由会话报告数量不匹配
+        boolean conditional = method.isAnnotationPresent(SelectIf.class);
+        if (placeholderCount < argIndexes.size() && !conditional) {
+            throw new MyBatisException("PARAMETER_BINDING_ERROR",
+                    "SQL中的 ? 占位符(" + placeholderCount + "个)少于方法参数(" + argIndexes.size() + "个): " + method,
+                    sql, null);
+        }
+        Slot[] slots = new Slot[Math.min(placeholderCount, argIndexes.size())];
+        for (int i = 0; i < slots.length; i++) {
+            int argIndex = argIndexes.get(i);
+            slots[i] = new Slot(new ParameterPath(argIndex, null, parameterTypes[argIndex]),
+                    sqlTypeOf(parameterTypes[argIndex]));
+        }
+        boolean identity = slots.length == parameterTypes.length;
+        return new ParameterBinding(sql, slots, names, identity, -1);
+    }
+
+    private static Slot resolveNamedSlot(Method method, String expression, List<Integer> argIndexes,
+                                         Map<String, Integer> names) {
+        ParameterPath path = ParameterPath.resolve(method, expression, argIndexes, names);
+        return new Slot(path, sqlTypeOf(path.getType()));
+    }
+
+    private static int sqlTypeOf(Class<?> javaType) {
+        if (Object.class.equals(javaType)) {
+            return SqlTypeValue.TYPE_UNKNOWN;
+        }
+        return StatementCreatorUtils.javaTypeToSqlParameterType(javaType);
+    }
+
+    /**
+     * 按绑定计划把方法实参转换为JDBC参数数组
+     */
+    public Object[] bind(Object[] args) {
+        if (args == null) {
+            return EMPTY_ARGS;
+        }
+        if (identity) {
+            return args;
+        }
+        if (spreadIndex >= 0) {
+            Object[] array = (Object[]) args[spreadIndex];
+            return array != null ? array : EMPTY_ARGS;
+        }
+        Object[] values = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            values[i] = slots[i].read(args);
+        }
+        return values;
+    }
+
+    /**
+     * 改写后的SQL，#{} 占位符已替换为 ?
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * 每个JDBC参数位置的SQL类型
+     */
+    public int[] getSqlTypes() {
+        return sqlTypes;
+    }
+
+    /**
+     * 参数名 -> 方法参数下标（包括 @Param 名称、编译参数名和 paramN）
+     */
+    public Map<String, Integer> getParameterIndexes() {
+        return parameterIndexes;
+    }
+
+    public boolean isIdentity() {
+        return identity;
+    }
+
+    @Override
+    public String toString() {
+        return "ParameterBinding{" +
+                "slots=" + slots.length +
+                ", sqlTypes=" + Arrays.toString(sqlTypes) +
+                ", identity=" + identity +
+                '}';
+    }
+
+    /**
+     * 单个JDBC参数位置：参数路径 + SQL类型
+     */
+    private static final class Slot {
+
+        private final ParameterPath path;
+
+        private final int sqlType;
+
+        Slot(ParameterPath path, int sqlType) {
+            this.path = path;
+            this.sqlType = sqlType;
+        }
+
+        Object read(Object[] args) {
+            return path.read(args);
+        }
+    }
+
+    /**
+     * 解析后的SQL：#{} 替换为 ?，并记录每个命名占位符的表达式
+     */
+    private static final class ParsedSql {
+
+        private final String sql;
+
+        private final List<String> names;
+
+        private final int positionalCount;
+
+        private ParsedSql(String sql, List<String> names, int positionalCount) {
+            this.sql = sql;
+            this.names = names;
+            this.positionalCount = positionalCount;
+        }
+
+        /**
+         * 扫描SQL，忽略字符串字面量和引号标识符中的占位符
+         */
+        static ParsedSql parse(String sql) {
+            if (sql == null) {
+                return new ParsedSql(null, new ArrayList<>(), 0);
+            }
+            StringBuilder result = new StringBuilder(sql.length());
+            List<String> names = new ArrayList<>();
+            int positional = 0;
+            char quote = 0;
+            for (int i = 0; i < sql.length(); i++) {
+                char c = sql.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (c == '?') {
+                    positional++;
+                } else if (c == '#' && i + 1 < sql.length() && sql.charAt(i + 1) == '{') {
+                    int end = sql.indexOf('}', i + 2);
+                    if (end < 0) {
+                        throw new MyBatisException("PARAMETER_BINDING_ERROR", "#{ 占位符未闭合", sql, null);
+                    }
+                    String expression = sql.substring(i + 2, end);
+                    // 忽略 #{name,jdbcType=...} 中的附加属性
+                    int comma = expression.indexOf(',');
+                    if (comma >= 0) {
+                        expression = expression.substring(0, comma);
+                    }
+                    expression = expression.trim();
+                    if (expression.isEmpty()) {
+                        throw new MyBatisException("PARAMETER_BINDING_ERROR", "#{} 占位符缺少参数名", sql, null);
+                    }
+                    names.add(expression);
+                    result.append('?');
+                    i = end;
+                    continue;
+                }
+                result.append(c);
+            }
+            return new ParsedSql(result.toString(), names, positional);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.mybatis.binding;
+
+import com.example.mybatis.exception.MyBatisException;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 参数路径 - 方法参数下标 + 可选的属性路径，如 param1、minPrice、user.address.city
+ *
+ * 命名规则与 #{} 占位符一致：按 @Param 名称、编译参数名或 param1、param2... 查找参数，
+ * 方法只有一个参数时可直接写该参数的属性名。属性读取器在编译时解析，读取时不再查找
+ */
+public final class ParameterPath {
+
+    private final int argIndex;
+
+    /** 属性读取器，直接读取参数时为null */
+    private final PropertyAccessor[] accessors;
+
+    /** 路径末端的声明类型，无法确定时为Object */
+    private final Class<?> type;
+
+    ParameterPath(int argIndex, PropertyAccessor[] accessors, Class<?> type) {
+        this.argIndex = argIndex;
+        this.accessors = accessors;
+        this.type = type;
+    }
+
+    /**
+     * 按方法签名编译参数路径，找不到参数或属性时抛出异常
+     */
+    public static ParameterPath compile(Method method, String expression) {
+        List<Integer> argIndexes = new ArrayList<>();
+        Map<String, Integer> names = ParameterBinding.parameterNames(method, argIndexes);
+        return resolve(method, expression, argIndexes, names);
+    }
+
+    static ParameterPath resolve(Method method, String expression, List<Integer> argIndexes,
+                                 Map<String, Integer> names) {
+        String[] path = expression.split("\\.");
+        Integer argIndex = names.get(path[0]);
+        int propertyStart = 1;
+        if (argIndex == null) {
+            // 只有一个参数时，name 指向该参数的属性
+            if (argIndexes.size() != 1) {
+                throw new MyBatisException("PARAMETER_BINDING_ERROR",
+                        "找不到参数 '" + path[0] + "'，可用参数: " + names.keySet() + "，方法: " + method);
+            }
+            argIndex = argIndexes.get(0);
+            propertyStart = 0;
+        }
+
+        Class<?> type = method.getParameterTypes()[argIndex];
+        PropertyAccessor[] accessors = new PropertyAccessor[path.length - propertyStart];
+        for (int i = 0; i < accessors.length; i++) {
+            PropertyAccessor accessor = PropertyAccessor.resolve(type, path[propertyStart + i]);
+            accessors[i] = accessor;
+            type = accessor.getPropertyType();
+        }
+        return new ParameterPath(argIndex, accessors.length > 0 ? accessors : null, type);
+    }
+
+    /**
+     * 从方法实参中读取值，路径中间值为null时返回null
+     */
+    public Object read(Object[] args) {
+        Object value = args[argIndex];
+        if (accessors != null) {
+            for (PropertyAccessor accessor : accessors) {
+                value = accessor.read(value);
+            }
+        }
+        return value;
+    }
+
+    public int getArgIndex() {
+        return argIndex;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+}
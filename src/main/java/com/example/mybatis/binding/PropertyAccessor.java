@@ -0,0 +1,160 @@
+package com.example.mybatis.binding;
+
+import com.example.mybatis.exception.MyBatisException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+/**
+ * 属性读取器 - #{user.address.city} 这类属性路径中的一段
+ *
+ * 声明类型上能找到getter时在注册阶段解析为MethodHandle；
+ * 声明类型是Map时按键取值；声明类型无法确定属性（如Object、接口）时，
+ * 按运行时类型解析getter并缓存
+ */
+abstract class PropertyAccessor {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * 运行时类型 + 属性名 -> getter，软引用避免阻止实体类卸载
+     */
+    private static final Map<Class<?>, Map<String, MethodHandle>> DYNAMIC_GETTERS = new ConcurrentReferenceHashMap<>();
+
+    final String propertyName;
+
+    private PropertyAccessor(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    /**
+     * 读取属性值，target为null时返回null
+     */
+    abstract Object read(Object target);
+
+    /**
+     * 属性的声明类型，无法确定时为Object
+     */
+    abstract Class<?> getPropertyType();
+
+    /**
+     * 按声明类型解析属性
+     */
+    static PropertyAccessor resolve(Class<?> declaredType, String propertyName) {
+        if (Map.class.isAssignableFrom(declaredType)) {
+            return new MapAccessor(propertyName);
+        }
+        PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(declaredType, propertyName);
+        if (pd != null && pd.getReadMethod() != null) {
+            return new GetterAccessor(propertyName, pd.getPropertyType(), unreflectGetter(pd.getReadMethod()));
+        }
+        if (Object.class.equals(declaredType) || declaredType.isInterface()
+                || Modifier.isAbstract(declaredType.getModifiers())) {
+            return new DynamicAccessor(propertyName);
+        }
+        throw new MyBatisException("PARAMETER_BINDING_ERROR",
+                "类型 " + declaredType.getName() + " 没有可读属性: " + propertyName);
+    }
+
+    private static MethodHandle unreflectGetter(Method readMethod) {
+        try {
+            ReflectionUtils.makeAccessible(readMethod);
+            return MethodHandles.lookup().unreflect(readMethod).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new MyBatisException("PARAMETER_BINDING_ERROR",
+                    "无法访问属性读取方法: " + readMethod, e);
+        }
+    }
+
+    private static Object invoke(MethodHandle getter, Object target, String propertyName) {
+        try {
+            return getter.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new MyBatisException("PARAMETER_BINDING_ERROR", "读取参数属性失败: " + propertyName, e);
+        }
+    }
+
+    private static final class GetterAccessor extends PropertyAccessor {
+
+        private final Class<?> propertyType;
+
+        /** 签名为 (Object)Object 的getter */
+        private final MethodHandle getter;
+
+        GetterAccessor(String propertyName, Class<?> propertyType, MethodHandle getter) {
+            super(propertyName);
+            this.propertyType = propertyType;
+            this.getter = getter;
+        }
+
+        @Override
+        Object read(Object target) {
+            return target != null ? invoke(getter, target, propertyName) : null;
+        }
+
+        @Override
+        Class<?> getPropertyType() {
+            return propertyType;
+        }
+    }
+
+    private static final class MapAccessor extends PropertyAccessor {
+
+        MapAccessor(String propertyName) {
+            super(propertyName);
+        }
+
+        @Override
+        Object read(Object target) {
+            return target != null ? ((Map<?, ?>) target).get(propertyName) : null;
+        }
+
+        @Override
+        Class<?> getPropertyType() {
+            return Object.class;
+        }
+    }
+
+    private static final class DynamicAccessor extends PropertyAccessor {
+
+        DynamicAccessor(String propertyName) {
+            super(propertyName);
+        }
+
+        @Override
+        Object read(Object target) {
+            if (target == null) {
+                return null;
+            }
+            if (target instanceof Map) {
+                return ((Map<?, ?>) target).get(propertyName);
+            }
+            Map<String, MethodHandle> getters = DYNAMIC_GETTERS.computeIfAbsent(
+                    target.getClass(), type -> new ConcurrentReferenceHashMap<>());
+            MethodHandle getter = getters.computeIfAbsent(propertyName, name -> {
+                PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(target.getClass(), name);
+                if (pd == null || pd.getReadMethod() == null) {
+                    throw new MyBatisException("PARAMETER_BINDING_ERROR",
+                            "类型 " + target.getClass().getName() + " 没有可读属性: " + name);
+                }
+                return unreflectGetter(pd.getReadMethod());
+            });
+            return invoke(getter, target, propertyName);
+        }
+
+        @Override
+        Class<?> getPropertyType() {
+            return Object.class;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.mybatis.binding;
+
+/**
+ * 属性路径 - 从给定对象开始逐级读取属性，如 address.city
+ *
+ * 用于没有对应方法参数的对象，例如foreach中的当前元素。
+ * 声明类型已知时在编译阶段解析getter，否则按运行时类型解析并缓存
+ */
+public final class PropertyPath {
+
+    private final PropertyAccessor[] accessors;
+
+    private PropertyPath(PropertyAccessor[] accessors) {
+        this.accessors = accessors;
+    }
+
+    /**
+     * 按根对象的声明类型编译属性路径，类型未知时传入Object.class
+     */
+    public static PropertyPath compile(Class<?> rootType, String path) {
+        String[] properties = path.split("\\.");
+        PropertyAccessor[] accessors = new PropertyAccessor[properties.length];
+        Class<?> type = rootType;
+        for (int i = 0; i < properties.length; i++) {
+            accessors[i] = PropertyAccessor.resolve(type, properties[i]);
+            type = accessors[i].getPropertyType();
+        }
+        return new PropertyPath(accessors);
+    }
+
+    /**
+     * 读取属性值，路径中间值为null时返回null
+     */
+    public Object read(Object root) {
+        Object value = root;
+        for (PropertyAccessor accessor : accessors) {
+            value = accessor.read(value);
+        }
+        return value;
+    }
+}
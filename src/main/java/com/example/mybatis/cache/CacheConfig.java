@@ -10,6 +10,11 @@ public class CacheConfig {
      */
     private boolean firstLevelCacheEnabled = true;
     
+    /**
+     * 一级缓存的最大缓存项数 - 会话可能被整个应用共享（如自动配置的单例会话），一级缓存同样需要有界
+     */
+    private int firstLevelMaxSize = 1000;
+    
     /**
      * 是否启用二级缓存
      */
@@ -20,6 +25,21 @@ public class CacheConfig {
      */
     private long expireTime = 300000; // 5分钟
     
+    /**
+     * 缓存刷新时间（毫秒）- 超过后读取仍返回缓存的结果，同时异步重新加载；0表示不刷新，到达过期时间后重新查询
+     */
+    private long refreshTime = 0;
+    
+    /**
+     * 缓存刷新线程数
+     */
+    private int refreshThreads = 2;
+    
+    /**
+     * 等待执行的缓存刷新任务上限，超出时放弃刷新
+     */
+    private int refreshQueueCapacity = 1000;
+    
     /**
      * 最大缓存大小
      */
@@ -30,6 +50,46 @@ public class CacheConfig {
      */
     private boolean enableStats = true;
     
+    /**
+     * 是否启用堆外缓存层（需要同时启用二级缓存）
+     */
+    private boolean offHeapEnabled = false;
+    
+    /**
+     * 堆外缓存使用的直接内存上限（字节）
+     */
+    private long offHeapMaxBytes = 256L * 1024 * 1024; // 256MB
+    
+    /**
+     * 堆外缓存每个内存块的大小（字节），也是单个查询结果编码后的大小上限
+     */
+    private int offHeapSlabBytes = 4 * 1024 * 1024; // 4MB
+    
+    /**
+     * 缓存快照文件路径，为null时不保存也不恢复快照
+     */
+    private String snapshotPath;
+    
+    /**
+     * 缓存快照的写入间隔（毫秒）
+     */
+    private long snapshotIntervalMillis = 300000; // 5分钟
+    
+    /**
+     * 是否合并相同查询的并发加载（启用二级缓存时），缓存未命中时同一缓存键只执行一次查询
+     */
+    private boolean singleFlightEnabled = true;
+    
+    /**
+     * 未启用二级缓存时是否也合并正在执行的相同查询
+     */
+    private boolean singleFlightUncached = false;
+    
+    /**
+     * 等待合并查询结果的超时时间（毫秒），不大于0表示一直等待
+     */
+    private long singleFlightTimeoutMillis = 30000; // 30秒
+    
     public CacheConfig() {
     }
     
@@ -48,6 +108,14 @@ public class CacheConfig {
         this.firstLevelCacheEnabled = firstLevelCacheEnabled;
     }
     
+    public int getFirstLevelMaxSize() {
+        return firstLevelMaxSize;
+    }
+    
+    public void setFirstLevelMaxSize(int firstLevelMaxSize) {
+        this.firstLevelMaxSize = firstLevelMaxSize;
+    }
+    
     public boolean isSecondLevelCacheEnabled() {
         return secondLevelCacheEnabled;
     }
@@ -64,6 +132,30 @@ public class CacheConfig {
         this.expireTime = expireTime;
     }
     
+    public long getRefreshTime() {
+        return refreshTime;
+    }
+    
+    public void setRefreshTime(long refreshTime) {
+        this.refreshTime = refreshTime;
+    }
+    
+    public int getRefreshThreads() {
+        return refreshThreads;
+    }
+    
+    public void setRefreshThreads(int refreshThreads) {
+        this.refreshThreads = refreshThreads;
+    }
+    
+    public int getRefreshQueueCapacity() {
+        return refreshQueueCapacity;
+    }
+    
+    public void setRefreshQueueCapacity(int refreshQueueCapacity) {
+        this.refreshQueueCapacity = refreshQueueCapacity;
+    }
+    
     public int getMaxSize() {
         return maxSize;
     }
@@ -80,14 +172,89 @@ public class CacheConfig {
         this.enableStats = enableStats;
     }
     
+    public boolean isOffHeapEnabled() {
+        return offHeapEnabled;
+    }
+    
+    public void setOffHeapEnabled(boolean offHeapEnabled) {
+        this.offHeapEnabled = offHeapEnabled;
+    }
+    
+    public long getOffHeapMaxBytes() {
+        return offHeapMaxBytes;
+    }
+    
+    public void setOffHeapMaxBytes(long offHeapMaxBytes) {
+        this.offHeapMaxBytes = offHeapMaxBytes;
+    }
+    
+    public int getOffHeapSlabBytes() {
+        return offHeapSlabBytes;
+    }
+    
+    public void setOffHeapSlabBytes(int offHeapSlabBytes) {
+        this.offHeapSlabBytes = offHeapSlabBytes;
+    }
+    
+    public String getSnapshotPath() {
+        return snapshotPath;
+    }
+    
+    public void setSnapshotPath(String snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+    
+    public long getSnapshotIntervalMillis() {
+        return snapshotIntervalMillis;
+    }
+    
+    public void setSnapshotIntervalMillis(long snapshotIntervalMillis) {
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+    }
+    
+    public boolean isSingleFlightEnabled() {
+        return singleFlightEnabled;
+    }
+    
+    public void setSingleFlightEnabled(boolean singleFlightEnabled) {
+        this.singleFlightEnabled = singleFlightEnabled;
+    }
+    
+    public boolean isSingleFlightUncached() {
+        return singleFlightUncached;
+    }
+    
+    public void setSingleFlightUncached(boolean singleFlightUncached) {
+        this.singleFlightUncached = singleFlightUncached;
+    }
+    
+    public long getSingleFlightTimeoutMillis() {
+        return singleFlightTimeoutMillis;
+    }
+    
+    public void setSingleFlightTimeoutMillis(long singleFlightTimeoutMillis) {
+        this.singleFlightTimeoutMillis = singleFlightTimeoutMillis;
+    }
+    
     @Override
     public String toString() {
         return "CacheConfig{" +
                 "firstLevelCacheEnabled=" + firstLevelCacheEnabled +
                 ", secondLevelCacheEnabled=" + secondLevelCacheEnabled +
                 ", expireTime=" + expireTime +
+                ", refreshTime=" + refreshTime +
+                ", refreshThreads=" + refreshThreads +
+                ", refreshQueueCapacity=" + refreshQueueCapacity +
                 ", maxSize=" + maxSize +
                 ", enableStats=" + enableStats +
+                ", offHeapEnabled=" + offHeapEnabled +
+                ", offHeapMaxBytes=" + offHeapMaxBytes +
+                ", offHeapSlabBytes=" + offHeapSlabBytes +
+                ", snapshotPath=" + snapshotPath +
+                ", snapshotIntervalMillis=" + snapshotIntervalMillis +
+                ", singleFlightEnabled=" + singleFlightEnabled +
+                ", singleFlightUncached=" + singleFlightUncached +
+                ", singleFlightTimeoutMillis=" + singleFlightTimeoutMillis +
                 '}';
     }
 } 
\ No newline at end of file
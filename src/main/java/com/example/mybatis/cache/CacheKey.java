@@ -0,0 +1,251 @@
+package com.example.mybatis.cache;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 查询结果缓存的键 - 语句ID、SQL和参数值
+ *
+ * 相等性按实际值比较，不会因为哈希冲突把一条查询的结果返回给另一条查询。参数值按规范形式比较：
+ * 1. BigDecimal忽略标度：1.0 与 1.00 相同
+ * 2. Byte、Short、Integer、Long按数值比较：1 与 1L 相同
+ * 3. 对象数组和集合都按元素序列逐个比较
+ *
+ * 查询时直接引用调用方的参数数组，不复制、不创建字符串；存入缓存前通过 {@link #copy()}
+ * 复制参数数组和其中的可变值（Date、数组、集合），调用方之后修改参数不会影响已缓存的键
+ */
+public final class CacheKey {
+
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final String statementId;
+
+    private final String sql;
+
+    private final Object[] parameters;
+
+    /** 64位哈希，equals先比较哈希再比较值 */
+    private final long hash;
+
+    /**
+     * 创建查询用的键，直接引用参数数组
+     */
+    public CacheKey(String statementId, String sql, Object[] parameters) {
+        this.statementId = statementId;
+        this.sql = sql;
+        this.parameters = parameters != null ? parameters : new Object[0];
+        this.hash = computeHash(statementId, sql, this.parameters);
+    }
+
+    private CacheKey(CacheKey source, Object[] parameters) {
+        this.statementId = source.statementId;
+        this.sql = source.sql;
+        this.parameters = parameters;
+        this.hash = source.hash;
+    }
+
+    /**
+     * 复制为可以长期保存的键：参数数组和可变参数值都被复制
+     */
+    public CacheKey copy() {
+        Object[] copied = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            copied[i] = copyValue(parameters[i]);
+        }
+        return new CacheKey(this, copied);
+    }
+
+    public String getStatementId() {
+        return statementId;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * 参数值，返回内部数组的副本
+     */
+    public Object[] getParameters() {
+        return parameters.clone();
+    }
+
+    /**
+     * 64位哈希，只由语句ID、SQL和参数值决定，不同进程中相等的键哈希相同（用于缓存快照的索引）
+     */
+    long hash64() {
+        return hash;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey other = (CacheKey) o;
+        if (hash != other.hash || parameters.length != other.parameters.length
+                || !Objects.equals(statementId, other.statementId) || !Objects.equals(sql, other.sql)) {
+            return false;
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            if (!valueEquals(parameters[i], other.parameters[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheKey{" +
+                "statementId='" + statementId + '\'' +
+                ", sql='" + sql + '\'' +
+                ", parameters=" + Arrays.deepToString(parameters) +
+                '}';
+    }
+
+    // ========== 规范化比较 ==========
+
+    private static long computeHash(String statementId, String sql, Object[] parameters) {
+        long h = Objects.hashCode(statementId);
+        h = h * MULTIPLIER + Objects.hashCode(sql);
+        for (Object parameter : parameters) {
+            h = h * MULTIPLIER + valueHash(parameter);
+        }
+        return mix(h);
+    }
+
+    /**
+     * 64位混合函数（MurmurHash3 fmix64），使低质量的hashCode也能均匀分布
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int valueHash(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (isIntegral(value)) {
+            return Long.hashCode(((Number) value).longValue());
+        }
+        if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            return decimal.signum() == 0 ? 0 : decimal.stripTrailingZeros().hashCode();
+        }
+        Collection<?> sequence = asSequence(value);
+        if (sequence != null) {
+            int h = 1;
+            for (Object element : sequence) {
+                h = 31 * h + valueHash(element);
+            }
+            return h;
+        }
+        if (value.getClass().isArray()) {
+            return Arrays.deepHashCode(new Object[]{value});
+        }
+        return value.hashCode();
+    }
+
+    private static boolean valueEquals(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (isIntegral(a) && isIntegral(b)) {
+            return ((Number) a).longValue() == ((Number) b).longValue();
+        }
+        if (a instanceof BigDecimal && b instanceof BigDecimal) {
+            return ((BigDecimal) a).compareTo((BigDecimal) b) == 0;
+        }
+        Collection<?> x = asSequence(a);
+        Collection<?> y = asSequence(b);
+        if (x != null && y != null) {
+            if (x.size() != y.size()) {
+                return false;
+            }
+            Iterator<?> i = x.iterator();
+            Iterator<?> j = y.iterator();
+            while (i.hasNext()) {
+                if (!valueEquals(i.next(), j.next())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a.getClass().isArray() || b.getClass().isArray()) {
+            return Objects.deepEquals(a, b);
+        }
+        // Timestamp.equals(Date) 不对称，要求类型相同
+        return a.getClass() == b.getClass() && a.equals(b);
+    }
+
+    /**
+     * 对象数组和集合都作为元素序列比较（IN列表参数可以是任意一种）
+     */
+    private static Collection<?> asSequence(Object value) {
+        if (value instanceof Collection) {
+            return (Collection<?>) value;
+        }
+        if (value instanceof Object[]) {
+            return Arrays.asList((Object[]) value);
+        }
+        return null;
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        if (value instanceof Object[]) {
+            Object[] source = (Object[]) value;
+            Object[] copied = new Object[source.length];
+            for (int i = 0; i < source.length; i++) {
+                copied[i] = copyValue(source[i]);
+            }
+            return copied;
+        }
+        if (value instanceof Collection) {
+            Collection<?> source = (Collection<?>) value;
+            List<Object> copied = new ArrayList<>(source.size());
+            for (Object element : source) {
+                copied.add(copyValue(element));
+            }
+            return copied;
+        }
+        if (value != null && value.getClass().isArray()) {
+            // 基本类型数组
+            int length = Array.getLength(value);
+            Object copied = Array.newInstance(value.getClass().getComponentType(), length);
+            System.arraycopy(value, 0, copied, 0, length);
+            return copied;
+        }
+        return value;
+    }
+}
@@ -3,104 +3,443 @@ package com.example.mybatis.cache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 缓存管理器
  * 实现一级缓存（SqlSession级别）和二级缓存（全局级别）
+ *
+ * 二级缓存是有界的 {@link TinyLfuCache}，由配置对象持有，同一配置下的所有会话共享；
+ * 读取不加锁，超出 {@link CacheConfig#getMaxSize()} 时按访问频率淘汰
+ *
+ * 一级缓存同样有界（{@link CacheConfig#getFirstLevelMaxSize()}），在会话提交和关闭时清空
+ *
+ * 缓存项保存查询前记录的表版本（{@link TableVersions.Stamp}），依赖的表被写入后，
+ * 两级缓存中的对应项在读取时都会被判定为失效并移除
+ *
+ * 启用堆外缓存层（{@link OffHeapStore}）时，写入二级缓存的结果同时编码保存到直接内存中；
+ * 二级缓存未命中时再查堆外层，命中后解码并放回一级和二级缓存
+ *
+ * 缓存项可以有比过期时间短的刷新时间：超过刷新时间后读取仍返回缓存的结果，并提交一次异步重新加载
+ * （{@link CacheRefresher}），热点缓存项因此不会在请求路径上过期
+ *
+ * 启动时映射了缓存快照（{@link CacheSnapshot}）时，以上各层都未命中再查快照，命中后同样放回一级和二级缓存
+ *
+ * 缓存配置启用统计（{@link CacheConfig#isEnableStats()}）时，命中、未命中、写入、过期、失效和加载耗时
+ * 记录到 {@link CacheStatistics}
  */
 public class CacheManager {
     
     private static final Logger logger = LoggerFactory.getLogger(CacheManager.class);
     
     /**
-     * 二级缓存 - 全局共享
+     * 未指定二级缓存时使用的默认实例，兼容只传入CacheConfig的构造方式
      */
-    private static final Map<String, CacheEntry> globalCache = new ConcurrentHashMap<>();
+    private static volatile TinyLfuCache<CacheKey, Object> defaultGlobalCache;
     
     /**
-     * 缓存锁
+     * 未指定表版本时使用的默认实例
      */
-    private static final ReadWriteLock cacheLock = new ReentrantReadWriteLock();
+    private static final TableVersions DEFAULT_TABLE_VERSIONS = new TableVersions();
     
     /**
-     * 一级缓存 - SqlSession级别
+     * 创建默认的二级缓存实例时持有
      */
-    private final Map<String, CacheEntry> sessionCache = new ConcurrentHashMap<>();
+    private static final Lock DEFAULT_CACHE_LOCK = new ReentrantLock();
+    
+    /**
+     * 二级缓存 - 同一配置下的会话共享
+     */
+    private final TinyLfuCache<CacheKey, Object> globalCache;
+    
+    /**
+     * 设置了最大缓存项数的缓存区域使用的独立二级缓存，按语句ID
+     */
+    private volatile Map<String, TinyLfuCache<CacheKey, Object>> statementCaches = Collections.emptyMap();
+    
+    /**
+     * 表版本号 - 与二级缓存一样由同一配置下的会话共享
+     */
+    private final TableVersions tableVersions;
+    
+    /**
+     * 堆外缓存层，未启用时为null
+     */
+    private final OffHeapStore offHeapStore;
+    
+    /**
+     * 启动时映射的缓存快照，没有时为null
+     */
+    private final CacheSnapshot snapshot;
+    
+    /**
+     * 缓存刷新执行器，未设置时进入刷新期的缓存项不刷新，到达过期时间后按未命中处理
+     */
+    private volatile CacheRefresher refresher;
+    
+    /**
+     * 缓存统计，未启用统计时为null
+     */
+    private final CacheStatistics statistics;
+    
+    /**
+     * 一级缓存 - SqlSession级别，未启用时为null
+     *
+     * 会话可能被整个应用共享（如自动配置的单例会话），因此与二级缓存一样有界，并在到期后主动移除
+     */
+    private final TinyLfuCache<CacheKey, CacheEntry> sessionCache;
     
     /**
      * 缓存配置
      */
     private final CacheConfig config;
     
+    /**
+     * @deprecated 二级缓存和表版本为进程内共享的默认实例，
+     * 请使用 {@link #CacheManager(CacheConfig, TinyLfuCache, TableVersions)}
+     */
+    @Deprecated
     public CacheManager(CacheConfig config) {
+        this(config, defaultGlobalCache(config.getMaxSize()), DEFAULT_TABLE_VERSIONS);
+    }
+    
+    public CacheManager(CacheConfig config, TinyLfuCache<CacheKey, Object> globalCache, TableVersions tableVersions) {
+        this(config, globalCache, tableVersions, new CacheStatistics());
+    }
+    
+    public CacheManager(CacheConfig config, TinyLfuCache<CacheKey, Object> globalCache, TableVersions tableVersions,
+                        CacheStatistics statistics) {
+        this(config, globalCache, null, tableVersions, statistics);
+    }
+    
+    /**
+     * @param offHeapStore 堆外缓存层，为null或未启用二级缓存时不使用
+     */
+    public CacheManager(CacheConfig config, TinyLfuCache<CacheKey, Object> globalCache, OffHeapStore offHeapStore,
+                        TableVersions tableVersions, CacheStatistics statistics) {
+        this(config, globalCache, offHeapStore, null, tableVersions, statistics);
+    }
+    
+    /**
+     * @param offHeapStore 堆外缓存层，为null或未启用二级缓存时不使用
+     * @param snapshot     启动时映射的缓存快照，为null或未启用二级缓存时不使用
+     */
+    public CacheManager(CacheConfig config, TinyLfuCache<CacheKey, Object> globalCache, OffHeapStore offHeapStore,
+                        CacheSnapshot snapshot, TableVersions tableVersions, CacheStatistics statistics) {
         this.config = config;
+        this.sessionCache = config.isFirstLevelCacheEnabled()
+                ? new TinyLfuCache<>(Math.max(1, config.getFirstLevelMaxSize()), null, CacheManager::expireTimeOf)
+                : null;
+        this.globalCache = globalCache;
+        this.offHeapStore = config.isSecondLevelCacheEnabled() ? offHeapStore : null;
+        this.snapshot = config.isSecondLevelCacheEnabled() ? snapshot : null;
+        this.tableVersions = tableVersions;
+        this.statistics = config.isEnableStats() ? statistics : null;
     }
     
     /**
      * 从缓存获取数据
      * 优先查询一级缓存，再查询二级缓存
      */
-    public Object get(String key) {
-        // 检查一级缓存
-        CacheEntry entry = sessionCache.get(key);
-        if (entry != null && !entry.isExpired()) {
-            logger.debug("一级缓存命中: {}", key);
-            return entry.getValue();
+    public Object get(CacheKey key) {
+        return get(key, null, null);
+    }
+    
+    /**
+     * 从缓存获取数据，缓存项进入刷新期（超过刷新时间、未到过期时间）时仍返回缓存的结果，
+     * 同时通过 {@link CacheRefresher} 异步调用reloader重新加载，每个缓存项同时只有一次刷新
+     *
+     * 刷新任务只在缓存项进入刷新期时创建，命中未进入刷新期的缓存项不产生额外的对象
+     *
+     * @param reloader 重新执行查询并存入缓存，为null或未设置刷新执行器时不刷新
+     * @param context  传给reloader的查询上下文（如绑定的参数）
+     */
+    public <C> Object get(CacheKey key, Reloader<C> reloader, C context) {
+        long now = System.currentTimeMillis();
+        // 各层通常保存同一个缓存项（或同一结果的副本），过期和失效在一次读取中只记录一次
+        boolean rejected = false;
+        
+        // 检查一级缓存，进入刷新期的缓存项优先使用二级缓存中（可能已刷新）的结果
+        CacheEntry entry = sessionCache != null ? sessionCache.get(key) : null;
+        if (entry != null) {
+            if (isValid(entry, now, true)) {
+                if (now < entry.refreshTime || !config.isSecondLevelCacheEnabled()) {
+                    logger.debug("一级缓存命中: {}", key);
+                    if (statistics != null) {
+                        statistics.recordFirstLevelHit(key.getStatementId());
+                    }
+                    refreshIfStale(key, entry, now, reloader, context);
+                    return entry.getValue();
+                }
+            } else {
+                rejected = true;
+                sessionCache.remove(key, entry);
+            }
         }
         
         // 检查二级缓存
         // 优先从二级缓存中获取，如果命中则返回并将其放入一级缓存
         if (config.isSecondLevelCacheEnabled()) {
-            cacheLock.readLock().lock();
-            try {
-                entry = globalCache.get(key);
-                if (entry != null && !entry.isExpired()) {
+            Object cached = secondLevelCache(key).get(key);
+            if (cached instanceof CacheEntry) {
+                entry = (CacheEntry) cached;
+                if (isValid(entry, now, !rejected)) {
                     logger.debug("二级缓存命中: {}", key);
+                    if (statistics != null) {
+                        statistics.recordSecondLevelHit(key.getStatementId());
+                    }
                     // 同时放入一级缓存，以便下次使用
-                    sessionCache.put(key, entry);
+                    putFirstLevel(key.copy(), entry);
+                    refreshIfStale(key, entry, now, reloader, context);
                     return entry.getValue();
                 }
-            } finally {
-                cacheLock.readLock().unlock();
+                // 过期或已失效的项立即移除，不必等到容量不足时才被淘汰
+                rejected = true;
+                secondLevelCache(key).remove(key, entry);
+            }
+        }
+        
+        // 检查堆外缓存，先检查过期和表版本，可用时才解码
+        if (offHeapStore != null) {
+            OffHeapStore.Location location = offHeapStore.get(key);
+            if (location != null) {
+                Object value = isValid(location.expireTime, location.stamp, now, !rejected)
+                        ? offHeapStore.decode(key, location) : null;
+                if (value != null) {
+                    logger.debug("堆外缓存命中: {}", key);
+                    if (statistics != null) {
+                        statistics.recordOffHeapHit(key.getStatementId());
+                    }
+                    entry = new CacheEntry(value, location.refreshTime, location.expireTime, location.stamp);
+                    CacheKey storedKey = key.copy();
+                    putFirstLevel(storedKey, entry);
+                    if (config.isSecondLevelCacheEnabled()) {
+                        secondLevelCache(key).put(storedKey, entry);
+                    }
+                    refreshIfStale(key, entry, now, reloader, context);
+                    return value;
+                }
+                offHeapStore.remove(key, location);
+            }
+        }
+        
+        // 检查缓存快照，快照中已失效的缓存项不返回
+        if (snapshot != null) {
+            CacheSnapshot.Restored restored = snapshot.get(key);
+            if (restored != null) {
+                logger.debug("缓存快照命中: {}", key);
+                if (statistics != null) {
+                    statistics.recordSnapshotHit(key.getStatementId(), offHeapStore != null);
+                }
+                entry = new CacheEntry(restored.value, restored.expireTime, restored.stamp);
+                CacheKey storedKey = key.copy();
+                putFirstLevel(storedKey, entry);
+                if (config.isSecondLevelCacheEnabled()) {
+                    secondLevelCache(key).put(storedKey, entry);
+                }
+                if (offHeapStore != null && restored.value instanceof List) {
+                    offHeapStore.put(storedKey, (List<?>) restored.value, restored.expireTime, restored.stamp);
+                }
+                return restored.value;
             }
         }
         
         logger.debug("缓存未命中: {}", key);
+        if (statistics != null) {
+            statistics.recordMiss(key.getStatementId(), config.isSecondLevelCacheEnabled(), offHeapStore != null);
+        }
         return null;
     }
     
+    /**
+     * 缓存项进入刷新期时提交一次异步重新加载，提交失败或加载失败后允许下次读取时再次尝试
+     */
+    private <C> void refreshIfStale(CacheKey key, CacheEntry entry, long now, Reloader<C> reloader, C context) {
+        if (now < entry.refreshTime || reloader == null || refresher == null || !entry.claimRefresh()) {
+            return;
+        }
+        CacheKey storedKey = key.copy();
+        boolean submitted = refresher.submit(() -> {
+            try {
+                reloader.reload(storedKey, context);
+            } catch (RuntimeException | Error e) {
+                entry.releaseRefresh();
+                throw e;
+            }
+        });
+        if (!submitted) {
+            entry.releaseRefresh();
+        } else {
+            logger.debug("缓存项进入刷新期，已提交重新加载: {}", key);
+            if (statistics != null) {
+                statistics.recordRefresh();
+            }
+        }
+    }
+    
+    /**
+     * 检查缓存项是否可用
+     *
+     * @param record 不可用时是否记录原因
+     */
+    private boolean isValid(CacheEntry entry, long now, boolean record) {
+        return isValid(entry.expireTime, entry.stamp, now, record);
+    }
+    
+    private boolean isValid(long expireTime, TableVersions.Stamp stamp, long now, boolean record) {
+        if (now > expireTime) {
+            if (record && statistics != null) {
+                statistics.recordExpiration();
+            }
+            return false;
+        }
+        if (stamp != null && !stamp.isCurrent()) {
+            if (record && statistics != null) {
+                statistics.recordInvalidation();
+            }
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * 向缓存存入数据，缓存项只按过期时间失效
+     */
+    public void put(CacheKey key, Object value) {
+        put(key, value, null);
+    }
+    
     /**
      * 向缓存存入数据
+     *
+     * @param stamp 查询执行前通过 {@link #stamp(String[])} 记录的表版本，依赖的表被写入后缓存项失效
+     */
+    public void put(CacheKey key, Object value, TableVersions.Stamp stamp) {
+        put(key, value, stamp, 0, 0);
+    }
+    
+    /**
+     * 按语句的缓存时间存入数据
+     *
+     * @param stamp        查询执行前通过 {@link #stamp(String[])} 记录的表版本
+     * @param expireMillis 过期时间（硬过期，毫秒），不大于0时使用缓存配置的 {@link CacheConfig#getExpireTime()}
+     * @param refreshMillis 刷新时间（软过期，毫秒），不大于0时使用 {@link CacheConfig#getRefreshTime()}；
+     *                      不小于过期时间时不刷新
      */
-    public void put(String key, Object value) {
+    public void put(CacheKey key, Object value, TableVersions.Stamp stamp, long expireMillis, long refreshMillis) {
         if (value == null) {
             return;
         }
+        if (stamp != null && !stamp.isCurrent()) {
+            // 查询期间表已被写入，结果可能已过时
+            logger.debug("查询期间依赖的表已变更，不缓存: {}", key);
+            return;
+        }
         
-        CacheEntry entry = new CacheEntry(value, config.getExpireTime());
+        long now = System.currentTimeMillis();
+        long expireAfter = expireMillis > 0 ? expireMillis : config.getExpireTime();
+        long refreshAfter = refreshMillis > 0 ? refreshMillis : config.getRefreshTime();
+        long expireTime = now + expireAfter;
+        long refreshTime = refreshAfter > 0 && refreshAfter < expireAfter ? now + refreshAfter : expireTime;
+        CacheEntry entry = new CacheEntry(value, refreshTime, expireTime, stamp);
+        // 调用方的参数可能在之后被修改，保存键的副本
+        CacheKey storedKey = key.copy();
+        
+        if (statistics != null) {
+            statistics.recordPut();
+        }
         
         // 存入一级缓存
-        sessionCache.put(key, entry);
-        logger.debug("数据存入一级缓存: {}", key);
+        if (sessionCache != null) {
+            sessionCache.put(storedKey, entry);
+            logger.debug("数据存入一级缓存: {}", key);
+        }
         
         // 存入二级缓存
         if (config.isSecondLevelCacheEnabled()) {
-            cacheLock.writeLock().lock();
-            try {
-                globalCache.put(key, entry);
-                logger.debug("数据存入二级缓存: {}", key);
-                
-                // 检查缓存大小限制
-                if (globalCache.size() > config.getMaxSize()) {
-                    evictExpiredEntries();
-                }
-            } finally {
-                cacheLock.writeLock().unlock();
-            }
+            secondLevelCache(key).put(storedKey, entry);
+            logger.debug("数据存入二级缓存: {}", key);
+        }
+        
+        // 存入堆外缓存
+        if (offHeapStore != null && value instanceof List
+                && offHeapStore.put(storedKey, (List<?>) value, refreshTime, expireTime, stamp)) {
+            logger.debug("数据存入堆外缓存: {}", key);
+        }
+    }
+    
+    /**
+     * 放入一级缓存，未启用一级缓存时忽略
+     */
+    private void putFirstLevel(CacheKey storedKey, CacheEntry entry) {
+        if (sessionCache != null) {
+            sessionCache.put(storedKey, entry);
+        }
+    }
+    
+    /**
+     * 设置缓存刷新执行器，用于异步重新加载进入刷新期的缓存项
+     */
+    public void setRefresher(CacheRefresher refresher) {
+        this.refresher = refresher;
+    }
+    
+    /**
+     * 设置使用独立二级缓存的语句（按语句ID），其余语句使用共享的二级缓存
+     */
+    public void setStatementCaches(Map<String, TinyLfuCache<CacheKey, Object>> statementCaches) {
+        this.statementCaches = statementCaches != null ? statementCaches : Collections.emptyMap();
+    }
+    
+    /**
+     * 缓存键所属语句使用的二级缓存
+     */
+    private TinyLfuCache<CacheKey, Object> secondLevelCache(CacheKey key) {
+        Map<String, TinyLfuCache<CacheKey, Object>> caches = statementCaches;
+        if (caches.isEmpty()) {
+            return globalCache;
+        }
+        TinyLfuCache<CacheKey, Object> cache = caches.get(key.getStatementId());
+        return cache != null ? cache : globalCache;
+    }
+    
+    /**
+     * 记录表的当前版本，在执行查询之前调用
+     */
+    public TableVersions.Stamp stamp(String[] tables) {
+        return tableVersions.stamp(tables);
+    }
+    
+    /**
+     * 表被写入，两级缓存中依赖这些表的缓存项全部失效
+     *
+     * @param tables 写入的表，为空表示写入的表未知，所有缓存项失效
+     */
+    public void invalidateTables(String[] tables) {
+        tableVersions.increment(tables);
+        logger.debug("表缓存已失效: {}", tables != null && tables.length > 0 ? String.join(",", tables) : "*");
+    }
+    
+    /**
+     * 记录缓存未命中后从数据库加载的耗时
+     */
+    public void recordLoad(String statementId, long nanos) {
+        if (statistics != null) {
+            statistics.recordLoad(statementId, nanos);
+        }
+    }
+    
+    /**
+     * 记录缓存未命中后等待了正在执行的相同查询
+     */
+    public void recordCoalescedLoad() {
+        if (statistics != null) {
+            statistics.recordCoalescedLoad();
         }
     }
     
@@ -108,52 +447,83 @@ public class CacheManager {
      * 清除一级缓存
      */
     public void clearSessionCache() {
+        if (sessionCache == null) {
+            return;
+        }
         sessionCache.clear();
         logger.debug("一级缓存已清除");
     }
     
     /**
-     * 清除二级缓存
+     * 清除本管理器使用的二级缓存
      */
+    public void clearSecondLevelCache() {
+        globalCache.clear();
+        for (TinyLfuCache<CacheKey, Object> cache : statementCaches.values()) {
+            cache.clear();
+        }
+        if (offHeapStore != null) {
+            offHeapStore.clear();
+        }
+        logger.debug("二级缓存已清除");
+    }
+    
+    /**
+     * 清除默认的二级缓存
+     *
+     * @deprecated 只影响通过 {@link #CacheManager(CacheConfig)} 创建的管理器，请使用 {@link #clearSecondLevelCache()}
+     */
+    @Deprecated
     public static void clearGlobalCache() {
-        cacheLock.writeLock().lock();
-        try {
-            globalCache.clear();
+        TinyLfuCache<CacheKey, Object> cache = defaultGlobalCache;
+        if (cache != null) {
+            cache.clear();
             logger.debug("二级缓存已清除");
-        } finally {
-            cacheLock.writeLock().unlock();
         }
     }
     
     /**
      * 移除指定key的缓存
      */
-    public void remove(String key) {
-        sessionCache.remove(key);
+    public void remove(CacheKey key) {
+        if (sessionCache != null) {
+            sessionCache.remove(key);
+        }
         
         if (config.isSecondLevelCacheEnabled()) {
-            cacheLock.writeLock().lock();
+            secondLevelCache(key).remove(key);
+        }
+        if (offHeapStore != null) {
+            offHeapStore.remove(key);
+        }
+        
+        logger.debug("缓存项已移除: {}", key);
+    }
+    
+    private static TinyLfuCache<CacheKey, Object> defaultGlobalCache(int maxSize) {
+        TinyLfuCache<CacheKey, Object> cache = defaultGlobalCache;
+        if (cache == null) {
+            DEFAULT_CACHE_LOCK.lock();
             try {
-                globalCache.remove(key);
+                cache = defaultGlobalCache;
+                if (cache == null) {
+                    cache = new TinyLfuCache<>(maxSize, null, CacheManager::expireTimeOf);
+                    defaultGlobalCache = cache;
+                }
             } finally {
-                cacheLock.writeLock().unlock();
+                DEFAULT_CACHE_LOCK.unlock();
             }
         }
-        
-        logger.debug("缓存项已移除: {}", key);
+        return cache;
     }
     
     /**
-     * 清理过期的缓存项
+     * 二级缓存中的值的过期时间，供 {@link TinyLfuCache} 的时间轮在到期后主动移除
+     *
+     * @return 不是本类写入的缓存项时返回 {@link TinyLfuCache#NEVER_EXPIRE}
      */
-    private void evictExpiredEntries() {
-        globalCache.entrySet().removeIf(entry -> {
-            boolean expired = entry.getValue().isExpired();
-            if (expired) {
-                logger.debug("清理过期缓存: {}", entry.getKey());
-            }
-            return expired;
-        });
+    public static long expireTimeOf(Object cached) {
+        return cached instanceof CacheEntry ? ((CacheEntry) cached).expireTime : TinyLfuCache.NEVER_EXPIRE;
     }
     
     /**
@@ -161,7 +531,7 @@ public class CacheManager {
      */
     public CacheStats getStats() {
         return new CacheStats(
-            sessionCache.size(),
+            sessionCache != null ? sessionCache.size() : 0,
             globalCache.size(),
             config.isSecondLevelCacheEnabled()
         );
@@ -170,22 +540,59 @@ public class CacheManager {
     /**
      * 缓存项
      */
-    private static class CacheEntry {
+    static final class CacheEntry {
+        
+        private static final AtomicIntegerFieldUpdater<CacheEntry> REFRESHING =
+                AtomicIntegerFieldUpdater.newUpdater(CacheEntry.class, "refreshing");
+        
         private final Object value;
+        private final long refreshTime;
         private final long expireTime;
+        private final TableVersions.Stamp stamp;
+        
+        /** 1表示已提交刷新 */
+        private volatile int refreshing;
+        
+        public CacheEntry(Object value, long expireTime, TableVersions.Stamp stamp) {
+            this(value, expireTime, expireTime, stamp);
+        }
         
-        public CacheEntry(Object value, long ttl) {
+        CacheEntry(Object value, long refreshTime, long expireTime, TableVersions.Stamp stamp) {
             this.value = value;
-            this.expireTime = System.currentTimeMillis() + ttl;
+            this.refreshTime = refreshTime;
+            this.expireTime = expireTime;
+            this.stamp = stamp;
         }
         
         public Object getValue() {
             return value;
         }
         
-        public boolean isExpired() {
-            return System.currentTimeMillis() > expireTime;
+        long getExpireTime() {
+            return expireTime;
         }
+        
+        TableVersions.Stamp getStamp() {
+            return stamp;
+        }
+        
+        boolean claimRefresh() {
+            return refreshing == 0 && REFRESHING.compareAndSet(this, 0, 1);
+        }
+        
+        void releaseRefresh() {
+            refreshing = 0;
+        }
+    }
+    
+    /**
+     * 重新加载缓存项 - 重新执行查询并通过 {@link #put} 存入缓存，在刷新线程上调用
+     *
+     * @param <C> 查询上下文的类型，读取时随缓存键一起传入，reloader本身可以在多次读取间共用
+     */
+    @FunctionalInterface
+    public interface Reloader<C> {
+        void reload(CacheKey key, C context);
     }
     
     /**
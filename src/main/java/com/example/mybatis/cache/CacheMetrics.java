@@ -0,0 +1,159 @@
+package com.example.mybatis.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * 缓存统计的Micrometer指标
+ *
+ * 指标直接读取 {@link CacheStatistics} 中的计数器，不额外记录：
+ * <pre>
+ * mini.mybatis.cache.gets{level=first|second|offheap, result=hit|miss}
+ * mini.mybatis.cache.gets{level=snapshot, result=hit}
+ * mini.mybatis.cache.puts / evictions / expirations / invalidations
+ * mini.mybatis.cache.loads          加载次数和总耗时（FunctionTimer）
+ * mini.mybatis.cache.loads.coalesced 等待相同查询而未查询数据库的次数
+ * mini.mybatis.cache.refreshes      缓存项进入刷新期后提交异步重新加载的次数
+ * mini.mybatis.cache.size{level=second|offheap}
+ * mini.mybatis.cache.expired        二级缓存中到期后由时间轮主动移除的缓存项数
+ * mini.mybatis.cache.offheap.bytes{state=allocated|max}
+ * mini.mybatis.cache.offheap.slab.evictions
+ * mini.mybatis.statement.cache.gets{statement, result=hit|miss}
+ * mini.mybatis.statement.cache.loads{statement}
+ * </pre>
+ * 语句级别的指标在该语句首次被记录时注册
+ *
+ * 只在类路径上有Micrometer时由自动配置创建，Micrometer是可选依赖
+ */
+public class CacheMetrics implements MeterBinder {
+
+    private static final String PREFIX = "mini.mybatis.";
+
+    private final CacheStatistics statistics;
+
+    private final TinyLfuCache<?, ?> secondLevelCache;
+
+    private final OffHeapStore offHeapStore;
+
+    private final Iterable<Tag> tags;
+
+    public CacheMetrics(CacheStatistics statistics, TinyLfuCache<?, ?> secondLevelCache, Iterable<Tag> tags) {
+        this(statistics, secondLevelCache, null, tags);
+    }
+
+    /**
+     * @param offHeapStore 堆外缓存层，未启用时为null
+     */
+    public CacheMetrics(CacheStatistics statistics, TinyLfuCache<?, ?> secondLevelCache, OffHeapStore offHeapStore,
+                        Iterable<Tag> tags) {
+        this.statistics = statistics;
+        this.secondLevelCache = secondLevelCache;
+        this.offHeapStore = offHeapStore;
+        this.tags = tags;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "cache.gets", "一级缓存命中", CacheStatistics::getFirstLevelHits, "level", "first", "result", "hit");
+        counter(registry, "cache.gets", "一级缓存未命中", CacheStatistics::getFirstLevelMisses, "level", "first", "result", "miss");
+        counter(registry, "cache.gets", "二级缓存命中", CacheStatistics::getSecondLevelHits, "level", "second", "result", "hit");
+        counter(registry, "cache.gets", "二级缓存未命中", CacheStatistics::getSecondLevelMisses, "level", "second", "result", "miss");
+        counter(registry, "cache.gets", "缓存快照命中", CacheStatistics::getSnapshotHits, "level", "snapshot", "result", "hit");
+        counter(registry, "cache.puts", "写入缓存的查询结果数", CacheStatistics::getPuts);
+        counter(registry, "cache.evictions", "二级缓存因容量不足淘汰的缓存项数", CacheStatistics::getEvictions);
+        counter(registry, "cache.expirations", "读取时已过期的缓存项数", CacheStatistics::getExpirations);
+        counter(registry, "cache.invalidations", "读取时因依赖的表被写入而失效的缓存项数", CacheStatistics::getInvalidations);
+        FunctionTimer.builder(PREFIX + "cache.loads", statistics,
+                        CacheStatistics::getLoads, CacheStatistics::getLoadTimeNanos, TimeUnit.NANOSECONDS)
+                .description("缓存未命中后从数据库加载的次数和耗时")
+                .tags(tags)
+                .register(registry);
+        counter(registry, "cache.loads.coalesced", "缓存未命中后等待正在执行的相同查询的次数",
+                CacheStatistics::getCoalescedLoads);
+        counter(registry, "cache.refreshes", "命中的缓存项进入刷新期后提交异步重新加载的次数",
+                CacheStatistics::getRefreshes);
+        if (secondLevelCache != null) {
+            Gauge.builder(PREFIX + "cache.size", secondLevelCache, TinyLfuCache::size)
+                    .description("二级缓存的缓存项数")
+                    .tags(tags)
+                    .tag("level", "second")
+                    .register(registry);
+            FunctionCounter.builder(PREFIX + "cache.expired", secondLevelCache, TinyLfuCache::getExpirationCount)
+                    .description("二级缓存中到达过期时间后由时间轮主动移除的缓存项数")
+                    .tags(tags)
+                    .register(registry);
+        }
+        if (offHeapStore != null) {
+            bindOffHeap(registry);
+        }
+
+        for (String statementId : statistics.getStatementIds()) {
+            bindStatement(registry, statementId);
+        }
+        statistics.setStatementListener(statementId -> bindStatement(registry, statementId));
+    }
+
+    private void bindOffHeap(MeterRegistry registry) {
+        counter(registry, "cache.gets", "堆外缓存命中", CacheStatistics::getOffHeapHits, "level", "offheap", "result", "hit");
+        counter(registry, "cache.gets", "堆外缓存未命中", CacheStatistics::getOffHeapMisses, "level", "offheap", "result", "miss");
+        Gauge.builder(PREFIX + "cache.size", offHeapStore, OffHeapStore::size)
+                .description("堆外缓存的缓存项数")
+                .tags(tags)
+                .tag("level", "offheap")
+                .register(registry);
+        Gauge.builder(PREFIX + "cache.offheap.bytes", offHeapStore, OffHeapStore::getAllocatedBytes)
+                .description("堆外缓存已分配的直接内存")
+                .tags(tags)
+                .tag("state", "allocated")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder(PREFIX + "cache.offheap.bytes", offHeapStore, OffHeapStore::getMaximumBytes)
+                .description("堆外缓存的直接内存上限")
+                .tags(tags)
+                .tag("state", "max")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + "cache.offheap.slab.evictions", offHeapStore,
+                        OffHeapStore::getSlabEvictionCount)
+                .description("堆外缓存因空间不足整块回收的次数")
+                .tags(tags)
+                .register(registry);
+    }
+
+    private void bindStatement(MeterRegistry registry, String statementId) {
+        Tags statementTags = Tags.of(tags).and("statement", statementId);
+        FunctionCounter.builder(PREFIX + "statement.cache.gets", statistics, s -> s.statementHits(statementId))
+                .description("语句的缓存命中次数")
+                .tags(statementTags)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + "statement.cache.gets", statistics, s -> s.statementMisses(statementId))
+                .description("语句的缓存未命中次数")
+                .tags(statementTags)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionTimer.builder(PREFIX + "statement.cache.loads", statistics,
+                        s -> s.statementLoads(statementId), s -> s.statementLoadTimeNanos(statementId),
+                        TimeUnit.NANOSECONDS)
+                .description("语句缓存未命中后从数据库加载的次数和耗时")
+                .tags(statementTags)
+                .register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String name, String description,
+                         ToLongFunction<CacheStatistics> value, String... extraTags) {
+        FunctionCounter.builder(PREFIX + name, statistics, s -> value.applyAsLong(s))
+                .description(description)
+                .tags(tags)
+                .tags(extraTags)
+                .register(registry);
+    }
+}
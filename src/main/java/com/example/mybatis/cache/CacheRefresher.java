@@ -0,0 +1,104 @@
+package com.example.mybatis.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存刷新执行器 - 异步重新加载进入刷新期的缓存项
+ *
+ * 缓存项超过刷新时间（软过期）但未到过期时间（硬过期）时，读取直接返回缓存的结果，
+ * 同时提交一次重新加载；热点缓存项因此不会在请求路径上过期，避免每个过期周期出现一次延迟尖峰
+ *
+ * 线程数和队列长度都有上限，队列满时放弃本次刷新（不由调用线程执行，否则请求仍要等待查询），
+ * 缓存项在下次读取时再次尝试，到达过期时间后按正常的未命中处理
+ */
+public final class CacheRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheRefresher.class);
+
+    private final ThreadPoolExecutor pool;
+
+    private final LongAdder submitted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * @param threads       刷新线程数
+     * @param queueCapacity 等待执行的刷新任务上限
+     */
+    public CacheRefresher(int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread thread = new Thread(r, "mini-mybatis-cache-refresh-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交刷新任务
+     *
+     * @return 是否已提交，队列已满或已关闭时返回false
+     */
+    public boolean submit(Runnable task) {
+        try {
+            pool.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    logger.warn("缓存刷新失败，缓存项到达过期时间前继续使用原来的结果", e);
+                }
+            });
+            submitted.increment();
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.debug("缓存刷新队列已满，放弃本次刷新");
+            return false;
+        }
+    }
+
+    /**
+     * 已提交的刷新任务数
+     */
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    /**
+     * 因队列已满放弃的刷新次数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 失败的刷新次数
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * 等待执行的刷新任务数
+     */
+    public int getQueueSize() {
+        return pool.getQueue().size();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
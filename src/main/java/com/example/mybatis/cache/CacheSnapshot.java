@@ -0,0 +1,300 @@
+package com.example.mybatis.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 缓存快照 - 进程启动时映射上次保存的快照文件，作为二级缓存之下的只读层
+ *
+ * 打开时只校验文件头、读取表和属性模式，不逐项反序列化；文件中带有按缓存键哈希组织的开放寻址索引，
+ * 二级缓存未命中时按哈希在映射的文件中查找，命中且仍然有效时才解码，随后放回一级和二级缓存。
+ *
+ * 缓存项在以下情况下被丢弃：
+ * 1. 过期时间已到（保留写入快照时的过期时间）
+ * 2. 依赖的表在快照保存之后被写入过：写入记录在快照文件中（{@link CacheSnapshotWriter}），
+ *    进程异常退出时同样有效；写入表未知时整个快照作废
+ * 3. 依赖的表在本进程中被写入过
+ *
+ * 其他进程在本进程停止期间对数据库的写入无法得知，与运行期间一样由过期时间限定结果的陈旧程度
+ *
+ * 文件格式（数值为大端序）：
+ * <pre>
+ * 文件头（128字节）：魔数、格式版本、行编码版本、完成标记、创建时间、缓存项数、各部分偏移、
+ *                   最晚过期时间，以及快照之后的写入记录（未知表写入、任意表写入）
+ * 缓存项：长度 + 过期时间 + 依赖的表序号 + 缓存键（语句ID、SQL、参数）+ {@link RowCodec} 编码的结果
+ * 表：每个表一个8字节的写入记录 + 表名
+ * 属性模式：{@link RowCodec#writeSchemas}
+ * 索引：(64位键哈希, 缓存项偏移) 的开放寻址表，容量为2的幂
+ * </pre>
+ */
+public final class CacheSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshot.class);
+
+    static final int MAGIC = 0x4D4D4353; // "MMCS"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 128;
+
+    static final int OFFSET_MAGIC = 0;
+    static final int OFFSET_VERSION = 4;
+    static final int OFFSET_CODEC_VERSION = 8;
+    static final int OFFSET_COMPLETE = 12;
+    static final int OFFSET_CREATED = 16;
+    static final int OFFSET_ENTRY_COUNT = 24;
+    static final int OFFSET_TABLES = 32;
+    static final int OFFSET_SCHEMAS = 40;
+    static final int OFFSET_INDEX = 48;
+    static final int OFFSET_INDEX_CAPACITY = 56;
+    static final int OFFSET_MAX_EXPIRE = 64;
+    /** 快照之后发生了写入表未知的写操作 */
+    static final int OFFSET_WRITTEN_UNKNOWN = 72;
+    /** 快照之后有任意表被写入 */
+    static final int OFFSET_WRITTEN_ANY = 80;
+
+    static final int INDEX_SLOT_SIZE = 16;
+
+    /** 缓存项不依赖表版本，只按过期时间失效 */
+    static final byte DEPENDS_NONE = 0;
+    /** 缓存项依赖所有表 */
+    static final byte DEPENDS_ALL = 1;
+    /** 缓存项依赖列出的表 */
+    static final byte DEPENDS_TABLES = 2;
+
+    private final Path path;
+
+    private final MappedByteBuffer buffer;
+
+    private final TableVersions tableVersions;
+
+    private final RowCodec codec = new RowCodec();
+
+    private final RowCodec.ForeignSchemas schemas;
+
+    private final String[] tables;
+
+    /** 表在快照之后被写入过 */
+    private final boolean[] tablesWritten;
+
+    private final boolean anyTableWritten;
+
+    private final int indexOffset;
+
+    private final int indexMask;
+
+    private final long entryCount;
+
+    private final long maxExpireTime;
+
+    private CacheSnapshot(Path path, MappedByteBuffer buffer, TableVersions tableVersions, ClassLoader classLoader) {
+        this.path = path;
+        this.buffer = buffer;
+        this.tableVersions = tableVersions;
+        this.entryCount = buffer.getLong(OFFSET_ENTRY_COUNT);
+        this.maxExpireTime = buffer.getLong(OFFSET_MAX_EXPIRE);
+        this.anyTableWritten = buffer.getLong(OFFSET_WRITTEN_ANY) != 0;
+        this.indexOffset = (int) buffer.getLong(OFFSET_INDEX);
+        this.indexMask = (int) buffer.getLong(OFFSET_INDEX_CAPACITY) - 1;
+
+        int tablesOffset = (int) buffer.getLong(OFFSET_TABLES);
+        int schemasOffset = (int) buffer.getLong(OFFSET_SCHEMAS);
+        RowCodec.Input in = new RowCodec.Input(bytes(tablesOffset, schemasOffset - tablesOffset));
+        this.tables = new String[in.readInt()];
+        this.tablesWritten = new boolean[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            tablesWritten[i] = in.readLong() != 0;
+            tables[i] = in.readString();
+        }
+        this.schemas = codec.readSchemas(new RowCodec.Input(bytes(schemasOffset, indexOffset - schemasOffset)),
+                classLoader);
+    }
+
+    /**
+     * 映射快照文件，文件不存在、不完整、格式版本不一致或快照之后发生过表未知的写入时返回null
+     */
+    public static CacheSnapshot open(Path path, TableVersions tableVersions, ClassLoader classLoader) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                logger.warn("缓存快照文件大小无效，忽略: {} ({} 字节)", path, size);
+                return null;
+            }
+            // 映射在通道关闭后仍然有效
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(OFFSET_MAGIC) != MAGIC
+                    || buffer.getInt(OFFSET_VERSION) != FORMAT_VERSION
+                    || buffer.getInt(OFFSET_CODEC_VERSION) != RowCodec.FORMAT_VERSION) {
+                logger.warn("缓存快照文件格式不兼容，忽略: {}", path);
+                return null;
+            }
+            if (buffer.getInt(OFFSET_COMPLETE) != 1) {
+                logger.warn("缓存快照文件不完整，忽略: {}", path);
+                return null;
+            }
+            if (buffer.getLong(OFFSET_WRITTEN_UNKNOWN) != 0) {
+                logger.info("缓存快照保存之后发生过写入表未知的写操作，快照作废: {}", path);
+                return null;
+            }
+            if (buffer.getLong(OFFSET_MAX_EXPIRE) < System.currentTimeMillis()) {
+                logger.info("缓存快照中的缓存项均已过期: {}", path);
+                return null;
+            }
+            CacheSnapshot snapshot = new CacheSnapshot(path, buffer, tableVersions, classLoader);
+            logger.info("已映射缓存快照: {}，缓存项 {} 个，保存于 {}", path, snapshot.entryCount,
+                    new java.util.Date(buffer.getLong(OFFSET_CREATED)));
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("读取缓存快照失败，忽略: {}", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * 查找缓存项，未找到、已过期或依赖的表已被写入时返回null
+     */
+    Restored get(CacheKey key) {
+        long hash = key.hash64();
+        int slot = (int) hash & indexMask;
+        while (true) {
+            int slotOffset = indexOffset + slot * INDEX_SLOT_SIZE;
+            long entryOffset = buffer.getLong(slotOffset + 8);
+            if (entryOffset == 0) {
+                return null;
+            }
+            if (buffer.getLong(slotOffset) == hash) {
+                Restored restored = read((int) entryOffset, key);
+                if (restored != null) {
+                    return restored == MISMATCH ? null : restored;
+                }
+            }
+            slot = (slot + 1) & indexMask;
+        }
+    }
+
+    /** 缓存键相同但缓存项已失效 */
+    private static final Restored MISMATCH = new Restored(null, 0, null);
+
+    /**
+     * 读取缓存项：键不同时返回null，继续探测；键相同但已失效，或缓存项无法读取（文件损坏、
+     * 结果类型已改变等）时返回MISMATCH
+     */
+    private Restored read(int entryOffset, CacheKey key) {
+        try {
+            return readEntry(entryOffset, key);
+        } catch (RuntimeException e) {
+            logger.debug("缓存快照中的缓存项无法读取: {}", key, e);
+            return MISMATCH;
+        }
+    }
+
+    private Restored readEntry(int entryOffset, CacheKey key) {
+        int length = buffer.getInt(entryOffset);
+        if (length < 0 || entryOffset + 4L + length > buffer.limit()) {
+            // 长度损坏时不按它分配数组
+            throw new IllegalStateException("缓存项长度无效: " + length);
+        }
+        RowCodec.Input in = new RowCodec.Input(bytes(entryOffset + 4, length));
+        long expireTime = in.readLong();
+        byte depends = in.readByte();
+        int[] tableIndexes = new int[depends == DEPENDS_TABLES ? in.readVarInt() : 0];
+        for (int i = 0; i < tableIndexes.length; i++) {
+            tableIndexes[i] = in.readVarInt();
+        }
+        String statementId = (String) RowCodec.readParameter(in);
+        String sql = (String) RowCodec.readParameter(in);
+        Object[] parameters = new Object[in.readVarInt()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = RowCodec.readParameter(in);
+        }
+        if (!key.equals(new CacheKey(statementId, sql, parameters))) {
+            return null;
+        }
+
+        if (expireTime < System.currentTimeMillis()) {
+            return MISMATCH;
+        }
+        TableVersions.Stamp stamp = null;
+        if (depends == DEPENDS_ALL) {
+            // 先记录版本再检查，检查之后的写入由版本号发现
+            stamp = tableVersions.stamp(null);
+            if (anyTableWritten || tableVersions.anyTableVersion() != 0 || tableVersions.epochVersion() != 0) {
+                return MISMATCH;
+            }
+        } else if (depends == DEPENDS_TABLES) {
+            String[] names = new String[tableIndexes.length];
+            for (int i = 0; i < names.length; i++) {
+                if (tablesWritten[tableIndexes[i]]) {
+                    return MISMATCH;
+                }
+                names[i] = tables[tableIndexes[i]];
+            }
+            stamp = tableVersions.stamp(names);
+            if (tableVersions.epochVersion() != 0) {
+                return MISMATCH;
+            }
+            for (String name : names) {
+                if (tableVersions.version(name) != 0) {
+                    return MISMATCH;
+                }
+            }
+        }
+
+        byte[] value = new byte[length - in.position()];
+        System.arraycopy(bytes(entryOffset + 4 + in.position(), value.length), 0, value, 0, value.length);
+        List<Object> rows = codec.decode(value, schemas);
+        return rows != null ? new Restored(rows, expireTime, stamp) : MISMATCH;
+    }
+
+    private byte[] bytes(int offset, int length) {
+        byte[] data = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).position(offset);
+        view.get(data, 0, length);
+        return data;
+    }
+
+    /**
+     * 快照中的缓存项数（包括已失效的）
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * 快照中的缓存项是否已全部过期，过期后可以不再查找
+     */
+    public boolean isExpired() {
+        return maxExpireTime < System.currentTimeMillis();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * 从快照中恢复的缓存项
+     */
+    static final class Restored {
+        final Object value;
+        final long expireTime;
+        final TableVersions.Stamp stamp;
+
+        Restored(Object value, long expireTime, TableVersions.Stamp stamp) {
+            this.value = value;
+            this.expireTime = expireTime;
+            this.stamp = stamp;
+        }
+    }
+}
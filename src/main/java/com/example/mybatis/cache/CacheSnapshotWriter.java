@@ -0,0 +1,509 @@
+package com.example.mybatis.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 缓存快照写入器 - 定期把二级缓存和堆外缓存中仍然有效的查询结果保存到文件，供下次启动时映射（{@link CacheSnapshot}）
+ *
+ * 1. 先写入同目录下的临时文件，写完后才标记完成并原子替换，进程在写入期间退出不会留下不完整的快照
+ * 2. 快照写完后，本进程对表的写入记录到该文件的写入记录中（{@link TableVersions#setWriteListener}），
+ *    记录通过内存映射写入，进程异常退出后也会保留，下次启动时依赖这些表的缓存项被丢弃；
+ *    写入快照期间发生的写入在快照完成后补记
+ * 3. 依赖的表在写入快照时已被写入、已过期，或结果包含不支持的类型的缓存项不保存
+ *
+ * 文件使用单个映射读取，大小限制在2GB以内，超出时后面的缓存项不再保存
+ */
+public final class CacheSnapshotWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshotWriter.class);
+
+    /** 文件大小上限，保留余量给表、属性模式和索引之外的估算误差 */
+    private static final long MAX_FILE_SIZE = Integer.MAX_VALUE - 16L * 1024 * 1024;
+
+    private final Path path;
+
+    private final TinyLfuCache<CacheKey, Object> cache;
+
+    private final OffHeapStore offHeapStore;
+
+    private final TableVersions tableVersions;
+
+    /** 写入快照时持有，同一时间只有一次写入 */
+    private final Lock writeLock = new ReentrantLock();
+
+    /** 记录表写入、切换写入记录时持有 */
+    private final Lock journalLock = new ReentrantLock();
+
+    /** 当前快照文件的写入记录，由journalLock保护 */
+    private Journal journal;
+
+    /** 写入快照期间被写入的表，快照完成后补记到新文件中，由journalLock保护；null表示未在写入 */
+    private Set<String> pendingTables;
+
+    /** 写入快照期间发生过写入表未知的写入，由journalLock保护 */
+    private boolean pendingUnknown;
+
+    private ScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> task;
+
+    /**
+     * @param cache        二级缓存
+     * @param offHeapStore 堆外缓存层，未启用时为null
+     */
+    public CacheSnapshotWriter(Path path, TinyLfuCache<CacheKey, Object> cache, OffHeapStore offHeapStore,
+                               TableVersions tableVersions) {
+        this.path = path.toAbsolutePath();
+        this.cache = cache;
+        this.offHeapStore = offHeapStore;
+        this.tableVersions = tableVersions;
+    }
+
+    /**
+     * 开始记录表写入，并按间隔定期写入快照
+     *
+     * @param intervalMillis 写入间隔，不大于0时只在 {@link #shutdown()} 时写入
+     */
+    public void start(long intervalMillis) {
+        journalLock.lock();
+        try {
+            // 启动时映射的快照在被替换之前同样需要记录写入
+            journal = Journal.open(path);
+        } finally {
+            journalLock.unlock();
+        }
+        tableVersions.setWriteListener(this::recordWrite);
+        if (intervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "mini-mybatis-cache-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            task = scheduler.scheduleWithFixedDelay(this::writeQuietly, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        logger.info("缓存快照已启用: {}，写入间隔 {} ms", path, intervalMillis);
+    }
+
+    /**
+     * 停止定期写入，并写入最后一次快照；之后的表写入仍然记录到该快照中
+     */
+    public void shutdown() {
+        if (task != null) {
+            task.cancel(false);
+            scheduler.shutdown();
+        }
+        writeQuietly();
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("写入缓存快照失败: {}", path, e);
+        }
+    }
+
+    /**
+     * 立即写入快照
+     *
+     * @return 写入的缓存项数
+     */
+    public int write() throws IOException {
+        writeLock.lock();
+        try {
+            journalLock.lock();
+            try {
+                pendingTables = new HashSet<>();
+                pendingUnknown = false;
+            } finally {
+                journalLock.unlock();
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            long start = System.nanoTime();
+            int count;
+            try {
+                count = writeFile(temp);
+            } catch (IOException | RuntimeException e) {
+                clearPending();
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+
+            Journal next = Journal.open(temp);
+            journalLock.lock();
+            try {
+                journal = next;
+                if (next != null) {
+                    if (pendingUnknown) {
+                        next.recordUnknown();
+                    }
+                    for (String table : pendingTables) {
+                        next.record(table);
+                    }
+                }
+                pendingTables = null;
+            } finally {
+                journalLock.unlock();
+            }
+            move(temp);
+            logger.info("缓存快照已写入: {}，缓存项 {} 个，耗时 {} ms", path, count,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return count;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void clearPending() {
+        journalLock.lock();
+        try {
+            pendingTables = null;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * 表被写入，记录到当前快照文件中
+     */
+    private void recordWrite(String[] tables) {
+        journalLock.lock();
+        try {
+            if (tables.length == 0) {
+                if (journal != null) {
+                    journal.recordUnknown();
+                }
+                pendingUnknown = true;
+                return;
+            }
+            for (String table : tables) {
+                if (journal != null) {
+                    journal.record(table);
+                }
+                if (pendingTables != null) {
+                    pendingTables.add(table);
+                }
+            }
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private void move(Path temp) throws IOException {
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            logger.warn("文件系统不支持原子替换，直接覆盖缓存快照: {}", path);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private int writeFile(Path file) throws IOException {
+        RowCodec codec = new RowCodec();
+        Map<String, Integer> tableIndexes = new LinkedHashMap<>();
+        Set<CacheKey> written = new HashSet<>();
+        EntryWriter entries = new EntryWriter(codec, tableIndexes);
+        long now = System.currentTimeMillis();
+
+        try (OutputStream out = new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE), 1 << 16)) {
+            entries.out = out;
+            out.write(new byte[CacheSnapshot.HEADER_SIZE]);
+            entries.position = CacheSnapshot.HEADER_SIZE;
+
+            // 先保存二级缓存中的缓存项，其余的再从堆外缓存中补充
+            cache.forEach((key, value) -> {
+                if (!entries.full && value instanceof CacheManager.CacheEntry) {
+                    CacheManager.CacheEntry entry = (CacheManager.CacheEntry) value;
+                    if (entry.getValue() instanceof List
+                            && isCurrent(entry.getExpireTime(), entry.getStamp(), now)
+                            && entries.write(key, (List<?>) entry.getValue(), entry.getExpireTime(), entry.getStamp())) {
+                        written.add(key);
+                    }
+                }
+            });
+            if (offHeapStore != null) {
+                offHeapStore.forEach((key, location) -> {
+                    if (!entries.full && !written.contains(key)
+                            && isCurrent(location.expireTime, location.stamp, now)) {
+                        List<Object> rows = offHeapStore.peek(location);
+                        if (rows != null && entries.write(key, rows, location.expireTime, location.stamp)) {
+                            written.add(key);
+                        }
+                    }
+                });
+            }
+            if (entries.error != null) {
+                throw entries.error;
+            }
+            if (entries.full) {
+                logger.warn("缓存快照已达到文件大小上限，只保存了 {} 个缓存项", entries.count);
+            }
+
+            RowCodec.Output tail = new RowCodec.Output(1024);
+            long tablesOffset = entries.position;
+            tail.writeInt(tableIndexes.size());
+            for (String table : tableIndexes.keySet()) {
+                tail.writeLong(0L);
+                tail.writeString(table);
+            }
+            long schemasOffset = tablesOffset + tail.size();
+            codec.writeSchemas(tail);
+            while ((tablesOffset + tail.size()) % 8 != 0) {
+                tail.writeByte(0);
+            }
+            long indexOffset = tablesOffset + tail.size();
+            out.write(tail.array(), 0, tail.size());
+
+            int capacity = indexCapacity(entries.count);
+            byte[] zeros = new byte[1 << 16];
+            for (long remaining = (long) capacity * CacheSnapshot.INDEX_SLOT_SIZE; remaining > 0; ) {
+                int length = (int) Math.min(zeros.length, remaining);
+                out.write(zeros, 0, length);
+                remaining -= length;
+            }
+            out.flush();
+
+            entries.header.putLong(CacheSnapshot.OFFSET_TABLES, tablesOffset);
+            entries.header.putLong(CacheSnapshot.OFFSET_SCHEMAS, schemasOffset);
+            entries.header.putLong(CacheSnapshot.OFFSET_INDEX, indexOffset);
+            entries.header.putLong(CacheSnapshot.OFFSET_INDEX_CAPACITY, capacity);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = entries.header;
+            long indexOffset = header.getLong(CacheSnapshot.OFFSET_INDEX);
+            int capacity = (int) header.getLong(CacheSnapshot.OFFSET_INDEX_CAPACITY);
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_WRITE, indexOffset,
+                    (long) capacity * CacheSnapshot.INDEX_SLOT_SIZE);
+            int mask = capacity - 1;
+            for (int i = 0; i < entries.count; i++) {
+                int slot = (int) entries.hashes[i] & mask;
+                while (index.getLong(slot * CacheSnapshot.INDEX_SLOT_SIZE + 8) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index.putLong(slot * CacheSnapshot.INDEX_SLOT_SIZE, entries.hashes[i]);
+                index.putLong(slot * CacheSnapshot.INDEX_SLOT_SIZE + 8, entries.offsets[i]);
+            }
+            index.force();
+
+            header.putInt(CacheSnapshot.OFFSET_MAGIC, CacheSnapshot.MAGIC);
+            header.putInt(CacheSnapshot.OFFSET_VERSION, CacheSnapshot.FORMAT_VERSION);
+            header.putInt(CacheSnapshot.OFFSET_CODEC_VERSION, RowCodec.FORMAT_VERSION);
+            header.putLong(CacheSnapshot.OFFSET_CREATED, now);
+            header.putLong(CacheSnapshot.OFFSET_ENTRY_COUNT, entries.count);
+            header.putLong(CacheSnapshot.OFFSET_MAX_EXPIRE, entries.maxExpireTime);
+            channel.write(header.duplicate(), 0);
+            channel.force(true);
+
+            // 内容落盘之后才标记完成
+            ByteBuffer complete = ByteBuffer.allocate(4).putInt(0, 1);
+            channel.write(complete, CacheSnapshot.OFFSET_COMPLETE);
+            channel.force(true);
+        }
+        return entries.count;
+    }
+
+    private static boolean isCurrent(long expireTime, TableVersions.Stamp stamp, long now) {
+        return expireTime >= now && (stamp == null || stamp.isCurrent());
+    }
+
+    /**
+     * 索引容量：不小于缓存项数两倍的2的幂，装载因子不超过0.5
+     */
+    private static int indexCapacity(int count) {
+        int capacity = 16;
+        while (capacity < count * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * 顺序写出缓存项，并收集索引所需的哈希和偏移
+     */
+    private static final class EntryWriter {
+        final RowCodec codec;
+        final Map<String, Integer> tableIndexes;
+        final ByteBuffer header = ByteBuffer.allocate(CacheSnapshot.HEADER_SIZE);
+        final ByteBuffer length = ByteBuffer.allocate(4);
+        OutputStream out;
+        long position;
+        int count;
+        long maxExpireTime;
+        long[] hashes = new long[1024];
+        long[] offsets = new long[1024];
+        boolean full;
+        IOException error;
+
+        EntryWriter(RowCodec codec, Map<String, Integer> tableIndexes) {
+            this.codec = codec;
+            this.tableIndexes = tableIndexes;
+        }
+
+        /**
+         * 写出一个缓存项，键或结果包含不支持的类型时跳过
+         */
+        boolean write(CacheKey key, List<?> rows, long expireTime, TableVersions.Stamp stamp) {
+            RowCodec.Output value;
+            try {
+                value = codec.encode(rows);
+            } catch (RuntimeException e) {
+                logger.debug("查询结果编码失败，不存入缓存快照: {}", key, e);
+                return false;
+            }
+            if (value == null) {
+                return false;
+            }
+
+            RowCodec.Output entry = new RowCodec.Output(64 + value.size());
+            entry.writeLong(expireTime);
+            if (stamp == null) {
+                entry.writeByte(CacheSnapshot.DEPENDS_NONE);
+            } else if (stamp.getTables().length == 0) {
+                entry.writeByte(CacheSnapshot.DEPENDS_ALL);
+            } else {
+                String[] tables = stamp.getTables();
+                entry.writeByte(CacheSnapshot.DEPENDS_TABLES);
+                entry.writeVarInt(tables.length);
+                for (String table : tables) {
+                    Integer index = tableIndexes.get(table);
+                    if (index == null) {
+                        index = tableIndexes.size();
+                        tableIndexes.put(table, index);
+                    }
+                    entry.writeVarInt(index);
+                }
+            }
+            Object[] parameters = key.getParameters();
+            if (!RowCodec.writeParameter(entry, key.getStatementId()) || !RowCodec.writeParameter(entry, key.getSql())) {
+                return false;
+            }
+            entry.writeVarInt(parameters.length);
+            for (Object parameter : parameters) {
+                if (!RowCodec.writeParameter(entry, parameter)) {
+                    return false;
+                }
+            }
+            entry.writeBytes(value.array(), 0, value.size());
+
+            long size = 4L + entry.size();
+            if (position + size + (long) indexCapacity(count + 1) * CacheSnapshot.INDEX_SLOT_SIZE > MAX_FILE_SIZE) {
+                full = true;
+                return false;
+            }
+            try {
+                length.putInt(0, entry.size());
+                out.write(length.array(), 0, 4);
+                out.write(entry.array(), 0, entry.size());
+            } catch (IOException e) {
+                error = e;
+                full = true;
+                return false;
+            }
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            hashes[count] = key.hash64();
+            offsets[count] = position;
+            count++;
+            position += size;
+            maxExpireTime = Math.max(maxExpireTime, expireTime);
+            return true;
+        }
+    }
+
+    /**
+     * 快照文件中的写入记录 - 映射文件头和表部分，直接改写其中的标记
+     */
+    private static final class Journal {
+        final MappedByteBuffer buffer;
+        /** 表名 -> 写入记录在映射中的偏移 */
+        final Map<String, Integer> slots;
+
+        private Journal(MappedByteBuffer buffer, Map<String, Integer> slots) {
+            this.buffer = buffer;
+            this.slots = slots;
+        }
+
+        /**
+         * 映射快照文件的写入记录，文件不存在或格式不兼容时返回null
+         */
+        static Journal open(Path file) {
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (channel.size() < CacheSnapshot.HEADER_SIZE) {
+                    return null;
+                }
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, CacheSnapshot.HEADER_SIZE);
+                if (header.getInt(CacheSnapshot.OFFSET_MAGIC) != CacheSnapshot.MAGIC
+                        || header.getInt(CacheSnapshot.OFFSET_VERSION) != CacheSnapshot.FORMAT_VERSION
+                        || header.getInt(CacheSnapshot.OFFSET_COMPLETE) != 1) {
+                    return null;
+                }
+                long tablesOffset = header.getLong(CacheSnapshot.OFFSET_TABLES);
+                long schemasOffset = header.getLong(CacheSnapshot.OFFSET_SCHEMAS);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, schemasOffset);
+                byte[] tables = new byte[(int) (schemasOffset - tablesOffset)];
+                for (int i = 0; i < tables.length; i++) {
+                    tables[i] = buffer.get((int) tablesOffset + i);
+                }
+                RowCodec.Input in = new RowCodec.Input(tables);
+                int count = in.readInt();
+                Map<String, Integer> slots = new HashMap<>(count * 2);
+                for (int i = 0; i < count; i++) {
+                    int slot = (int) tablesOffset + in.position();
+                    in.readLong();
+                    slots.put(in.readString(), slot);
+                }
+                return new Journal(buffer, slots);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("映射缓存快照的写入记录失败，表写入将不会记录: {}", file, e);
+                return null;
+            }
+        }
+
+        void record(String table) {
+            buffer.putLong(CacheSnapshot.OFFSET_WRITTEN_ANY, 1L);
+            Integer slot = slots.get(table);
+            if (slot != null) {
+                buffer.putLong(slot, 1L);
+            }
+        }
+
+        void recordUnknown() {
+            buffer.putLong(CacheSnapshot.OFFSET_WRITTEN_UNKNOWN, 1L);
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.example.mybatis.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 缓存统计 - 按缓存层级和语句分别计数
+ *
+ * 计数器使用LongAdder，高并发下记录统计不会在同一个缓存行上竞争；
+ * 通过 {@link #snapshot()} 获取某一时刻的统计快照，用于计算命中率、调整缓存容量和过期时间
+ */
+public final class CacheStatistics {
+
+    private final LongAdder firstLevelHits = new LongAdder();
+
+    private final LongAdder firstLevelMisses = new LongAdder();
+
+    private final LongAdder secondLevelHits = new LongAdder();
+
+    private final LongAdder secondLevelMisses = new LongAdder();
+
+    private final LongAdder offHeapHits = new LongAdder();
+
+    private final LongAdder offHeapMisses = new LongAdder();
+
+    private final LongAdder snapshotHits = new LongAdder();
+
+    private final LongAdder puts = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder loadTimeNanos = new LongAdder();
+
+    private final LongAdder coalescedLoads = new LongAdder();
+
+    private final LongAdder refreshes = new LongAdder();
+
+    private final ConcurrentHashMap<String, StatementCounters> statements = new ConcurrentHashMap<>();
+
+    /** 首次记录某条语句时回调，用于注册该语句的指标 */
+    private volatile Consumer<String> statementListener;
+
+    /**
+     * 一级缓存命中
+     */
+    public void recordFirstLevelHit(String statementId) {
+        firstLevelHits.increment();
+        statement(statementId).hits.increment();
+    }
+
+    /**
+     * 二级缓存命中（一级缓存未命中）
+     */
+    public void recordSecondLevelHit(String statementId) {
+        firstLevelMisses.increment();
+        secondLevelHits.increment();
+        statement(statementId).hits.increment();
+    }
+
+    /**
+     * 堆外缓存命中（一级和二级缓存未命中）
+     */
+    public void recordOffHeapHit(String statementId) {
+        firstLevelMisses.increment();
+        secondLevelMisses.increment();
+        offHeapHits.increment();
+        statement(statementId).hits.increment();
+    }
+
+    /**
+     * 缓存快照命中（其他层级均未命中）
+     *
+     * @param offHeapEnabled 是否查询了堆外缓存
+     */
+    public void recordSnapshotHit(String statementId, boolean offHeapEnabled) {
+        firstLevelMisses.increment();
+        secondLevelMisses.increment();
+        if (offHeapEnabled) {
+            offHeapMisses.increment();
+        }
+        snapshotHits.increment();
+        statement(statementId).hits.increment();
+    }
+
+    /**
+     * 所有启用的缓存层级均未命中
+     *
+     * @param secondLevelEnabled 是否查询了二级缓存
+     * @param offHeapEnabled     是否查询了堆外缓存
+     */
+    public void recordMiss(String statementId, boolean secondLevelEnabled, boolean offHeapEnabled) {
+        firstLevelMisses.increment();
+        if (secondLevelEnabled) {
+            secondLevelMisses.increment();
+        }
+        if (offHeapEnabled) {
+            offHeapMisses.increment();
+        }
+        statement(statementId).misses.increment();
+    }
+
+    public void recordPut() {
+        puts.increment();
+    }
+
+    /**
+     * 二级缓存因容量不足淘汰
+     */
+    public void recordEviction() {
+        evictions.increment();
+    }
+
+    /**
+     * 读取时发现缓存项已过期
+     */
+    public void recordExpiration() {
+        expirations.increment();
+    }
+
+    /**
+     * 读取时发现缓存项依赖的表已被写入
+     */
+    public void recordInvalidation() {
+        invalidations.increment();
+    }
+
+    /**
+     * 缓存未命中后从数据库加载
+     */
+    public void recordLoad(String statementId, long nanos) {
+        loads.increment();
+        loadTimeNanos.add(nanos);
+        StatementCounters counters = statement(statementId);
+        counters.loads.increment();
+        counters.loadTimeNanos.add(nanos);
+    }
+
+    /**
+     * 缓存未命中后没有查询数据库，而是等待了正在执行的相同查询
+     */
+    public void recordCoalescedLoad() {
+        coalescedLoads.increment();
+    }
+
+    /**
+     * 命中的缓存项已进入刷新期，提交了一次异步重新加载
+     */
+    public void recordRefresh() {
+        refreshes.increment();
+    }
+
+    /**
+     * 当前统计快照
+     */
+    public Snapshot snapshot() {
+        Map<String, StatementSnapshot> statementSnapshots = new TreeMap<>();
+        for (Map.Entry<String, StatementCounters> entry : statements.entrySet()) {
+            statementSnapshots.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+        }
+        return new Snapshot(
+                firstLevelHits.sum(), firstLevelMisses.sum(), secondLevelHits.sum(), secondLevelMisses.sum(),
+                offHeapHits.sum(), offHeapMisses.sum(), snapshotHits.sum(),
+                puts.sum(), evictions.sum(), expirations.sum(), invalidations.sum(),
+                loads.sum(), loadTimeNanos.sum(), coalescedLoads.sum(), refreshes.sum(), statementSnapshots);
+    }
+
+    /**
+     * 单条语句的统计快照，没有记录时返回null
+     */
+    public StatementSnapshot snapshot(String statementId) {
+        StatementCounters counters = statements.get(statementId);
+        return counters != null ? counters.snapshot(statementId) : null;
+    }
+
+    /**
+     * 已有统计记录的语句ID
+     */
+    public Set<String> getStatementIds() {
+        return Collections.unmodifiableSet(statements.keySet());
+    }
+
+    /**
+     * 设置首次记录某条语句时的回调
+     */
+    public void setStatementListener(Consumer<String> statementListener) {
+        this.statementListener = statementListener;
+    }
+
+    // ========== 指标导出使用的实时读数 ==========
+
+    public long getFirstLevelHits() {
+        return firstLevelHits.sum();
+    }
+
+    public long getFirstLevelMisses() {
+        return firstLevelMisses.sum();
+    }
+
+    public long getSecondLevelHits() {
+        return secondLevelHits.sum();
+    }
+
+    public long getSecondLevelMisses() {
+        return secondLevelMisses.sum();
+    }
+
+    public long getOffHeapHits() {
+        return offHeapHits.sum();
+    }
+
+    public long getOffHeapMisses() {
+        return offHeapMisses.sum();
+    }
+
+    public long getSnapshotHits() {
+        return snapshotHits.sum();
+    }
+
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getLoadTimeNanos() {
+        return loadTimeNanos.sum();
+    }
+
+    public long getCoalescedLoads() {
+        return coalescedLoads.sum();
+    }
+
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    long statementHits(String statementId) {
+        return statement(statementId).hits.sum();
+    }
+
+    long statementMisses(String statementId) {
+        return statement(statementId).misses.sum();
+    }
+
+    long statementLoads(String statementId) {
+        return statement(statementId).loads.sum();
+    }
+
+    long statementLoadTimeNanos(String statementId) {
+        return statement(statementId).loadTimeNanos.sum();
+    }
+
+    private StatementCounters statement(String statementId) {
+        String id = statementId != null ? statementId : "";
+        StatementCounters counters = statements.get(id);
+        if (counters == null) {
+            StatementCounters created = new StatementCounters();
+            counters = statements.putIfAbsent(id, created);
+            if (counters == null) {
+                counters = created;
+                Consumer<String> listener = statementListener;
+                if (listener != null) {
+                    listener.accept(id);
+                }
+            }
+        }
+        return counters;
+    }
+
+    private static final class StatementCounters {
+
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
+
+        private final LongAdder loads = new LongAdder();
+
+        private final LongAdder loadTimeNanos = new LongAdder();
+
+        StatementSnapshot snapshot(String statementId) {
+            return new StatementSnapshot(statementId, hits.sum(), misses.sum(), loads.sum(), loadTimeNanos.sum());
+        }
+    }
+
+    /**
+     * 缓存统计快照
+     */
+    public static final class Snapshot {
+        private final long firstLevelHits;
+        private final long firstLevelMisses;
+        private final long secondLevelHits;
+        private final long secondLevelMisses;
+        private final long offHeapHits;
+        private final long offHeapMisses;
+        private final long snapshotHits;
+        private final long puts;
+        private final long evictions;
+        private final long expirations;
+        private final long invalidations;
+        private final long loads;
+        private final long loadTimeNanos;
+        private final long coalescedLoads;
+        private final long refreshes;
+        private final Map<String, StatementSnapshot> statements;
+
+        Snapshot(long firstLevelHits, long firstLevelMisses, long secondLevelHits, long secondLevelMisses,
+                 long offHeapHits, long offHeapMisses, long snapshotHits, long puts, long evictions, long expirations, long invalidations,
+                 long loads, long loadTimeNanos, long coalescedLoads, long refreshes, Map<String, StatementSnapshot> statements) {
+            this.firstLevelHits = firstLevelHits;
+            this.firstLevelMisses = firstLevelMisses;
+            this.secondLevelHits = secondLevelHits;
+            this.secondLevelMisses = secondLevelMisses;
+            this.offHeapHits = offHeapHits;
+            this.offHeapMisses = offHeapMisses;
+            this.snapshotHits = snapshotHits;
+            this.puts = puts;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.invalidations = invalidations;
+            this.loads = loads;
+            this.loadTimeNanos = loadTimeNanos;
+            this.coalescedLoads = coalescedLoads;
+            this.refreshes = refreshes;
+            this.statements = Collections.unmodifiableMap(new LinkedHashMap<>(statements));
+        }
+
+        public long getFirstLevelHits() { return firstLevelHits; }
+        public long getFirstLevelMisses() { return firstLevelMisses; }
+        public long getSecondLevelHits() { return secondLevelHits; }
+        public long getSecondLevelMisses() { return secondLevelMisses; }
+        public long getOffHeapHits() { return offHeapHits; }
+        public long getOffHeapMisses() { return offHeapMisses; }
+        public long getSnapshotHits() { return snapshotHits; }
+        public long getPuts() { return puts; }
+        public long getEvictions() { return evictions; }
+        public long getExpirations() { return expirations; }
+        public long getInvalidations() { return invalidations; }
+        public long getLoads() { return loads; }
+        public long getLoadTimeNanos() { return loadTimeNanos; }
+        public long getCoalescedLoads() { return coalescedLoads; }
+        public long getRefreshes() { return refreshes; }
+        public Map<String, StatementSnapshot> getStatements() { return statements; }
+
+        /**
+         * 总请求数（每次查询只计一次）
+         */
+        public long getRequestCount() {
+            return firstLevelHits + firstLevelMisses;
+        }
+
+        /**
+         * 总命中率（任一层级命中），没有请求时为1
+         */
+        public double getHitRate() {
+            long requests = getRequestCount();
+            return requests == 0 ? 1.0 : (double) (firstLevelHits + secondLevelHits + offHeapHits + snapshotHits) / requests;
+        }
+
+        /**
+         * 二级缓存命中率，没有请求时为1
+         */
+        public double getSecondLevelHitRate() {
+            long requests = secondLevelHits + secondLevelMisses;
+            return requests == 0 ? 1.0 : (double) secondLevelHits / requests;
+        }
+
+        /**
+         * 堆外缓存命中率，没有请求时为1
+         */
+        public double getOffHeapHitRate() {
+            long requests = offHeapHits + offHeapMisses;
+            return requests == 0 ? 1.0 : (double) offHeapHits / requests;
+        }
+
+        /**
+         * 平均加载耗时（纳秒）
+         */
+        public double getAverageLoadPenalty() {
+            return loads == 0 ? 0.0 : (double) loadTimeNanos / loads;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheStatistics{" +
+                    "hitRate=" + String.format("%.4f", getHitRate()) +
+                    ", firstLevelHits=" + firstLevelHits +
+                    ", secondLevelHits=" + secondLevelHits +
+                    ", offHeapHits=" + offHeapHits +
+                    ", snapshotHits=" + snapshotHits +
+                    ", misses=" + (firstLevelMisses - secondLevelHits - offHeapHits - snapshotHits) +
+                    ", puts=" + puts +
+                    ", evictions=" + evictions +
+                    ", expirations=" + expirations +
+                    ", invalidations=" + invalidations +
+                    ", loads=" + loads +
+                    ", coalescedLoads=" + coalescedLoads +
+                    ", refreshes=" + refreshes +
+                    ", averageLoadMillis=" + String.format("%.3f", getAverageLoadPenalty() / 1_000_000) +
+                    '}';
+        }
+    }
+
+    /**
+     * 单条语句的统计快照
+     */
+    public static final class StatementSnapshot {
+        private final String statementId;
+        private final long hits;
+        private final long misses;
+        private final long loads;
+        private final long loadTimeNanos;
+
+        StatementSnapshot(String statementId, long hits, long misses, long loads, long loadTimeNanos) {
+            this.statementId = statementId;
+            this.hits = hits;
+            this.misses = misses;
+            this.loads = loads;
+            this.loadTimeNanos = loadTimeNanos;
+        }
+
+        public String getStatementId() { return statementId; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getLoads() { return loads; }
+        public long getLoadTimeNanos() { return loadTimeNanos; }
+
+        /**
+         * 命中率，没有请求时为1
+         */
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+
+        /**
+         * 平均加载耗时（纳秒）
+         */
+        public double getAverageLoadPenalty() {
+            return loads == 0 ? 0.0 : (double) loadTimeNanos / loads;
+        }
+
+        @Override
+        public String toString() {
+            return "StatementSnapshot{" +
+                    "statementId='" + statementId + '\'' +
+                    ", hits=" + hits +
+                    ", misses=" + misses +
+                    ", loads=" + loads +
+                    ", averageLoadMillis=" + String.format("%.3f", getAverageLoadPenalty() / 1_000_000) +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.mybatis.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+
+/**
+ * 堆外缓存层 - 查询结果以 {@link RowCodec} 的二进制格式保存在直接内存中
+ *
+ * 大量结果对象长期留在堆内会进入老年代，GC停顿随缓存容量增长；堆外层只在堆内保留索引
+ * （缓存键 -> 位置、过期时间、表版本），结果本身保存在固定大小的直接内存块（slab）中：
+ * 1. 写入时追加到当前块，写满后启用新块；块数达到上限时整块回收最久未被访问的块，
+ *    其中的缓存项全部移除，不需要逐项整理碎片
+ * 2. 读取时先复制出字节再解码，只有命中且未过期、未失效的缓存项才解码
+ * 3. 回收块与读取之间通过StampedLock的乐观读协调，读取不加锁，读到被回收的块时视为未命中
+ *
+ * 直接内存受 -XX:MaxDirectMemorySize 限制，分配失败时不再增加块数，改为回收旧块
+ */
+public final class OffHeapStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapStore.class);
+
+    private final RowCodec codec = new RowCodec();
+
+    private final ConcurrentHashMap<CacheKey, Location> index = new ConcurrentHashMap<>();
+
+    private final int slabBytes;
+
+    /** 块数上限，直接内存分配失败时下调 */
+    private volatile int maxSlabs;
+
+    /** 已分配的块，由writeLock保护 */
+    private final List<Slab> slabs = new ArrayList<>();
+
+    /** 当前写入的块，由writeLock保护 */
+    private Slab active;
+
+    /** 已分配的块数，供统计读取 */
+    private volatile int slabCount;
+
+    /** 写入、回收块时持有，保护slabs、active和各块的写入位置 */
+    private final Lock writeLock = new ReentrantLock();
+
+    /** 回收块（改写其内容）时持有写锁，读取使用乐观读 */
+    private final StampedLock recycleLock = new StampedLock();
+
+    private final LongAdder slabEvictions = new LongAdder();
+
+    private final LongAdder evictedEntries = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param slabBytes 每个块的字节数，也是单个缓存项的大小上限
+     * @param maxBytes  直接内存总量上限
+     */
+    public OffHeapStore(int slabBytes, long maxBytes) {
+        if (slabBytes <= 0) {
+            throw new IllegalArgumentException("堆外缓存块大小必须大于0: " + slabBytes);
+        }
+        if (maxBytes < slabBytes) {
+            throw new IllegalArgumentException("堆外缓存容量不能小于块大小: " + maxBytes + " < " + slabBytes);
+        }
+        this.slabBytes = slabBytes;
+        this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, maxBytes / slabBytes);
+    }
+
+    /**
+     * 读取缓存项的位置，不检查过期和表版本
+     */
+    Location get(CacheKey key) {
+        return index.get(key);
+    }
+
+    /**
+     * 解码缓存项，所在的块已被回收时返回null
+     */
+    List<Object> decode(CacheKey key, Location location) {
+        byte[] data = read(location);
+        if (data == null) {
+            index.remove(key, location);
+            return null;
+        }
+        location.slab.lastAccess = System.nanoTime();
+        return codec.decode(data);
+    }
+
+    /**
+     * 编码并保存结果，结果包含不支持的类型或超过块大小时不保存
+     *
+     * @param key 可以长期保存的键（{@link CacheKey#copy()}）
+     * @return 是否已保存
+     */
+    boolean put(CacheKey key, List<?> value, long expireTime, TableVersions.Stamp stamp) {
+        return put(key, value, expireTime, expireTime, stamp);
+    }
+
+    /**
+     * 编码并保存结果，同时记录刷新时间（{@link CacheRefresher}）
+     */
+    boolean put(CacheKey key, List<?> value, long refreshTime, long expireTime, TableVersions.Stamp stamp) {
+        RowCodec.Output out;
+        try {
+            out = codec.encode(value);
+        } catch (RuntimeException e) {
+            logger.debug("查询结果编码失败，不存入堆外缓存: {}", key, e);
+            out = null;
+        }
+        if (out == null || out.size() > slabBytes) {
+            rejected.increment();
+            return false;
+        }
+
+        writeLock.lock();
+        try {
+            Slab slab = slabFor(out.size());
+            if (slab == null) {
+                rejected.increment();
+                return false;
+            }
+            int offset = slab.append(out.array(), out.size());
+            slab.keys.add(key);
+            index.put(key, new Location(slab, slab.generation, offset, out.size(), refreshTime, expireTime, stamp));
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 解码缓存项，不更新所在块的访问时间；所在的块已被回收时返回null
+     */
+    List<Object> peek(Location location) {
+        byte[] data = read(location);
+        return data != null ? codec.decode(data) : null;
+    }
+
+    /**
+     * 遍历当前的缓存项位置
+     */
+    void forEach(BiConsumer<CacheKey, Location> action) {
+        index.forEach(action);
+    }
+
+    void remove(CacheKey key) {
+        index.remove(key);
+    }
+
+    void remove(CacheKey key, Location location) {
+        index.remove(key, location);
+    }
+
+    /**
+     * 移除所有缓存项，已分配的块保留下来继续使用
+     */
+    public void clear() {
+        writeLock.lock();
+        try {
+            index.clear();
+            long stamp = recycleLock.writeLock();
+            try {
+                for (Slab slab : slabs) {
+                    slab.reset();
+                }
+            } finally {
+                recycleLock.unlockWrite(stamp);
+            }
+            active = slabs.isEmpty() ? null : slabs.get(0);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 缓存项数
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 已分配的直接内存字节数
+     */
+    public long getAllocatedBytes() {
+        return (long) slabCount * slabBytes;
+    }
+
+    /**
+     * 直接内存上限
+     */
+    public long getMaximumBytes() {
+        return (long) maxSlabs * slabBytes;
+    }
+
+    /**
+     * 因空间不足整块回收的次数
+     */
+    public long getSlabEvictionCount() {
+        return slabEvictions.sum();
+    }
+
+    /**
+     * 随块回收而移除的缓存项数
+     */
+    public long getEvictedEntryCount() {
+        return evictedEntries.sum();
+    }
+
+    /**
+     * 因包含不支持的类型或超过块大小而未保存的结果数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 选择能容纳size字节的块，必要时分配新块或回收旧块
+     */
+    private Slab slabFor(int size) {
+        if (active != null && active.remaining() >= size) {
+            return active;
+        }
+        if (slabs.size() < maxSlabs) {
+            try {
+                Slab slab = new Slab(ByteBuffer.allocateDirect(slabBytes));
+                slabs.add(slab);
+                slabCount = slabs.size();
+                active = slab;
+                return slab;
+            } catch (OutOfMemoryError e) {
+                maxSlabs = slabs.size();
+                logger.warn("直接内存不足，堆外缓存容量限制为 {} 字节（请检查 -XX:MaxDirectMemorySize）",
+                        getMaximumBytes());
+                if (slabs.isEmpty()) {
+                    return null;
+                }
+            }
+        }
+        Slab victim = slabs.get(0);
+        for (Slab slab : slabs) {
+            if (slab.lastAccess < victim.lastAccess) {
+                victim = slab;
+            }
+        }
+        recycle(victim);
+        active = victim;
+        return victim;
+    }
+
+    private void recycle(Slab slab) {
+        int generation = slab.generation;
+        int removed = 0;
+        for (CacheKey key : slab.keys) {
+            Location location = index.get(key);
+            if (location != null && location.slab == slab && location.generation == generation
+                    && index.remove(key, location)) {
+                removed++;
+            }
+        }
+        long stamp = recycleLock.writeLock();
+        try {
+            slab.reset();
+        } finally {
+            recycleLock.unlockWrite(stamp);
+        }
+        slabEvictions.increment();
+        evictedEntries.add(removed);
+        logger.debug("堆外缓存块已回收，移除 {} 个缓存项", removed);
+    }
+
+    private static byte[] copy(Location location) {
+        byte[] data = new byte[location.length];
+        ByteBuffer view = location.slab.buffer.duplicate();
+        ((Buffer) view).position(location.offset);
+        view.get(data, 0, location.length);
+        return data;
+    }
+
+    /**
+     * 读取缓存项的字节；块在复制期间被回收时乐观读校验失败，改为加读锁重新读取
+     */
+    private byte[] read(Location location) {
+        long stamp = recycleLock.tryOptimisticRead();
+        if (stamp != 0) {
+            byte[] data = location.generation == location.slab.generation ? copy(location) : null;
+            if (recycleLock.validate(stamp)) {
+                return data;
+            }
+        }
+        stamp = recycleLock.readLock();
+        try {
+            return location.generation == location.slab.generation ? copy(location) : null;
+        } finally {
+            recycleLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 直接内存块
+     */
+    private static final class Slab {
+        final ByteBuffer buffer;
+
+        /** 写入位置，由writeLock保护 */
+        int position;
+
+        /** 每次回收递增，缓存项记录写入时的值，不一致说明块已被改写 */
+        int generation;
+
+        /** 写入过本块的键，回收时据此清理索引 */
+        final List<CacheKey> keys = new ArrayList<>();
+
+        /** 最近一次读取或写入的时间，回收时选择最小的块 */
+        volatile long lastAccess = System.nanoTime();
+
+        Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        int append(byte[] data, int length) {
+            int offset = position;
+            ByteBuffer view = buffer.duplicate();
+            ((Buffer) view).position(offset);
+            view.put(data, 0, length);
+            position += length;
+            lastAccess = System.nanoTime();
+            return offset;
+        }
+
+        void reset() {
+            generation++;
+            position = 0;
+            keys.clear();
+            lastAccess = System.nanoTime();
+        }
+    }
+
+    /**
+     * 缓存项的位置 - 所在块、块的代数、偏移和长度，以及刷新时间、过期时间和表版本
+     */
+    static final class Location {
+        final Slab slab;
+        final int generation;
+        final int offset;
+        final int length;
+        final long refreshTime;
+        final long expireTime;
+        final TableVersions.Stamp stamp;
+
+        Location(Slab slab, int generation, int offset, int length, long refreshTime, long expireTime,
+                 TableVersions.Stamp stamp) {
+            this.slab = slab;
+            this.generation = generation;
+            this.offset = offset;
+            this.length = length;
+            this.refreshTime = refreshTime;
+            this.expireTime = expireTime;
+            this.stamp = stamp;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.mybatis.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 读记录缓冲区 - 缓存命中时记录被访问的节点，稍后在淘汰锁内批量更新访问顺序和频率
+ *
+ * 按线程分条，每条是一个固定大小的环形缓冲区。写入只有一次CAS，冲突或缓冲区已满时直接丢弃，
+ * 读操作因此不需要加锁；丢弃少量访问记录只会略微降低淘汰策略的精度
+ */
+final class ReadBuffer<E> {
+
+    /** 写入结果：已记录 */
+    static final int SUCCESS = 0;
+
+    /** 写入结果：缓冲区已满或发生冲突，记录被丢弃 */
+    static final int FAILED = 1;
+
+    /** 写入结果：已记录，且缓冲区达到排空阈值 */
+    static final int DRAIN = 2;
+
+    private static final int STRIPES = ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final int STRIPE_MASK = STRIPES - 1;
+
+    private static final int BUFFER_SIZE = 16;
+
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+    /** 每条缓冲区积累到该数量时请求排空 */
+    private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+    private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(STRIPES * BUFFER_SIZE);
+
+    private final AtomicLongArray writeCounts = new AtomicLongArray(STRIPES);
+
+    /** 只在排空时（淘汰锁内）写入，写入方读取时可能看到旧值，只会导致多丢弃几次记录 */
+    private final AtomicLongArray readCounts = new AtomicLongArray(STRIPES);
+
+    /**
+     * 记录一次访问
+     */
+    int offer(E e) {
+        int stripe = stripe();
+        long write = writeCounts.get(stripe);
+        long read = readCounts.get(stripe);
+        long pending = write - read;
+        if (pending >= BUFFER_SIZE) {
+            return FAILED;
+        }
+        if (!writeCounts.compareAndSet(stripe, write, write + 1)) {
+            return FAILED;
+        }
+        buffer.lazySet(stripe * BUFFER_SIZE + (int) (write & BUFFER_MASK), e);
+        return pending + 1 >= DRAIN_THRESHOLD ? DRAIN : SUCCESS;
+    }
+
+    /**
+     * 取出所有已记录的访问，必须在淘汰锁内调用
+     */
+    void drainTo(Consumer<E> consumer) {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            long read = readCounts.get(stripe);
+            long write = writeCounts.get(stripe);
+            int base = stripe * BUFFER_SIZE;
+            for (; read < write; read++) {
+                int index = base + (int) (read & BUFFER_MASK);
+                E e = buffer.get(index);
+                if (e == null) {
+                    // 写入方已占位但还未写入，下次再处理
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(e);
+            }
+            readCounts.lazySet(stripe, read);
+        }
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & STRIPE_MASK;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << (32 - Integer.numberOfLeadingZeros(Math.max(x, 2) - 1));
+    }
+}
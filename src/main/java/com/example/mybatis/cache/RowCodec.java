@@ -0,0 +1,928 @@
+package com.example.mybatis.cache;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 查询结果的二进制行编码 - 堆外缓存层的存储格式
+ *
+ * 一个缓存项是一个结果列表，按结果类型分三种编码：
+ * 1. JavaBean：同一类型的所有行共用一个属性模式（属性顺序和类型），模式只在堆内登记一次，
+ *    缓存项中只保存模式编号；每行是空值位图加上非空属性的值，类型确定的属性不写类型标记
+ * 2. Map（ColumnMapRowMapper的结果）：列名在缓存项头部写一次，每行是带类型标记的值
+ * 3. 单列值：每行一个带类型标记的值
+ *
+ * 整数使用变长编码，字符串使用UTF-8。编码JavaBean中所有有setter的属性，只有getter的属性不编码；
+ * 遇到不支持的类型（嵌套对象、枚举、集合、只有setter的属性等）时返回null，该结果只保存在堆内缓存中
+ *
+ * 写入文件时通过 {@link #writeSchemas(Output)} 附带属性模式（类名、属性名和类型标记），
+ * 读取时按属性名对应到当前的类，类增删的属性被忽略，类无法加载时该类型的结果无法解码
+ */
+final class RowCodec {
+
+    /** 编码格式版本，格式变化时递增 */
+    static final int FORMAT_VERSION = 1;
+
+    private static final byte KIND_SCALAR = 1;
+    private static final byte KIND_MAP = 2;
+    private static final byte KIND_BEAN = 3;
+
+    private static final byte T_NULL = 0;
+    private static final byte T_STRING = 1;
+    private static final byte T_LONG = 2;
+    private static final byte T_INTEGER = 3;
+    private static final byte T_SHORT = 4;
+    private static final byte T_BYTE = 5;
+    private static final byte T_DOUBLE = 6;
+    private static final byte T_FLOAT = 7;
+    private static final byte T_BOOLEAN = 8;
+    private static final byte T_CHARACTER = 9;
+    private static final byte T_BIG_DECIMAL = 10;
+    private static final byte T_BIG_INTEGER = 11;
+    private static final byte T_DATE = 12;
+    private static final byte T_SQL_DATE = 13;
+    private static final byte T_SQL_TIME = 14;
+    private static final byte T_TIMESTAMP = 15;
+    private static final byte T_LOCAL_DATE = 16;
+    private static final byte T_LOCAL_TIME = 17;
+    private static final byte T_LOCAL_DATE_TIME = 18;
+    private static final byte T_INSTANT = 19;
+    private static final byte T_BYTES = 20;
+    /** 只用于缓存键参数：集合或对象数组 */
+    private static final byte T_SEQUENCE = 21;
+
+    /** 值的实际类型 -> 类型标记 */
+    private static final Map<Class<?>, Byte> TAGS = new HashMap<>();
+
+    static {
+        TAGS.put(String.class, T_STRING);
+        TAGS.put(Long.class, T_LONG);
+        TAGS.put(Integer.class, T_INTEGER);
+        TAGS.put(Short.class, T_SHORT);
+        TAGS.put(Byte.class, T_BYTE);
+        TAGS.put(Double.class, T_DOUBLE);
+        TAGS.put(Float.class, T_FLOAT);
+        TAGS.put(Boolean.class, T_BOOLEAN);
+        TAGS.put(Character.class, T_CHARACTER);
+        TAGS.put(BigDecimal.class, T_BIG_DECIMAL);
+        TAGS.put(BigInteger.class, T_BIG_INTEGER);
+        TAGS.put(Date.class, T_DATE);
+        TAGS.put(java.sql.Date.class, T_SQL_DATE);
+        TAGS.put(Time.class, T_SQL_TIME);
+        TAGS.put(Timestamp.class, T_TIMESTAMP);
+        TAGS.put(LocalDate.class, T_LOCAL_DATE);
+        TAGS.put(LocalTime.class, T_LOCAL_TIME);
+        TAGS.put(LocalDateTime.class, T_LOCAL_DATE_TIME);
+        TAGS.put(Instant.class, T_INSTANT);
+        TAGS.put(byte[].class, T_BYTES);
+    }
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /** 无法编码的类型 */
+    private static final BeanSchema UNSUPPORTED = new BeanSchema(-1, null, null, new BeanProperty[0]);
+
+    /** 结果类型 -> 属性模式 */
+    private final Map<Class<?>, BeanSchema> schemas = new ConcurrentHashMap<>();
+
+    /** 模式编号 -> 属性模式，编号即下标 */
+    private final List<BeanSchema> schemasById = new CopyOnWriteArrayList<>();
+
+    private final Lock schemaLock = new ReentrantLock();
+
+    /**
+     * 编码结果列表，包含不支持的类型时返回null
+     */
+    Output encode(List<?> rows) {
+        Output out = new Output(64 + rows.size() * 32);
+        out.writeByte(FORMAT_VERSION);
+        Object first = rows.isEmpty() ? null : rows.get(0);
+        if (first instanceof Map) {
+            return encodeMaps(rows, out) ? out : null;
+        }
+        if (first != null && !TAGS.containsKey(first.getClass())) {
+            BeanSchema schema = schema(first.getClass());
+            return schema != UNSUPPORTED && encodeBeans(rows, schema, out) ? out : null;
+        }
+        out.writeByte(KIND_SCALAR);
+        out.writeVarInt(rows.size());
+        for (Object value : rows) {
+            if (!writeTagged(out, value)) {
+                return null;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 解码结果列表
+     */
+    List<Object> decode(byte[] data) {
+        return decode(data, null);
+    }
+
+    /**
+     * 解码其他编码器实例写入的结果列表，属性模式由 {@link #readSchemas(Input, ClassLoader)} 读出；
+     * 结果类型无法加载时返回null
+     */
+    List<Object> decode(byte[] data, ForeignSchemas foreign) {
+        Input in = new Input(data);
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("不支持的缓存编码版本: " + version);
+        }
+        byte kind = in.readByte();
+        if (kind == KIND_BEAN) {
+            int id = in.readVarInt();
+            if (foreign == null) {
+                BeanSchema schema = schemasById.get(id);
+                return decodeBeans(in, schema, schema.tags, schema.properties);
+            }
+            ForeignSchema schema = foreign.schemas[id];
+            return schema.local != null ? decodeBeans(in, schema.local, schema.tags, schema.targets) : null;
+        }
+        if (kind == KIND_MAP) {
+            return decodeMaps(in);
+        }
+        int count = in.readVarInt();
+        List<Object> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(readTagged(in));
+        }
+        return rows;
+    }
+
+    // ========== JavaBean ==========
+
+    private boolean encodeBeans(List<?> rows, BeanSchema schema, Output out) {
+        out.writeByte(KIND_BEAN);
+        out.writeVarInt(schema.id);
+        out.writeVarInt(rows.size());
+        BeanProperty[] properties = schema.properties;
+        Object[] values = new Object[properties.length];
+        byte[] nulls = new byte[(properties.length + 7) >>> 3];
+        for (Object row : rows) {
+            // 子类实例的属性可能多于模式中的属性，不能按父类模式编码
+            if (row == null || row.getClass() != schema.type) {
+                return false;
+            }
+            Arrays.fill(nulls, (byte) 0);
+            for (int i = 0; i < properties.length; i++) {
+                Object value = properties[i].get(row);
+                values[i] = value;
+                if (value == null) {
+                    nulls[i >>> 3] |= (byte) (1 << (i & 7));
+                }
+            }
+            out.writeBytes(nulls, 0, nulls.length);
+            for (int i = 0; i < properties.length; i++) {
+                Object value = values[i];
+                if (value == null) {
+                    continue;
+                }
+                byte tag = properties[i].tag;
+                if (tag == T_NULL) {
+                    if (!writeTagged(out, value)) {
+                        return false;
+                    }
+                } else {
+                    writeValue(out, tag, value);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param tags    编码时各属性的类型标记
+     * @param targets 各属性对应的setter，为null的属性读出后丢弃
+     */
+    private static List<Object> decodeBeans(Input in, BeanSchema schema, byte[] tags, BeanProperty[] targets) {
+        int count = in.readVarInt();
+        byte[] nulls = new byte[(tags.length + 7) >>> 3];
+        List<Object> rows = new ArrayList<>(count);
+        for (int r = 0; r < count; r++) {
+            Object bean = schema.newInstance();
+            in.readBytes(nulls);
+            for (int i = 0; i < tags.length; i++) {
+                if ((nulls[i >>> 3] & (1 << (i & 7))) != 0) {
+                    continue;
+                }
+                Object value = tags[i] == T_NULL ? readTagged(in) : readValue(in, tags[i]);
+                BeanProperty target = targets[i];
+                if (target != null && target.type.isInstance(value)) {
+                    target.set(bean, value);
+                }
+            }
+            rows.add(bean);
+        }
+        return rows;
+    }
+
+    /**
+     * 写出已登记的属性模式
+     */
+    void writeSchemas(Output out) {
+        List<BeanSchema> snapshot = new ArrayList<>(schemasById);
+        out.writeVarInt(snapshot.size());
+        for (BeanSchema schema : snapshot) {
+            out.writeString(schema.type.getName());
+            out.writeVarInt(schema.properties.length);
+            for (BeanProperty property : schema.properties) {
+                out.writeString(property.name);
+                out.writeByte(property.tag);
+            }
+        }
+    }
+
+    /**
+     * 读取其他编码器实例写出的属性模式，并按属性名对应到当前加载的类
+     */
+    ForeignSchemas readSchemas(Input in, ClassLoader classLoader) {
+        ForeignSchema[] result = new ForeignSchema[in.readVarInt()];
+        for (int i = 0; i < result.length; i++) {
+            String className = in.readString();
+            int count = in.readVarInt();
+            String[] names = new String[count];
+            byte[] tags = new byte[count];
+            for (int p = 0; p < count; p++) {
+                names[p] = in.readString();
+                tags[p] = in.readByte();
+            }
+            BeanSchema local = null;
+            try {
+                BeanSchema schema = schema(ClassUtils.forName(className, classLoader));
+                local = schema != UNSUPPORTED ? schema : null;
+            } catch (ClassNotFoundException | LinkageError e) {
+                // 类已被删除或改名，这种类型的结果无法解码
+            }
+            BeanProperty[] targets = new BeanProperty[count];
+            if (local != null) {
+                for (int p = 0; p < count; p++) {
+                    for (BeanProperty property : local.properties) {
+                        if (property.name.equals(names[p])) {
+                            targets[p] = property;
+                            break;
+                        }
+                    }
+                }
+            }
+            result[i] = new ForeignSchema(local, tags, targets);
+        }
+        return new ForeignSchemas(result);
+    }
+
+    // ========== 缓存键参数 ==========
+
+    /**
+     * 写缓存键的参数值，集合和对象数组按元素序列写出；包含不支持的类型时返回false
+     */
+    static boolean writeParameter(Output out, Object value) {
+        Collection<?> sequence = value instanceof Collection ? (Collection<?>) value
+                : value instanceof Object[] ? Arrays.asList((Object[]) value) : null;
+        if (sequence == null) {
+            return writeTagged(out, value);
+        }
+        out.writeByte(T_SEQUENCE);
+        out.writeVarInt(sequence.size());
+        for (Object element : sequence) {
+            if (!writeParameter(out, element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读缓存键的参数值，元素序列读为List（与对象数组按 {@link CacheKey} 的规则相等）
+     */
+    static Object readParameter(Input in) {
+        byte tag = in.readByte();
+        if (tag != T_SEQUENCE) {
+            return tag == T_NULL ? null : readValue(in, tag);
+        }
+        int count = in.readVarInt();
+        List<Object> elements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            elements.add(readParameter(in));
+        }
+        return elements;
+    }
+
+    private BeanSchema schema(Class<?> type) {
+        BeanSchema schema = schemas.get(type);
+        if (schema != null) {
+            return schema;
+        }
+        schemaLock.lock();
+        try {
+            schema = schemas.get(type);
+            if (schema == null) {
+                schema = createSchema(type, schemasById.size());
+                if (schema != UNSUPPORTED) {
+                    schemasById.add(schema);
+                }
+                schemas.put(type, schema);
+            }
+            return schema;
+        } finally {
+            schemaLock.unlock();
+        }
+    }
+
+    private static BeanSchema createSchema(Class<?> type, int id) {
+        MethodHandle constructor;
+        try {
+            Constructor<?> ctor = type.getDeclaredConstructor();
+            ReflectionUtils.makeAccessible(ctor);
+            constructor = MethodHandles.lookup().unreflectConstructor(ctor).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            return UNSUPPORTED;
+        }
+        List<BeanProperty> properties = new ArrayList<>();
+        for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(type)) {
+            Method readMethod = pd.getReadMethod();
+            Method writeMethod = pd.getWriteMethod();
+            if (writeMethod == null) {
+                // 只有getter的属性是派生值（如getClass），解码时无法也不需要写回
+                continue;
+            }
+            if (readMethod == null) {
+                // 只有setter的属性由行映射器写入但无法读出，解码后会丢失
+                return UNSUPPORTED;
+            }
+            Class<?> propertyType = pd.getPropertyType();
+            byte tag = fixedTag(propertyType);
+            if (tag == T_NULL && !isTaggable(propertyType)) {
+                return UNSUPPORTED;
+            }
+            try {
+                ReflectionUtils.makeAccessible(readMethod);
+                ReflectionUtils.makeAccessible(writeMethod);
+                properties.add(new BeanProperty(pd.getName(), boxed(propertyType), tag,
+                        MethodHandles.lookup().unreflect(readMethod).asType(GETTER_TYPE),
+                        MethodHandles.lookup().unreflect(writeMethod).asType(SETTER_TYPE)));
+            } catch (IllegalAccessException | RuntimeException e) {
+                return UNSUPPORTED;
+            }
+        }
+        return new BeanSchema(id, type, constructor, properties.toArray(new BeanProperty[0]));
+    }
+
+    /**
+     * 属性声明的类型不可能有子类时，值的类型即声明的类型，编码时不写类型标记
+     */
+    private static byte fixedTag(Class<?> type) {
+        if (type.isPrimitive()) {
+            type = boxed(type);
+        }
+        Byte tag = TAGS.get(type);
+        return tag != null && (Modifier.isFinal(type.getModifiers()) || type.isArray()) ? tag : T_NULL;
+    }
+
+    /**
+     * 声明的类型（如Object、Number、Date）可以容纳某种支持的值类型，按值的实际类型写类型标记
+     */
+    private static boolean isTaggable(Class<?> type) {
+        for (Class<?> supported : TAGS.keySet()) {
+            if (type.isAssignableFrom(supported)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Class<?> boxed(Class<?> primitive) {
+        if (primitive == long.class) {
+            return Long.class;
+        } else if (primitive == int.class) {
+            return Integer.class;
+        } else if (primitive == short.class) {
+            return Short.class;
+        } else if (primitive == byte.class) {
+            return Byte.class;
+        } else if (primitive == double.class) {
+            return Double.class;
+        } else if (primitive == float.class) {
+            return Float.class;
+        } else if (primitive == boolean.class) {
+            return Boolean.class;
+        } else if (primitive == char.class) {
+            return Character.class;
+        }
+        return primitive;
+    }
+
+    // ========== Map ==========
+
+    private static boolean encodeMaps(List<?> rows, Output out) {
+        Map<?, ?> first = (Map<?, ?>) rows.get(0);
+        boolean caseInsensitive = first instanceof LinkedCaseInsensitiveMap;
+        if (!caseInsensitive && first.getClass() != LinkedHashMap.class) {
+            return false;
+        }
+        String[] columns = new String[first.size()];
+        int c = 0;
+        for (Object column : first.keySet()) {
+            if (!(column instanceof String)) {
+                return false;
+            }
+            columns[c++] = (String) column;
+        }
+        out.writeByte(KIND_MAP);
+        out.writeByte(caseInsensitive ? 1 : 0);
+        out.writeVarInt(columns.length);
+        for (String column : columns) {
+            out.writeString(column);
+        }
+        out.writeVarInt(rows.size());
+        for (Object row : rows) {
+            if (row == null || row.getClass() != first.getClass() || ((Map<?, ?>) row).size() != columns.length) {
+                return false;
+            }
+            Iterator<? extends Map.Entry<?, ?>> entries = ((Map<?, ?>) row).entrySet().iterator();
+            for (String column : columns) {
+                Map.Entry<?, ?> entry = entries.next();
+                if (!column.equals(entry.getKey()) || !writeTagged(out, entry.getValue())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static List<Object> decodeMaps(Input in) {
+        boolean caseInsensitive = in.readByte() == 1;
+        String[] columns = new String[in.readVarInt()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = in.readString();
+        }
+        int count = in.readVarInt();
+        List<Object> rows = new ArrayList<>(count);
+        for (int r = 0; r < count; r++) {
+            Map<String, Object> row = caseInsensitive
+                    ? new LinkedCaseInsensitiveMap<>(columns.length)
+                    : new LinkedHashMap<>(columns.length * 4 / 3 + 1);
+            for (String column : columns) {
+                row.put(column, readTagged(in));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    // ========== 值 ==========
+
+    private static boolean writeTagged(Output out, Object value) {
+        if (value == null) {
+            out.writeByte(T_NULL);
+            return true;
+        }
+        Byte tag = TAGS.get(value.getClass());
+        if (tag == null) {
+            return false;
+        }
+        out.writeByte(tag);
+        writeValue(out, tag, value);
+        return true;
+    }
+
+    private static Object readTagged(Input in) {
+        byte tag = in.readByte();
+        return tag == T_NULL ? null : readValue(in, tag);
+    }
+
+    private static void writeValue(Output out, byte tag, Object value) {
+        switch (tag) {
+            case T_STRING:
+                out.writeString((String) value);
+                break;
+            case T_LONG:
+                out.writeVarLong(zigZag((Long) value));
+                break;
+            case T_INTEGER:
+                out.writeVarLong(zigZag((Integer) value));
+                break;
+            case T_SHORT:
+                out.writeVarLong(zigZag((Short) value));
+                break;
+            case T_BYTE:
+                out.writeByte((Byte) value);
+                break;
+            case T_DOUBLE:
+                out.writeLong(Double.doubleToRawLongBits((Double) value));
+                break;
+            case T_FLOAT:
+                out.writeInt(Float.floatToRawIntBits((Float) value));
+                break;
+            case T_BOOLEAN:
+                out.writeByte((Boolean) value ? 1 : 0);
+                break;
+            case T_CHARACTER:
+                out.writeVarLong((Character) value);
+                break;
+            case T_BIG_DECIMAL: {
+                BigDecimal decimal = (BigDecimal) value;
+                out.writeVarLong(zigZag(decimal.scale()));
+                writeBigInteger(out, decimal.unscaledValue());
+                break;
+            }
+            case T_BIG_INTEGER:
+                writeBigInteger(out, (BigInteger) value);
+                break;
+            case T_DATE:
+            case T_SQL_DATE:
+            case T_SQL_TIME:
+                out.writeVarLong(zigZag(((Date) value).getTime()));
+                break;
+            case T_TIMESTAMP: {
+                Timestamp timestamp = (Timestamp) value;
+                out.writeVarLong(zigZag(timestamp.getTime()));
+                out.writeVarInt(timestamp.getNanos());
+                break;
+            }
+            case T_LOCAL_DATE:
+                out.writeVarLong(zigZag(((LocalDate) value).toEpochDay()));
+                break;
+            case T_LOCAL_TIME:
+                out.writeVarLong(((LocalTime) value).toNanoOfDay());
+                break;
+            case T_LOCAL_DATE_TIME: {
+                LocalDateTime dateTime = (LocalDateTime) value;
+                out.writeVarLong(zigZag(dateTime.toLocalDate().toEpochDay()));
+                out.writeVarLong(dateTime.toLocalTime().toNanoOfDay());
+                break;
+            }
+            case T_INSTANT: {
+                Instant instant = (Instant) value;
+                out.writeVarLong(zigZag(instant.getEpochSecond()));
+                out.writeVarInt(instant.getNano());
+                break;
+            }
+            case T_BYTES: {
+                byte[] bytes = (byte[]) value;
+                out.writeVarInt(bytes.length);
+                out.writeBytes(bytes, 0, bytes.length);
+                break;
+            }
+            default:
+                throw new IllegalStateException("未知的类型标记: " + tag);
+        }
+    }
+
+    private static Object readValue(Input in, byte tag) {
+        switch (tag) {
+            case T_STRING:
+                return in.readString();
+            case T_LONG:
+                return unZigZag(in.readVarLong());
+            case T_INTEGER:
+                return (int) unZigZag(in.readVarLong());
+            case T_SHORT:
+                return (short) unZigZag(in.readVarLong());
+            case T_BYTE:
+                return in.readByte();
+            case T_DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            case T_FLOAT:
+                return Float.intBitsToFloat(in.readInt());
+            case T_BOOLEAN:
+                return in.readByte() != 0;
+            case T_CHARACTER:
+                return (char) in.readVarLong();
+            case T_BIG_DECIMAL: {
+                int scale = (int) unZigZag(in.readVarLong());
+                return readBigDecimal(in, scale);
+            }
+            case T_BIG_INTEGER:
+                return readBigInteger(in);
+            case T_DATE:
+                return new Date(unZigZag(in.readVarLong()));
+            case T_SQL_DATE:
+                return new java.sql.Date(unZigZag(in.readVarLong()));
+            case T_SQL_TIME:
+                return new Time(unZigZag(in.readVarLong()));
+            case T_TIMESTAMP: {
+                Timestamp timestamp = new Timestamp(unZigZag(in.readVarLong()));
+                timestamp.setNanos(in.readVarInt());
+                return timestamp;
+            }
+            case T_LOCAL_DATE:
+                return LocalDate.ofEpochDay(unZigZag(in.readVarLong()));
+            case T_LOCAL_TIME:
+                return LocalTime.ofNanoOfDay(in.readVarLong());
+            case T_LOCAL_DATE_TIME: {
+                LocalDate date = LocalDate.ofEpochDay(unZigZag(in.readVarLong()));
+                return LocalDateTime.of(date, LocalTime.ofNanoOfDay(in.readVarLong()));
+            }
+            case T_INSTANT: {
+                long seconds = unZigZag(in.readVarLong());
+                return Instant.ofEpochSecond(seconds, in.readVarInt());
+            }
+            case T_BYTES: {
+                byte[] bytes = new byte[in.readVarInt()];
+                in.readBytes(bytes);
+                return bytes;
+            }
+            default:
+                throw new IllegalStateException("未知的类型标记: " + tag);
+        }
+    }
+
+    /**
+     * 能放进long的数值写变长整数（标记0），否则写补码字节（标记1）
+     */
+    private static void writeBigInteger(Output out, BigInteger value) {
+        if (value.bitLength() < 64) {
+            out.writeByte(0);
+            out.writeVarLong(zigZag(value.longValue()));
+        } else {
+            byte[] bytes = value.toByteArray();
+            out.writeByte(1);
+            out.writeVarInt(bytes.length);
+            out.writeBytes(bytes, 0, bytes.length);
+        }
+    }
+
+    private static BigInteger readBigInteger(Input in) {
+        if (in.readByte() == 0) {
+            return BigInteger.valueOf(unZigZag(in.readVarLong()));
+        }
+        byte[] bytes = new byte[in.readVarInt()];
+        in.readBytes(bytes);
+        return new BigInteger(bytes);
+    }
+
+    private static BigDecimal readBigDecimal(Input in, int scale) {
+        if (in.readByte() == 0) {
+            return BigDecimal.valueOf(unZigZag(in.readVarLong()), scale);
+        }
+        byte[] bytes = new byte[in.readVarInt()];
+        in.readBytes(bytes);
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * JavaBean的属性模式
+     */
+    private static final class BeanSchema {
+        final int id;
+        final Class<?> type;
+        final MethodHandle constructor;
+        final BeanProperty[] properties;
+        final byte[] tags;
+
+        BeanSchema(int id, Class<?> type, MethodHandle constructor, BeanProperty[] properties) {
+            this.id = id;
+            this.type = type;
+            this.constructor = constructor;
+            this.properties = properties;
+            this.tags = new byte[properties.length];
+            for (int i = 0; i < properties.length; i++) {
+                tags[i] = properties[i].tag;
+            }
+        }
+
+        Object newInstance() {
+            try {
+                return (Object) constructor.invokeExact();
+            } catch (Throwable e) {
+                throw new IllegalStateException("无法实例化缓存的结果类型: " + type.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * 其他编码器实例的属性模式 - 对应到当前的类，类无法加载时local为null
+     */
+    private static final class ForeignSchema {
+        final BeanSchema local;
+        final byte[] tags;
+        final BeanProperty[] targets;
+
+        ForeignSchema(BeanSchema local, byte[] tags, BeanProperty[] targets) {
+            this.local = local;
+            this.tags = tags;
+            this.targets = targets;
+        }
+    }
+
+    /**
+     * 从文件读出的全部属性模式，下标即编码时的模式编号
+     */
+    static final class ForeignSchemas {
+        private final ForeignSchema[] schemas;
+
+        ForeignSchemas(ForeignSchema[] schemas) {
+            this.schemas = schemas;
+        }
+    }
+
+    /**
+     * JavaBean属性 - 固定类型标记（T_NULL表示按值写类型标记）+ getter/setter句柄
+     */
+    private static final class BeanProperty {
+        final String name;
+        /** 属性类型，基本类型转为包装类型 */
+        final Class<?> type;
+        final byte tag;
+        final MethodHandle getter;
+        final MethodHandle setter;
+
+        BeanProperty(String name, Class<?> type, byte tag, MethodHandle getter, MethodHandle setter) {
+            this.name = name;
+            this.type = type;
+            this.tag = tag;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        Object get(Object bean) {
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("读取属性失败", e);
+            }
+        }
+
+        void set(Object bean, Object value) {
+            try {
+                setter.invokeExact(bean, value);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("设置属性失败", e);
+            }
+        }
+    }
+
+    /**
+     * 编码输出 - 可增长的字节数组
+     */
+    static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        byte[] array() {
+            return buffer;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            buffer[size++] = (byte) (value >>> 24);
+            buffer[size++] = (byte) (value >>> 16);
+            buffer[size++] = (byte) (value >>> 8);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        void writeBytes(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    /**
+     * 解码输入
+     */
+    static final class Input {
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int position() {
+            return position;
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+
+        int readInt() {
+            return (buffer[position++] & 0xFF) << 24 | (buffer[position++] & 0xFF) << 16
+                    | (buffer[position++] & 0xFF) << 8 | (buffer[position++] & 0xFF);
+        }
+
+        long readLong() {
+            return (long) readInt() << 32 | (readInt() & 0xFFFFFFFFL);
+        }
+
+        int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[position++];
+                result |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return result;
+        }
+
+        String readString() {
+            int length = readVarInt();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        void readBytes(byte[] target) {
+            System.arraycopy(buffer, position, target, 0, target.length);
+            position += target.length;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.mybatis.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 合并相同查询的并发加载 - 缓存未命中时同一缓存键只有一个线程查询数据库，其余线程等待它的结果
+ *
+ * 热点缓存项过期或失效的瞬间，并发请求都会未命中并执行同一条查询；合并后只有先到的线程（leader）执行查询，
+ * 后到的线程在同一个 {@link Call} 上等待，查询失败时同样收到失败
+ *
+ * 加入已有的查询前检查它开始时记录的表版本（{@link TableVersions.Stamp}）：
+ * 该查询开始之后依赖的表被写入过时不加入，而是开始新的查询，保证调用方能读到在它之前完成的写入
+ *
+ * 同一配置下的所有会话共享一个实例
+ */
+public final class SingleFlight {
+
+    private final ConcurrentHashMap<CacheKey, Call> calls = new ConcurrentHashMap<>();
+
+    /**
+     * 开始或加入查询
+     *
+     * @param key   缓存键，开始新查询时保存其副本
+     * @param stamp 查询前记录的表版本，为null时只要有相同的查询在执行就加入
+     * @return 当前线程开始的查询（{@link Call#isLeader()}）或正在执行的相同查询
+     */
+    public Call begin(CacheKey key, TableVersions.Stamp stamp) {
+        Call existing = calls.get(key);
+        if (existing != null && existing.isJoinable()) {
+            return existing;
+        }
+        Call call = new Call(key.copy(), stamp);
+        while (true) {
+            existing = existing == null ? calls.putIfAbsent(call.key, call) : replace(existing, call);
+            if (existing == null) {
+                return call;
+            }
+            if (existing.isJoinable()) {
+                return existing;
+            }
+        }
+    }
+
+    /**
+     * 替换已不能加入的查询，替换成功返回null，否则返回当前的查询
+     */
+    private Call replace(Call stale, Call call) {
+        if (calls.replace(call.key, stale, call)) {
+            return null;
+        }
+        return calls.putIfAbsent(call.key, call);
+    }
+
+    /**
+     * 正在执行的查询数
+     */
+    public int size() {
+        return calls.size();
+    }
+
+    /**
+     * 一次查询 - leader执行后调用 {@link #complete} 或 {@link #fail}，其余线程调用 {@link #await} 等待
+     */
+    public final class Call {
+
+        private final CacheKey key;
+
+        private final TableVersions.Stamp stamp;
+
+        private final Thread leader = Thread.currentThread();
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private Call(CacheKey key, TableVersions.Stamp stamp) {
+            this.key = key;
+            this.stamp = stamp;
+        }
+
+        /**
+         * 是否由当前线程开始，是则需要执行查询并调用 {@link #complete} 或 {@link #fail}
+         */
+        public boolean isLeader() {
+            return leader == Thread.currentThread();
+        }
+
+        private boolean isJoinable() {
+            return !future.isCompletedExceptionally() && (stamp == null || stamp.isCurrent());
+        }
+
+        /**
+         * 查询成功，唤醒等待的线程
+         */
+        public void complete(Object result) {
+            calls.remove(key, this);
+            future.complete(result);
+        }
+
+        /**
+         * 查询失败，等待的线程收到同一个异常
+         */
+        public void fail(Throwable cause) {
+            calls.remove(key, this);
+            future.completeExceptionally(cause);
+        }
+
+        /**
+         * 等待leader的结果
+         *
+         * @throws ExecutionException   查询失败，原因为leader的异常
+         * @throws TimeoutException     超时仍未完成
+         * @throws InterruptedException 等待时被中断
+         */
+        public Object await(long timeoutMillis) throws ExecutionException, TimeoutException, InterruptedException {
+            return timeoutMillis > 0 ? future.get(timeoutMillis, TimeUnit.MILLISECONDS) : future.get();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.mybatis.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 表版本号 - 缓存按表失效的依据
+ *
+ * 每个表一个递增的版本号，查询执行前记录所依赖表的版本（{@link Stamp}），随结果一起缓存；
+ * 写入某个表时只需把该表的版本号加一，依赖它的缓存项在下次读取时发现版本不一致即视为失效，
+ * 失效操作的开销与缓存项数量无关，一级和二级缓存共用同一份版本号
+ *
+ * 依赖表未知的查询依赖通配版本号，任何写操作都会使其失效；写入表未知的语句使所有缓存失效
+ */
+public final class TableVersions {
+
+    private static final String[] NO_TABLES = new String[0];
+
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /** 任何表被写入时都会递增 */
+    private final AtomicLong anyTable = new AtomicLong();
+
+    /** 写入表未知时递增，使所有缓存项失效 */
+    private final AtomicLong epoch = new AtomicLong();
+
+    /** 表被写入时回调，参数为空数组表示写入的表未知 */
+    private volatile Consumer<String[]> writeListener;
+
+    /**
+     * 记录表的当前版本，必须在执行查询之前调用，避免查询期间的写入被漏掉
+     *
+     * @param tables 查询读取的表，为空表示依赖所有表
+     */
+    public Stamp stamp(String[] tables) {
+        if (tables == null || tables.length == 0) {
+            return new Stamp(NO_TABLES, new AtomicLong[]{epoch, anyTable}, new long[]{epoch.get(), anyTable.get()});
+        }
+        AtomicLong[] counters = new AtomicLong[tables.length + 1];
+        long[] values = new long[counters.length];
+        counters[0] = epoch;
+        values[0] = epoch.get();
+        for (int i = 0; i < tables.length; i++) {
+            AtomicLong counter = counter(tables[i]);
+            counters[i + 1] = counter;
+            values[i + 1] = counter.get();
+        }
+        return new Stamp(tables, counters, values);
+    }
+
+    /**
+     * 表被写入，依赖这些表的缓存项全部失效
+     *
+     * @param tables 写入的表，为空表示写入的表未知，所有缓存项失效
+     */
+    public void increment(String[] tables) {
+        if (tables == null || tables.length == 0) {
+            epoch.incrementAndGet();
+            tables = NO_TABLES;
+        } else {
+            for (String table : tables) {
+                counter(table).incrementAndGet();
+            }
+            anyTable.incrementAndGet();
+        }
+        Consumer<String[]> listener = writeListener;
+        if (listener != null) {
+            listener.accept(tables);
+        }
+    }
+
+    /**
+     * 所有缓存项失效
+     */
+    public void incrementAll() {
+        increment(NO_TABLES);
+    }
+
+    /**
+     * 表的当前版本，未被记录过的表为0
+     */
+    public long version(String table) {
+        AtomicLong counter = versions.get(table);
+        return counter != null ? counter.get() : 0L;
+    }
+
+    /**
+     * 任意表被写入的次数
+     */
+    long anyTableVersion() {
+        return anyTable.get();
+    }
+
+    /**
+     * 写入表未知的次数
+     */
+    long epochVersion() {
+        return epoch.get();
+    }
+
+    /**
+     * 设置表被写入时的回调，用于把写入记录到缓存快照文件中
+     */
+    public void setWriteListener(Consumer<String[]> writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    private AtomicLong counter(String table) {
+        AtomicLong counter = versions.get(table);
+        if (counter == null) {
+            counter = versions.computeIfAbsent(table, t -> new AtomicLong());
+        }
+        return counter;
+    }
+
+    /**
+     * 查询执行前记录的表版本
+     */
+    public static final class Stamp {
+
+        private final String[] tables;
+
+        private final AtomicLong[] counters;
+
+        private final long[] values;
+
+        private Stamp(String[] tables, AtomicLong[] counters, long[] values) {
+            this.tables = tables;
+            this.counters = counters;
+            this.values = values;
+        }
+
+        /**
+         * 依赖的表，为空表示依赖所有表
+         */
+        String[] getTables() {
+            return tables;
+        }
+
+        /**
+         * 依赖的表在记录之后都没有被写入
+         */
+        public boolean isCurrent() {
+            for (int i = 0; i < counters.length; i++) {
+                if (counters[i].get() != values[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,703 @@
+package com.example.mybatis.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * 有界缓存 - W-TinyLFU淘汰策略
+ *
+ * 结构：
+ * 1. 数据保存在ConcurrentHashMap中，读操作不加锁
+ * 2. 窗口区（容量的1%）是LRU队列，新数据先进入窗口，吸收突发的新热点
+ * 3. 主区是分段LRU：试用区和保护区（主区的80%），试用区中再次被访问的数据晋升到保护区
+ * 4. 窗口淘汰出来的候选者与试用区队首的牺牲者比较访问频率（见 {@link FrequencySketch}），
+ *    频率更高的留下，避免只访问一次的数据把热点挤出缓存
+ *
+ * 读命中只把节点写入 {@link ReadBuffer}，访问顺序和频率在写操作或缓冲区积累到一定数量时，
+ * 于淘汰锁内批量更新；所有队列操作都是O(1)
+ *
+ * 指定了过期时间函数时，缓存项同时挂在分层时间轮（{@link TimerWheel}）上，到期后主动移除，
+ * 不必等到容量不足或再次被读取；时间轮在写操作和读缓冲区排空时顺带推进（读操作使用tryLock，不会阻塞），
+ * 不需要后台线程，也没有跨缓存的全局锁；大量缓存项同时到期时每次最多移除 {@link #EXPIRE_BATCH} 个
+ */
+public final class TinyLfuCache<K, V> {
+
+    private static final int WINDOW = 0;
+
+    private static final int PROBATION = 1;
+
+    private static final int PROTECTED = 2;
+
+    /** 候选者频率超过该值时按小概率准入，防止攻击者构造频率相同的键让热点无法进入 */
+    static final int ADMIT_HASHDOS_THRESHOLD = 5;
+
+    /** 不按时间过期 */
+    public static final long NEVER_EXPIRE = Long.MAX_VALUE;
+
+    /** 时间轮每层的桶数，最后一层只有一个桶，存放更远的缓存项 */
+    private static final int[] WHEEL_BUCKETS = {64, 64, 32, 4, 1};
+
+    /** 时间轮每层一个桶覆盖的时间（毫秒）：约1秒、1分钟、1.2小时、1.5天、6.2天 */
+    private static final long[] WHEEL_SPANS = {1L << 10, 1L << 16, 1L << 22, 1L << 27, 1L << 29, 1L << 29};
+
+    private static final int[] WHEEL_SHIFTS = {10, 16, 22, 27, 29};
+
+    /** 每次推进时间轮最多移除的缓存项数，大量缓存项同时到期时分摊到之后的多次读写，避免单次读取停顿过长 */
+    static final int EXPIRE_BATCH = 1000;
+
+    private final int maximumSize;
+
+    private final int maxWindow;
+
+    private final int maxProtected;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final ReadBuffer<Node<K, V>> readBuffer = new ReadBuffer<>();
+
+    /** 因容量不足淘汰缓存项时回调，在淘汰锁内调用，不能执行耗时操作；为null表示不回调 */
+    private final BiConsumer<K, V> evictionListener;
+
+    /** 缓存项的过期时间（毫秒时间戳），为null表示不按时间过期 */
+    private final ToLongFunction<? super V> expiry;
+
+    /** 当前时间（毫秒时间戳），与过期时间函数使用同一时钟 */
+    private final LongSupplier clock;
+
+    /** 下次在读操作中尝试推进时间轮的时间 */
+    private volatile long nextExpirationCheck;
+
+    /** 到期后由时间轮移除的缓存项数，淘汰锁内写入 */
+    private volatile long expirationCount;
+
+    // ========== 以下字段只在淘汰锁内访问 ==========
+
+    private final FrequencySketch sketch;
+
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+
+    private final AccessOrderDeque<K, V> protectedQueue = new AccessOrderDeque<>();
+
+    /** 未指定过期时间函数时为null */
+    private final TimerWheel timerWheel;
+
+    private int size;
+
+    private int windowSize;
+
+    private int protectedSize;
+
+    private long evictionCount;
+
+    public TinyLfuCache(int maximumSize) {
+        this(maximumSize, null);
+    }
+
+    /**
+     * @param evictionListener 因容量不足淘汰缓存项时回调（主动移除和清空不回调），在淘汰锁内调用
+     */
+    public TinyLfuCache(int maximumSize, BiConsumer<K, V> evictionListener) {
+        this(maximumSize, evictionListener, null);
+    }
+
+    /**
+     * @param evictionListener 因容量不足淘汰缓存项时回调（主动移除、清空和到期移除不回调），在淘汰锁内调用
+     * @param expiry           缓存项的过期时间（{@link System#currentTimeMillis()} 时间戳），
+     *                         返回 {@link #NEVER_EXPIRE} 表示不过期；为null时不按时间移除
+     */
+    public TinyLfuCache(int maximumSize, BiConsumer<K, V> evictionListener, ToLongFunction<? super V> expiry) {
+        this(maximumSize, evictionListener, expiry, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock 时间轮使用的时钟，测试时用于控制时间
+     */
+    TinyLfuCache(int maximumSize, BiConsumer<K, V> evictionListener, ToLongFunction<? super V> expiry,
+                 LongSupplier clock) {
+        this.evictionListener = evictionListener;
+        this.expiry = expiry;
+        this.clock = clock;
+        this.timerWheel = expiry != null ? new TimerWheel(clock.getAsLong()) : null;
+        this.maximumSize = Math.max(maximumSize, 0);
+        this.maxWindow = this.maximumSize == 0 ? 0 : Math.max(1, this.maximumSize / 100);
+        int maxMain = this.maximumSize - maxWindow;
+        this.maxProtected = (int) (maxMain * 80L / 100);
+        this.sketch = new FrequencySketch(this.maximumSize);
+    }
+
+    /**
+     * 读取缓存，不存在时返回null
+     */
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            // 命中时读缓冲区每积累几条记录就会排空并推进时间轮；未命中不经过读缓冲区，按时间检查
+            if (isExpirationDue()) {
+                tryDrain();
+            }
+            return null;
+        }
+        if (readBuffer.offer(node) == ReadBuffer.DRAIN) {
+            tryDrain();
+        }
+        return node.value;
+    }
+
+    /**
+     * 读取缓存，不记录访问（不影响淘汰顺序）
+     */
+    public V peek(K key) {
+        Node<K, V> node = data.get(key);
+        return node != null ? node.value : null;
+    }
+
+    /**
+     * 写入缓存，超出容量时按W-TinyLFU策略淘汰
+     */
+    public void put(K key, V value) {
+        if (maximumSize == 0) {
+            return;
+        }
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            expireEntries();
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                node.value = value;
+                onAccess(node);
+                schedule(node, value);
+                return;
+            }
+            node = new Node<>(key, value);
+            data.put(key, node);
+            sketch.increment(key);
+            window.addLast(node);
+            size++;
+            windowSize++;
+            schedule(node, value);
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 移除缓存项
+     */
+    public V remove(K key) {
+        evictionLock.lock();
+        try {
+            Node<K, V> node = data.get(key);
+            if (node == null) {
+                return null;
+            }
+            removeNode(node);
+            return node.value;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 缓存项仍为指定值时移除，用于清理已过期的值而不误删并发写入的新值
+     */
+    public boolean remove(K key, V value) {
+        evictionLock.lock();
+        try {
+            Node<K, V> node = data.get(key);
+            if (node == null || node.value != value) {
+                return false;
+            }
+            removeNode(node);
+            return true;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            for (Node<K, V> node : data.values()) {
+                node.removed = true;
+            }
+            data.clear();
+            window.clear();
+            probation.clear();
+            protectedQueue.clear();
+            if (timerWheel != null) {
+                timerWheel.clear();
+            }
+            size = 0;
+            windowSize = 0;
+            protectedSize = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 遍历当前的缓存项，不记录访问；遍历期间的并发修改可能可见也可能不可见
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Node<K, V> node : data.values()) {
+            V value = node.value;
+            if (value != null) {
+                action.accept(node.key, value);
+            }
+        }
+    }
+
+    /**
+     * 当前缓存项数量
+     */
+    public int size() {
+        return data.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * 因容量不足被淘汰的缓存项数量
+     */
+    public long getEvictionCount() {
+        evictionLock.lock();
+        try {
+            return evictionCount;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 到期后由时间轮主动移除的缓存项数量
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * 立即推进时间轮，移除已到期的缓存项；淘汰锁被占用时等待
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            if (timerWheel != null) {
+                long now = clock.getAsLong();
+                while (!timerWheel.advance(now)) {
+                    // 继续移除剩余的到期缓存项
+                }
+                nextExpirationCheck = now + WHEEL_SPANS[0];
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // ========== 淘汰策略（淘汰锁内） ==========
+
+    private void tryDrain() {
+        if (evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+                expireEntries();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        readBuffer.drainTo(this::onAccess);
+    }
+
+    private boolean isExpirationDue() {
+        return timerWheel != null && clock.getAsLong() >= nextExpirationCheck;
+    }
+
+    /**
+     * 推进时间轮到当前时间，每个缓存项在到期前最多在各层之间移动几次，均摊O(1)；
+     * 本次移除的数量达到上限时，下次读写立即继续
+     */
+    private void expireEntries() {
+        if (timerWheel == null) {
+            return;
+        }
+        // 第0层的刻度约1秒，两次推进间隔不到一个刻度时没有需要处理的桶
+        long now = clock.getAsLong();
+        if (now >= nextExpirationCheck) {
+            nextExpirationCheck = timerWheel.advance(now) ? now + WHEEL_SPANS[0] : now;
+        }
+    }
+
+    private void schedule(Node<K, V> node, V value) {
+        if (timerWheel == null) {
+            return;
+        }
+        timerWheel.unlink(node);
+        long expireTime = value != null ? expiry.applyAsLong(value) : NEVER_EXPIRE;
+        if (expireTime != NEVER_EXPIRE) {
+            node.expireTime = expireTime;
+            timerWheel.schedule(node);
+        }
+    }
+
+    private void expireNode(Node<K, V> node) {
+        removeNode(node);
+        expirationCount++;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.removed) {
+            return;
+        }
+        sketch.increment(node.key);
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedQueue.addLast(node);
+                protectedSize++;
+                // 保护区超出容量时，把最久未访问的降级回试用区
+                if (protectedSize > maxProtected) {
+                    Node<K, V> demoted = protectedQueue.pollFirst();
+                    protectedSize--;
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted);
+                }
+                break;
+            default:
+                protectedQueue.moveToBack(node);
+        }
+    }
+
+    private void evict() {
+        // 窗口溢出的节点进入试用区，成为准入候选者
+        while (windowSize > maxWindow) {
+            Node<K, V> node = window.pollFirst();
+            windowSize--;
+            node.queue = PROBATION;
+            probation.addLast(node);
+        }
+        while (size > maximumSize) {
+            Node<K, V> victim = probation.peekFirst();
+            Node<K, V> candidate = probation.peekLast();
+            if (victim == null) {
+                // 试用区为空（容量很小时），依次从保护区和窗口淘汰
+                victim = protectedQueue.peekFirst() != null ? protectedQueue.peekFirst() : window.peekFirst();
+                evictNode(victim);
+            } else if (victim == candidate) {
+                evictNode(victim);
+            } else {
+                evictNode(admit(candidate, victim) ? victim : candidate);
+            }
+        }
+    }
+
+    private boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+        return admits(sketch.frequency(candidate.key), sketch.frequency(victim.key));
+    }
+
+    /**
+     * 候选者的访问频率高于牺牲者时准入；不高于牺牲者但超过 {@link #ADMIT_HASHDOS_THRESHOLD} 时按1/128的概率准入
+     */
+    static boolean admits(int candidateFrequency, int victimFrequency) {
+        if (candidateFrequency > victimFrequency) {
+            return true;
+        }
+        if (candidateFrequency <= ADMIT_HASHDOS_THRESHOLD) {
+            return false;
+        }
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    private void evictNode(Node<K, V> node) {
+        removeNode(node);
+        evictionCount++;
+        if (evictionListener != null) {
+            evictionListener.accept(node.key, node.value);
+        }
+    }
+
+    private void removeNode(Node<K, V> node) {
+        data.remove(node.key, node);
+        node.removed = true;
+        if (timerWheel != null) {
+            timerWheel.unlink(node);
+        }
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                windowSize--;
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            default:
+                protectedQueue.remove(node);
+                protectedSize--;
+        }
+        size--;
+    }
+
+    @Override
+    public String toString() {
+        return "TinyLfuCache{" +
+                "size=" + data.size() +
+                ", expirations=" + expirationCount +
+                ", maximumSize=" + maximumSize +
+                '}';
+    }
+
+    /**
+     * 缓存节点，同时是访问顺序队列的链表节点
+     */
+    private static final class Node<K, V> {
+
+        private final K key;
+
+        private volatile V value;
+
+        /** 所在队列，淘汰锁内访问 */
+        private int queue = WINDOW;
+
+        /** 已从缓存移除，读缓冲区中残留的记录会被忽略 */
+        private boolean removed;
+
+        private Node<K, V> prev;
+
+        private Node<K, V> next;
+
+        /** 过期时间，挂在时间轮上时有效 */
+        private long expireTime;
+
+        private Node<K, V> prevInTimer;
+
+        private Node<K, V> nextInTimer;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 分层时间轮 - 按过期时间把缓存项放入不同粒度的桶中，淘汰锁内访问
+     *
+     * 第0层每个桶约1秒，第1层约1分钟，依次变粗；时间推进时只处理走过的桶：
+     * 已到期的缓存项移除，未到期的（只可能来自较粗的层）按剩余时间重新放入更细的层。
+     * 每个桶是以哨兵节点为头的环形双向链表，挂上和摘下都是O(1)
+     */
+    private final class TimerWheel {
+
+        private final Node<K, V>[][] wheel;
+
+        /** 时间轮当前的时间 */
+        private long time;
+
+        /** 本次推进剩余可移除的缓存项数 */
+        private int budget;
+
+        @SuppressWarnings("unchecked")
+        TimerWheel(long time) {
+            this.time = time;
+            this.wheel = (Node<K, V>[][]) new Node<?, ?>[WHEEL_BUCKETS.length][];
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = (Node<K, V>[]) new Node<?, ?>[WHEEL_BUCKETS[i]];
+                for (int j = 0; j < wheel[i].length; j++) {
+                    Node<K, V> sentinel = new Node<>(null, null);
+                    sentinel.prevInTimer = sentinel;
+                    sentinel.nextInTimer = sentinel;
+                    wheel[i][j] = sentinel;
+                }
+            }
+        }
+
+        /**
+         * 推进到指定时间
+         *
+         * @return 是否已推进到该时间；移除数量达到 {@link #EXPIRE_BATCH} 时返回false，
+         *         时间停留在本次推进之前，下次从同一位置继续，已处理过的桶为空，重新经过的开销很小
+         */
+        boolean advance(long now) {
+            long previous = time;
+            if (now <= previous) {
+                // 时钟回拨时不倒退，等时间追上后再推进
+                return true;
+            }
+            time = now;
+            budget = EXPIRE_BATCH;
+            for (int i = 0; i < WHEEL_SHIFTS.length; i++) {
+                long delta = (now >>> WHEEL_SHIFTS[i]) - (previous >>> WHEEL_SHIFTS[i]);
+                if (delta <= 0) {
+                    break;
+                }
+                if (!expire(i, previous >>> WHEEL_SHIFTS[i], delta)) {
+                    time = previous;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 处理一层中从上次时间到当前时间走过的桶，移除数量达到上限时把未处理的缓存项放回桶中并返回false
+         */
+        private boolean expire(int level, long previousTicks, long delta) {
+            Node<K, V>[] buckets = wheel[level];
+            int mask = buckets.length - 1;
+            int steps = (int) Math.min(delta + 1, buckets.length);
+            int start = (int) (previousTicks & mask);
+            for (int i = start; i < start + steps; i++) {
+                Node<K, V> sentinel = buckets[i & mask];
+                Node<K, V> node = sentinel.nextInTimer;
+                Node<K, V> last = sentinel.prevInTimer;
+                sentinel.prevInTimer = sentinel;
+                sentinel.nextInTimer = sentinel;
+                while (node != sentinel) {
+                    if (budget == 0) {
+                        // 剩余的链表（node到last）放回桶的开头
+                        Node<K, V> first = sentinel.nextInTimer;
+                        node.prevInTimer = sentinel;
+                        sentinel.nextInTimer = node;
+                        last.nextInTimer = first;
+                        first.prevInTimer = last;
+                        return false;
+                    }
+                    Node<K, V> next = node.nextInTimer;
+                    node.prevInTimer = null;
+                    node.nextInTimer = null;
+                    if (node.expireTime <= time) {
+                        expireNode(node);
+                        budget--;
+                    } else {
+                        schedule(node);
+                    }
+                    node = next;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 按剩余时间选择层：剩余时间小于上一层的跨度时放在本层，已到期的放在当前刻度的桶中
+         */
+        void schedule(Node<K, V> node) {
+            long expireTime = Math.max(node.expireTime, time);
+            long duration = expireTime - time;
+            int last = wheel.length - 1;
+            Node<K, V> sentinel = wheel[last][0];
+            for (int i = 0; i < last; i++) {
+                if (duration < WHEEL_SPANS[i + 1]) {
+                    sentinel = wheel[i][(int) ((expireTime >>> WHEEL_SHIFTS[i]) & (wheel[i].length - 1))];
+                    break;
+                }
+            }
+            node.prevInTimer = sentinel.prevInTimer;
+            node.nextInTimer = sentinel;
+            sentinel.prevInTimer.nextInTimer = node;
+            sentinel.prevInTimer = node;
+        }
+
+        void unlink(Node<K, V> node) {
+            if (node.nextInTimer != null) {
+                node.prevInTimer.nextInTimer = node.nextInTimer;
+                node.nextInTimer.prevInTimer = node.prevInTimer;
+                node.prevInTimer = null;
+                node.nextInTimer = null;
+            }
+        }
+
+        void clear() {
+            for (Node<K, V>[] buckets : wheel) {
+                for (Node<K, V> sentinel : buckets) {
+                    sentinel.prevInTimer = sentinel;
+                    sentinel.nextInTimer = sentinel;
+                }
+            }
+        }
+    }
+
+    /**
+     * 双向链表，队首是最久未访问的节点
+     */
+    private static final class AccessOrderDeque<K, V> {
+
+        private Node<K, V> head;
+
+        private Node<K, V> tail;
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        Node<K, V> peekFirst() {
+            return head;
+        }
+
+        Node<K, V> peekLast() {
+            return tail;
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> node = head;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+        }
+    }
+}
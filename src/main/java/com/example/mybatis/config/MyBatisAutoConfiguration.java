@@ -1,6 +1,10 @@
 package com.example.mybatis.config;
 
+import com.example.mybatis.async.AsyncExecutorMode;
+import com.example.mybatis.async.AsyncMapperExecutor;
 import com.example.mybatis.cache.CacheConfig;
+import com.example.mybatis.cache.CacheMetrics;
+import com.example.mybatis.cache.CacheSnapshotWriter;
 import com.example.mybatis.core.DefaultSqlSessionFactory;
 import com.example.mybatis.core.MyBatisConfiguration;
 import com.example.mybatis.core.SqlSession;
@@ -11,18 +15,24 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.annotation.*;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.util.StringUtils;
 
 import javax.sql.DataSource;
+import java.nio.file.Paths;
+import java.util.Collections;
 
 /**
  * MyBatis自动配置类
@@ -36,11 +46,43 @@ public class MyBatisAutoConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(MyBatisAutoConfiguration.class);
 
+    /**
+     * 异步Mapper方法执行器
+     * 如果容器中有唯一的TaskDecorator，会用它传递额外的上下文（如安全上下文）；
+     * 配置为VIRTUAL模式但运行时低于Java 21时，回退到平台线程池
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public AsyncMapperExecutor mybatisAsyncExecutor(MyBatisProperties properties,
+                                                    ObjectProvider<TaskDecorator> taskDecorator) {
+        if (properties.getAsyncExecutorMode() == AsyncExecutorMode.VIRTUAL) {
+            if (AsyncMapperExecutor.isVirtualThreadsAvailable()) {
+                logger.info("异步Mapper执行器使用虚拟线程，最大在途任务数: {}", properties.getAsyncMaxConcurrency());
+                return AsyncMapperExecutor.virtualThreads(
+                        "mini-mybatis-async",
+                        properties.getAsyncMaxConcurrency(),
+                        taskDecorator.getIfUnique());
+            }
+            logger.warn("当前运行时不支持虚拟线程（需要Java 21+），异步Mapper执行器回退到平台线程池");
+        }
+        return new AsyncMapperExecutor(
+                "mini-mybatis-async",
+                properties.getAsyncCorePoolSize(),
+                properties.getAsyncMaxPoolSize(),
+                properties.getAsyncQueueCapacity(),
+                taskDecorator.getIfUnique());
+    }
+
     @Bean
     @ConditionalOnMissingBean
-    public MyBatisConfiguration mybatisConfiguration(@Lazy DataSource dataSource, MyBatisProperties properties) {
+    public MyBatisConfiguration mybatisConfiguration(@Lazy DataSource dataSource, MyBatisProperties properties,
+                                                     AsyncMapperExecutor asyncExecutor) {
         MyBatisConfiguration configuration = new MyBatisConfiguration();
         configuration.setDataSource(dataSource);
+        configuration.setAsyncExecutor(asyncExecutor);
+        configuration.setDefaultFetchSize(properties.getDefaultFetchSize());
+        configuration.setStatementCacheSize(properties.getStatementCacheSize());
+        configuration.setInListChunkSize(properties.getInListChunkSize());
 
         CacheConfig cacheConfig = new CacheConfig(
                 properties.isSecondLevelCacheEnabled(),
@@ -48,6 +90,21 @@ public class MyBatisAutoConfiguration {
                 properties.getMaxCacheSize()
         );
         cacheConfig.setFirstLevelCacheEnabled(properties.isFirstLevelCacheEnabled());
+        cacheConfig.setFirstLevelMaxSize(properties.getFirstLevelCacheSize());
+        cacheConfig.setRefreshTime(properties.getCacheRefreshTime());
+        cacheConfig.setRefreshThreads(properties.getCacheRefreshThreads());
+        cacheConfig.setRefreshQueueCapacity(properties.getCacheRefreshQueueCapacity());
+        cacheConfig.setEnableStats(properties.isCacheStatsEnabled());
+        cacheConfig.setOffHeapEnabled(properties.isOffHeapCacheEnabled());
+        cacheConfig.setOffHeapMaxBytes(properties.getOffHeapCacheMaxBytes());
+        cacheConfig.setOffHeapSlabBytes(properties.getOffHeapCacheSlabBytes());
+        if (StringUtils.hasText(properties.getCacheSnapshotPath())) {
+            cacheConfig.setSnapshotPath(properties.getCacheSnapshotPath());
+        }
+        cacheConfig.setSnapshotIntervalMillis(properties.getCacheSnapshotInterval() * 1000);
+        cacheConfig.setSingleFlightEnabled(properties.isSingleFlightEnabled());
+        cacheConfig.setSingleFlightUncached(properties.isSingleFlightUncached());
+        cacheConfig.setSingleFlightTimeoutMillis(properties.getSingleFlightTimeoutMillis());
         configuration.setCacheConfig(cacheConfig);
 
         return configuration;
@@ -65,6 +122,38 @@ public class MyBatisAutoConfiguration {
         return sqlSessionFactory.openSession();
     }
 
+    /**
+     * 缓存快照写入器 - 配置了快照路径时定期保存二级缓存，关闭时写入最后一次快照
+     * 写入器替换快照文件之前先映射启动时的快照，保证其中的缓存项可以被读取
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "mini.mybatis", name = "cache-snapshot-path")
+    public CacheSnapshotWriter mybatisCacheSnapshotWriter(MyBatisConfiguration configuration) {
+        CacheConfig cacheConfig = configuration.getCacheConfig();
+        configuration.getCacheSnapshot();
+        CacheSnapshotWriter writer = new CacheSnapshotWriter(Paths.get(cacheConfig.getSnapshotPath()),
+                configuration.getSecondLevelCache(), configuration.getOffHeapStore(), configuration.getTableVersions());
+        writer.start(cacheConfig.getSnapshotIntervalMillis());
+        return writer;
+    }
+    
+    /**
+     * 缓存统计指标 - 类路径上有Micrometer时注册，由Spring Boot Actuator绑定到MeterRegistry
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    @ConditionalOnProperty(prefix = "mini.mybatis", name = "cache-stats-enabled", matchIfMissing = true)
+    static class CacheMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public CacheMetrics mybatisCacheMetrics(MyBatisConfiguration configuration) {
+            return new CacheMetrics(configuration.getCacheStatistics(), configuration.getSecondLevelCache(),
+                    configuration.getOffHeapStore(), Collections.emptyList());
+        }
+    }
+
         // 创建SqlSession实例
         // SqlSession是MyBatis的核心接口
         // 负责执行SQL语句
@@ -1,5 +1,6 @@
 package com.example.mybatis.config;
 
+import com.example.mybatis.async.AsyncExecutorMode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -20,6 +21,47 @@ public class MyBatisProperties {
      */
     private int queryTimeout = 30;
     
+    /**
+     * 游标查询的默认fetchSize，0表示使用驱动默认值
+     */
+    private int defaultFetchSize = 1000;
+    
+    /**
+     * 复用执行器在每个连接上缓存的最大PreparedStatement数量，至少为1
+     */
+    private int statementCacheSize = 64;
+    
+    /**
+     * IN列表超过该元素个数时拆分为多批查询并行执行，0表示不拆分
+     * 每批元素个数取不超过该值的最大2的幂；有排序、分组、聚合、去重或分页的查询不拆分
+     */
+    private int inListChunkSize = 1024;
+    
+    /**
+     * 异步Mapper执行器核心线程数
+     */
+    private int asyncCorePoolSize = 4;
+    
+    /**
+     * 异步Mapper执行器最大线程数
+     */
+    private int asyncMaxPoolSize = 16;
+    
+    /**
+     * 异步Mapper执行器队列容量，队列满时由调用线程执行
+     */
+    private int asyncQueueCapacity = 1000;
+    
+    /**
+     * 异步Mapper执行器线程模式：PLATFORM（平台线程池）或VIRTUAL（虚拟线程，需要Java 21+）
+     */
+    private AsyncExecutorMode asyncExecutorMode = AsyncExecutorMode.PLATFORM;
+    
+    /**
+     * 虚拟线程模式下同时在途的最大任务数，超出时由调用线程执行
+     */
+    private int asyncMaxConcurrency = 10000;
+    
     /**
      * 是否开启SQL日志
      */
@@ -30,6 +72,11 @@ public class MyBatisProperties {
      */
     private boolean firstLevelCacheEnabled = true;
     
+    /**
+     * 一级缓存的最大缓存项数
+     */
+    private int firstLevelCacheSize = 1000;
+    
     /**
      * 是否启用二级缓存
      */
@@ -40,11 +87,71 @@ public class MyBatisProperties {
      */
     private long cacheExpireTime = 1800;
     
+    /**
+     * 缓存刷新时间（毫秒），超过后读取仍返回缓存的结果并异步重新加载，需小于过期时间；0表示不刷新
+     */
+    private long cacheRefreshTime = 0;
+    
+    /**
+     * 缓存刷新线程数
+     */
+    private int cacheRefreshThreads = 2;
+    
+    /**
+     * 等待执行的缓存刷新任务上限，超出时放弃本次刷新
+     */
+    private int cacheRefreshQueueCapacity = 1000;
+    
     /**
      * 最大缓存大小
      */
     private int maxCacheSize = 1000;
     
+    /**
+     * 是否记录缓存统计（命中率、淘汰、加载耗时），类路径上有Micrometer时同时导出为指标
+     */
+    private boolean cacheStatsEnabled = true;
+    
+    /**
+     * 是否启用堆外缓存层（需要同时启用二级缓存），查询结果编码后保存在直接内存中
+     */
+    private boolean offHeapCacheEnabled = false;
+    
+    /**
+     * 堆外缓存使用的直接内存上限（字节），不能超过 -XX:MaxDirectMemorySize
+     */
+    private long offHeapCacheMaxBytes = 256L * 1024 * 1024;
+    
+    /**
+     * 堆外缓存每个内存块的大小（字节），空间不足时整块回收；也是单个查询结果的大小上限
+     */
+    private int offHeapCacheSlabBytes = 4 * 1024 * 1024;
+    
+    /**
+     * 缓存快照文件路径，设置后定期保存二级缓存和堆外缓存中的查询结果，下次启动时映射该文件恢复缓存
+     */
+    private String cacheSnapshotPath;
+    
+    /**
+     * 缓存快照的写入间隔（秒），不大于0时只在关闭时写入
+     */
+    private long cacheSnapshotInterval = 300;
+    
+    /**
+     * 是否合并相同查询的并发加载：启用二级缓存时，缓存未命中的并发请求只有一个执行查询，其余等待它的结果
+     */
+    private boolean singleFlightEnabled = true;
+    
+    /**
+     * 未启用二级缓存时是否也合并正在执行的相同查询
+     */
+    private boolean singleFlightUncached = false;
+    
+    /**
+     * 等待合并查询结果的超时时间（毫秒），不大于0表示一直等待
+     */
+    private long singleFlightTimeoutMillis = 30000;
+    
     /**
      * 是否启用SQL安全检查
      */
@@ -66,6 +173,70 @@ public class MyBatisProperties {
         this.queryTimeout = queryTimeout;
     }
     
+    public int getDefaultFetchSize() {
+        return defaultFetchSize;
+    }
+    
+    public void setDefaultFetchSize(int defaultFetchSize) {
+        this.defaultFetchSize = defaultFetchSize;
+    }
+    
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+    
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+    
+    public int getInListChunkSize() {
+        return inListChunkSize;
+    }
+    
+    public void setInListChunkSize(int inListChunkSize) {
+        this.inListChunkSize = inListChunkSize;
+    }
+    
+    public int getAsyncCorePoolSize() {
+        return asyncCorePoolSize;
+    }
+    
+    public void setAsyncCorePoolSize(int asyncCorePoolSize) {
+        this.asyncCorePoolSize = asyncCorePoolSize;
+    }
+    
+    public int getAsyncMaxPoolSize() {
+        return asyncMaxPoolSize;
+    }
+    
+    public void setAsyncMaxPoolSize(int asyncMaxPoolSize) {
+        this.asyncMaxPoolSize = asyncMaxPoolSize;
+    }
+    
+    public int getAsyncQueueCapacity() {
+        return asyncQueueCapacity;
+    }
+    
+    public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+        this.asyncQueueCapacity = asyncQueueCapacity;
+    }
+    
+    public AsyncExecutorMode getAsyncExecutorMode() {
+        return asyncExecutorMode;
+    }
+    
+    public void setAsyncExecutorMode(AsyncExecutorMode asyncExecutorMode) {
+        this.asyncExecutorMode = asyncExecutorMode;
+    }
+    
+    public int getAsyncMaxConcurrency() {
+        return asyncMaxConcurrency;
+    }
+    
+    public void setAsyncMaxConcurrency(int asyncMaxConcurrency) {
+        this.asyncMaxConcurrency = asyncMaxConcurrency;
+    }
+    
     public boolean isShowSql() {
         return showSql;
     }
@@ -82,6 +253,14 @@ public class MyBatisProperties {
         this.firstLevelCacheEnabled = firstLevelCacheEnabled;
     }
     
+    public int getFirstLevelCacheSize() {
+        return firstLevelCacheSize;
+    }
+    
+    public void setFirstLevelCacheSize(int firstLevelCacheSize) {
+        this.firstLevelCacheSize = firstLevelCacheSize;
+    }
+    
     public boolean isSecondLevelCacheEnabled() {
         return secondLevelCacheEnabled;
     }
@@ -98,6 +277,30 @@ public class MyBatisProperties {
         this.cacheExpireTime = cacheExpireTime;
     }
     
+    public long getCacheRefreshTime() {
+        return cacheRefreshTime;
+    }
+    
+    public void setCacheRefreshTime(long cacheRefreshTime) {
+        this.cacheRefreshTime = cacheRefreshTime;
+    }
+    
+    public int getCacheRefreshThreads() {
+        return cacheRefreshThreads;
+    }
+    
+    public void setCacheRefreshThreads(int cacheRefreshThreads) {
+        this.cacheRefreshThreads = cacheRefreshThreads;
+    }
+    
+    public int getCacheRefreshQueueCapacity() {
+        return cacheRefreshQueueCapacity;
+    }
+    
+    public void setCacheRefreshQueueCapacity(int cacheRefreshQueueCapacity) {
+        this.cacheRefreshQueueCapacity = cacheRefreshQueueCapacity;
+    }
+    
     public int getMaxCacheSize() {
         return maxCacheSize;
     }
@@ -106,6 +309,78 @@ public class MyBatisProperties {
         this.maxCacheSize = maxCacheSize;
     }
     
+    public boolean isCacheStatsEnabled() {
+        return cacheStatsEnabled;
+    }
+    
+    public void setCacheStatsEnabled(boolean cacheStatsEnabled) {
+        this.cacheStatsEnabled = cacheStatsEnabled;
+    }
+    
+    public boolean isOffHeapCacheEnabled() {
+        return offHeapCacheEnabled;
+    }
+    
+    public void setOffHeapCacheEnabled(boolean offHeapCacheEnabled) {
+        this.offHeapCacheEnabled = offHeapCacheEnabled;
+    }
+    
+    public long getOffHeapCacheMaxBytes() {
+        return offHeapCacheMaxBytes;
+    }
+    
+    public void setOffHeapCacheMaxBytes(long offHeapCacheMaxBytes) {
+        this.offHeapCacheMaxBytes = offHeapCacheMaxBytes;
+    }
+    
+    public int getOffHeapCacheSlabBytes() {
+        return offHeapCacheSlabBytes;
+    }
+    
+    public void setOffHeapCacheSlabBytes(int offHeapCacheSlabBytes) {
+        this.offHeapCacheSlabBytes = offHeapCacheSlabBytes;
+    }
+    
+    public String getCacheSnapshotPath() {
+        return cacheSnapshotPath;
+    }
+    
+    public void setCacheSnapshotPath(String cacheSnapshotPath) {
+        this.cacheSnapshotPath = cacheSnapshotPath;
+    }
+    
+    public long getCacheSnapshotInterval() {
+        return cacheSnapshotInterval;
+    }
+    
+    public void setCacheSnapshotInterval(long cacheSnapshotInterval) {
+        this.cacheSnapshotInterval = cacheSnapshotInterval;
+    }
+    
+    public boolean isSingleFlightEnabled() {
+        return singleFlightEnabled;
+    }
+    
+    public void setSingleFlightEnabled(boolean singleFlightEnabled) {
+        this.singleFlightEnabled = singleFlightEnabled;
+    }
+    
+    public boolean isSingleFlightUncached() {
+        return singleFlightUncached;
+    }
+    
+    public void setSingleFlightUncached(boolean singleFlightUncached) {
+        this.singleFlightUncached = singleFlightUncached;
+    }
+    
+    public long getSingleFlightTimeoutMillis() {
+        return singleFlightTimeoutMillis;
+    }
+    
+    public void setSingleFlightTimeoutMillis(long singleFlightTimeoutMillis) {
+        this.singleFlightTimeoutMillis = singleFlightTimeoutMillis;
+    }
+    
     public boolean isSqlSecurityEnabled() {
         return sqlSecurityEnabled;
     }
@@ -119,11 +394,31 @@ public class MyBatisProperties {
         return "MyBatisProperties{" +
                 "mapperLocations='" + mapperLocations + '\'' +
                 ", queryTimeout=" + queryTimeout +
+                ", defaultFetchSize=" + defaultFetchSize +
+                ", statementCacheSize=" + statementCacheSize +
+                ", asyncCorePoolSize=" + asyncCorePoolSize +
+                ", asyncMaxPoolSize=" + asyncMaxPoolSize +
+                ", asyncQueueCapacity=" + asyncQueueCapacity +
+                ", asyncExecutorMode=" + asyncExecutorMode +
+                ", asyncMaxConcurrency=" + asyncMaxConcurrency +
                 ", showSql=" + showSql +
                 ", firstLevelCacheEnabled=" + firstLevelCacheEnabled +
+                ", firstLevelCacheSize=" + firstLevelCacheSize +
                 ", secondLevelCacheEnabled=" + secondLevelCacheEnabled +
                 ", cacheExpireTime=" + cacheExpireTime +
+                ", cacheRefreshTime=" + cacheRefreshTime +
+                ", cacheRefreshThreads=" + cacheRefreshThreads +
+                ", cacheRefreshQueueCapacity=" + cacheRefreshQueueCapacity +
                 ", maxCacheSize=" + maxCacheSize +
+                ", cacheStatsEnabled=" + cacheStatsEnabled +
+                ", offHeapCacheEnabled=" + offHeapCacheEnabled +
+                ", offHeapCacheMaxBytes=" + offHeapCacheMaxBytes +
+                ", offHeapCacheSlabBytes=" + offHeapCacheSlabBytes +
+                ", cacheSnapshotPath='" + cacheSnapshotPath + '\'' +
+                ", cacheSnapshotInterval=" + cacheSnapshotInterval +
+                ", singleFlightEnabled=" + singleFlightEnabled +
+                ", singleFlightUncached=" + singleFlightUncached +
+                ", singleFlightTimeoutMillis=" + singleFlightTimeoutMillis +
                 ", sqlSecurityEnabled=" + sqlSecurityEnabled +
                 '}';
     }
@@ -0,0 +1,26 @@
+package com.example.mybatis.core;
+
+/**
+ * 绑定结果 - 本次执行使用的执行计划和按占位符顺序排列的参数值
+ *
+ * 普通语句的执行计划固定不变；SQL模板语句按本次参数渲染出的SQL形状选择执行计划
+ */
+public final class BoundSql {
+
+    private final StatementPlan plan;
+
+    private final Object[] parameters;
+
+    public BoundSql(StatementPlan plan, Object[] parameters) {
+        this.plan = plan;
+        this.parameters = parameters;
+    }
+
+    public StatementPlan getPlan() {
+        return plan;
+    }
+
+    public Object[] getParameters() {
+        return parameters;
+    }
+}
@@ -1,17 +1,42 @@
 package com.example.mybatis.core;
 
+import com.example.mybatis.async.AsyncMapperExecutor;
 import com.example.mybatis.cache.CacheConfig;
+import com.example.mybatis.cache.CacheKey;
 import com.example.mybatis.cache.CacheManager;
+import com.example.mybatis.cache.SingleFlight;
+import com.example.mybatis.cache.TableVersions;
+import com.example.mybatis.cursor.Cursor;
+import com.example.mybatis.dynamic.SqlTemplate;
 import com.example.mybatis.exception.SqlExecutionException;
+import com.example.mybatis.executor.BatchExecutor;
+import com.example.mybatis.executor.BatchResult;
+import com.example.mybatis.executor.Executor;
+import com.example.mybatis.executor.ExecutorType;
+import com.example.mybatis.executor.ReuseExecutor;
+import com.example.mybatis.executor.SimpleExecutor;
+import com.example.mybatis.result.ResultHandler;
 import com.example.mybatis.security.SqlInjectionGuard;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 默认SQL会话实现 - MyBatis核心执行引擎
@@ -37,34 +62,78 @@ public class DefaultSqlSession implements SqlSession {
     /** 配置对象 - 存储MyBatis全局配置信息 */
     private final MyBatisConfiguration configuration;
     
-    /** JDBC模板 - Spring提供的数据库访问工具 */
-    private final JdbcTemplate jdbcTemplate;
+    /** SQL执行器 - 负责语句创建、参数绑定和执行 */
+    private final Executor executor;
     
     /** 缓存管理器 - 负责一级和二级缓存的管理 */
     private final CacheManager cacheManager;
     
+    /** 合并相同查询的并发加载，未启用时为null */
+    private final SingleFlight singleFlight;
+    
+    /** 等待合并查询结果的超时时间（毫秒） */
+    private final long singleFlightTimeoutMillis;
+    
+    /** 不缓存结果的语句是否也合并相同查询 */
+    private final boolean singleFlightUncached;
+    
+    /** 缓存配置的刷新时间（毫秒），0表示只有设置了刷新时间的语句会刷新 */
+    private final long cacheRefreshTime;
+    
+    /** 在刷新线程上重新加载缓存项的执行器，与会话执行器共用时需线程安全 */
+    private final Executor reloadExecutor;
+    
+    /** 重新加载缓存项，以读取时绑定的参数为上下文，会话内共用一个实例 */
+    private final CacheManager.Reloader<BoundSql> reloader = this::reload;
+    
+    /** 批处理模式下已排队、尚未刷新的语句写入的表 */
+    private final WrittenTables pendingBatchTables = new WrittenTables();
+    
+    /**
+     * 构造函数 - 使用简单执行器初始化SQL会话
+     */
+    public DefaultSqlSession(MyBatisConfiguration configuration) {
+        this(configuration, ExecutorType.SIMPLE);
+    }
+    
     /**
      * 构造函数 - 初始化SQL会话
      * 
      * 初始化过程：
      * 1. 验证数据源有效性
-     * 2. 创建JdbcTemplate实例
+     * 2. 根据执行器类型创建执行器
      * 3. 初始化缓存管理器
      */
-    public DefaultSqlSession(MyBatisConfiguration configuration) {
+    public DefaultSqlSession(MyBatisConfiguration configuration, ExecutorType executorType) {
         this.configuration = configuration;
         DataSource dataSource = configuration.getDataSource();
         if (dataSource == null) {
             throw new SqlExecutionException("数据源不能为空");
         }
-        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.executor = createExecutor(executorType, dataSource, configuration);
         
         // 初始化缓存管理器 - 支持可配置的缓存策略
         CacheConfig cacheConfig = configuration.getCacheConfig();
         if (cacheConfig == null) {
             cacheConfig = new CacheConfig(); // 使用默认配置
         }
-        this.cacheManager = new CacheManager(cacheConfig);
+        this.cacheManager = new CacheManager(cacheConfig, configuration.getSecondLevelCache(),
+                configuration.getOffHeapStore(), configuration.getCacheSnapshot(), configuration.getTableVersions(),
+                configuration.getCacheStatistics());
+        this.cacheManager.setStatementCaches(configuration.getStatementCaches());
+        
+        // 合并相同查询 - 批处理会话的查询会先刷新本会话排队的写入，结果不能给其他会话使用
+        boolean coalesce = cacheConfig.isSingleFlightEnabled()
+                && (cacheConfig.isSecondLevelCacheEnabled() || cacheConfig.isSingleFlightUncached());
+        this.singleFlight = coalesce && executorType != ExecutorType.BATCH ? configuration.getSingleFlight() : null;
+        this.singleFlightTimeoutMillis = cacheConfig.getSingleFlightTimeoutMillis();
+        this.singleFlightUncached = cacheConfig.isSingleFlightUncached();
+        
+        // 刷新在其他线程上执行，批处理和语句复用执行器绑定在本会话上，另用一个简单执行器
+        this.cacheManager.setRefresher(configuration.getCacheRefresher());
+        this.cacheRefreshTime = cacheConfig.getRefreshTime();
+        this.reloadExecutor = executor instanceof SimpleExecutor
+                ? executor : new SimpleExecutor(dataSource, configuration.getDefaultFetchSize());
     }
     
     /**
@@ -111,52 +180,288 @@ public class DefaultSqlSession implements SqlSession {
     @SuppressWarnings("unchecked")
     @Transactional(readOnly = true)  // 只读事务，提高性能
     public <E> List<E> selectList(String statement, Object parameter) {
-        // 1. 获取映射语句配置
-        MappedStatement mappedStatement = configuration.getMappedStatement(statement);
-        if (mappedStatement == null) {
-            throw new SqlExecutionException("找不到语句: " + statement);
+        // 1. 获取映射语句的执行计划并绑定参数，超长IN列表拆分为多批查询，否则按分桶展开
+        MappedStatement mappedStatement = mappedStatement(statement);
+        BoundSql resolved = resolve(mappedStatement, parameter);
+        List<BoundSql> chunks = InListExpander.split(resolved, configuration.getInListChunkSize());
+        BoundSql boundSql = chunks == null ? InListExpander.expand(resolved) : resolved;
+        StatementPlan plan = boundSql.getPlan();
+        String sql = plan.getSql();
+        Object[] params = boundSql.getParameters();
+        
+        // 2. 安全检查 - SQL语句和执行权限已在注册时校验，这里只检查参数
+        plan.checkValid();
+        if (chunks == null) {
+            SqlInjectionGuard.validateParameters(params);
+            checkParameterCount(plan, params);
+        } else {
+            for (BoundSql chunk : chunks) {
+                SqlInjectionGuard.validateParameters(chunk.getParameters());
+                checkParameterCount(chunk.getPlan(), chunk.getParameters());
+            }
         }
         
-        String sql = mappedStatement.getSql();
-        Class<?> resultType = mappedStatement.getResultType();
-        Object[] params = parseParameters(parameter);
+        // 3. 缓存机制 - 提高查询性能
+        // 缓存键包含语句ID：@SelectIf的各个分支是不同的语句，结果互不混用；参数按值比较，不会因哈希冲突串用结果
+        CacheKey cacheKey = new CacheKey(plan.getStatementId(), sql, params);
         
-        // 2. 三重安全检查 - 防止SQL注入攻击
-        SqlInjectionGuard.validateSql(sql);           // SQL语句安全性检查
-        SqlInjectionGuard.validateParameters(params); // 参数安全性检查
-        SqlInjectionGuard.validateExecutionPermission(sql, "SELECT"); // 执行权限检查
+        // 尝试从缓存获取（一级缓存 -> 二级缓存），缓存项进入刷新期时返回缓存的结果并异步重新加载
+        // 依赖的表包括语句所属的缓存区域，区域被清除时结果同样失效
+        String[] readTables = mappedStatement.getCacheDependencies();
+        boolean useCache = mappedStatement.isCacheEnabled();
+        if (useCache) {
+            boolean refreshable = cacheRefreshTime > 0 || mappedStatement.getCacheRefreshTime() > 0;
+            Object cached = cacheManager.get(cacheKey, refreshable ? reloader : null, resolved);
+            if (cached != null) {
+                logger.debug("缓存命中: {}", statement);
+                return (List<E>) cached;
+            }
+        }
         
-        // 3. 缓存机制 - 提高查询性能
-        String cacheKey = SqlInjectionGuard.generateSafeCacheKey(sql, params);
+        // 查询前记录依赖表的版本，查询期间发生的写入会使本次结果不被缓存
+        TableVersions.Stamp stamp = cacheManager.stamp(readTables);
         
-        // 尝试从缓存获取（一级缓存 -> 二级缓存）
-        Object cached = cacheManager.get(cacheKey);
-        if (cached != null) {
-            logger.debug("缓存命中: {}", statement);
-            return (List<E>) cached;
+        // 相同的查询正在执行时等待它的结果，不再重复查询数据库
+        SingleFlight.Call call = useCache || singleFlightUncached ? beginLoad(cacheKey, stamp) : null;
+        if (call != null && !call.isLeader()) {
+            return (List<E>) awaitLoad(call, sql, params);
         }
         
         logger.info("执行查询: {} 参数: {}", sql, parameter);
         
         try {
             // 4. 执行数据库查询
-            List<E> result;
-            if (parameter == null) {
-                // 无参数查询
-                result = (List<E>) jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(resultType));
-            } else {
-                // 带参数查询
-                result = (List<E>) jdbcTemplate.query(sql, params, new BeanPropertyRowMapper<>(resultType));
-            }
+            long start = System.nanoTime();
+            List<E> result = chunks == null ? executor.query(plan, params) : queryChunks(chunks);
+            cacheManager.recordLoad(plan.getStatementId(), System.nanoTime() - start);
+            invalidateFlushedBatchTables();
             
-            // 5. 将查询结果存入缓存
-            cacheManager.put(cacheKey, result);
+            // 5. 将查询结果存入缓存，当前事务写入了依赖的表时不缓存（结果包含未提交的数据）
+            if (useCache && !hasUncommittedWrites(readTables)) {
+                cacheManager.put(cacheKey, result, stamp,
+                        mappedStatement.getCacheExpireTime(), mappedStatement.getCacheRefreshTime());
+            }
             
+            if (call != null) {
+                call.complete(result);
+            }
             return result;
         } catch (Exception e) {
             logger.error("查询执行失败: " + sql, e);
-            // 抛出自定义异常，包含详细的错误信息
-            throw new SqlExecutionException("查询执行失败: " + e.getMessage(), sql, params, e);
+            // 抛出自定义异常，包含详细的错误信息；分批查询中已经是SqlExecutionException的失败（包含失败批次的SQL）原样抛出
+            SqlExecutionException failure = e instanceof SqlExecutionException ? (SqlExecutionException) e
+                    : new SqlExecutionException("查询执行失败: " + e.getMessage(), sql, params, e);
+            if (call != null) {
+                call.fail(failure);
+            }
+            throw failure;
+        } catch (Error e) {
+            if (call != null) {
+                call.fail(e);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 重新加载进入刷新期的缓存项，在刷新线程上执行
+     * 
+     * 按读取时绑定的参数重新拆分或展开IN列表，刷新任务只在缓存项进入刷新期时创建，命中时不分配对象。
+     * 重新加载不在调用方的事务中，只读取已提交的数据；查询期间依赖的表被写入时结果不存入缓存，与普通查询相同
+     */
+    private void reload(CacheKey key, BoundSql resolved) {
+        MappedStatement mappedStatement = mappedStatement(resolved.getPlan().getStatementId());
+        List<BoundSql> chunks = InListExpander.split(resolved, configuration.getInListChunkSize());
+        BoundSql boundSql = chunks == null ? InListExpander.expand(resolved) : resolved;
+        TableVersions.Stamp stamp = cacheManager.stamp(mappedStatement.getCacheDependencies());
+        long start = System.nanoTime();
+        List<Object> result;
+        try {
+            if (chunks == null) {
+                result = reloadExecutor.query(boundSql.getPlan(), boundSql.getParameters());
+            } else {
+                result = new ArrayList<>();
+                for (BoundSql chunk : chunks) {
+                    result.addAll(reloadExecutor.<Object>query(chunk.getPlan(), chunk.getParameters()));
+                }
+            }
+        } catch (SQLException e) {
+            throw new SqlExecutionException("缓存刷新查询失败: " + e.getMessage(),
+                    boundSql.getPlan().getSql(), boundSql.getParameters(), e);
+        }
+        cacheManager.recordLoad(mappedStatement.getId(), System.nanoTime() - start);
+        logger.debug("缓存已刷新: {}", mappedStatement.getId());
+        cacheManager.put(key, result, stamp,
+                mappedStatement.getCacheExpireTime(), mappedStatement.getCacheRefreshTime());
+    }
+    
+    /**
+     * 开始或加入相同查询的加载，不合并时返回null
+     * 
+     * 处于事务中的查询不合并：事务内读到的数据取决于隔离级别和本事务的写入，不能与其他调用方共用
+     */
+    private SingleFlight.Call beginLoad(CacheKey cacheKey, TableVersions.Stamp stamp) {
+        if (singleFlight == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        return singleFlight.begin(cacheKey, stamp);
+    }
+    
+    /**
+     * 等待正在执行的相同查询，查询失败、超时或被中断时抛出异常
+     */
+    private Object awaitLoad(SingleFlight.Call call, String sql, Object[] params) {
+        logger.debug("等待正在执行的相同查询: {}", sql);
+        cacheManager.recordCoalescedLoad();
+        try {
+            return call.await(singleFlightTimeoutMillis);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new SqlExecutionException("等待的相同查询执行失败", sql, params, cause);
+        } catch (TimeoutException e) {
+            throw new SqlExecutionException("等待相同查询的结果超时（" + singleFlightTimeoutMillis + " ms）", sql, params, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SqlExecutionException("等待相同查询的结果时被中断", sql, params, e);
+        }
+    }
+    
+    /**
+     * 分批执行超长IN列表查询，按批次顺序拼接结果
+     * 
+     * 简单执行器线程安全，其余批次提交到异步执行器并行执行，第一批在当前线程执行；
+     * 复用和批处理执行器持有会话内的连接状态，只能依次执行。
+     * 调用方处于事务中时异步执行器会在当前线程执行，所有批次使用同一个事务连接。
+     * 任一批次失败时尚未开始的批次不再执行，并等待已开始的批次结束后再抛出异常，不留下仍在运行的查询
+     */
+    private <E> List<E> queryChunks(List<BoundSql> chunks) throws SQLException {
+        logger.debug("IN列表超过 {} 个元素，拆分为 {} 批查询", configuration.getInListChunkSize(), chunks.size());
+        List<CompletableFuture<List<E>>> futures = new ArrayList<>(chunks.size());
+        AtomicBoolean aborted = new AtomicBoolean();
+        if (executor instanceof SimpleExecutor) {
+            AsyncMapperExecutor asyncExecutor = configuration.getAsyncExecutor();
+            for (int i = 1; i < chunks.size(); i++) {
+                BoundSql chunk = chunks.get(i);
+                futures.add(asyncExecutor.submit(() -> queryChunk(chunk, aborted)));
+            }
+        }
+        
+        try {
+            List<E> first = executor.query(chunks.get(0).getPlan(), chunks.get(0).getParameters());
+            List<E> result = new ArrayList<>(first.size() * chunks.size());
+            result.addAll(first);
+            if (futures.isEmpty()) {
+                for (int i = 1; i < chunks.size(); i++) {
+                    result.addAll(executor.<E>query(chunks.get(i).getPlan(), chunks.get(i).getParameters()));
+                }
+                return result;
+            }
+            for (CompletableFuture<List<E>> future : futures) {
+                try {
+                    result.addAll(future.join());
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new SqlExecutionException("分批查询执行失败: " + cause.getMessage(), cause);
+                }
+            }
+            return result;
+        } catch (SQLException | RuntimeException | Error e) {
+            abortChunks(futures, aborted);
+            throw e;
+        }
+    }
+    
+    /**
+     * 取消尚未开始的批次，并等待已开始的批次结束，忽略它们的结果
+     */
+    private static void abortChunks(List<? extends CompletableFuture<?>> futures, AtomicBoolean aborted) {
+        aborted.set(true);
+        for (CompletableFuture<?> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException | CancellationException ignored) {
+                // 已经在处理第一个失败，其余批次的失败不再报告
+            }
+        }
+    }
+    
+    private <E> List<E> queryChunk(BoundSql chunk, AtomicBoolean aborted) {
+        if (aborted.get()) {
+            throw new CancellationException("其他批次查询失败，取消本批次");
+        }
+        try {
+            return executor.query(chunk.getPlan(), chunk.getParameters());
+        } catch (SQLException e) {
+            throw new SqlExecutionException("分批查询执行失败: " + e.getMessage(), chunk.getPlan().getSql(),
+                    chunk.getParameters(), e);
+        }
+    }
+    
+    /**
+     * 游标查询 - 流式读取大结果集
+     * 
+     * 执行流程：
+     * 1. 获取执行计划并进行参数安全检查
+     * 2. 由执行器以仅向前、只读方式创建PreparedStatement并设置fetchSize
+     * 3. 返回延迟映射的游标，关闭游标时释放语句和连接
+     * 
+     * 游标结果不经过缓存，避免大结果集占用堆内存
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public <T> Cursor<T> selectCursor(String statement, Object parameter) {
+        BoundSql boundSql = bind(mappedStatement(statement), parameter);
+        StatementPlan plan = boundSql.getPlan();
+        String sql = plan.getSql();
+        Object[] params = boundSql.getParameters();
+        
+        plan.checkValid();
+        SqlInjectionGuard.validateParameters(params);
+        checkParameterCount(plan, params);
+        
+        logger.info("执行游标查询: {} 参数: {}", sql, parameter);
+        
+        try {
+            Cursor<T> cursor = executor.queryCursor(plan, params);
+            invalidateFlushedBatchTables();
+            return cursor;
+        } catch (Exception e) {
+            logger.error("游标查询执行失败: " + sql, e);
+            throw new SqlExecutionException("游标查询执行失败: " + e.getMessage(), sql, params, e);
+        }
+    }
+    
+    /**
+     * 回调查询 - 推送式逐行处理
+     * 
+     * 整个查询只解析一次行映射器、只创建一个结果上下文，
+     * 每行映射后立即回调处理器，处理器可通过上下文提前停止读取
+     * 
+     * 回调结果不经过缓存
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public <T> void select(String statement, Object parameter, ResultHandler<T> handler) {
+        BoundSql boundSql = bind(mappedStatement(statement), parameter);
+        StatementPlan plan = boundSql.getPlan();
+        String sql = plan.getSql();
+        Object[] params = boundSql.getParameters();
+        
+        plan.checkValid();
+        SqlInjectionGuard.validateParameters(params);
+        checkParameterCount(plan, params);
+        
+        logger.info("执行回调查询: {} 参数: {}", sql, parameter);
+        
+        try {
+            executor.query(plan, params, handler);
+            invalidateFlushedBatchTables();
+        } catch (Exception e) {
+            logger.error("回调查询执行失败: " + sql, e);
+            throw new SqlExecutionException("回调查询执行失败: " + e.getMessage(), sql, params, e);
         }
     }
     
@@ -200,38 +505,28 @@ public class DefaultSqlSession implements SqlSession {
      */
     @Transactional
     private int executeUpdate(String statement, Object parameter) {
-        // 1. 获取映射语句配置
-        MappedStatement mappedStatement = configuration.getMappedStatement(statement);
-        if (mappedStatement == null) {
-            throw new SqlExecutionException("找不到语句: " + statement);
-        }
-        
-        String sql = mappedStatement.getSql();
-        Object[] params = parseParameters(parameter);
+        // 1. 获取映射语句的执行计划并绑定参数
+        MappedStatement mappedStatement = mappedStatement(statement);
+        BoundSql boundSql = bind(mappedStatement, parameter);
+        StatementPlan plan = boundSql.getPlan();
+        String sql = plan.getSql();
+        Object[] params = boundSql.getParameters();
         
-        // 2. 安全检查
-        SqlInjectionGuard.validateSql(sql);
+        // 2. 安全检查 - 执行权限已在注册时根据SQL类型校验（INSERT/UPDATE/DELETE权限可能不同）
+        plan.checkValid();
         SqlInjectionGuard.validateParameters(params);
-        
-        // 根据SQL类型验证执行权限（INSERT/UPDATE/DELETE权限可能不同）
-        String operationType = determineOperationType(sql);
-        SqlInjectionGuard.validateExecutionPermission(sql, operationType);
+        checkParameterCount(plan, params);
         
         logger.info("执行更新: {} 参数: {}", sql, parameter);
         
         try {
-            // 3. 执行数据库更新
-            int result;
-            if (parameter == null) {
-                result = jdbcTemplate.update(sql);
-            } else {
-                result = jdbcTemplate.update(sql, params);
-            }
+            // 3. 执行数据库更新（批处理模式下只是排队）
+            int result = executor.update(plan, params);
             
             // 4. 更新操作成功后清除相关缓存
             // 这是关键的数据一致性保证：确保缓存不会返回过期数据
-            if (result > 0) {
-                clearRelatedCache(statement);
+            if (result > 0 || result == BatchExecutor.BATCH_UPDATE_RETURN_VALUE) {
+                clearRelatedCache(mappedStatement);
             }
             
             return result;
@@ -242,20 +537,41 @@ public class DefaultSqlSession implements SqlSession {
     }
     
     /**
-     * 确定操作类型 - 用于权限验证
+     * 获取语句的执行计划并绑定参数，IN (?) 对应的集合参数按分桶展开
+     */
+    private BoundSql bind(MappedStatement mappedStatement, Object parameter) {
+        return InListExpander.expand(resolve(mappedStatement, parameter));
+    }
+    
+    private MappedStatement mappedStatement(String statement) {
+        MappedStatement mappedStatement = configuration.getMappedStatement(statement);
+        if (mappedStatement == null) {
+            throw new SqlExecutionException("找不到语句: " + statement);
+        }
+        return mappedStatement;
+    }
+    
+    /**
+     * 获取语句的执行计划并绑定参数
      * 
-     * 通过SQL语句前缀判断操作类型，支持细粒度的权限控制
+     * SQL模板语句的参数是Mapper方法的实参数组，按参数渲染出的SQL形状选择执行计划；
+     * 普通语句使用注册时构建的执行计划
      */
-    private String determineOperationType(String sql) {
-        String upperSql = sql.toUpperCase().trim();
-        if (upperSql.startsWith("INSERT")) {
-            return "INSERT";
-        } else if (upperSql.startsWith("UPDATE")) {
-            return "UPDATE";
-        } else if (upperSql.startsWith("DELETE")) {
-            return "DELETE";
-        } else {
-            return "UNKNOWN";
+    private BoundSql resolve(MappedStatement mappedStatement, Object parameter) {
+        SqlTemplate template = mappedStatement.getSqlTemplate();
+        if (template != null) {
+            return template.bind(parseParameters(parameter));
+        }
+        return new BoundSql(mappedStatement.getStatementPlan(), parseParameters(parameter));
+    }
+    
+    /**
+     * 校验参数数量与SQL占位符数量一致，避免绑定错位
+     */
+    private void checkParameterCount(StatementPlan plan, Object[] params) {
+        if (params.length != plan.getParameterCount()) {
+            throw new SqlExecutionException("参数数量不匹配: SQL需要 " + plan.getParameterCount()
+                    + " 个参数，实际传入 " + params.length + " 个", plan.getSql(), params);
         }
     }
     
@@ -265,14 +581,64 @@ public class DefaultSqlSession implements SqlSession {
      * 当数据被修改时，必须清除相关缓存，防止返回过期数据
      * 
      * 清理策略：
-     * - 简化版本：清除整个一级缓存
-     * - 生产环境可优化为精确清理相关表的缓存
+     * - 递增语句写入的表的版本号，两级缓存中依赖这些表的查询结果随之失效，其他表的缓存不受影响
+     * - 写入的表无法识别时所有缓存失效
+     * - 处于Spring事务中时，事务结束后再失效一次：事务提交前其他会话读到的仍是旧数据，可能已被重新缓存
+     * - 批处理模式下语句刷新到数据库后再失效一次，原因相同
      */
-    private void clearRelatedCache(String statement) {
-        // 简化版本：清除一级缓存
-        // TODO: 未来可以优化为根据表名精确清理相关缓存
-        cacheManager.clearSessionCache();
-        logger.debug("已清除相关缓存: {}", statement);
+    private void clearRelatedCache(MappedStatement mappedStatement) {
+        String[] tables = mappedStatement.getFlushTargets();
+        cacheManager.invalidateTables(tables);
+        if (executor instanceof BatchExecutor) {
+            pendingBatchTables.add(tables);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionWrittenTables().add(tables);
+        }
+        logger.debug("已清除相关缓存: {}", mappedStatement.getId());
+    }
+    
+    /**
+     * 当前事务写入的表，首次写入时注册事务同步，事务结束后使这些表的缓存再次失效
+     */
+    private WrittenTables transactionWrittenTables() {
+        TableVersions key = configuration.getTableVersions();
+        WrittenTables written = (WrittenTables) TransactionSynchronizationManager.getResource(key);
+        if (written == null) {
+            WrittenTables created = new WrittenTables();
+            TransactionSynchronizationManager.bindResource(key, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                    cacheManager.invalidateTables(created.toArray());
+                }
+            });
+            written = created;
+        }
+        return written;
+    }
+    
+    /**
+     * 当前事务是否写入了这些表（尚未提交）
+     */
+    private boolean hasUncommittedWrites(String[] readTables) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        WrittenTables written = (WrittenTables) TransactionSynchronizationManager.getResource(
+                configuration.getTableVersions());
+        return written != null && written.affects(readTables);
+    }
+    
+    /**
+     * 执行器已刷新排队的批处理语句后调用，使其写入的表的缓存再次失效
+     */
+    private void invalidateFlushedBatchTables() {
+        if (!pendingBatchTables.isEmpty()) {
+            cacheManager.invalidateTables(pendingBatchTables.toArray());
+            pendingBatchTables.clear();
+        }
     }
     
     /**
@@ -316,18 +682,129 @@ public class DefaultSqlSession implements SqlSession {
     public MyBatisConfiguration getConfiguration() {
         return configuration;
     }
+
+    /**
+     * 会话能否被多个线程同时使用
+     *
+     * 简单执行器每次执行获取连接，线程安全；语句复用和批处理执行器持有会话内的连接和语句状态
+     */
+    public boolean isThreadSafe() {
+        return executor instanceof SimpleExecutor;
+    }
+
+    /**
+     * 刷新批处理语句
+     * 
+     * 批处理模式下执行所有排队的更新并返回每条语句的更新行数，
+     * 其他模式下返回空列表
+     */
+    @Override
+    public List<BatchResult> flushStatements() {
+        try {
+            List<BatchResult> results = executor.flushStatements();
+            invalidateFlushedBatchTables();
+            return results;
+        } catch (SQLException e) {
+            logger.error("批处理刷新失败", e);
+            throw new SqlExecutionException("批处理刷新失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 提交会话
+     * 
+     * 刷新所有排队的语句并清空一级缓存；处于Spring事务中时实际提交由事务管理器完成
+     */
+    @Override
+    public void commit() {
+        try {
+            executor.commit();
+            invalidateFlushedBatchTables();
+            cacheManager.clearSessionCache();
+        } catch (SQLException e) {
+            logger.error("提交失败", e);
+            throw new SqlExecutionException("提交失败: " + e.getMessage(), e);
+        }
+    }
     
     /**
      * 关闭会话
      * 
-     * 在实际实现中，这里会：
-     * - 关闭数据库连接
-     * - 清理缓存
-     * - 释放相关资源
+     * 关闭执行器：刷新排队的批处理语句并释放其持有的连接和语句，清空一级缓存
      */
     @Override
     public void close() {
-        // 在实际实现中，这里会关闭数据库连接
+        executor.close();
+        invalidateFlushedBatchTables();
+        cacheManager.clearSessionCache();
         logger.info("SQL会话已关闭");
     }
-}
\ No newline at end of file
+    
+    /**
+     * 创建执行器
+     */
+    private static Executor createExecutor(ExecutorType executorType, DataSource dataSource,
+                                           MyBatisConfiguration configuration) {
+        int fetchSize = configuration.getDefaultFetchSize();
+        switch (executorType) {
+            case BATCH:
+                return new BatchExecutor(dataSource, fetchSize);
+            case REUSE:
+                return new ReuseExecutor(dataSource, fetchSize, configuration.getStatementCacheSize());
+            default:
+                return new SimpleExecutor(dataSource, fetchSize);
+        }
+    }
+    
+    /**
+     * 已写入的表的集合，写入的表未知时表示所有表
+     */
+    private static final class WrittenTables {
+        
+        private final Set<String> tables = new LinkedHashSet<>();
+        
+        private boolean all;
+        
+        void add(String[] written) {
+            if (written.length == 0) {
+                all = true;
+            } else {
+                tables.addAll(Arrays.asList(written));
+            }
+        }
+        
+        boolean isEmpty() {
+            return !all && tables.isEmpty();
+        }
+        
+        void clear() {
+            tables.clear();
+            all = false;
+        }
+        
+        /**
+         * 读取这些表的查询是否受影响，读取的表未知时视为受影响
+         */
+        boolean affects(String[] readTables) {
+            if (isEmpty()) {
+                return false;
+            }
+            if (all || readTables.length == 0) {
+                return true;
+            }
+            for (String table : readTables) {
+                if (tables.contains(table)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * 转为表名数组，所有表时为空数组
+         */
+        String[] toArray() {
+            return all ? new String[0] : tables.toArray(new String[0]);
+        }
+    }
+}
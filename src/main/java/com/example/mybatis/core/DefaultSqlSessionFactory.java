@@ -1,5 +1,7 @@
 package com.example.mybatis.core;
 
+import com.example.mybatis.executor.ExecutorType;
+
 /**
  * 默认SQL会话工厂实现
  * 负责创建DefaultSqlSession实例
@@ -20,6 +22,11 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
         return new DefaultSqlSession(configuration);
     }
     
+    @Override
+    public SqlSession openSession(ExecutorType executorType) {
+        return new DefaultSqlSession(configuration, executorType);
+    }
+    
     @Override
     public MyBatisConfiguration getConfiguration() {
         return configuration;
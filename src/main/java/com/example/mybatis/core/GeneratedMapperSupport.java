@@ -0,0 +1,116 @@
+package com.example.mybatis.core;
+
+import com.example.mybatis.async.AsyncMapperExecutor;
+import com.example.mybatis.cursor.Cursor;
+import com.example.mybatis.exception.MyBatisException;
+import com.example.mybatis.exception.SqlExecutionException;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Mapper实现的公共辅助方法
+ *
+ * 供动态代理和mini-mybatis-processor生成的Mapper实现类共同使用，保证两种方式的行为一致
+ */
+public final class GeneratedMapperSupport {
+
+    /**
+     * 生成的Mapper实现类名后缀：com.foo.UserMapper -> com.foo.UserMapper_MiniMyBatisImpl
+     */
+    public static final String IMPLEMENTATION_SUFFIX = "_MiniMyBatisImpl";
+
+    private GeneratedMapperSupport() {
+    }
+
+    /**
+     * 把游标包装为Stream，关闭Stream时关闭游标
+     */
+    public static <T> Stream<T> stream(Cursor<T> cursor) {
+        return StreamSupport.stream(cursor.spliterator(), false).onClose(cursor::close);
+    }
+
+    /**
+     * 不包含任何行的游标，用于条件不满足且没有else分支的@SelectIf查询
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Cursor<T> emptyCursor() {
+        return (Cursor<T>) EmptyCursor.INSTANCE;
+    }
+
+    /**
+     * 执行CompletableFuture返回类型的Mapper方法
+     *
+     * 语句复用和批处理执行器持有会话内的连接、语句缓存和待执行队列，不能被多个线程同时使用，
+     * 这类会话的方法在调用线程执行；简单执行器的会话提交到有界异步执行器
+     */
+    public static <T> CompletableFuture<T> submitAsync(SqlSession sqlSession, Supplier<T> task) {
+        AsyncMapperExecutor asyncExecutor = sqlSession.getConfiguration().getAsyncExecutor();
+        if (sqlSession instanceof DefaultSqlSession && !((DefaultSqlSession) sqlSession).isThreadSafe()) {
+            return asyncExecutor.executeInline(task);
+        }
+        return asyncExecutor.submit(task);
+    }
+
+    /**
+     * 按@SelectIf条件选择本次执行的语句ID，条件不满足且没有else分支时返回null
+     */
+    public static String selectBranch(SqlSession sqlSession, String statementId, Object[] args) {
+        MappedStatement statement = sqlSession.getConfiguration().getMappedStatement(statementId);
+        if (statement == null) {
+            throw new SqlExecutionException("找不到语句: " + statementId);
+        }
+        return statement.selectBranch(args);
+    }
+
+    /**
+     * 基本类型返回值不能为null，否则拆箱时抛出难以定位的NullPointerException
+     */
+    public static <T> T requirePrimitiveResult(T result, String methodName, String primitiveType) {
+        if (result == null) {
+            throw new MyBatisException("NULL_PRIMITIVE_RESULT",
+                "方法 " + methodName + " 返回基本类型 " + primitiveType + "，但查询结果为null");
+        }
+        return result;
+    }
+
+    /**
+     * 方法没有SQL注解时的异常
+     */
+    public static MyBatisException missingSqlAnnotation(String methodName) {
+        return new MyBatisException("MISSING_SQL_ANNOTATION", "方法 " + methodName + " 没有找到对应的SQL注解");
+    }
+
+    private static final class EmptyCursor implements Cursor<Object> {
+
+        private static final EmptyCursor INSTANCE = new EmptyCursor();
+
+        @Override
+        public boolean isOpen() {
+            return false;
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return true;
+        }
+
+        @Override
+        public int getCurrentIndex() {
+            return -1;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return Collections.emptyIterator();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.mybatis.core;
+
+import com.example.mybatis.exception.SqlExecutionException;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * IN列表展开 - 把 IN (?) 对应的集合或数组参数展开为多个占位符
+ *
+ * 展开后的占位符个数向上取整到2的幂（1、2、4、8、16...），多出的位置用最后一个元素填充，
+ * 不同长度的列表只会生成少量不同的SQL，预编译语句缓存、执行计划缓存和数据库的语句缓存都能复用。
+ * 空集合绑定为单个null：IN (NULL) 不匹配任何行；NOT IN 的空集合无法用SQL表达，直接报错
+ *
+ * 超过分批阈值的列表可以拆分为多个查询（见 {@link #split}），每批的元素个数相同，共用同一个执行计划
+ */
+final class InListExpander {
+
+    private InListExpander() {
+    }
+
+    /**
+     * 展开绑定结果中的IN列表参数，没有需要展开的参数时原样返回
+     */
+    static BoundSql expand(BoundSql boundSql) {
+        StatementPlan plan = boundSql.getPlan();
+        int[] slots = plan.getInListSlots();
+        if (slots.length == 0) {
+            return boundSql;
+        }
+        Object[] params = boundSql.getParameters();
+        int[] sizes = null;
+        for (int i = 0; i < slots.length; i++) {
+            int size = slots[i] < params.length ? sizeOf(params[slots[i]]) : -1;
+            if (size < 0) {
+                continue;
+            }
+            if (size == 0 && plan.isNotInSlot(i)) {
+                throw new SqlExecutionException("NOT IN 的参数集合不能为空", plan.getSql(), params);
+            }
+            if (sizes == null) {
+                sizes = new int[slots.length];
+            }
+            sizes[i] = bucketSize(size);
+        }
+        if (sizes == null) {
+            return boundSql;
+        }
+        for (int i = 0; i < sizes.length; i++) {
+            if (sizes[i] == 0) {
+                // 该位置的参数是单个值
+                sizes[i] = 1;
+            }
+        }
+        return new BoundSql(plan.expand(sizes), flatten(params, slots, sizes));
+    }
+
+    /**
+     * 按分批大小拆分超长的IN列表
+     *
+     * 只有一个IN列表超过阈值、语句结果可以直接拼接、且该IN列表是外层WHERE中顶层AND连接的条件时才拆分，
+     * 元素去重后每批结果按批次顺序拼接即为完整结果。
+     * 不满足条件时返回null，由调用方按单个查询执行
+     *
+     * @param chunkSize 每批元素个数上限，实际取不超过该值的最大2的幂，使每批都不需要填充
+     */
+    static List<BoundSql> split(BoundSql boundSql, int chunkSize) {
+        StatementPlan plan = boundSql.getPlan();
+        if (chunkSize <= 1) {
+            return null;
+        }
+        int batch = Integer.highestOneBit(chunkSize);
+        int[] slots = plan.getInListSlots();
+        Object[] params = boundSql.getParameters();
+        int oversized = -1;
+        for (int i = 0; i < slots.length; i++) {
+            int size = slots[i] < params.length ? sizeOf(params[slots[i]]) : -1;
+            if (size > batch) {
+                if (oversized >= 0) {
+                    return null;
+                }
+                oversized = i;
+            }
+        }
+        if (oversized < 0 || !plan.isChunkableSlot(oversized)) {
+            return null;
+        }
+
+        // 重复元素会使多个批次匹配同一行，拆分前先去重（IN只关心元素集合）
+        List<Object> values = distinctValues(params[slots[oversized]]);
+        if (values.size() <= batch) {
+            Object[] distinctParams = params.clone();
+            distinctParams[slots[oversized]] = values;
+            return Collections.singletonList(expand(new BoundSql(plan, distinctParams)));
+        }
+        List<BoundSql> chunks = new ArrayList<>((values.size() + batch - 1) / batch);
+        for (int from = 0; from < values.size(); from += batch) {
+            Object[] chunkParams = params.clone();
+            chunkParams[slots[oversized]] = values.subList(from, Math.min(from + batch, values.size()));
+            chunks.add(expand(new BoundSql(plan, chunkParams)));
+        }
+        return chunks;
+    }
+
+    /**
+     * 不小于size的最小2的幂，size为0时为1
+     */
+    static int bucketSize(int size) {
+        if (size <= 1) {
+            return 1;
+        }
+        return Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * 集合或数组的元素个数，其他值（包括byte[]等作为单个JDBC值的数组）返回-1
+     */
+    private static int sizeOf(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        }
+        if (value instanceof Object[]) {
+            return ((Object[]) value).length;
+        }
+        if (value != null && value.getClass().isArray()
+                && !(value instanceof byte[]) && !(value instanceof char[])) {
+            return Array.getLength(value);
+        }
+        return -1;
+    }
+
+    private static Object[] flatten(Object[] params, int[] slots, int[] sizes) {
+        int length = params.length;
+        for (int size : sizes) {
+            length += size - 1;
+        }
+        Object[] result = new Object[length];
+        int target = 0;
+        int slot = 0;
+        for (int i = 0; i < params.length; i++) {
+            if (slot < slots.length && slots[slot] == i) {
+                target = copyElements(params[i], sizes[slot++], result, target);
+            } else {
+                result[target++] = params[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 写入集合元素并用最后一个元素填充到bucket个位置；单个值原样写入
+     */
+    private static int copyElements(Object value, int bucket, Object[] target, int offset) {
+        if (sizeOf(value) < 0) {
+            target[offset] = value;
+            return offset + 1;
+        }
+        Object last = null;
+        int count = 0;
+        if (value instanceof Collection) {
+            Iterator<?> iterator = ((Collection<?>) value).iterator();
+            while (iterator.hasNext() && count < bucket) {
+                last = iterator.next();
+                target[offset + count++] = last;
+            }
+        } else {
+            int length = Array.getLength(value);
+            for (; count < length && count < bucket; count++) {
+                last = Array.get(value, count);
+                target[offset + count] = last;
+            }
+        }
+        for (; count < bucket; count++) {
+            target[offset + count] = last;
+        }
+        return offset + bucket;
+    }
+
+    private static List<Object> distinctValues(Object value) {
+        Set<Object> distinct = new LinkedHashSet<>();
+        if (value instanceof Collection) {
+            distinct.addAll((Collection<?>) value);
+        } else {
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                distinct.add(Array.get(value, i));
+            }
+        }
+        return new ArrayList<>(distinct);
+    }
+}
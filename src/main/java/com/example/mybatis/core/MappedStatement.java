@@ -1,10 +1,26 @@
 package com.example.mybatis.core;
 
+import com.example.mybatis.binding.ParameterBinding;
+import com.example.mybatis.dynamic.ConditionExpression;
+import com.example.mybatis.dynamic.SqlTemplate;
+
 /**
  * 映射语句 - 封装SQL语句和相关信息
  */
 public class MappedStatement {
     
+    /**
+     * @SelectIf 条件不满足时执行的语句ID后缀：com.foo.UserMapper.find -> com.foo.UserMapper.find#else
+     */
+    public static final String ELSE_BRANCH_SUFFIX = "#else";
+    
+    /**
+     * 缓存区域在表版本号中使用的名称前缀，不会与SQL中的表名冲突
+     */
+    public static final String CACHE_REGION_PREFIX = "#region:";
+    
+    private static final String[] NO_REGIONS = new String[0];
+    
     /**
      * 语句ID（通常是方法全限定名）
      */
@@ -32,6 +48,81 @@ public class MappedStatement {
      */
     private Class<?> resultType;
     
+    /**
+     * 参数绑定计划，由Mapper方法签名编译，手动创建的语句为null
+     */
+    private ParameterBinding parameterBinding;
+    
+    /**
+     * @SelectIf 条件，注册时编译，普通语句为null
+     */
+    private ConditionExpression conditionExpression;
+    
+    /**
+     * 条件不满足时执行的语句ID，为null表示返回空结果
+     */
+    private String elseStatementId;
+    
+    /**
+     * @SelectTemplate / @UpdateTemplate 的编译结果，SQL按每次调用的参数渲染，普通语句为null
+     */
+    private SqlTemplate sqlTemplate;
+    
+    /**
+     * 语句读取的表，为null时首次访问从SQL中提取
+     */
+    private volatile String[] readTables;
+    
+    /**
+     * 语句写入的表，为null时首次访问从SQL中提取
+     */
+    private volatile String[] writeTables;
+    
+    /**
+     * 是否缓存查询结果
+     */
+    private boolean cacheEnabled = true;
+    
+    /**
+     * 缓存区域，为null时不属于任何区域
+     */
+    private String cacheRegion;
+    
+    /**
+     * 缓存区域的最大缓存项数，大于0时该区域使用独立的二级缓存
+     */
+    private int cacheMaxEntries;
+    
+    /**
+     * 执行后清除的缓存区域
+     */
+    private String[] flushCacheRegions = NO_REGIONS;
+    
+    /**
+     * 缓存依赖的表和区域，为null时首次访问时计算
+     */
+    private volatile String[] cacheDependencies;
+    
+    /**
+     * 执行后使缓存失效的表和区域，为null时首次访问时计算
+     */
+    private volatile String[] flushTargets;
+    
+    /**
+     * 查询结果的缓存过期时间（毫秒），0表示使用缓存配置的过期时间
+     */
+    private long cacheExpireTime;
+    
+    /**
+     * 查询结果的缓存刷新时间（毫秒），超过后读取仍返回缓存的结果并异步重新加载，0表示使用缓存配置的刷新时间
+     */
+    private long cacheRefreshTime;
+    
+    /**
+     * 预编译的执行计划
+     */
+    private volatile StatementPlan statementPlan;
+    
     public MappedStatement() {
     }
     
@@ -57,14 +148,23 @@ public class MappedStatement {
     
     public void setSqlCommandType(SqlCommandType sqlCommandType) {
         this.sqlCommandType = sqlCommandType;
+        this.statementPlan = null;
     }
     
     public String getSql() {
         return sql;
     }
     
+    /**
+     * 设置SQL，同时清除已构建的执行计划和已提取的表名
+     */
     public void setSql(String sql) {
         this.sql = sql;
+        this.statementPlan = null;
+        this.readTables = null;
+        this.writeTables = null;
+        this.cacheDependencies = null;
+        this.flushTargets = null;
     }
     
     public Class<?> getResultType() {
@@ -73,6 +173,193 @@ public class MappedStatement {
     
     public void setResultType(Class<?> resultType) {
         this.resultType = resultType;
+        this.statementPlan = null;
+    }
+    
+    public ParameterBinding getParameterBinding() {
+        return parameterBinding;
+    }
+    
+    public void setParameterBinding(ParameterBinding parameterBinding) {
+        this.parameterBinding = parameterBinding;
+        this.statementPlan = null;
+    }
+    
+    public ConditionExpression getConditionExpression() {
+        return conditionExpression;
+    }
+    
+    public void setConditionExpression(ConditionExpression conditionExpression) {
+        this.conditionExpression = conditionExpression;
+    }
+    
+    public String getElseStatementId() {
+        return elseStatementId;
+    }
+    
+    public void setElseStatementId(String elseStatementId) {
+        this.elseStatementId = elseStatementId;
+    }
+    
+    public SqlTemplate getSqlTemplate() {
+        return sqlTemplate;
+    }
+    
+    public void setSqlTemplate(SqlTemplate sqlTemplate) {
+        this.sqlTemplate = sqlTemplate;
+    }
+    
+    /**
+     * 获取语句读取的表（小写、不含schema）
+     * 未通过 @TableDependency 指定时从SQL中提取，空数组表示无法识别
+     */
+    public String[] getReadTables() {
+        String[] tables = readTables;
+        if (tables == null) {
+            tables = TableExtractor.readTables(sql);
+            readTables = tables;
+        }
+        return tables;
+    }
+    
+    public void setReadTables(String[] readTables) {
+        this.readTables = readTables != null ? TableExtractor.normalizeAll(readTables) : null;
+        this.cacheDependencies = null;
+    }
+    
+    public long getCacheExpireTime() {
+        return cacheExpireTime;
+    }
+    
+    public void setCacheExpireTime(long cacheExpireTime) {
+        this.cacheExpireTime = cacheExpireTime;
+    }
+    
+    public long getCacheRefreshTime() {
+        return cacheRefreshTime;
+    }
+    
+    public void setCacheRefreshTime(long cacheRefreshTime) {
+        this.cacheRefreshTime = cacheRefreshTime;
+    }
+    
+    /**
+     * 获取语句写入的表（小写、不含schema）
+     * 未通过 @TableDependency 指定时从SQL中提取，查询语句和无法识别时为空数组
+     */
+    public String[] getWriteTables() {
+        String[] tables = writeTables;
+        if (tables == null) {
+            tables = TableExtractor.writeTables(sql);
+            writeTables = tables;
+        }
+        return tables;
+    }
+    
+    public void setWriteTables(String[] writeTables) {
+        this.writeTables = writeTables != null ? TableExtractor.normalizeAll(writeTables) : null;
+        this.flushTargets = null;
+    }
+    
+    /**
+     * 获取查询结果缓存依赖的表和缓存区域，用于记录表版本
+     * 依赖的表无法识别时为空数组（依赖所有表），此时区域被清除同样会使结果失效
+     */
+    public String[] getCacheDependencies() {
+        String[] dependencies = cacheDependencies;
+        if (dependencies == null) {
+            String[] tables = getReadTables();
+            dependencies = cacheRegion == null || tables.length == 0
+                    ? tables : append(tables, new String[]{cacheRegion});
+            cacheDependencies = dependencies;
+        }
+        return dependencies;
+    }
+    
+    /**
+     * 获取语句执行后使缓存失效的表和缓存区域
+     * 写入的表无法识别时为空数组（所有缓存失效）
+     */
+    public String[] getFlushTargets() {
+        String[] targets = flushTargets;
+        if (targets == null) {
+            String[] tables = getWriteTables();
+            targets = flushCacheRegions.length == 0 || tables.length == 0
+                    ? tables : append(tables, flushCacheRegions);
+            flushTargets = targets;
+        }
+        return targets;
+    }
+    
+    private static String[] append(String[] tables, String[] regions) {
+        String[] result = new String[tables.length + regions.length];
+        System.arraycopy(tables, 0, result, 0, tables.length);
+        for (int i = 0; i < regions.length; i++) {
+            result[tables.length + i] = CACHE_REGION_PREFIX + regions[i];
+        }
+        return result;
+    }
+    
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+    
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+    
+    public String getCacheRegion() {
+        return cacheRegion;
+    }
+    
+    public void setCacheRegion(String cacheRegion) {
+        this.cacheRegion = cacheRegion;
+        this.cacheDependencies = null;
+    }
+    
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+    
+    public void setCacheMaxEntries(int cacheMaxEntries) {
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+    
+    public String[] getFlushCacheRegions() {
+        return flushCacheRegions;
+    }
+    
+    public void setFlushCacheRegions(String[] flushCacheRegions) {
+        this.flushCacheRegions = flushCacheRegions != null ? flushCacheRegions : NO_REGIONS;
+        this.flushTargets = null;
+    }
+    
+    /**
+     * 按条件选择本次执行的语句
+     * 没有条件或条件满足时返回本语句ID，否则返回else分支的语句ID，没有else分支时返回null
+     */
+    public String selectBranch(Object[] args) {
+        if (conditionExpression == null || conditionExpression.evaluate(args)) {
+            return id;
+        }
+        return elseStatementId;
+    }
+    
+    /**
+     * 获取执行计划
+     * 正常情况下在注册时已构建，这里兼容手动创建的语句，首次访问时构建
+     */
+    public StatementPlan getStatementPlan() {
+        StatementPlan plan = statementPlan;
+        if (plan == null) {
+            plan = StatementPlan.compile(this);
+            statementPlan = plan;
+        }
+        return plan;
+    }
+    
+    public void setStatementPlan(StatementPlan statementPlan) {
+        this.statementPlan = statementPlan;
     }
     
     @Override
@@ -0,0 +1,230 @@
+package com.example.mybatis.core;
+
+import com.example.mybatis.annotation.*;
+import com.example.mybatis.binding.ParameterBinding;
+import com.example.mybatis.cursor.Cursor;
+import com.example.mybatis.dynamic.ConditionExpression;
+import com.example.mybatis.result.ResultHandler;
+import org.springframework.core.ResolvableType;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Mapper方法描述符 - 每个Mapper方法解析一次，由同一Mapper的所有代理共享
+ *
+ * 缓存调用时需要的全部元数据：语句ID、SQL命令类型、返回方式、参数绑定计划和ResultHandler参数位置，
+ * 代理每次调用只需一次Map查找，不再拼接语句ID、检查注解和判断返回类型
+ */
+public final class MapperMethod {
+
+    /**
+     * 返回方式
+     */
+    public enum ReturnKind {
+        /** 无返回值 */
+        VOID,
+        /** 单个对象 */
+        SINGLE,
+        /** 列表 */
+        LIST,
+        /** 游标 */
+        CURSOR,
+        /** Stream，关闭时释放游标 */
+        STREAM,
+        /** 基本类型，结果不能为null */
+        PRIMITIVE
+    }
+
+    private final Method method;
+
+    private final String statementId;
+
+    /** SQL命令类型，方法没有SQL注解时为null */
+    private final MappedStatement.SqlCommandType commandType;
+
+    /** 是否为@SelectIf条件查询 */
+    private final SelectIf selectIf;
+
+    /** 编译后的@SelectIf条件，非条件查询为null */
+    private final ConditionExpression conditionExpression;
+
+    /** 条件不满足时执行的语句ID，没有else分支时为null */
+    private final String elseStatementId;
+
+    /** else分支的参数绑定计划 */
+    private final ParameterBinding elseParameterBinding;
+
+    /** 是否为SQL模板语句，模板直接接收方法实参，按参数渲染SQL */
+    private final boolean template;
+
+    /** 返回CompletableFuture时为true，此时returnType和returnKind描述其中的结果 */
+    private final boolean async;
+
+    private final Class<?> returnType;
+
+    private final ReturnKind returnKind;
+
+    /** ResultHandler参数的位置，没有则为-1 */
+    private final int resultHandlerIndex;
+
+    /** 参数绑定计划，语句未通过扫描注册时为null */
+    private final ParameterBinding parameterBinding;
+
+    public MapperMethod(Class<?> mapperInterface, Method method, MyBatisConfiguration configuration) {
+        this.method = method;
+        this.statementId = mapperInterface.getName() + "." + method.getName();
+        this.selectIf = method.getAnnotation(SelectIf.class);
+        this.commandType = resolveCommandType(method, selectIf);
+        this.template = method.isAnnotationPresent(SelectTemplate.class)
+                || method.isAnnotationPresent(UpdateTemplate.class);
+
+        Class<?> type = method.getReturnType();
+        this.async = CompletableFuture.class.equals(type);
+        if (async) {
+            type = ResolvableType.forMethodReturnType(method).getGeneric(0).resolve(Object.class);
+        }
+        this.returnType = type;
+        this.returnKind = resolveReturnKind(type);
+        this.resultHandlerIndex = findResultHandlerIndex(method);
+
+        MappedStatement statement = configuration != null ? configuration.getMappedStatement(statementId) : null;
+        this.parameterBinding = statement != null ? statement.getParameterBinding() : null;
+        if (selectIf == null) {
+            this.conditionExpression = null;
+        } else if (statement != null && statement.getConditionExpression() != null) {
+            this.conditionExpression = statement.getConditionExpression();
+        } else {
+            this.conditionExpression = ConditionExpression.compile(method, selectIf.condition());
+        }
+        this.elseStatementId = statement != null ? statement.getElseStatementId() : null;
+        MappedStatement elseStatement = elseStatementId != null ? configuration.getMappedStatement(elseStatementId) : null;
+        this.elseParameterBinding = elseStatement != null ? elseStatement.getParameterBinding() : null;
+    }
+
+    private static MappedStatement.SqlCommandType resolveCommandType(Method method, SelectIf selectIf) {
+        if (selectIf != null || method.isAnnotationPresent(Select.class)
+                || method.isAnnotationPresent(SelectTemplate.class)) {
+            return MappedStatement.SqlCommandType.SELECT;
+        } else if (method.isAnnotationPresent(Insert.class)) {
+            return MappedStatement.SqlCommandType.INSERT;
+        } else if (method.isAnnotationPresent(Update.class) || method.isAnnotationPresent(UpdateTemplate.class)) {
+            return MappedStatement.SqlCommandType.UPDATE;
+        } else if (method.isAnnotationPresent(Delete.class)) {
+            return MappedStatement.SqlCommandType.DELETE;
+        }
+        return null;
+    }
+
+    private static ReturnKind resolveReturnKind(Class<?> type) {
+        if (void.class.equals(type) || Void.class.equals(type)) {
+            return ReturnKind.VOID;
+        } else if (type.isPrimitive()) {
+            return ReturnKind.PRIMITIVE;
+        } else if (Cursor.class.equals(type)) {
+            return ReturnKind.CURSOR;
+        } else if (Stream.class.equals(type)) {
+            return ReturnKind.STREAM;
+        } else if (type.isAssignableFrom(List.class)) {
+            return ReturnKind.LIST;
+        }
+        return ReturnKind.SINGLE;
+    }
+
+    private static int findResultHandlerIndex(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (ResultHandler.class.isAssignableFrom(parameterTypes[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 把更新行数转换为方法的返回类型（int、long、boolean或void）
+     */
+    public Object convertRowCount(int rowCount) {
+        if (returnKind == ReturnKind.VOID) {
+            return null;
+        } else if (long.class.equals(returnType) || Long.class.equals(returnType)) {
+            return (long) rowCount;
+        } else if (boolean.class.equals(returnType) || Boolean.class.equals(returnType)) {
+            return rowCount > 0;
+        }
+        return rowCount;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public String getStatementId() {
+        return statementId;
+    }
+
+    public MappedStatement.SqlCommandType getCommandType() {
+        return commandType;
+    }
+
+    public SelectIf getSelectIf() {
+        return selectIf;
+    }
+
+    public ConditionExpression getConditionExpression() {
+        return conditionExpression;
+    }
+
+    /**
+     * 按@SelectIf条件选择本次执行的语句ID，条件不满足且没有else分支时返回null
+     */
+    public String selectBranch(Object[] args) {
+        if (conditionExpression == null || conditionExpression.evaluate(args)) {
+            return statementId;
+        }
+        return elseStatementId;
+    }
+
+    /**
+     * 分支语句的参数绑定计划
+     */
+    public ParameterBinding getParameterBinding(String branchStatementId) {
+        return statementId.equals(branchStatementId) ? parameterBinding : elseParameterBinding;
+    }
+
+    public boolean isTemplate() {
+        return template;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public Class<?> getReturnType() {
+        return returnType;
+    }
+
+    public ReturnKind getReturnKind() {
+        return returnKind;
+    }
+
+    public int getResultHandlerIndex() {
+        return resultHandlerIndex;
+    }
+
+    public ParameterBinding getParameterBinding() {
+        return parameterBinding;
+    }
+
+    @Override
+    public String toString() {
+        return "MapperMethod{" +
+                "statementId='" + statementId + '\'' +
+                ", commandType=" + commandType +
+                ", returnKind=" + returnKind +
+                ", async=" + async +
+                '}';
+    }
+}
@@ -1,157 +1,224 @@
 package com.example.mybatis.core;
 
-import com.example.mybatis.annotation.*;
-import com.example.mybatis.dynamic.DynamicSqlProcessor;
-import com.example.mybatis.exception.MyBatisException;
+import com.example.mybatis.binding.ParameterBinding;
+import com.example.mybatis.result.ResultHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * Mapper代理类
  * 实现动态代理，拦截Mapper接口方法调用并执行相应的SQL操作
+ *
+ * 方法元数据解析为MapperMethod后缓存，同一Mapper的代理共享同一个缓存
  */
 public class MapperProxy<T> implements InvocationHandler {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(MapperProxy.class);
-    
+
     /**
      * SQL会话
      */
     private final SqlSession sqlSession;
-    
+
     /**
      * Mapper接口类型
      */
     private final Class<T> mapperInterface;
-    
+
+    /**
+     * 方法 -> 方法描述符缓存
+     */
+    private final Map<Method, MapperMethod> methodCache;
+
     public MapperProxy(SqlSession sqlSession, Class<T> mapperInterface) {
+        this(sqlSession, mapperInterface, new ConcurrentHashMap<>());
+    }
+
+    public MapperProxy(SqlSession sqlSession, Class<T> mapperInterface, Map<Method, MapperMethod> methodCache) {
         this.sqlSession = sqlSession;
         this.mapperInterface = mapperInterface;
+        this.methodCache = methodCache;
     }
-    
+
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
         // 如果调用的是Object类的方法，直接执行
         if (Object.class.equals(method.getDeclaringClass())) {
             return method.invoke(this, args);
         }
-        
-        // 获取方法的全限定名作为语句ID
-        String statementId = mapperInterface.getName() + "." + method.getName();
-        
-        logger.info("执行Mapper方法: {} 参数: {}", statementId, args);
-        
-        // 检查方法上的SQL注解并执行相应操作
-        if (method.isAnnotationPresent(Select.class)) {
-            return executeSelect(method, statementId, args);
-        } else if (method.isAnnotationPresent(SelectIf.class)) {
-            return executeSelectIf(method, statementId, args);
-        } else if (method.isAnnotationPresent(Insert.class)) {
-            return executeInsert(statementId, args);
-        } else if (method.isAnnotationPresent(Update.class)) {
-            return executeUpdate(statementId, args);
-        } else if (method.isAnnotationPresent(Delete.class)) {
-            return executeDelete(statementId, args);
-        } else {
-            throw new MyBatisException("MISSING_SQL_ANNOTATION", 
-                "方法 " + method.getName() + " 没有找到对应的SQL注解");
+
+        MapperMethod mapperMethod = cachedMapperMethod(method);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("执行Mapper方法: {} 参数: {}", mapperMethod.getStatementId(), args);
+        }
+
+        // CompletableFuture返回类型：简单执行器的会话在有界异步执行器上执行，其余会话在当前线程执行
+        if (mapperMethod.isAsync()) {
+            return GeneratedMapperSupport.submitAsync(sqlSession, () -> execute(mapperMethod, args));
         }
+
+        return execute(mapperMethod, args);
     }
-    
+
     /**
-     * 执行查询操作
+     * 获取方法描述符，首次调用时解析
      */
-    private Object executeSelect(Method method, String statementId, Object[] args) {
-        Object parameter = args != null && args.length > 0 ? args[0] : null;
-        
-        // 判断返回类型是否为List
-        if (method.getReturnType().isAssignableFrom(java.util.List.class)) {
-            return sqlSession.selectList(statementId, parameter);
-        } else {
-            return sqlSession.selectOne(statementId, parameter);
+    private MapperMethod cachedMapperMethod(Method method) {
+        MapperMethod mapperMethod = methodCache.get(method);
+        if (mapperMethod == null) {
+            mapperMethod = methodCache.computeIfAbsent(method,
+                m -> new MapperMethod(mapperInterface, m, sqlSession.getConfiguration()));
         }
+        return mapperMethod;
     }
-    
+
     /**
-     * 执行条件查询操作
+     * 按SQL命令类型执行相应操作
      */
-    private Object executeSelectIf(Method method, String statementId, Object[] args) {
-        SelectIf selectIf = method.getAnnotation(SelectIf.class);
-        String sql = selectIf.value();
-        String condition = selectIf.condition();
-        String elseSql = selectIf.elseSql();
-        
-        // 处理动态SQL
-        try {
-            String finalSql = DynamicSqlProcessor.processDynamicSql(sql, condition, elseSql, method, args);
-            DynamicSqlProcessor.validateDynamicSql(finalSql, condition);
-            
-            // 临时创建MappedStatement
-            MappedStatement dynamicStatement = createDynamicMappedStatement(statementId, finalSql, method);
-            
-            // 执行查询
-            Object parameter = args != null && args.length > 0 ? args[0] : null;
-            
-            if (method.getReturnType().isAssignableFrom(java.util.List.class)) {
-                return sqlSession.selectList(statementId + "_dynamic", parameter);
-            } else {
-                return sqlSession.selectOne(statementId + "_dynamic", parameter);
-            }
-        } catch (Exception e) {
-            logger.error("动态SQL执行失败: {}", e.getMessage(), e);
-            throw new MyBatisException("DYNAMIC_SQL_ERROR", 
-                "动态SQL执行失败: " + e.getMessage(), sql, args, e);
+    private Object execute(MapperMethod mapperMethod, Object[] args) {
+        MappedStatement.SqlCommandType commandType = mapperMethod.getCommandType();
+        if (commandType == null) {
+            throw GeneratedMapperSupport.missingSqlAnnotation(mapperMethod.getMethod().getName());
+        }
+
+        String statementId = mapperMethod.getStatementId();
+        switch (commandType) {
+            case SELECT:
+                if (mapperMethod.getSelectIf() != null) {
+                    return executeSelectIf(mapperMethod, args);
+                }
+                return executeSelect(mapperMethod, statementId, mapperMethod.getParameterBinding(), args);
+            case INSERT:
+                return mapperMethod.convertRowCount(sqlSession.insert(statementId, bindParameters(mapperMethod, args)));
+            case UPDATE:
+                return mapperMethod.convertRowCount(sqlSession.update(statementId, bindParameters(mapperMethod, args)));
+            default:
+                return mapperMethod.convertRowCount(sqlSession.delete(statementId, bindParameters(mapperMethod, args)));
         }
     }
-    
+
+    /**
+     * 执行查询操作
+     */
+    private Object executeSelect(MapperMethod mapperMethod, String statementId, ParameterBinding binding,
+                                 Object[] args) {
+        // 带ResultHandler参数的方法：逐行回调，不返回结果
+        if (mapperMethod.getResultHandlerIndex() >= 0) {
+            return executeWithResultHandler(mapperMethod, statementId, binding, args);
+        }
+
+        Object parameter = mapperMethod.isTemplate() ? args : bindParameters(binding, args);
+
+        switch (mapperMethod.getReturnKind()) {
+            case CURSOR:
+                // 游标和Stream返回类型：逐行读取，不加载整个结果集
+                return sqlSession.selectCursor(statementId, parameter);
+            case STREAM:
+                return GeneratedMapperSupport.stream(sqlSession.selectCursor(statementId, parameter));
+            case LIST:
+                return sqlSession.selectList(statementId, parameter);
+            case PRIMITIVE:
+                return GeneratedMapperSupport.requirePrimitiveResult(sqlSession.selectOne(statementId, parameter),
+                    mapperMethod.getMethod().getName(), mapperMethod.getReturnType().getName());
+            default:
+                return sqlSession.selectOne(statementId, parameter);
+        }
+    }
+
     /**
-     * 创建动态MappedStatement
+     * 执行回调查询 - 其余参数作为查询参数
      */
-    private MappedStatement createDynamicMappedStatement(String statementId, String sql, Method method) {
-        // 获取返回类型
-        Class<?> returnType = method.getReturnType();
-        if (returnType.isAssignableFrom(java.util.List.class)) {
-            // 尝试获取泛型类型
-            returnType = Object.class; // 简化处理
+    @SuppressWarnings("unchecked")
+    private Object executeWithResultHandler(MapperMethod mapperMethod, String statementId, ParameterBinding binding,
+                                            Object[] args) {
+        int handlerIndex = mapperMethod.getResultHandlerIndex();
+        ResultHandler<Object> handler = (ResultHandler<Object>) args[handlerIndex];
+        Object parameter;
+        if (mapperMethod.isTemplate()) {
+            // 模板不引用ResultHandler参数，直接传递全部实参
+            parameter = args;
+        } else if (binding != null) {
+            // 绑定计划已排除ResultHandler参数
+            parameter = binding.bind(args);
+        } else if (args.length == 1) {
+            parameter = null;
+        } else if (args.length == 2) {
+            parameter = args[handlerIndex == 0 ? 1 : 0];
+        } else {
+            Object[] params = new Object[args.length - 1];
+            for (int i = 0, j = 0; i < args.length; i++) {
+                if (i != handlerIndex) {
+                    params[j++] = args[i];
+                }
+            }
+            parameter = params;
         }
-        
-        MappedStatement statement = new MappedStatement(
-            statementId + "_dynamic",
-            MappedStatement.SqlCommandType.SELECT,
-            sql,
-            returnType
-        );
-        
-        // 临时注册到配置中
-        sqlSession.getConfiguration().addMappedStatement(statementId + "_dynamic", statement);
-        
-        return statement;
+        sqlSession.select(statementId, parameter, handler);
+        return null;
     }
-    
+
     /**
-     * 执行插入操作
+     * 执行条件查询操作
+     *
+     * 每个分支在注册时已编译为独立的语句，这里只按条件选择分支，不修改全局语句注册表
      */
-    private Object executeInsert(String statementId, Object[] args) {
-        Object parameter = args != null && args.length > 0 ? args[0] : null;
-        return sqlSession.insert(statementId, parameter);
+    private Object executeSelectIf(MapperMethod mapperMethod, Object[] args) {
+        String branch = mapperMethod.selectBranch(args);
+        if (logger.isDebugEnabled()) {
+            logger.debug("条件查询分支: {} -> {}", mapperMethod.getStatementId(), branch);
+        }
+        if (branch == null) {
+            return emptyResult(mapperMethod);
+        }
+        return executeSelect(mapperMethod, branch, mapperMethod.getParameterBinding(branch), args);
     }
-    
+
     /**
-     * 执行更新操作
+     * 条件不满足且没有else分支时的结果，与执行一条没有结果的查询一致
      */
-    private Object executeUpdate(String statementId, Object[] args) {
-        Object parameter = args != null && args.length > 0 ? args[0] : null;
-        return sqlSession.update(statementId, parameter);
+    private Object emptyResult(MapperMethod mapperMethod) {
+        if (mapperMethod.getResultHandlerIndex() >= 0) {
+            return null;
+        }
+        switch (mapperMethod.getReturnKind()) {
+            case CURSOR:
+                return GeneratedMapperSupport.emptyCursor();
+            case STREAM:
+                return Stream.empty();
+            case LIST:
+                return new ArrayList<>();
+            case PRIMITIVE:
+                return GeneratedMapperSupport.requirePrimitiveResult(null,
+                    mapperMethod.getMethod().getName(), mapperMethod.getReturnType().getName());
+            default:
+                return null;
+        }
     }
-    
+
     /**
-     * 执行删除操作
+     * 按注册时编译的参数绑定计划转换方法参数
+     * SQL模板语句直接传递方法实参，由模板按参数渲染SQL并收集参数值
+     * 没有绑定计划的语句（手动注册）保持原有行为，只传递第一个参数
      */
-    private Object executeDelete(String statementId, Object[] args) {
-        Object parameter = args != null && args.length > 0 ? args[0] : null;
-        return sqlSession.delete(statementId, parameter);
+    private Object bindParameters(MapperMethod mapperMethod, Object[] args) {
+        if (mapperMethod.isTemplate()) {
+            return args;
+        }
+        return bindParameters(mapperMethod.getParameterBinding(), args);
+    }
+
+    private Object bindParameters(ParameterBinding binding, Object[] args) {
+        if (binding == null) {
+            return args != null && args.length > 0 ? args[0] : null;
+        }
+        return binding.bind(args);
     }
-} 
\ No newline at end of file
+}
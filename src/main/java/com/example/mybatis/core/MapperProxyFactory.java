@@ -1,11 +1,17 @@
 package com.example.mybatis.core;
 
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.SmartFactoryBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Mapper代理工厂
@@ -28,6 +34,18 @@ public class MapperProxyFactory<T> implements SmartFactoryBean<T> {
     @Autowired
     private SqlSession sqlSession;
 
+    /**
+     * 方法描述符缓存，由该Mapper的所有代理共享
+     */
+    private final Map<Method, MapperMethod> methodCache = new ConcurrentHashMap<>();
+
+    /**
+     * 编译期生成的Mapper实现类构造器，首次创建实例时查找
+     */
+    private volatile Constructor<? extends T> generatedConstructor;
+
+    private volatile boolean generatedResolved;
+
     public MapperProxyFactory() {
         logger.info("MapperProxyFactory 无参构造函数被调用");
     }
@@ -76,17 +94,51 @@ public class MapperProxyFactory<T> implements SmartFactoryBean<T> {
     }
 
     /**
-     * 创建代理实例
+     * 创建Mapper实例
+     *
+     * 优先使用mini-mybatis-processor在编译期生成的实现类，直接调用SqlSession，没有反射分派；
+     * 未生成时使用JDK动态代理
      */
     @SuppressWarnings("unchecked")
     public T newInstance(SqlSession sqlSession) {
-        final MapperProxy<T> mapperProxy = new MapperProxy<>(sqlSession, mapperInterface);
+        Constructor<? extends T> constructor = resolveGeneratedConstructor();
+        if (constructor != null) {
+            return BeanUtils.instantiateClass(constructor, sqlSession);
+        }
+        final MapperProxy<T> mapperProxy = new MapperProxy<>(sqlSession, mapperInterface, methodCache);
         return (T) Proxy.newProxyInstance(
                 mapperInterface.getClassLoader(),
                 new Class[]{mapperInterface},
                 mapperProxy);
     }
 
+    /**
+     * 查找生成的实现类：与Mapper接口同一个类加载器，类名为接口名加后缀
+     */
+    @SuppressWarnings("unchecked")
+    private Constructor<? extends T> resolveGeneratedConstructor() {
+        if (generatedResolved) {
+            return generatedConstructor;
+        }
+        String implementationName = mapperInterface.getName() + GeneratedMapperSupport.IMPLEMENTATION_SUFFIX;
+        ClassLoader classLoader = mapperInterface.getClassLoader();
+        if (ClassUtils.isPresent(implementationName, classLoader)) {
+            try {
+                Class<?> implementation = ClassUtils.forName(implementationName, classLoader);
+                if (mapperInterface.isAssignableFrom(implementation)) {
+                    generatedConstructor = (Constructor<? extends T>) implementation.getConstructor(SqlSession.class);
+                    logger.info("使用编译期生成的Mapper实现: {}", implementationName);
+                } else {
+                    logger.warn("{} 没有实现 {}，使用动态代理", implementationName, mapperInterface.getName());
+                }
+            } catch (ClassNotFoundException | NoSuchMethodException e) {
+                logger.warn("无法使用生成的Mapper实现 {}，使用动态代理: {}", implementationName, e.getMessage());
+            }
+        }
+        generatedResolved = true;
+        return generatedConstructor;
+    }
+
     public Class<T> getMapperInterface() {
         return mapperInterface;
     }
@@ -99,5 +151,7 @@ public class MapperProxyFactory<T> implements SmartFactoryBean<T> {
         // 支持 Spring 的属性注入，确保 mapperInterface 被正确赋值
         logger.info("setMapperInterface 被调用: {}", mapperInterface.getName());
         this.mapperInterface = mapperInterface;
+        this.generatedResolved = false;
+        this.generatedConstructor = null;
     }
 }
\ No newline at end of file
@@ -1,12 +1,26 @@
 package com.example.mybatis.core;
 
+import com.example.mybatis.async.AsyncMapperExecutor;
 import com.example.mybatis.cache.CacheConfig;
+import com.example.mybatis.cache.CacheKey;
+import com.example.mybatis.cache.CacheManager;
+import com.example.mybatis.cache.CacheRefresher;
+import com.example.mybatis.cache.CacheSnapshot;
+import com.example.mybatis.cache.CacheStatistics;
+import com.example.mybatis.cache.OffHeapStore;
+import com.example.mybatis.cache.SingleFlight;
+import com.example.mybatis.cache.TableVersions;
+import com.example.mybatis.cache.TinyLfuCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
 
 import javax.sql.DataSource;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * MyBatis配置类
@@ -26,6 +40,81 @@ public class MyBatisConfiguration {
      */
     private CacheConfig cacheConfig;
     
+    /**
+     * 二级缓存 - 同一配置下的所有会话共享，首次使用时按cacheConfig的maxSize创建
+     */
+    private volatile TinyLfuCache<CacheKey, Object> secondLevelCache;
+    
+    /**
+     * 设置了最大缓存项数的缓存区域各自的二级缓存，按区域名称
+     */
+    private final Map<String, TinyLfuCache<CacheKey, Object>> regionCaches = new ConcurrentHashMap<>();
+    
+    /**
+     * 使用独立二级缓存的语句，按语句ID
+     */
+    private final Map<String, TinyLfuCache<CacheKey, Object>> statementCaches = new ConcurrentHashMap<>();
+    
+    /**
+     * 堆外缓存层 - 启用时首次使用时按cacheConfig的内存上限创建
+     */
+    private volatile OffHeapStore offHeapStore;
+    
+    /**
+     * 启动时映射的缓存快照，首次使用时打开
+     */
+    private volatile CacheSnapshot cacheSnapshot;
+    
+    /**
+     * 是否已尝试打开缓存快照，文件不存在或无效时不再重复尝试
+     */
+    private volatile boolean cacheSnapshotOpened;
+    
+    /**
+     * 缓存刷新执行器 - 首次使用时按cacheConfig的线程数和队列长度创建
+     */
+    private volatile CacheRefresher cacheRefresher;
+    
+    /**
+     * 表版本号 - 写入某个表时使两级缓存中依赖该表的查询结果失效
+     */
+    private final TableVersions tableVersions = new TableVersions();
+    
+    /**
+     * 缓存统计 - 同一配置下所有会话的两级缓存共用
+     */
+    private final CacheStatistics cacheStatistics = new CacheStatistics();
+    
+    /**
+     * 正在执行的查询 - 所有会话共享，合并相同查询的并发加载
+     */
+    private final SingleFlight singleFlight = new SingleFlight();
+    
+    /**
+     * 游标查询的默认fetchSize，0表示使用驱动默认值
+     */
+    private int defaultFetchSize;
+    
+    /**
+     * 复用执行器在每个连接上缓存的最大PreparedStatement数量
+     */
+    private int statementCacheSize = 64;
+    
+    /**
+     * IN列表超过该元素个数时拆分为多批查询，0表示不拆分
+     */
+    private int inListChunkSize = 1024;
+    
+    /**
+     * 异步Mapper方法的执行器
+     */
+    private volatile AsyncMapperExecutor asyncExecutor;
+    
+    /**
+     * 延迟创建二级缓存、堆外缓存、缓存快照、刷新执行器和异步执行器时持有
+     */
+    private final Lock initLock = new ReentrantLock();
+    
     /**
      * 映射语句缓存
      * key: 方法全限定名 (className.methodName)
@@ -50,6 +139,11 @@ public class MyBatisConfiguration {
      */
     public void addMappedStatement(String id, MappedStatement mappedStatement) {
         mappedStatements.put(id, mappedStatement);
+        if (mappedStatement.getCacheMaxEntries() > 0 && mappedStatement.getCacheRegion() != null) {
+            // 同一区域的语句共用一个缓存，容量取首个注册的语句的设置
+            statementCaches.put(id, regionCaches.computeIfAbsent(mappedStatement.getCacheRegion(),
+                    region -> newSecondLevelCache(mappedStatement.getCacheMaxEntries())));
+        }
     }
     
     /**
@@ -109,6 +203,189 @@ public class MyBatisConfiguration {
         this.cacheConfig = cacheConfig;
     }
     
+    /**
+     * 获取二级缓存
+     * 容量取自当前的缓存配置，创建后修改maxSize不会生效
+     */
+    public TinyLfuCache<CacheKey, Object> getSecondLevelCache() {
+        TinyLfuCache<CacheKey, Object> cache = secondLevelCache;
+        if (cache == null) {
+            initLock.lock();
+            try {
+                cache = secondLevelCache;
+                if (cache == null) {
+                    cache = newSecondLevelCache(cacheConfig != null ? cacheConfig.getMaxSize() : new CacheConfig().getMaxSize());
+                    secondLevelCache = cache;
+                }
+            } finally {
+                initLock.unlock();
+            }
+        }
+        return cache;
+    }
+    
+    /**
+     * 使用独立二级缓存的语句（按语句ID），由缓存区域的最大缓存项数决定，其余语句使用 {@link #getSecondLevelCache()}
+     */
+    public Map<String, TinyLfuCache<CacheKey, Object>> getStatementCaches() {
+        return statementCaches;
+    }
+    
+    private TinyLfuCache<CacheKey, Object> newSecondLevelCache(int maxSize) {
+        // 到达过期时间的缓存项由时间轮主动移除，不占用容量
+        return cacheConfig == null || cacheConfig.isEnableStats()
+                ? new TinyLfuCache<>(maxSize, (key, value) -> cacheStatistics.recordEviction(), CacheManager::expireTimeOf)
+                : new TinyLfuCache<>(maxSize, null, CacheManager::expireTimeOf);
+    }
+    
+    /**
+     * 获取堆外缓存层，缓存配置未启用堆外缓存时返回null
+     * 内存上限和块大小取自当前的缓存配置，创建后修改不会生效
+     */
+    public OffHeapStore getOffHeapStore() {
+        if (cacheConfig == null || !cacheConfig.isOffHeapEnabled()) {
+            return null;
+        }
+        OffHeapStore store = offHeapStore;
+        if (store == null) {
+            initLock.lock();
+            try {
+                store = offHeapStore;
+                if (store == null) {
+                    store = new OffHeapStore(cacheConfig.getOffHeapSlabBytes(), cacheConfig.getOffHeapMaxBytes());
+                    offHeapStore = store;
+                    logger.info("堆外缓存已启用，直接内存上限: {} 字节，块大小: {} 字节",
+                            cacheConfig.getOffHeapMaxBytes(), cacheConfig.getOffHeapSlabBytes());
+                }
+            } finally {
+                initLock.unlock();
+            }
+        }
+        return store;
+    }
+    
+    /**
+     * 获取启动时映射的缓存快照，缓存配置未指定快照路径、快照文件不存在或已失效时返回null
+     * 快照只在首次调用时打开一次，必须在有写操作之前调用，之后的写入由表版本号发现
+     */
+    public CacheSnapshot getCacheSnapshot() {
+        if (cacheConfig == null || cacheConfig.getSnapshotPath() == null || !cacheConfig.isSecondLevelCacheEnabled()) {
+            return null;
+        }
+        if (!cacheSnapshotOpened) {
+            initLock.lock();
+            try {
+                if (!cacheSnapshotOpened) {
+                    cacheSnapshot = CacheSnapshot.open(Paths.get(cacheConfig.getSnapshotPath()), tableVersions,
+                            ClassUtils.getDefaultClassLoader());
+                    cacheSnapshotOpened = true;
+                }
+            } finally {
+                initLock.unlock();
+            }
+        }
+        CacheSnapshot snapshot = cacheSnapshot;
+        if (snapshot != null && snapshot.isExpired()) {
+            // 缓存项已全部过期，释放对映射的引用
+            cacheSnapshot = null;
+            return null;
+        }
+        return snapshot;
+    }
+    
+    /**
+     * 获取缓存刷新执行器，所有会话共享，未配置缓存时返回null
+     * 线程数和队列长度取自当前的缓存配置，创建后修改不会生效；线程在首次刷新时才启动
+     */
+    public CacheRefresher getCacheRefresher() {
+        if (cacheConfig == null) {
+            return null;
+        }
+        CacheRefresher refresher = cacheRefresher;
+        if (refresher == null) {
+            initLock.lock();
+            try {
+                refresher = cacheRefresher;
+                if (refresher == null) {
+                    refresher = new CacheRefresher(cacheConfig.getRefreshThreads(), cacheConfig.getRefreshQueueCapacity());
+                    cacheRefresher = refresher;
+                }
+            } finally {
+                initLock.unlock();
+            }
+        }
+        return refresher;
+    }
+    
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+    
+    public TableVersions getTableVersions() {
+        return tableVersions;
+    }
+    
+    /**
+     * 获取缓存统计，通过 {@link CacheStatistics#snapshot()} 读取命中率等数据
+     */
+    public CacheStatistics getCacheStatistics() {
+        return cacheStatistics;
+    }
+    
+    public int getDefaultFetchSize() {
+        return defaultFetchSize;
+    }
+    
+    public void setDefaultFetchSize(int defaultFetchSize) {
+        this.defaultFetchSize = defaultFetchSize;
+    }
+    
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+    
+    public void setStatementCacheSize(int statementCacheSize) {
+        // 新预编译的语句先放入缓存再执行，容量为0时会被立即关闭
+        if (statementCacheSize < 1) {
+            throw new IllegalArgumentException("语句缓存容量必须大于0: " + statementCacheSize);
+        }
+        this.statementCacheSize = statementCacheSize;
+    }
+    
+    public int getInListChunkSize() {
+        return inListChunkSize;
+    }
+    
+    public void setInListChunkSize(int inListChunkSize) {
+        this.inListChunkSize = inListChunkSize;
+    }
+    
+    /**
+     * 获取异步执行器
+     * 未通过自动配置设置时，首次使用时创建一个默认的有界执行器
+     */
+    public AsyncMapperExecutor getAsyncExecutor() {
+        AsyncMapperExecutor executor = asyncExecutor;
+        if (executor == null) {
+            initLock.lock();
+            try {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    int processors = Runtime.getRuntime().availableProcessors();
+                    executor = new AsyncMapperExecutor("mini-mybatis-async", processors, processors * 2, 1000, null);
+                    asyncExecutor = executor;
+                }
+            } finally {
+                initLock.unlock();
+            }
+        }
+        return executor;
+    }
+    
+    public void setAsyncExecutor(AsyncMapperExecutor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+    
     public Map<String, MappedStatement> getMappedStatements() {
         return mappedStatements;
     }
@@ -1,5 +1,9 @@
 package com.example.mybatis.core;
 
+import com.example.mybatis.cursor.Cursor;
+import com.example.mybatis.executor.BatchResult;
+import com.example.mybatis.result.ResultHandler;
+
 import java.util.List;
 
 /**
@@ -17,6 +21,17 @@ public interface SqlSession {
      */
     <E> List<E> selectList(String statement, Object parameter);
     
+    /**
+     * 游标查询 - 延迟逐行读取结果，适合大结果集
+     * 返回的游标必须在使用完毕后关闭
+     */
+    <T> Cursor<T> selectCursor(String statement, Object parameter);
+    
+    /**
+     * 回调查询 - 每映射一行就交给结果处理器，不构建结果集合
+     */
+    <T> void select(String statement, Object parameter, ResultHandler<T> handler);
+    
     /**
      * 插入数据
      */
@@ -32,6 +47,16 @@ public interface SqlSession {
      */
     int delete(String statement, Object parameter);
     
+    /**
+     * 刷新批处理语句，返回每条语句的执行结果
+     */
+    List<BatchResult> flushStatements();
+    
+    /**
+     * 提交会话 - 刷新尚未执行的语句
+     */
+    void commit();
+    
     /**
      * 获取Mapper代理对象
      */
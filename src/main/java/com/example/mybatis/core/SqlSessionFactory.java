@@ -1,5 +1,7 @@
 package com.example.mybatis.core;
 
+import com.example.mybatis.executor.ExecutorType;
+
 /**
  * SQL会话工厂接口
  * 负责创建SqlSession实例
@@ -11,6 +13,12 @@ public interface SqlSessionFactory {
      */
     SqlSession openSession();
     
+    /**
+     * 使用指定执行器类型创建SQL会话
+     * 例如批量导入时使用ExecutorType.BATCH
+     */
+    SqlSession openSession(ExecutorType executorType);
+    
     /**
      * 获取配置对象
      */
@@ -0,0 +1,588 @@
+package com.example.mybatis.core;
+
+import com.example.mybatis.binding.ParameterBinding;
+import com.example.mybatis.exception.MyBatisException;
+import com.example.mybatis.security.SqlInjectionGuard;
+import com.example.mybatis.mapping.BeanResultMapper;
+import com.example.mybatis.mapping.MappingResultSetExtractor;
+import com.example.mybatis.mapping.ResultMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.jdbc.core.SqlTypeValue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 语句执行计划 - 预编译的不可变SQL元数据
+ *
+ * 在MappedStatement注册时一次性构建，保存所有与参数无关的分析结果：
+ * 1. 规范化后的SQL文本
+ * 2. SQL命令类型与权限校验所需的操作类型
+ * 3. SQL安全检查结论（注入检测 + 执行权限）
+ * 4. 参数占位符数量及每个位置的SQL类型
+ * 5. 结果映射元数据（结果类型、映射方式、结果映射器）
+ * 6. IN (?) 列表占位符的位置，集合参数按分桶展开后的执行计划也缓存在这里
+ *
+ * 这样每次调用只需绑定参数并执行，不再重复进行正则匹配和字符串处理
+ */
+public final class StatementPlan {
+
+    /**
+     * 结果映射方式
+     */
+    public enum ResultKind {
+        /** 单列简单类型（Long、String、BigDecimal等） */
+        SCALAR,
+        /** 列名 -> 值 的Map */
+        MAP,
+        /** JavaBean属性映射 */
+        BEAN,
+        /** 无结果集（INSERT/UPDATE/DELETE） */
+        NONE
+    }
+
+    private static final int[] NO_SLOTS = new int[0];
+
+    /** 每条语句最多缓存的IN列表展开计划数 */
+    private static final int MAX_EXPANDED_PLANS = 256;
+
+    /** 结果不能按分批查询直接拼接的SQL特征 */
+    private static final Pattern NOT_CHUNKABLE = Pattern.compile(
+            "\\b(ORDER\\s+BY|GROUP\\s+BY|HAVING|DISTINCT|LIMIT|OFFSET|FETCH|TOP|ROWNUM|UNION|INTERSECT|EXCEPT)\\b"
+                    + "|\\b(COUNT|SUM|AVG|MIN|MAX)\\s*\\(",
+            Pattern.CASE_INSENSITIVE);
+
+    private final String statementId;
+    private final String sql;
+    private final MappedStatement.SqlCommandType sqlCommandType;
+    private final String operationType;
+    private final int parameterCount;
+    private final int[] parameterSqlTypes;
+    private final Class<?> resultType;
+    private final ResultKind resultKind;
+    private final ResultMapper<?> resultMapper;
+    private final ResultSetExtractor<? extends List<?>> listExtractor;
+
+    /** IN (?) 中单独的占位符位置，参数为集合或数组时展开为多个占位符 */
+    private final int[] inListSlots;
+
+    /** 对应位置是否为 NOT IN */
+    private final boolean[] notInSlots;
+
+    /**
+     * 对应位置的IN列表可以分批查询后直接拼接结果：语句没有排序、分组、聚合、去重和分页，
+     * 且该IN列表是外层WHERE条件中顶层AND连接的一项
+     */
+    private final boolean[] chunkableSlots;
+
+    /** 分桶大小 -> 展开后的执行计划，没有IN列表占位符时为null */
+    private final Map<Long, StatementPlan> expandedPlans;
+
+    /** 安全检查失败时的错误码，为null表示校验通过 */
+    private final String validationErrorCode;
+
+    /** 安全检查失败时的错误信息 */
+    private final String validationErrorMessage;
+
+    private StatementPlan(String statementId, String sql, MappedStatement.SqlCommandType sqlCommandType,
+                          String operationType, int parameterCount, int[] parameterSqlTypes, Class<?> resultType,
+                          ResultKind resultKind, ResultMapper<?> resultMapper,
+                          int[] inListSlots, boolean[] notInSlots, boolean[] chunkableSlots,
+                          String validationErrorCode, String validationErrorMessage) {
+        this.statementId = statementId;
+        this.sql = sql;
+        this.sqlCommandType = sqlCommandType;
+        this.operationType = operationType;
+        this.parameterCount = parameterCount;
+        this.parameterSqlTypes = parameterSqlTypes;
+        this.resultType = resultType;
+        this.resultKind = resultKind;
+        this.resultMapper = resultMapper;
+        this.listExtractor = resultMapper != null ? new MappingResultSetExtractor<>(resultMapper) : null;
+        this.inListSlots = inListSlots;
+        this.notInSlots = notInSlots;
+        this.chunkableSlots = chunkableSlots;
+        this.expandedPlans = inListSlots.length > 0 ? new ConcurrentHashMap<>() : null;
+        this.validationErrorCode = validationErrorCode;
+        this.validationErrorMessage = validationErrorMessage;
+    }
+
+    /**
+     * IN列表展开后的执行计划：只替换SQL和参数类型，安全检查结论和结果映射与原计划相同
+     */
+    private StatementPlan(StatementPlan base, String sql, int parameterCount, int[] parameterSqlTypes) {
+        this.statementId = base.statementId;
+        this.sql = sql;
+        this.sqlCommandType = base.sqlCommandType;
+        this.operationType = base.operationType;
+        this.parameterCount = parameterCount;
+        this.parameterSqlTypes = parameterSqlTypes;
+        this.resultType = base.resultType;
+        this.resultKind = base.resultKind;
+        this.resultMapper = base.resultMapper;
+        this.listExtractor = base.listExtractor;
+        this.inListSlots = NO_SLOTS;
+        this.notInSlots = new boolean[0];
+        this.chunkableSlots = new boolean[0];
+        this.expandedPlans = null;
+        this.validationErrorCode = base.validationErrorCode;
+        this.validationErrorMessage = base.validationErrorMessage;
+    }
+
+    /**
+     * 根据映射语句构建执行计划
+     *
+     * 安全检查在此处执行一次，检查结论被保存下来，
+     * 校验失败的语句不会在注册阶段抛出异常，而是在每次执行时抛出，与原有行为保持一致
+     */
+    public static StatementPlan compile(MappedStatement mappedStatement) {
+        String sql = mappedStatement.getSql() != null ? mappedStatement.getSql().trim() : null;
+        MappedStatement.SqlCommandType commandType = mappedStatement.getSqlCommandType();
+        String operationType = determineOperationType(commandType, sql);
+
+        String errorCode = null;
+        String errorMessage = null;
+        try {
+            SqlInjectionGuard.validateSql(sql);
+            SqlInjectionGuard.validateExecutionPermission(sql, operationType);
+        } catch (MyBatisException e) {
+            errorCode = e.getErrorCode();
+            // 仅保留原始描述，SQL在抛出时重新附加
+            errorMessage = e.getOriginalMessage();
+        }
+
+        Class<?> resultType = mappedStatement.getResultType();
+        ResultKind resultKind = determineResultKind(commandType, resultType);
+        int parameterCount = sql != null ? countParameterSlots(sql) : 0;
+        
+        // 绑定计划的参数位置与占位符一一对应时，才使用其中的SQL类型
+        ParameterBinding binding = mappedStatement.getParameterBinding();
+        int[] parameterSqlTypes = binding != null && binding.getSqlTypes().length == parameterCount
+                ? binding.getSqlTypes() : null;
+
+        int[] inListSlots = sql != null ? findInListSlots(sql) : NO_SLOTS;
+        boolean[] notInSlots = new boolean[inListSlots.length];
+        boolean anyNotIn = false;
+        for (int i = 0; i < inListSlots.length; i++) {
+            notInSlots[i] = isNotIn(sql, inListSlots[i]);
+            anyNotIn |= notInSlots[i];
+        }
+        boolean[] chunkableSlots = new boolean[inListSlots.length];
+        if (inListSlots.length > 0 && !anyNotIn
+                && commandType == MappedStatement.SqlCommandType.SELECT && !NOT_CHUNKABLE.matcher(sql).find()) {
+            for (int i = 0; i < inListSlots.length; i++) {
+                chunkableSlots[i] = isTopLevelConjunct(sql, inListSlots[i]);
+            }
+        }
+
+        return new StatementPlan(
+            mappedStatement.getId(),
+            sql,
+            commandType,
+            operationType,
+            parameterCount,
+            parameterSqlTypes,
+            resultType,
+            resultKind,
+            createResultMapper(resultKind, resultType),
+            inListSlots,
+            notInSlots,
+            chunkableSlots,
+            errorCode,
+            errorMessage
+        );
+    }
+
+    /**
+     * 确认语句已通过安全检查，否则抛出注册时记录的异常
+     */
+    public void checkValid() {
+        if (validationErrorCode != null) {
+            throw new MyBatisException(validationErrorCode, validationErrorMessage, sql, null);
+        }
+    }
+
+    /**
+     * 是否通过安全检查
+     */
+    public boolean isValid() {
+        return validationErrorCode == null;
+    }
+
+    /**
+     * 确定操作类型 - 用于权限验证
+     *
+     * 查询语句固定为SELECT，更新语句通过SQL前缀判断，支持细粒度的权限控制
+     */
+    private static String determineOperationType(MappedStatement.SqlCommandType commandType, String sql) {
+        if (commandType == MappedStatement.SqlCommandType.SELECT) {
+            return "SELECT";
+        }
+        if (sql == null) {
+            return "UNKNOWN";
+        }
+        String upperSql = sql.toUpperCase();
+        if (upperSql.startsWith("INSERT")) {
+            return "INSERT";
+        } else if (upperSql.startsWith("UPDATE")) {
+            return "UPDATE";
+        } else if (upperSql.startsWith("DELETE")) {
+            return "DELETE";
+        } else {
+            return "UNKNOWN";
+        }
+    }
+
+    /**
+     * 确定结果映射方式
+     */
+    private static ResultKind determineResultKind(MappedStatement.SqlCommandType commandType, Class<?> resultType) {
+        if (commandType != MappedStatement.SqlCommandType.SELECT) {
+            return ResultKind.NONE;
+        }
+        if (resultType == null || Object.class.equals(resultType) || Map.class.isAssignableFrom(resultType)) {
+            return ResultKind.MAP;
+        }
+        if (BeanUtils.isSimpleValueType(resultType)) {
+            return ResultKind.SCALAR;
+        }
+        return ResultKind.BEAN;
+    }
+
+    /**
+     * 创建结果映射器 - 映射器是线程安全的，可在多次查询间复用
+     */
+    private static ResultMapper<?> createResultMapper(ResultKind resultKind, Class<?> resultType) {
+        switch (resultKind) {
+            case SCALAR:
+                return ResultMapper.of(SingleColumnRowMapper.newInstance(resultType));
+            case MAP:
+                return ResultMapper.of(new ColumnMapRowMapper());
+            case BEAN:
+                return BeanResultMapper.forType(resultType);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 查找 IN (?) 形式的占位符：括号内只有这一个占位符，返回占位符序号
+     */
+    private static int[] findInListSlots(String sql) {
+        int[] slots = NO_SLOTS;
+        int index = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                if (isInListPlaceholder(sql, i)) {
+                    slots = Arrays.copyOf(slots, slots.length + 1);
+                    slots[slots.length - 1] = index;
+                }
+                index++;
+            }
+        }
+        return slots;
+    }
+
+    private static boolean isInListPlaceholder(String sql, int position) {
+        int after = skipWhitespace(sql, position + 1, 1);
+        if (after >= sql.length() || sql.charAt(after) != ')') {
+            return false;
+        }
+        int before = skipWhitespace(sql, position - 1, -1);
+        if (before < 0 || sql.charAt(before) != '(') {
+            return false;
+        }
+        return precedingWord(sql, skipWhitespace(sql, before - 1, -1)).equalsIgnoreCase("IN");
+    }
+
+    /**
+     * 第slot个占位符之前是否为 NOT IN
+     */
+    private static boolean isNotIn(String sql, int slot) {
+        int position = placeholderPosition(sql, slot);
+        int open = skipWhitespace(sql, position - 1, -1);
+        int inEnd = skipWhitespace(sql, open - 1, -1);
+        int notEnd = skipWhitespace(sql, inEnd - 2, -1);
+        return precedingWord(sql, notEnd).equalsIgnoreCase("NOT");
+    }
+
+    /**
+     * 第slot个占位符所在的IN列表是否为外层WHERE条件中顶层AND连接的一项
+     *
+     * 只有这种情况下按IN列表元素分批查询的结果互不重叠、合起来等于原查询的结果；
+     * 位于OR分支、括号、子查询或JOIN条件中的IN列表分批执行时，其他条件匹配的行会在每一批中重复返回
+     */
+    private static boolean isTopLevelConjunct(String sql, int slot) {
+        int open = skipWhitespace(sql, placeholderPosition(sql, slot) - 1, -1);
+        int where = -1;
+        int conjunctStart = -1;
+        int depth = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '(') {
+                if (i == open && (depth != 0 || where < 0)) {
+                    return false;
+                }
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && Character.isLetter(c) && (i == 0 || !isWordPart(sql.charAt(i - 1)))) {
+                int end = i;
+                while (end < sql.length() && isWordPart(sql.charAt(end))) {
+                    end++;
+                }
+                String word = sql.substring(i, end);
+                if ("WHERE".equalsIgnoreCase(word)) {
+                    where = i;
+                    conjunctStart = end;
+                } else if (where >= 0 && "OR".equalsIgnoreCase(word)) {
+                    return false;
+                } else if (where >= 0 && i < open && "AND".equalsIgnoreCase(word)) {
+                    conjunctStart = end;
+                }
+                i = end - 1;
+            }
+        }
+        if (where < 0) {
+            return false;
+        }
+        // NOT id IN (?) 与 NOT IN 相同，不能分批
+        int wordStart = skipWhitespace(sql, conjunctStart, 1);
+        int wordEnd = wordStart;
+        while (wordEnd < sql.length() && isWordPart(sql.charAt(wordEnd))) {
+            wordEnd++;
+        }
+        return !"NOT".equalsIgnoreCase(sql.substring(wordStart, wordEnd));
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static int placeholderPosition(String sql, int slot) {
+        int index = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?' && index++ == slot) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(String sql, int from, int step) {
+        int i = from;
+        while (i >= 0 && i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i += step;
+        }
+        return i;
+    }
+
+    /**
+     * 以end位置结尾的单词
+     */
+    private static String precedingWord(String sql, int end) {
+        int start = end;
+        while (start >= 0 && Character.isLetter(sql.charAt(start))) {
+            start--;
+        }
+        return end >= 0 ? sql.substring(start + 1, end + 1) : "";
+    }
+
+    /**
+     * 获取IN列表按分桶展开后的执行计划
+     *
+     * @param bucketSizes 每个IN列表占位符展开后的占位符个数（2的幂）
+     */
+    StatementPlan expand(int[] bucketSizes) {
+        long key = 0;
+        boolean cacheable = bucketSizes.length <= 10;
+        for (int size : bucketSizes) {
+            key = (key << 6) | Integer.numberOfTrailingZeros(size);
+        }
+        if (!cacheable) {
+            return buildExpanded(bucketSizes);
+        }
+        StatementPlan plan = expandedPlans.get(key);
+        if (plan == null) {
+            plan = buildExpanded(bucketSizes);
+            if (expandedPlans.size() < MAX_EXPANDED_PLANS) {
+                StatementPlan existing = expandedPlans.putIfAbsent(key, plan);
+                if (existing != null) {
+                    plan = existing;
+                }
+            }
+        }
+        return plan;
+    }
+
+    private StatementPlan buildExpanded(int[] bucketSizes) {
+        int extra = 0;
+        for (int size : bucketSizes) {
+            extra += size - 1;
+        }
+        StringBuilder expanded = new StringBuilder(sql.length() + extra * 3);
+        int[] sqlTypes = parameterSqlTypes != null ? new int[parameterCount + extra] : null;
+        int index = 0;
+        int slot = 0;
+        int typeIndex = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                boolean inList = slot < inListSlots.length && inListSlots[slot] == index;
+                int count = inList ? bucketSizes[slot++] : 1;
+                for (int j = 0; j < count; j++) {
+                    if (j > 0) {
+                        expanded.append(", ");
+                    }
+                    expanded.append('?');
+                    if (sqlTypes != null) {
+                        // 集合元素的类型在绑定时才知道
+                        sqlTypes[typeIndex++] = inList ? SqlTypeValue.TYPE_UNKNOWN : parameterSqlTypes[index];
+                    }
+                }
+                index++;
+                continue;
+            }
+            expanded.append(c);
+        }
+        return new StatementPlan(this, expanded.toString(), parameterCount + extra, sqlTypes);
+    }
+
+    /**
+     * 统计SQL中的参数占位符数量，忽略字符串字面量和引号标识符中的问号
+     */
+    static int countParameterSlots(String sql) {
+        int count = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Getters
+    public String getStatementId() {
+        return statementId;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public MappedStatement.SqlCommandType getSqlCommandType() {
+        return sqlCommandType;
+    }
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * IN (?) 列表占位符的序号，没有时为空数组
+     */
+    public int[] getInListSlots() {
+        return inListSlots;
+    }
+
+    /**
+     * 第i个IN列表占位符是否为 NOT IN
+     */
+    public boolean isNotInSlot(int i) {
+        return notInSlots[i];
+    }
+
+    /**
+     * 第i个IN列表占位符的超长列表能否拆分为多个查询并拼接结果
+     */
+    public boolean isChunkableSlot(int i) {
+        return chunkableSlots[i];
+    }
+
+    /**
+     * 每个参数位置的SQL类型，没有参数绑定计划时为null
+     */
+    public int[] getParameterSqlTypes() {
+        return parameterSqlTypes;
+    }
+
+    public Class<?> getResultType() {
+        return resultType;
+    }
+
+    public ResultKind getResultKind() {
+        return resultKind;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <E> ResultMapper<E> getResultMapper() {
+        return (ResultMapper<E>) resultMapper;
+    }
+
+    /**
+     * 获取列表结果提取器 - 每个结果集只解析一次列布局
+     */
+    @SuppressWarnings("unchecked")
+    public <E> ResultSetExtractor<List<E>> getListExtractor() {
+        return (ResultSetExtractor<List<E>>) listExtractor;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementPlan{" +
+                "statementId='" + statementId + '\'' +
+                ", sqlCommandType=" + sqlCommandType +
+                ", parameterCount=" + parameterCount +
+                ", resultKind=" + resultKind +
+                ", valid=" + isValid() +
+                '}';
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.mybatis.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 表名提取 - 从SQL中找出语句读取和写入的表，用于缓存按表失效
+ *
+ * 只做词法级别的分析：
+ * 1. 去掉字符串常量和注释后切分为单词
+ * 2. FROM / JOIN 之后的表名（包括逗号分隔的多个表）是读取的表，子查询中的表同样识别
+ * 3. INSERT INTO / UPDATE / DELETE FROM / MERGE INTO / REPLACE INTO 的目标表是写入的表
+ *
+ * 表名统一为小写，去掉引号和schema前缀（不同schema的同名表会互相失效，只会多清理缓存）。
+ * 无法识别时返回空数组，调用方按"依赖所有表"处理
+ *
+ * 已知的误差（不会漏掉失效，最多多清理缓存）：
+ * - TRUNCATE、DDL 等不属于上述写语句的SQL没有写入表，执行后所有表的缓存都失效
+ * - EXTRACT(YEAR FROM created_at) 中 FROM 之后的列名被当作读取的表，查询多依赖一个不存在的表
+ */
+final class TableExtractor {
+
+    /** 表名后面出现这些单词时，它们不是表的别名 */
+    private static final Set<String> CLAUSE_KEYWORDS = new HashSet<>(Arrays.asList(
+            "where", "join", "inner", "left", "right", "full", "outer", "cross", "natural", "on", "using",
+            "group", "order", "having", "limit", "offset", "fetch", "for", "union", "intersect", "except",
+            "minus", "window", "set", "values", "select", "default", "returning", "lateral", "connect",
+            "start", "into", "when", "then", "else", "end", "as"));
+
+    private TableExtractor() {
+    }
+
+    /**
+     * 语句读取的表
+     */
+    static String[] readTables(String sql) {
+        return toArray(extract(sql, false));
+    }
+
+    /**
+     * 语句写入的表，SELECT语句返回空数组
+     */
+    static String[] writeTables(String sql) {
+        return toArray(extract(sql, true));
+    }
+
+    /**
+     * 规范化表名：去掉引号和schema前缀，转为小写
+     */
+    static String normalize(String table) {
+        String name = table.trim();
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0) {
+            name = name.substring(dot + 1);
+        }
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '"' && c != '`' && c != '[' && c != ']') {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 规范化并去重
+     */
+    static String[] normalizeAll(String[] tables) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String table : tables) {
+            if (table != null && !table.trim().isEmpty()) {
+                result.add(normalize(table));
+            }
+        }
+        return toArray(result);
+    }
+
+    private static Set<String> extract(String sql, boolean writes) {
+        Set<String> tables = new LinkedHashSet<>();
+        if (sql == null) {
+            return tables;
+        }
+        List<String> tokens = tokenize(sql);
+        if (tokens.isEmpty()) {
+            return tables;
+        }
+        String first = tokens.get(0);
+        boolean writeStatement = first.equals("insert") || first.equals("update") || first.equals("delete")
+                || first.equals("merge") || first.equals("replace");
+        if (writes && !writeStatement) {
+            return tables;
+        }
+
+        // 写语句的第一个表是写入目标，其余是读取的表
+        boolean targetFound = !writeStatement;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            boolean tableFollows;
+            switch (token) {
+                case "from":
+                case "join":
+                case "into":
+                    tableFollows = true;
+                    break;
+                case "update":
+                    // SELECT ... FOR UPDATE、ON DUPLICATE KEY UPDATE 和 MERGE的 THEN UPDATE SET 后面不是表名
+                    tableFollows = i == 0 || !tokens.get(i - 1).equals("for") && !tokens.get(i - 1).equals("key")
+                            && !tokens.get(i - 1).equals("then");
+                    break;
+                default:
+                    tableFollows = false;
+            }
+            boolean columnsMayFollow = token.equals("into");
+            if (!tableFollows) {
+                continue;
+            }
+            while (++i < tokens.size() && isIdentifier(tokens.get(i))) {
+                String table = tokens.get(i);
+                // 表函数：FROM unnest(?)；INSERT INTO t(...) 的括号是列名列表
+                if (!columnsMayFollow && i + 1 < tokens.size() && tokens.get(i + 1).equals("(")) {
+                    break;
+                }
+                if (!targetFound) {
+                    targetFound = true;
+                    if (writes) {
+                        tables.add(normalize(table));
+                        return tables;
+                    }
+                } else if (!writes) {
+                    tables.add(normalize(table));
+                }
+                i = skipAlias(tokens, i);
+                if (i + 1 >= tokens.size() || !tokens.get(i + 1).equals(",")) {
+                    break;
+                }
+                i++;
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * 跳过表名后的别名，返回最后一个已处理单词的位置
+     */
+    private static int skipAlias(List<String> tokens, int i) {
+        if (i + 1 < tokens.size() && tokens.get(i + 1).equals("as")) {
+            return i + 2 < tokens.size() ? i + 2 : i + 1;
+        }
+        if (i + 1 < tokens.size() && isIdentifier(tokens.get(i + 1))
+                && !CLAUSE_KEYWORDS.contains(tokens.get(i + 1))) {
+            return i + 1;
+        }
+        return i;
+    }
+
+    private static boolean isIdentifier(String token) {
+        char c = token.charAt(0);
+        return Character.isLetter(c) || c == '_' || c == '"' || c == '`' || c == '[';
+    }
+
+    /**
+     * 切分为小写单词和单字符符号，去掉字符串常量和注释；带引号的标识符和 schema.table 作为一个单词
+     */
+    private static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (Character.isLetter(c) || c == '_' || c == '"' || c == '`' || c == '[') {
+                int start = i;
+                i = skipIdentifier(sql, i);
+                // schema.table
+                while (i + 1 < length && sql.charAt(i) == '.' && isIdentifierStart(sql.charAt(i + 1))) {
+                    i = skipIdentifier(sql, i + 1);
+                }
+                tokens.add(sql.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_' || c == '"' || c == '`' || c == '[';
+    }
+
+    private static int skipIdentifier(String sql, int i) {
+        char c = sql.charAt(i);
+        if (c == '"' || c == '`') {
+            return skipQuoted(sql, i, c);
+        }
+        if (c == '[') {
+            int end = sql.indexOf(']', i);
+            return end < 0 ? sql.length() : end + 1;
+        }
+        while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_'
+                || sql.charAt(i) == '$')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipQuoted(String sql, int i, char quote) {
+        i++;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static String[] toArray(Set<String> tables) {
+        return tables.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.mybatis.cursor;
+
+import java.io.Closeable;
+
+/**
+ * 游标 - 延迟逐行读取的查询结果
+ *
+ * 与selectList不同，游标背后是一个仅向前的ResultSet，每次迭代才映射一行，
+ * 堆内存占用与结果集大小无关，适合大数据量导出等场景
+ *
+ * 注意：
+ * - 游标只能迭代一次
+ * - 使用完毕必须关闭（推荐try-with-resources），迭代到末尾时会自动关闭
+ */
+public interface Cursor<T> extends Closeable, Iterable<T> {
+
+    /**
+     * 游标是否仍处于打开状态
+     */
+    boolean isOpen();
+
+    /**
+     * 是否已读取完所有结果
+     */
+    boolean isConsumed();
+
+    /**
+     * 当前行索引，从0开始；尚未读取任何行时返回-1
+     */
+    int getCurrentIndex();
+
+    /**
+     * 关闭游标并释放结果集、语句和连接，不抛出受检异常
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,134 @@
+package com.example.mybatis.cursor;
+
+import com.example.mybatis.exception.SqlExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 默认游标实现 - 基于仅向前的ResultSet
+ *
+ * 游标只持有结果集和释放回调，语句和连接的释放方式由创建方决定
+ */
+public class DefaultCursor<T> implements Cursor<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultCursor.class);
+
+    private final ResultSet resultSet;
+
+    private final RowMapper<T> rowMapper;
+
+    /**
+     * 关闭时执行的释放动作（关闭语句、归还连接）
+     */
+    private final Runnable releaseAction;
+
+    private final CursorIterator iterator = new CursorIterator();
+
+    private boolean iteratorRetrieved;
+
+    private boolean open = true;
+
+    private boolean consumed;
+
+    private int currentIndex = -1;
+
+    public DefaultCursor(ResultSet resultSet, RowMapper<T> rowMapper, Runnable releaseAction) {
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+        this.releaseAction = releaseAction;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public boolean isConsumed() {
+        return consumed;
+    }
+
+    @Override
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (iteratorRetrieved) {
+            throw new IllegalStateException("游标只能迭代一次");
+        }
+        if (!open) {
+            throw new IllegalStateException("游标已关闭");
+        }
+        iteratorRetrieved = true;
+        return iterator;
+    }
+
+    @Override
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        JdbcUtils.closeResultSet(resultSet);
+        try {
+            releaseAction.run();
+        } catch (RuntimeException e) {
+            logger.warn("释放游标资源失败", e);
+        }
+        logger.debug("游标已关闭，共读取 {} 行", currentIndex + 1);
+    }
+
+    /**
+     * 读取下一行，没有更多数据时自动关闭游标
+     */
+    private T fetchNextObject() {
+        try {
+            if (open && resultSet.next()) {
+                currentIndex++;
+                return rowMapper.mapRow(resultSet, currentIndex);
+            }
+        } catch (SQLException e) {
+            close();
+            throw new SqlExecutionException("游标读取失败: " + e.getMessage(), e);
+        }
+        consumed = true;
+        close();
+        return null;
+    }
+
+    private class CursorIterator implements Iterator<T> {
+
+        private T nextObject;
+
+        private boolean hasPending;
+
+        @Override
+        public boolean hasNext() {
+            if (!hasPending && !consumed && open) {
+                nextObject = fetchNextObject();
+                hasPending = !consumed;
+            }
+            return hasPending;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T result = nextObject;
+            nextObject = null;
+            hasPending = false;
+            return result;
+        }
+    }
+}
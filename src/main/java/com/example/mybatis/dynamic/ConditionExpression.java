@@ -0,0 +1,67 @@
+package com.example.mybatis.dynamic;
+
+import java.lang.reflect.Method;
+
+/**
+ * 编译后的 @SelectIf 条件表达式
+ *
+ * 条件在注册时解析为节点树，参数名和属性路径同时解析为参数读取器，
+ * 每次调用只需沿节点树求值，不再做字符串处理、正则匹配和数字解析
+ *
+ * 支持的语法：
+ * 1. 逻辑运算：&amp;&amp;、||、!，以及等价的 and、or、not，可用括号分组
+ * 2. 比较运算：==、!=、&gt;、&gt;=、&lt;、&lt;=（= 等同于 ==，&lt;&gt; 等同于 !=）
+ * 3. 空值判断：x == null、x != null、x is null、x is not null
+ * 4. 操作数：@Param 名称、编译参数名、param1...、属性路径（user.address.city），
+ *    数字、字符串（单引号或双引号）、true、false、null
+ * 5. 单独的参数作为条件时：Boolean取其值，字符串非空为真，其他非null为真
+ *
+ * 数字比较按类型进行：整数之间按long比较，BigDecimal按精确值比较，浮点数按double比较；
+ * 数字字面量按BigDecimal解析，与整数和BigDecimal参数按精确值比较（5.0000000000000001 不等于 5）
+ */
+public final class ConditionExpression {
+
+    private static final ConditionExpression ALWAYS_TRUE = new ConditionExpression("true", ConditionNode.TRUE);
+
+    private final String source;
+
+    private final ConditionNode root;
+
+    ConditionExpression(String source, ConditionNode root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * 按方法签名编译条件表达式，语法错误或参数无法解析时抛出异常
+     */
+    public static ConditionExpression compile(Method method, String condition) {
+        if (condition == null || condition.trim().isEmpty() || "true".equals(condition.trim())) {
+            return ALWAYS_TRUE;
+        }
+        return new ConditionExpression(condition, new ConditionParser(condition, method).parse());
+    }
+
+    /**
+     * 按方法实参求值
+     */
+    public boolean evaluate(Object[] args) {
+        return root.evaluate(args);
+    }
+
+    /**
+     * 条件恒为真（未设置条件）
+     */
+    public boolean isAlwaysTrue() {
+        return root == ConditionNode.TRUE;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return "ConditionExpression{" + root + '}';
+    }
+}
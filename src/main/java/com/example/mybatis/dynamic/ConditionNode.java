@@ -0,0 +1,527 @@
+package com.example.mybatis.dynamic;
+
+import com.example.mybatis.binding.ParameterPath;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 条件表达式节点
+ *
+ * 节点不可变，可被多个线程同时求值；求值过程不创建对象
+ * （只有数字与字符串比较等少见的混合类型情况需要临时转换）
+ */
+abstract class ConditionNode {
+
+    static final ConditionNode TRUE = new Constant(true);
+
+    static final ConditionNode FALSE = new Constant(false);
+
+    /** 比较结果：两个值无法比较 */
+    private static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+    abstract boolean evaluate(Object[] args);
+
+    /**
+     * 比较运算符
+     */
+    enum Operator {
+        EQ("=="), NE("!="), GT(">"), GE(">="), LT("<"), LE("<=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * 交换左右操作数后的运算符
+         */
+        Operator flip() {
+            switch (this) {
+                case GT:
+                    return LT;
+                case GE:
+                    return LE;
+                case LT:
+                    return GT;
+                case LE:
+                    return GE;
+                default:
+                    return this;
+            }
+        }
+
+        boolean test(int comparison) {
+            switch (this) {
+                case EQ:
+                    return comparison == 0;
+                case NE:
+                    return comparison != 0;
+                case GT:
+                    return comparison > 0;
+                case GE:
+                    return comparison >= 0;
+                case LT:
+                    return comparison < 0;
+                default:
+                    return comparison <= 0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return symbol;
+        }
+    }
+
+    // ========== 操作数 ==========
+
+    /**
+     * 操作数：参数值或字面量
+     */
+    abstract static class Operand {
+
+        abstract Object value(Object[] args);
+    }
+
+    static final class ParameterOperand extends Operand {
+
+        private final String expression;
+
+        private final ParameterPath path;
+
+        ParameterOperand(String expression, ParameterPath path) {
+            this.expression = expression;
+            this.path = path;
+        }
+
+        @Override
+        Object value(Object[] args) {
+            return path.read(args);
+        }
+
+        @Override
+        public String toString() {
+            return expression;
+        }
+    }
+
+    static final class Literal extends Operand {
+
+        private final Object value;
+
+        Literal(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        Object value(Object[] args) {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return value instanceof String ? "'" + value + "'" : String.valueOf(value);
+        }
+    }
+
+    /**
+     * 数字字面量，解析时预先计算各种比较形式
+     */
+    static final class NumberLiteral extends Operand {
+
+        private final BigDecimal decimal;
+
+        /** 字面量是否为long范围内的整数 */
+        private final boolean integral;
+
+        private final long longValue;
+
+        private final double doubleValue;
+
+        /** 非整数字面量向下取整的值是否在long范围内 */
+        private final boolean floorInRange;
+
+        /** 非整数字面量向下取整的值，整数与之比较时无需转换即可得到精确结果 */
+        private final long floorValue;
+
+        NumberLiteral(BigDecimal decimal) {
+            this.decimal = decimal;
+            this.integral = fitsLong(decimal);
+            this.longValue = integral ? decimal.longValueExact() : 0;
+            BigDecimal floor = decimal.setScale(0, RoundingMode.FLOOR);
+            this.floorInRange = fitsLong(floor);
+            this.floorValue = floorInRange ? floor.longValueExact() : 0;
+            this.doubleValue = decimal.doubleValue();
+        }
+
+        private static boolean fitsLong(BigDecimal value) {
+            try {
+                value.longValueExact();
+                return true;
+            } catch (ArithmeticException e) {
+                return false;
+            }
+        }
+
+        @Override
+        Object value(Object[] args) {
+            return integral ? (Object) longValue : decimal;
+        }
+
+        /**
+         * 数值与字面量比较
+         */
+        int compareFrom(Number value) {
+            if (isIntegralType(value)) {
+                long v = value.longValue();
+                if (integral) {
+                    return Long.compare(v, longValue);
+                }
+                // 字面量不是整数（或超出long范围）时与整数不会相等：大于向下取整的值即大于字面量
+                if (floorInRange) {
+                    return v > floorValue ? 1 : -1;
+                }
+                return decimal.signum() > 0 ? -1 : 1;
+            }
+            if (value instanceof BigDecimal) {
+                return ((BigDecimal) value).compareTo(decimal);
+            }
+            if (value instanceof BigInteger) {
+                return new BigDecimal((BigInteger) value).compareTo(decimal);
+            }
+            double v = value.doubleValue();
+            if (Double.isNaN(v)) {
+                return INCOMPARABLE;
+            }
+            return Double.compare(v, doubleValue);
+        }
+
+        @Override
+        public String toString() {
+            return decimal.toPlainString();
+        }
+    }
+
+    // ========== 逻辑节点 ==========
+
+    static final class Constant extends ConditionNode {
+
+        private final boolean value;
+
+        Constant(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean evaluate(Object[] args) {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    static final class And extends ConditionNode {
+
+        private final ConditionNode left;
+
+        private final ConditionNode right;
+
+        And(ConditionNode left, ConditionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean evaluate(Object[] args) {
+            return left.evaluate(args) && right.evaluate(args);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " && " + right + ")";
+        }
+    }
+
+    static final class Or extends ConditionNode {
+
+        private final ConditionNode left;
+
+        private final ConditionNode right;
+
+        Or(ConditionNode left, ConditionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean evaluate(Object[] args) {
+            return left.evaluate(args) || right.evaluate(args);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " || " + right + ")";
+        }
+    }
+
+    static final class Not extends ConditionNode {
+
+        private final ConditionNode operand;
+
+        Not(ConditionNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean evaluate(Object[] args) {
+            return !operand.evaluate(args);
+        }
+
+        @Override
+        public String toString() {
+            return "!" + operand;
+        }
+    }
+
+    // ========== 判断节点 ==========
+
+    /**
+     * 空值判断：x == null / x != null
+     */
+    static final class NullCheck extends ConditionNode {
+
+        private final Operand operand;
+
+        private final boolean expectNull;
+
+        NullCheck(Operand operand, boolean expectNull) {
+            this.operand = operand;
+            this.expectNull = expectNull;
+        }
+
+        @Override
+        boolean evaluate(Object[] args) {
+            return (operand.value(args) == null) == expectNull;
+        }
+
+        @Override
+        public String toString() {
+            return operand + (expectNull ? " == null" : " != null");
+        }
+    }
+
+    /**
+     * 单独的操作数作为条件：Boolean取其值，字符串非空为真，其他非null为真
+     */
+    static final class Truthy extends ConditionNode {
+
+        private final Operand operand;
+
+        Truthy(Operand operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean evaluate(Object[] args) {
+            Object value = operand.value(args);
+            if (value == null) {
+                return false;
+            }
+            if (value instanceof Boolean) {
+                return (Boolean) value;
+            }
+            if (value instanceof CharSequence) {
+                return ((CharSequence) value).length() > 0;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return operand.toString();
+        }
+    }
+
+    /**
+     * 与数字字面量比较，如 price >= 100
+     */
+    static final class NumberComparison extends ConditionNode {
+
+        private final Operand left;
+
+        private final Operator operator;
+
+        private final NumberLiteral right;
+
+        NumberComparison(Operand left, Operator operator, NumberLiteral right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        boolean evaluate(Object[] args) {
+            Object value = left.value(args);
+            if (value == null) {
+                // null与任何数字都不相等，也不参与大小比较
+                return operator == Operator.NE;
+            }
+            int comparison;
+            if (value instanceof Number) {
+                comparison = right.compareFrom((Number) value);
+            } else {
+                comparison = compareValues(value, right.decimal);
+            }
+            if (comparison == INCOMPARABLE) {
+                return operator == Operator.NE;
+            }
+            return operator.test(comparison);
+        }
+
+        @Override
+        public String toString() {
+            return left + " " + operator + " " + right;
+        }
+    }
+
+    /**
+     * 一般比较：两个参数之间，或参数与字符串、布尔字面量之间
+     */
+    static final class Comparison extends ConditionNode {
+
+        private final Operand left;
+
+        private final Operator operator;
+
+        private final Operand right;
+
+        Comparison(Operand left, Operator operator, Operand right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        boolean evaluate(Object[] args) {
+            Object l = left.value(args);
+            Object r = right.value(args);
+            if (l == null || r == null) {
+                if (operator == Operator.EQ) {
+                    return l == r;
+                }
+                return operator == Operator.NE && l != r;
+            }
+            if (operator == Operator.EQ || operator == Operator.NE) {
+                return valuesEqual(l, r) == (operator == Operator.EQ);
+            }
+            int comparison = compareValues(l, r);
+            return comparison != INCOMPARABLE && operator.test(comparison);
+        }
+
+        @Override
+        public String toString() {
+            return left + " " + operator + " " + right;
+        }
+    }
+
+    // ========== 比较工具 ==========
+
+    private static boolean valuesEqual(Object l, Object r) {
+        if (l instanceof Number && r instanceof Number) {
+            return compareNumbers((Number) l, (Number) r) == 0;
+        }
+        if (l instanceof CharSequence && r instanceof CharSequence) {
+            return l.toString().contentEquals((CharSequence) r);
+        }
+        if (l.equals(r)) {
+            return true;
+        }
+        // 枚举、布尔等与字符串字面量比较时按字符串形式比较
+        if (r instanceof String) {
+            return r.equals(l.toString());
+        }
+        if (l instanceof String) {
+            return l.equals(r.toString());
+        }
+        return false;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object l, Object r) {
+        if (l instanceof Number && r instanceof Number) {
+            return compareNumbers((Number) l, (Number) r);
+        }
+        if (l instanceof Number && r instanceof CharSequence) {
+            BigDecimal parsed = parseDecimal((CharSequence) r);
+            return parsed != null ? compareNumbers((Number) l, parsed) : INCOMPARABLE;
+        }
+        if (l instanceof CharSequence && r instanceof Number) {
+            BigDecimal parsed = parseDecimal((CharSequence) l);
+            return parsed != null ? compareNumbers(parsed, (Number) r) : INCOMPARABLE;
+        }
+        if (l instanceof Comparable && l.getClass().isInstance(r)) {
+            return Integer.signum(((Comparable) l).compareTo(r));
+        }
+        return INCOMPARABLE;
+    }
+
+    private static int compareNumbers(Number l, Number r) {
+        if (isIntegralType(l) && isIntegralType(r)) {
+            return Long.compare(l.longValue(), r.longValue());
+        }
+        if (isDecimalType(l) || isDecimalType(r)) {
+            if (!isFinite(l) || !isFinite(r)) {
+                return INCOMPARABLE;
+            }
+            return toDecimal(l).compareTo(toDecimal(r));
+        }
+        double a = l.doubleValue();
+        double b = r.doubleValue();
+        if (Double.isNaN(a) || Double.isNaN(b)) {
+            return INCOMPARABLE;
+        }
+        return Double.compare(a, b);
+    }
+
+    private static boolean isIntegralType(Number value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof AtomicInteger || value instanceof AtomicLong;
+    }
+
+    private static boolean isFinite(Number value) {
+        return !(value instanceof Double || value instanceof Float) || Double.isFinite(value.doubleValue());
+    }
+
+    private static boolean isDecimalType(Number value) {
+        return value instanceof BigDecimal || value instanceof BigInteger;
+    }
+
+    private static BigDecimal toDecimal(Number value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (isIntegralType(value)) {
+            return BigDecimal.valueOf(value.longValue());
+        }
+        return BigDecimal.valueOf(value.doubleValue());
+    }
+
+    private static BigDecimal parseDecimal(CharSequence text) {
+        try {
+            return new BigDecimal(text.toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.mybatis.dynamic;
+
+import com.example.mybatis.binding.ParameterPath;
+import com.example.mybatis.exception.MyBatisException;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+
+/**
+ * 条件表达式解析器 - 递归下降，每个条件只在注册时解析一次
+ *
+ * 语法：
+ * <pre>
+ * or         := and (('||' | 'or') and)*
+ * and        := unary (('&amp;&amp;' | 'and') unary)*
+ * unary      := ('!' | 'not') unary | primary
+ * primary    := '(' or ')' | operand [comparison]
+ * comparison := op operand | 'is' ['not'] 'null'
+ * </pre>
+ * 关键字不区分大小写，参数名区分大小写
+ */
+final class ConditionParser {
+
+    private final String source;
+
+    private final Method method;
+
+    private int position;
+
+    ConditionParser(String source, Method method) {
+        this.source = source;
+        this.method = method;
+    }
+
+    ConditionNode parse() {
+        if (source.contains("${")) {
+            throw error("条件表达式不支持 ${} 参数替换");
+        }
+        ConditionNode node = parseOr();
+        skipWhitespace();
+        if (position < source.length()) {
+            throw error("无法识别的内容");
+        }
+        return node;
+    }
+
+    private ConditionNode parseOr() {
+        ConditionNode node = parseAnd();
+        while (true) {
+            if (consumeSymbol("||") || consumeKeyword("or")) {
+                node = new ConditionNode.Or(node, parseAnd());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private ConditionNode parseAnd() {
+        ConditionNode node = parseUnary();
+        while (true) {
+            if (consumeSymbol("&&") || consumeKeyword("and")) {
+                node = new ConditionNode.And(node, parseUnary());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private ConditionNode parseUnary() {
+        skipWhitespace();
+        if (peek() == '!' && peek(1) != '=') {
+            position++;
+            return new ConditionNode.Not(parseUnary());
+        }
+        if (consumeKeyword("not")) {
+            return new ConditionNode.Not(parseUnary());
+        }
+        return parsePrimary();
+    }
+
+    private ConditionNode parsePrimary() {
+        if (consumeSymbol("(")) {
+            ConditionNode node = parseOr();
+            if (!consumeSymbol(")")) {
+                throw error("缺少右括号");
+            }
+            return node;
+        }
+
+        ConditionNode.Operand left = parseOperand();
+        if (consumeKeyword("is")) {
+            boolean negated = consumeKeyword("not");
+            if (!consumeKeyword("null")) {
+                throw error("is 之后只能是 null 或 not null");
+            }
+            return new ConditionNode.NullCheck(left, !negated);
+        }
+        ConditionNode.Operator operator = parseOperator();
+        if (operator == null) {
+            if (left instanceof ConditionNode.Literal) {
+                Object value = ((ConditionNode.Literal) left).value(null);
+                if (value instanceof Boolean) {
+                    return (Boolean) value ? ConditionNode.TRUE : ConditionNode.FALSE;
+                }
+            }
+            return new ConditionNode.Truthy(left);
+        }
+        return comparison(left, operator, parseOperand());
+    }
+
+    /**
+     * 按操作数类型选择比较节点：与null比较转为空值判断，与数字字面量比较使用预计算的数值
+     */
+    private ConditionNode comparison(ConditionNode.Operand left, ConditionNode.Operator operator,
+                                     ConditionNode.Operand right) {
+        if (isNullLiteral(left)) {
+            ConditionNode.Operand swap = left;
+            left = right;
+            right = swap;
+            operator = operator.flip();
+        }
+        if (isNullLiteral(right)) {
+            if (operator != ConditionNode.Operator.EQ && operator != ConditionNode.Operator.NE) {
+                throw error("null只能用 == 或 != 比较");
+            }
+            return new ConditionNode.NullCheck(left, operator == ConditionNode.Operator.EQ);
+        }
+        if (left instanceof ConditionNode.NumberLiteral && !(right instanceof ConditionNode.NumberLiteral)) {
+            return new ConditionNode.NumberComparison(right, operator.flip(), (ConditionNode.NumberLiteral) left);
+        }
+        if (right instanceof ConditionNode.NumberLiteral) {
+            return new ConditionNode.NumberComparison(left, operator, (ConditionNode.NumberLiteral) right);
+        }
+        return new ConditionNode.Comparison(left, operator, right);
+    }
+
+    private static boolean isNullLiteral(ConditionNode.Operand operand) {
+        return operand instanceof ConditionNode.Literal && ((ConditionNode.Literal) operand).value(null) == null;
+    }
+
+    private ConditionNode.Operator parseOperator() {
+        if (consumeSymbol("==")) {
+            return ConditionNode.Operator.EQ;
+        } else if (consumeSymbol("!=") || consumeSymbol("<>")) {
+            return ConditionNode.Operator.NE;
+        } else if (consumeSymbol(">=")) {
+            return ConditionNode.Operator.GE;
+        } else if (consumeSymbol("<=")) {
+            return ConditionNode.Operator.LE;
+        } else if (consumeSymbol(">")) {
+            return ConditionNode.Operator.GT;
+        } else if (consumeSymbol("<")) {
+            return ConditionNode.Operator.LT;
+        } else if (consumeSymbol("=")) {
+            return ConditionNode.Operator.EQ;
+        }
+        return null;
+    }
+
+    private ConditionNode.Operand parseOperand() {
+        skipWhitespace();
+        char c = peek();
+        if (c == '\'' || c == '"') {
+            int end = source.indexOf(c, position + 1);
+            if (end < 0) {
+                throw error("字符串未闭合");
+            }
+            String text = source.substring(position + 1, end);
+            position = end + 1;
+            return new ConditionNode.Literal(text);
+        }
+        if (Character.isDigit(c) || ((c == '-' || c == '+') && Character.isDigit(peek(1)))) {
+            int start = position++;
+            while (position < source.length()) {
+                char d = source.charAt(position);
+                if (Character.isDigit(d) || d == '.' || d == 'e' || d == 'E'
+                        || ((d == '-' || d == '+') && (source.charAt(position - 1) == 'e'
+                        || source.charAt(position - 1) == 'E'))) {
+                    position++;
+                } else {
+                    break;
+                }
+            }
+            String text = source.substring(start, position);
+            try {
+                return new ConditionNode.NumberLiteral(new BigDecimal(text));
+            } catch (NumberFormatException e) {
+                throw error("无效的数字: " + text);
+            }
+        }
+        if (Character.isJavaIdentifierStart(c)) {
+            int start = position;
+            while (position < source.length()) {
+                char d = source.charAt(position);
+                if (Character.isJavaIdentifierPart(d) || (d == '.' && position + 1 < source.length()
+                        && Character.isJavaIdentifierStart(source.charAt(position + 1)))) {
+                    position++;
+                } else {
+                    break;
+                }
+            }
+            String name = source.substring(start, position);
+            switch (name.toLowerCase()) {
+                case "null":
+                    return new ConditionNode.Literal(null);
+                case "true":
+                    return new ConditionNode.Literal(Boolean.TRUE);
+                case "false":
+                    return new ConditionNode.Literal(Boolean.FALSE);
+                default:
+                    return parameter(name, start);
+            }
+        }
+        throw error("缺少操作数");
+    }
+
+    private ConditionNode.Operand parameter(String name, int start) {
+        try {
+            return new ConditionNode.ParameterOperand(name, ParameterPath.compile(method, name));
+        } catch (MyBatisException e) {
+            throw new MyBatisException("DYNAMIC_SQL_ERROR",
+                    "条件表达式中的参数无法解析（位置 " + start + "）: " + name, source, null, e);
+        }
+    }
+
+    private boolean consumeSymbol(String symbol) {
+        skipWhitespace();
+        if (source.startsWith(symbol, position)) {
+            position += symbol.length();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 匹配关键字（不区分大小写），关键字后不能紧跟标识符字符
+     */
+    private boolean consumeKeyword(String keyword) {
+        skipWhitespace();
+        int end = position + keyword.length();
+        if (source.regionMatches(true, position, keyword, 0, keyword.length())
+                && (end == source.length() || !Character.isJavaIdentifierPart(source.charAt(end)))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+            position++;
+        }
+    }
+
+    private char peek() {
+        return peek(0);
+    }
+
+    private char peek(int offset) {
+        int index = position + offset;
+        return index < source.length() ? source.charAt(index) : '\0';
+    }
+
+    private MyBatisException error(String message) {
+        return new MyBatisException("DYNAMIC_SQL_ERROR",
+                "条件表达式解析失败（位置 " + position + "）: " + message + "，方法: " + method,
+                source, null);
+    }
+}
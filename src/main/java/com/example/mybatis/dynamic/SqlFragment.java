@@ -0,0 +1,391 @@
+package com.example.mybatis.dynamic;
+
+import com.example.mybatis.binding.ParameterPath;
+import com.example.mybatis.binding.PropertyPath;
+import com.example.mybatis.exception.MyBatisException;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL模板片段
+ *
+ * 每次调用分两步：
+ * 1. collect：求值条件和集合大小，记录到形状中，并按顺序收集参数值
+ * 2. render：按记录的形状输出SQL，只在形状首次出现时执行
+ * 两步按相同顺序遍历片段树，render读取collect记录的结果，因此SQL与参数值总是一致
+ *
+ * render发现当前形状只能生成无效SQL（空的SET、空的IN列表）时抛出异常，该形状不会被缓存，
+ * 之后相同形状的调用同样重新渲染并抛出异常
+ */
+abstract class SqlFragment {
+
+    abstract void collect(TemplateContext context);
+
+    abstract void render(TemplateContext context);
+
+    /**
+     * 片段序列
+     */
+    static final class Mixed extends SqlFragment {
+
+        private final SqlFragment[] children;
+
+        Mixed(List<SqlFragment> children) {
+            this.children = children.toArray(new SqlFragment[0]);
+        }
+
+        @Override
+        void collect(TemplateContext context) {
+            for (SqlFragment child : children) {
+                child.collect(context);
+            }
+        }
+
+        @Override
+        void render(TemplateContext context) {
+            for (SqlFragment child : children) {
+                child.render(context);
+            }
+        }
+    }
+
+    /**
+     * 静态文本，#{} 已在编译时替换为 ?
+     */
+    static final class Text extends SqlFragment {
+
+        private final String sql;
+
+        private final ValueSource[] sources;
+
+        Text(String sql, List<ValueSource> sources) {
+            this.sql = sql;
+            this.sources = sources.toArray(new ValueSource[0]);
+        }
+
+        @Override
+        void collect(TemplateContext context) {
+            for (ValueSource source : sources) {
+                context.values.add(source.read(context));
+            }
+        }
+
+        @Override
+        void render(TemplateContext context) {
+            context.sql.append(sql);
+        }
+    }
+
+    /**
+     * &lt;if test="..."&gt;
+     */
+    static final class If extends SqlFragment {
+
+        private final ConditionExpression test;
+
+        private final SqlFragment body;
+
+        If(ConditionExpression test, SqlFragment body) {
+            this.test = test;
+            this.body = body;
+        }
+
+        @Override
+        void collect(TemplateContext context) {
+            boolean active = test.evaluate(context.args);
+            context.shape.add(active ? 1 : 0);
+            if (active) {
+                body.collect(context);
+            }
+        }
+
+        @Override
+        void render(TemplateContext context) {
+            if (context.nextShape() != 0) {
+                body.render(context);
+            }
+        }
+    }
+
+    /**
+     * &lt;where&gt;：内容非空时加上WHERE，并去掉开头的AND/OR
+     */
+    static final class Where extends SqlFragment {
+
+        private final SqlFragment body;
+
+        Where(SqlFragment body) {
+            this.body = body;
+        }
+
+        @Override
+        void collect(TemplateContext context) {
+            body.collect(context);
+        }
+
+        @Override
+        void render(TemplateContext context) {
+            StringBuilder sql = context.sql;
+            int start = sql.length();
+            body.render(context);
+            int contentStart = skipWhitespace(sql, start);
+            if (contentStart == sql.length()) {
+                sql.setLength(start);
+                return;
+            }
+            int prefixEnd = matchKeyword(sql, contentStart, "AND");
+            if (prefixEnd < 0) {
+                prefixEnd = matchKeyword(sql, contentStart, "OR");
+            }
+            if (prefixEnd >= 0) {
+                contentStart = skipWhitespace(sql, prefixEnd);
+            }
+            sql.replace(start, contentStart, " WHERE ");
+        }
+    }
+
+    /**
+     * &lt;set&gt;：加上SET，并去掉开头和结尾多余的逗号；没有任何内容时UPDATE语句无效，抛出异常
+     */
+    static final class Set extends SqlFragment {
+
+        private final SqlFragment body;
+
+        Set(SqlFragment body) {
+            this.body = body;
+        }
+
+        @Override
+        void collect(TemplateContext context) {
+            body.collect(context);
+        }
+
+        @Override
+        void render(TemplateContext context) {
+            StringBuilder sql = context.sql;
+            int start = sql.length();
+            body.render(context);
+            int end = sql.length();
+            while (end > start && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ',')) {
+                end--;
+            }
+            sql.setLength(end);
+            int contentStart = start;
+            while (contentStart < end && (Character.isWhitespace(sql.charAt(contentStart))
+                    || sql.charAt(contentStart) == ',')) {
+                contentStart++;
+            }
+            if (contentStart == end) {
+                throw new MyBatisException("DYNAMIC_SQL_ERROR", "<set> 中没有任何要更新的列（所有 <if> 条件均不成立）");
+            }
+            sql.replace(start, contentStart, " SET ");
+            sql.append(' ');
+        }
+    }
+
+    /**
+     * &lt;foreach&gt;：集合为null或为空时不输出任何内容；位于IN之后时空列表是无效SQL，抛出异常
+     */
+    static final class Foreach extends SqlFragment {
+
+        /** collection属性，用于错误信息 */
+        private final String collectionName;
+
+        private final ValueSource collection;
+
+        private final int depth;
+
+        private final String open;
+
+        private final String separator;
+
+        private final String close;
+
+        private final SqlFragment body;
+
+        Foreach(String collectionName, ValueSource collection, int depth, String open, String separator, String close,
+                SqlFragment body) {
+            this.collectionName = collectionName;
+            this.collection = collection;
+            this.depth = depth;
+            this.open = open;
+            this.separator = separator;
+            this.close = close;
+            this.body = body;
+        }
+
+        @Override
+        void collect(TemplateContext context) {
+            Object value = collection.read(context);
+            // 元素个数要在渲染元素之前读取，先占位，遍历结束后写入
+            int countSlot = context.shape.reserve();
+            int count = 0;
+            if (value instanceof Map) {
+                value = ((Map<?, ?>) value).values();
+            }
+            if (value instanceof Object[]) {
+                for (Object item : (Object[]) value) {
+                    collectItem(context, item, count++);
+                }
+            } else if (value instanceof Iterable) {
+                for (Object item : (Iterable<?>) value) {
+                    collectItem(context, item, count++);
+                }
+            } else if (value != null && value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    collectItem(context, Array.get(value, i), count++);
+                }
+            } else if (value != null) {
+                collectItem(context, value, count++);
+            }
+            context.items[depth] = null;
+            context.shape.set(countSlot, count);
+        }
+
+        private void collectItem(TemplateContext context, Object item, int index) {
+            context.items[depth] = item;
+            context.indexes[depth] = index;
+            body.collect(context);
+        }
+
+        @Override
+        void render(TemplateContext context) {
+            long count = context.nextShape();
+            if (count == 0) {
+                if (followsIn(context.sql)) {
+                    throw new MyBatisException("DYNAMIC_SQL_ERROR", "<foreach collection=\"" + collectionName
+                            + "\"> 位于 IN 之后，集合为null或为空时会生成空的 IN 列表；请用 <if> 判断集合非空");
+                }
+                return;
+            }
+            StringBuilder sql = context.sql;
+            sql.append(open);
+            for (long i = 0; i < count; i++) {
+                if (i > 0) {
+                    sql.append(separator);
+                }
+                body.render(context);
+            }
+            sql.append(close);
+        }
+    }
+
+    // ========== 参数值来源 ==========
+
+    /**
+     * #{} 占位符的取值方式
+     */
+    abstract static class ValueSource {
+
+        abstract Object read(TemplateContext context);
+    }
+
+    /**
+     * 方法参数或其属性
+     */
+    static final class ArgumentSource extends ValueSource {
+
+        private final ParameterPath path;
+
+        ArgumentSource(ParameterPath path) {
+            this.path = path;
+        }
+
+        @Override
+        Object read(TemplateContext context) {
+            return path.read(context.args);
+        }
+    }
+
+    /**
+     * foreach的当前元素或其属性
+     */
+    static final class ItemSource extends ValueSource {
+
+        private final int depth;
+
+        private final PropertyPath properties;
+
+        ItemSource(int depth, PropertyPath properties) {
+            this.depth = depth;
+            this.properties = properties;
+        }
+
+        @Override
+        Object read(TemplateContext context) {
+            Object item = context.items[depth];
+            return properties != null ? properties.read(item) : item;
+        }
+    }
+
+    /**
+     * foreach的当前下标
+     */
+    static final class IndexSource extends ValueSource {
+
+        private final int depth;
+
+        IndexSource(int depth) {
+            this.depth = depth;
+        }
+
+        @Override
+        Object read(TemplateContext context) {
+            return context.indexes[depth];
+        }
+    }
+
+    /**
+     * 已渲染的SQL是否以 IN 或 IN ( 结尾
+     */
+    private static boolean followsIn(StringBuilder sql) {
+        int i = skipWhitespaceBackward(sql, sql.length());
+        if (i > 0 && sql.charAt(i - 1) == '(') {
+            i = skipWhitespaceBackward(sql, i - 1);
+        }
+        return i >= 2 && Character.toUpperCase(sql.charAt(i - 2)) == 'I'
+                && Character.toUpperCase(sql.charAt(i - 1)) == 'N'
+                && (i == 2 || !Character.isJavaIdentifierPart(sql.charAt(i - 3)));
+    }
+
+    private static int skipWhitespaceBackward(StringBuilder sql, int end) {
+        int i = end;
+        while (i > 0 && Character.isWhitespace(sql.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static int skipWhitespace(StringBuilder sql, int from) {
+        int i = from;
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 匹配关键字（不区分大小写），关键字后必须是空白或括号，返回关键字结束位置，不匹配返回-1
+     */
+    private static int matchKeyword(StringBuilder sql, int from, String keyword) {
+        int end = from + keyword.length();
+        if (end >= sql.length()) {
+            return -1;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toUpperCase(sql.charAt(from + i)) != keyword.charAt(i)) {
+                return -1;
+            }
+        }
+        char next = sql.charAt(end);
+        return Character.isWhitespace(next) || next == '(' ? end : -1;
+    }
+
+    static boolean isCollectionType(Class<?> type) {
+        return type.isArray() || Collection.class.isAssignableFrom(type) || Iterable.class.isAssignableFrom(type);
+    }
+}
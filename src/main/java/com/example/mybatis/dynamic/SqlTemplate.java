@@ -0,0 +1,126 @@
+package com.example.mybatis.dynamic;
+
+import com.example.mybatis.core.BoundSql;
+import com.example.mybatis.core.MappedStatement;
+import com.example.mybatis.core.StatementPlan;
+import com.example.mybatis.exception.MyBatisException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 编译后的SQL模板（@SelectTemplate / @UpdateTemplate）
+ *
+ * 模板在注册时编译为片段树，每次调用：
+ * 1. 求值全部条件和foreach元素个数，得到本次调用的形状，同时按顺序收集参数值
+ * 2. 按形状查找已缓存的执行计划，命中时不渲染SQL、不创建字符串
+ * 3. 形状首次出现时渲染到线程内复用的缓冲区，再按SQL文本查找或编译执行计划；
+ *    生成的SQL无效（空的SET、空的IN列表）时抛出 MyBatisException，该形状不缓存
+ *
+ * 相同形状总是得到同一个SQL字符串和执行计划，因此能命中预编译语句缓存和查询结果缓存；
+ * 不同形状渲染出相同SQL时（如foreach元素不同但个数相同）也共享同一个执行计划
+ */
+public final class SqlTemplate {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlTemplate.class);
+
+    /** 每个模板最多缓存的形状数，超出后新形状每次重新编译，防止foreach元素个数无限增长时占满内存 */
+    private static final int MAX_CACHED_SHAPES = 1024;
+
+    private static final ThreadLocal<TemplateContext> CONTEXT = ThreadLocal.withInitial(TemplateContext::new);
+
+    private final MappedStatement statement;
+
+    private final String template;
+
+    private final SqlFragment root;
+
+    private final int foreachDepth;
+
+    private final Map<TemplateShape, StatementPlan> plansByShape = new ConcurrentHashMap<>();
+
+    private final Map<String, StatementPlan> plansBySql = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean overflowWarned = new AtomicBoolean();
+
+    private SqlTemplate(MappedStatement statement, String template, SqlFragment root, int foreachDepth) {
+        this.statement = statement;
+        this.template = template;
+        this.root = root;
+        this.foreachDepth = foreachDepth;
+    }
+
+    /**
+     * 按方法签名编译语句的SQL模板，语法错误或参数无法解析时抛出异常
+     */
+    public static SqlTemplate compile(MappedStatement statement, Method method) {
+        TemplateParser parser = new TemplateParser(statement.getSql(), method);
+        SqlFragment root = parser.parse();
+        return new SqlTemplate(statement, statement.getSql(), root, parser.getMaxDepth());
+    }
+
+    /**
+     * 按方法实参选择执行计划并收集参数值
+     */
+    public BoundSql bind(Object[] args) {
+        TemplateContext context = CONTEXT.get();
+        try {
+            context.begin(args, foreachDepth);
+            root.collect(context);
+            Object[] parameters = context.values.toArray();
+
+            StatementPlan plan = plansByShape.get(context.shape);
+            if (plan == null) {
+                plan = planFor(context);
+            }
+            return new BoundSql(plan, parameters);
+        } finally {
+            context.end();
+        }
+    }
+
+    private StatementPlan planFor(TemplateContext context) {
+        context.beginRender();
+        try {
+            root.render(context);
+        } catch (MyBatisException e) {
+            throw new MyBatisException("DYNAMIC_SQL_ERROR",
+                    "SQL模板 " + statement.getId() + " 无法生成有效的SQL: " + e.getOriginalMessage(), template, null, e);
+        }
+        String sql = context.sql.toString().trim();
+
+        if (plansByShape.size() >= MAX_CACHED_SHAPES) {
+            if (overflowWarned.compareAndSet(false, true)) {
+                logger.warn("SQL模板 {} 的形状数超过 {}，新形状将不再缓存（foreach元素个数是否无上限？）",
+                        statement.getId(), MAX_CACHED_SHAPES);
+            }
+            StatementPlan plan = plansBySql.get(sql);
+            return plan != null ? plan : compilePlan(sql);
+        }
+
+        StatementPlan plan = plansBySql.computeIfAbsent(sql, this::compilePlan);
+        plansByShape.putIfAbsent(context.shape.copy(), plan);
+        return plan;
+    }
+
+    private StatementPlan compilePlan(String sql) {
+        logger.debug("SQL模板 {} 生成新SQL: {}", statement.getId(), sql);
+        return StatementPlan.compile(new MappedStatement(
+                statement.getId(), statement.getSqlCommandType(), sql, statement.getResultType()));
+    }
+
+    /**
+     * 已缓存的形状数量
+     */
+    public int getShapeCount() {
+        return plansByShape.size();
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.mybatis.dynamic;
+
+import java.util.ArrayList;
+
+/**
+ * 模板渲染上下文 - 每个线程一个，渲染缓冲区在调用之间复用
+ */
+final class TemplateContext {
+
+    /** 超过该容量的SQL缓冲区在渲染后丢弃，避免线程长期持有大数组 */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final int MAX_RETAINED_VALUES = 1024;
+
+    Object[] args;
+
+    /** 每层foreach的当前元素和下标 */
+    Object[] items = new Object[4];
+
+    int[] indexes = new int[4];
+
+    final TemplateShape shape = new TemplateShape(16);
+
+    final ArrayList<Object> values = new ArrayList<>();
+
+    StringBuilder sql = new StringBuilder(256);
+
+    /** 渲染SQL时读取形状的位置 */
+    private int cursor;
+
+    void begin(Object[] args, int foreachDepth) {
+        this.args = args;
+        if (items.length < foreachDepth) {
+            items = new Object[foreachDepth];
+            indexes = new int[foreachDepth];
+        }
+        shape.reset();
+        values.clear();
+    }
+
+    void beginRender() {
+        sql.setLength(0);
+        cursor = 0;
+    }
+
+    long nextShape() {
+        return shape.get(cursor++);
+    }
+
+    /**
+     * 释放对参数的引用
+     */
+    void end() {
+        args = null;
+        for (int i = 0; i < items.length; i++) {
+            items[i] = null;
+        }
+        if (values.size() > MAX_RETAINED_VALUES) {
+            values.clear();
+            values.trimToSize();
+        } else {
+            values.clear();
+        }
+        if (sql.capacity() > MAX_RETAINED_CAPACITY) {
+            sql = new StringBuilder(256);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.mybatis.dynamic;
+
+import com.example.mybatis.binding.ParameterPath;
+import com.example.mybatis.binding.PropertyPath;
+import com.example.mybatis.exception.MyBatisException;
+import org.springframework.core.ResolvableType;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL模板解析器 - 把 @SelectTemplate / @UpdateTemplate 的模板编译为片段树
+ *
+ * 只识别 if、where、set、foreach 四种标签，其他的 &lt; 按SQL文本处理（如 a &lt; 5）。
+ * 标签属性和文本中的 &amp;lt; &amp;gt; &amp;amp; &amp;quot; 会被解码
+ */
+final class TemplateParser {
+
+    private static final String[] TAGS = {"if", "where", "set", "foreach"};
+
+    private final String template;
+
+    private final Method method;
+
+    private int position;
+
+    /** 当前所在的foreach：item/index名称 -> 层级 */
+    private final List<ForeachScope> scopes = new ArrayList<>();
+
+    private int maxDepth;
+
+    TemplateParser(String template, Method method) {
+        this.template = template;
+        this.method = method;
+    }
+
+    SqlFragment parse() {
+        SqlFragment root = parseChildren(null);
+        if (position < template.length()) {
+            throw error("多余的结束标签");
+        }
+        return root;
+    }
+
+    /**
+     * foreach最大嵌套层数
+     */
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    private SqlFragment parseChildren(String closingTag) {
+        List<SqlFragment> children = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        while (position < template.length()) {
+            if (template.startsWith("</", position)) {
+                String tag = tagNameAt(position + 2);
+                if (tag != null) {
+                    if (!tag.equals(closingTag)) {
+                        throw error("结束标签 </" + tag + "> 不匹配");
+                    }
+                    flushText(text, children);
+                    position = template.indexOf('>', position) + 1;
+                    return children.size() == 1 ? children.get(0) : new SqlFragment.Mixed(children);
+                }
+            } else if (template.charAt(position) == '<') {
+                String tag = tagNameAt(position + 1);
+                if (tag != null) {
+                    flushText(text, children);
+                    children.add(parseTag(tag));
+                    continue;
+                }
+            }
+            text.append(template.charAt(position++));
+        }
+        if (closingTag != null) {
+            throw error("缺少结束标签 </" + closingTag + ">");
+        }
+        flushText(text, children);
+        return children.size() == 1 ? children.get(0) : new SqlFragment.Mixed(children);
+    }
+
+    private SqlFragment parseTag(String tag) {
+        int tagStart = position;
+        position += 1 + tag.length();
+        Map<String, String> attributes = parseAttributes();
+        boolean selfClosing = template.startsWith("/>", position);
+        position += selfClosing ? 2 : 1;
+
+        switch (tag) {
+            case "if": {
+                String test = require(attributes, "test", tag);
+                ConditionExpression condition;
+                try {
+                    condition = ConditionExpression.compile(method, test);
+                } catch (MyBatisException e) {
+                    throw new MyBatisException("DYNAMIC_SQL_ERROR",
+                            "<if> 条件无法编译（位置 " + tagStart + "）: " + test + "，方法: " + method, template, null, e);
+                }
+                return new SqlFragment.If(condition, body(tag, selfClosing));
+            }
+            case "where":
+                return new SqlFragment.Where(body(tag, selfClosing));
+            case "set":
+                return new SqlFragment.Set(body(tag, selfClosing));
+            default:
+                return parseForeach(attributes, selfClosing);
+        }
+    }
+
+    private SqlFragment parseForeach(Map<String, String> attributes, boolean selfClosing) {
+        String collection = require(attributes, "collection", "foreach");
+        String item = attributes.getOrDefault("item", "item");
+        String index = attributes.get("index");
+
+        SqlFragment.ValueSource source = valueSource(collection);
+        Class<?> itemType = elementType(collection, source);
+
+        int depth = scopes.size();
+        scopes.add(new ForeachScope(item, index, depth, itemType));
+        maxDepth = Math.max(maxDepth, scopes.size());
+        SqlFragment body = body("foreach", selfClosing);
+        scopes.remove(scopes.size() - 1);
+
+        return new SqlFragment.Foreach(collection, source, depth, attributes.getOrDefault("open", ""),
+                attributes.getOrDefault("separator", ""), attributes.getOrDefault("close", ""), body);
+    }
+
+    private SqlFragment body(String tag, boolean selfClosing) {
+        if (selfClosing) {
+            return new SqlFragment.Mixed(new ArrayList<>());
+        }
+        return parseChildren(tag);
+    }
+
+    /**
+     * foreach元素的声明类型：集合直接引用方法参数时按泛型解析，否则为Object
+     */
+    private Class<?> elementType(String collection, SqlFragment.ValueSource source) {
+        if (!(source instanceof SqlFragment.ArgumentSource) || collection.contains(".")) {
+            return Object.class;
+        }
+        int argIndex = ParameterPath.compile(method, collection).getArgIndex();
+        ResolvableType type = ResolvableType.forMethodParameter(method, argIndex);
+        if (type.isArray()) {
+            return type.getComponentType().resolve(Object.class);
+        }
+        return type.asCollection().getGeneric(0).resolve(Object.class);
+    }
+
+    private Map<String, String> parseAttributes() {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        while (true) {
+            skipWhitespace();
+            if (position >= template.length()) {
+                throw error("标签未闭合");
+            }
+            char c = template.charAt(position);
+            if (c == '>' || template.startsWith("/>", position)) {
+                return attributes;
+            }
+            int nameStart = position;
+            while (position < template.length() && Character.isJavaIdentifierPart(template.charAt(position))) {
+                position++;
+            }
+            String name = template.substring(nameStart, position);
+            skipWhitespace();
+            if (name.isEmpty() || position >= template.length() || template.charAt(position) != '=') {
+                throw error("标签属性格式错误");
+            }
+            position++;
+            skipWhitespace();
+            char quote = position < template.length() ? template.charAt(position) : 0;
+            if (quote != '"' && quote != '\'') {
+                throw error("属性 " + name + " 的值必须用引号括起来");
+            }
+            int end = template.indexOf(quote, position + 1);
+            if (end < 0) {
+                throw error("属性 " + name + " 的值未闭合");
+            }
+            attributes.put(name, decodeEntities(template.substring(position + 1, end)));
+            position = end + 1;
+        }
+    }
+
+    /**
+     * 把文本中的 #{} 替换为 ?，并为每个占位符确定取值方式
+     */
+    private void flushText(StringBuilder text, List<SqlFragment> children) {
+        if (text.length() == 0) {
+            return;
+        }
+        String raw = decodeEntities(text.toString());
+        text.setLength(0);
+
+        StringBuilder sql = new StringBuilder(raw.length());
+        List<SqlFragment.ValueSource> sources = new ArrayList<>();
+        char quote = 0;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                throw error("SQL模板中请使用 #{} 占位符，不能使用 ?");
+            } else if (c == '$' && i + 1 < raw.length() && raw.charAt(i + 1) == '{') {
+                throw error("SQL模板不支持 ${} 参数替换");
+            } else if (c == '#' && i + 1 < raw.length() && raw.charAt(i + 1) == '{') {
+                int end = raw.indexOf('}', i + 2);
+                if (end < 0) {
+                    throw error("#{ 占位符未闭合");
+                }
+                String expression = raw.substring(i + 2, end);
+                int comma = expression.indexOf(',');
+                if (comma >= 0) {
+                    expression = expression.substring(0, comma);
+                }
+                expression = expression.trim();
+                if (expression.isEmpty()) {
+                    throw error("#{} 占位符缺少参数名");
+                }
+                sources.add(valueSource(expression));
+                sql.append('?');
+                i = end;
+                continue;
+            }
+            sql.append(c);
+        }
+        children.add(new SqlFragment.Text(sql.toString(), sources));
+    }
+
+    /**
+     * 解析参数表达式：优先匹配最近一层foreach的item/index，否则按方法参数解析
+     */
+    private SqlFragment.ValueSource valueSource(String expression) {
+        int dot = expression.indexOf('.');
+        String head = dot >= 0 ? expression.substring(0, dot) : expression;
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            ForeachScope scope = scopes.get(i);
+            if (head.equals(scope.item)) {
+                try {
+                    return new SqlFragment.ItemSource(scope.depth,
+                            dot >= 0 ? PropertyPath.compile(scope.itemType, expression.substring(dot + 1)) : null);
+                } catch (MyBatisException e) {
+                    throw new MyBatisException("DYNAMIC_SQL_ERROR",
+                            "foreach元素属性无法解析: " + expression + "，方法: " + method, template, null, e);
+                }
+            }
+            if (head.equals(scope.index) && dot < 0) {
+                return new SqlFragment.IndexSource(scope.depth);
+            }
+        }
+        try {
+            return new SqlFragment.ArgumentSource(ParameterPath.compile(method, expression));
+        } catch (MyBatisException e) {
+            throw new MyBatisException("DYNAMIC_SQL_ERROR",
+                    "模板参数无法解析: " + expression + "，方法: " + method, template, null, e);
+        }
+    }
+
+    /**
+     * position处是否为支持的标签名，是则返回标签名
+     */
+    private String tagNameAt(int index) {
+        for (String tag : TAGS) {
+            int end = index + tag.length();
+            if (template.regionMatches(index, tag, 0, tag.length()) && end < template.length()) {
+                char next = template.charAt(end);
+                if (next == '>' || next == '/' || Character.isWhitespace(next)) {
+                    return tag;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String require(Map<String, String> attributes, String name, String tag) {
+        String value = attributes.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw error("<" + tag + "> 缺少 " + name + " 属性");
+        }
+        return value;
+    }
+
+    private void skipWhitespace() {
+        while (position < template.length() && Character.isWhitespace(template.charAt(position))) {
+            position++;
+        }
+    }
+
+    private static String decodeEntities(String text) {
+        if (text.indexOf('&') < 0) {
+            return text;
+        }
+        return text.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&amp;", "&");
+    }
+
+    private MyBatisException error(String message) {
+        return new MyBatisException("DYNAMIC_SQL_ERROR",
+                "SQL模板解析失败（位置 " + position + "）: " + message + "，方法: " + method, template, null);
+    }
+
+    private static final class ForeachScope {
+
+        private final String item;
+
+        private final String index;
+
+        private final int depth;
+
+        private final Class<?> itemType;
+
+        ForeachScope(String item, String index, int depth, Class<?> itemType) {
+            this.item = item;
+            this.index = index;
+            this.depth = depth;
+            this.itemType = itemType;
+        }
+    }
+}
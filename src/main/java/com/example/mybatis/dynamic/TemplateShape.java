@@ -0,0 +1,102 @@
+package com.example.mybatis.dynamic;
+
+import java.util.Arrays;
+
+/**
+ * 模板形状 - 一次渲染中每个条件片段的取值和每个foreach的元素个数
+ *
+ * 形状相同的调用生成的SQL完全相同。渲染时复用线程内的实例作为查找键，
+ * 只有首次出现的形状才复制为不可变的缓存键
+ */
+final class TemplateShape {
+
+    private long[] values;
+
+    private int size;
+
+    /** 缓存键的哈希值，查找用的实例每次重新计算 */
+    private final int hash;
+
+    TemplateShape(int capacity) {
+        this.values = new long[Math.max(capacity, 4)];
+        this.hash = 0;
+    }
+
+    private TemplateShape(long[] values, int size, int hash) {
+        this.values = values;
+        this.size = size;
+        this.hash = hash;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * 预留一个位置，稍后通过set写入
+     */
+    int reserve() {
+        add(0);
+        return size - 1;
+    }
+
+    void set(int index, long value) {
+        values[index] = value;
+    }
+
+    long get(int index) {
+        return values[index];
+    }
+
+    /**
+     * 复制为缓存键
+     */
+    TemplateShape copy() {
+        return new TemplateShape(Arrays.copyOf(values, size), size, computeHash());
+    }
+
+    private int computeHash() {
+        int h = 1;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + Long.hashCode(values[i]);
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TemplateShape)) {
+            return false;
+        }
+        TemplateShape other = (TemplateShape) o;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (values[i] != other.values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash != 0 ? hash : computeHash();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(values, size));
+    }
+}
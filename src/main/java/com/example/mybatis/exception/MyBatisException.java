@@ -53,6 +53,13 @@ public class MyBatisException extends RuntimeException {
         return parameters;
     }
     
+    /**
+     * 获取不含错误码、SQL和参数的原始异常描述
+     */
+    public String getOriginalMessage() {
+        return super.getMessage();
+    }
+    
     @Override
     public String getMessage() {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,159 @@
+package com.example.mybatis.executor;
+
+import com.example.mybatis.core.StatementPlan;
+import com.example.mybatis.cursor.Cursor;
+import com.example.mybatis.cursor.DefaultCursor;
+import com.example.mybatis.result.DefaultResultContext;
+import com.example.mybatis.result.ResultHandler;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 执行器基类 - 实现与语句复用策略无关的通用逻辑
+ *
+ * 包括：
+ * - 列表查询和回调查询（通过JdbcTemplate，自动参与Spring事务）
+ * - 游标查询（游标生命周期超出单次调用，需要自行管理连接）
+ * - 连接获取与释放
+ */
+public abstract class BaseExecutor implements Executor {
+
+    protected final DataSource dataSource;
+
+    protected final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 游标和回调查询使用的fetchSize，0表示使用驱动默认值
+     */
+    protected final int fetchSize;
+
+    protected BaseExecutor(DataSource dataSource, int fetchSize) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public <E> List<E> query(StatementPlan plan, Object[] params) throws SQLException {
+        if (params.length == 0) {
+            return jdbcTemplate.query(plan.getSql(), plan.<E>getListExtractor());
+        }
+        return jdbcTemplate.query(plan.getSql(), newParameterSetter(plan, params), plan.<E>getListExtractor());
+    }
+
+    /**
+     * 回调查询 - 整个查询只解析一次行映射器、只创建一个结果上下文
+     */
+    @Override
+    public <T> void query(StatementPlan plan, Object[] params, ResultHandler<T> handler) throws SQLException {
+        jdbcTemplate.query(con -> prepareForwardOnly(con, plan, params), (ResultSetExtractor<Void>) rs -> {
+            RowMapper<T> rowMapper = plan.<T>getResultMapper().forResultSet(rs);
+            DefaultResultContext<T> context = new DefaultResultContext<>();
+            int rowNum = 0;
+            while (!context.isStopped() && rs.next()) {
+                context.nextResultObject(rowMapper.mapRow(rs, rowNum++));
+                handler.handleResult(context);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 游标查询
+     *
+     * 存在Spring事务时使用事务连接，游标需在事务内读取完毕；
+     * 否则单独获取连接，由游标关闭时归还
+     */
+    @Override
+    public <T> Cursor<T> queryCursor(StatementPlan plan, Object[] params) throws SQLException {
+        Connection connection = getConnection();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = prepareForwardOnly(connection, plan, params);
+            rs = ps.executeQuery();
+            RowMapper<T> rowMapper = plan.<T>getResultMapper().forResultSet(rs);
+
+            final PreparedStatement cursorStatement = ps;
+            return new DefaultCursor<>(rs, rowMapper, () -> {
+                JdbcUtils.closeStatement(cursorStatement);
+                releaseConnection(connection);
+            });
+        } catch (SQLException | RuntimeException e) {
+            JdbcUtils.closeResultSet(rs);
+            JdbcUtils.closeStatement(ps);
+            releaseConnection(connection);
+            throw e;
+        }
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        flushStatements();
+    }
+
+    /**
+     * 创建仅向前、只读的查询语句并绑定参数
+     */
+    protected PreparedStatement prepareForwardOnly(Connection connection, StatementPlan plan, Object[] params)
+            throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(plan.getSql(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            if (fetchSize > 0) {
+                ps.setFetchSize(fetchSize);
+            }
+            newParameterSetter(plan, params).setValues(ps);
+            return ps;
+        } catch (SQLException e) {
+            JdbcUtils.closeStatement(ps);
+            throw e;
+        }
+    }
+
+    /**
+     * 创建参数设置器
+     *
+     * 执行计划带有与参数数量一致的SQL类型时按类型设置，否则按值推断类型
+     */
+    protected PreparedStatementSetter newParameterSetter(StatementPlan plan, Object[] params) {
+        int[] sqlTypes = plan.getParameterSqlTypes();
+        if (sqlTypes != null && sqlTypes.length == params.length) {
+            return new TypedParameterSetter(params, sqlTypes);
+        }
+        return new ArgumentPreparedStatementSetter(params);
+    }
+
+    /**
+     * 获取连接
+     *
+     * 只有存在实际事务时才通过DataSourceUtils获取事务连接；
+     * 仅有事务同步（如SUPPORTS传播）时若也使用DataSourceUtils，连接会在方法返回时被同步释放
+     */
+    protected Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return DataSourceUtils.getConnection(dataSource);
+        }
+        return dataSource.getConnection();
+    }
+
+    /**
+     * 释放连接 - 事务连接交还给事务管理器，其他连接直接关闭
+     */
+    protected void releaseConnection(Connection connection) {
+        DataSourceUtils.releaseConnection(connection, dataSource);
+    }
+}
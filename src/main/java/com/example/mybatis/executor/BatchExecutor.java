@@ -0,0 +1,200 @@
+package com.example.mybatis.executor;
+
+import com.example.mybatis.core.StatementPlan;
+import com.example.mybatis.cursor.Cursor;
+import com.example.mybatis.exception.SqlExecutionException;
+import com.example.mybatis.result.ResultHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量执行器 - 把连续相同的更新语句合并为JDBC批处理
+ *
+ * 工作方式：
+ * 1. 更新语句不立即执行，而是addBatch到PreparedStatement上
+ * 2. 与上一条更新SQL相同则复用同一个PreparedStatement，否则新建一个并按顺序排队
+ * 3. 在flushStatements()、commit()、close()、执行查询前或Spring事务提交前统一executeBatch
+ *
+ * 连接管理：
+ * - 在Spring事务中使用事务连接，并注册事务同步，保证提交前刷新、完成后释放
+ * - 否则自行获取连接，刷新后立即归还（连接非自动提交时刷新即提交）
+ */
+public class BatchExecutor extends BaseExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchExecutor.class);
+
+    /**
+     * 批处理模式下update()的返回值，实际更新行数通过flushStatements()获取
+     */
+    public static final int BATCH_UPDATE_RETURN_VALUE = Integer.MIN_VALUE + 1002;
+
+    private final List<PreparedStatement> statements = new ArrayList<>();
+
+    private final List<BatchResult> batchResults = new ArrayList<>();
+
+    /** 最后一条排队语句的SQL，用于判断能否继续合并 */
+    private String currentSql;
+
+    private Connection connection;
+
+    /** 当前连接是否为Spring事务连接 */
+    private boolean transactional;
+
+    public BatchExecutor(DataSource dataSource, int fetchSize) {
+        super(dataSource, fetchSize);
+    }
+
+    @Override
+    public int update(StatementPlan plan, Object[] params) throws SQLException {
+        Connection con = obtainConnection();
+        String sql = plan.getSql();
+
+        PreparedStatement ps;
+        BatchResult batchResult;
+        if (sql.equals(currentSql)) {
+            ps = statements.get(statements.size() - 1);
+            batchResult = batchResults.get(batchResults.size() - 1);
+        } else {
+            ps = con.prepareStatement(sql);
+            batchResult = new BatchResult(plan.getStatementId(), sql);
+            statements.add(ps);
+            batchResults.add(batchResult);
+            currentSql = sql;
+        }
+
+        newParameterSetter(plan, params).setValues(ps);
+        ps.addBatch();
+        batchResult.addParameters(params);
+        return BATCH_UPDATE_RETURN_VALUE;
+    }
+
+    /**
+     * 查询前先刷新，保证查询能看到之前排队的更新
+     */
+    @Override
+    public <E> List<E> query(StatementPlan plan, Object[] params) throws SQLException {
+        flushStatements();
+        return super.query(plan, params);
+    }
+
+    @Override
+    public <T> void query(StatementPlan plan, Object[] params, ResultHandler<T> handler) throws SQLException {
+        flushStatements();
+        super.query(plan, params, handler);
+    }
+
+    @Override
+    public <T> Cursor<T> queryCursor(StatementPlan plan, Object[] params) throws SQLException {
+        flushStatements();
+        return super.queryCursor(plan, params);
+    }
+
+    /**
+     * 按排队顺序执行所有批处理语句
+     */
+    @Override
+    public List<BatchResult> flushStatements() throws SQLException {
+        if (statements.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<BatchResult> results = new ArrayList<>(batchResults.size());
+        try {
+            for (int i = 0; i < statements.size(); i++) {
+                BatchResult batchResult = batchResults.get(i);
+                batchResult.setUpdateCounts(statements.get(i).executeBatch());
+                results.add(batchResult);
+            }
+            if (!transactional && !connection.getAutoCommit()) {
+                connection.commit();
+            }
+            logger.debug("批处理已刷新: {}", results);
+            return results;
+        } finally {
+            discardStatements();
+            if (!transactional) {
+                releaseCurrentConnection();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            flushStatements();
+        } catch (SQLException e) {
+            logger.error("关闭批量执行器时刷新失败", e);
+            throw new SqlExecutionException("批处理刷新失败: " + e.getMessage(), e);
+        } finally {
+            discardStatements();
+            releaseCurrentConnection();
+        }
+    }
+
+    /**
+     * 获取排队所用的连接
+     * 连接归属（事务/非事务）发生变化时先刷新已排队的语句
+     */
+    private Connection obtainConnection() throws SQLException {
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        if (connection != null && transactional != inTransaction) {
+            flushStatements();
+            releaseCurrentConnection();
+        }
+        if (connection == null) {
+            connection = getConnection();
+            transactional = inTransaction;
+            if (transactional) {
+                TransactionSynchronizationManager.registerSynchronization(new BatchSynchronization());
+            }
+        }
+        return connection;
+    }
+
+    private void discardStatements() {
+        for (PreparedStatement ps : statements) {
+            JdbcUtils.closeStatement(ps);
+        }
+        statements.clear();
+        batchResults.clear();
+        currentSql = null;
+    }
+
+    private void releaseCurrentConnection() {
+        if (connection != null) {
+            releaseConnection(connection);
+            connection = null;
+            transactional = false;
+        }
+    }
+
+    /**
+     * 事务同步 - 提交前刷新批处理，事务结束后释放连接
+     */
+    private class BatchSynchronization implements TransactionSynchronization {
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            try {
+                flushStatements();
+            } catch (SQLException e) {
+                throw new SqlExecutionException("事务提交前批处理刷新失败: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            discardStatements();
+            releaseCurrentConnection();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.mybatis.executor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批处理结果 - 一条批处理语句及其每组参数的更新行数
+ */
+public class BatchResult {
+
+    private final String statementId;
+
+    private final String sql;
+
+    private final List<Object[]> parameters = new ArrayList<>();
+
+    private int[] updateCounts;
+
+    public BatchResult(String statementId, String sql) {
+        this.statementId = statementId;
+        this.sql = sql;
+    }
+
+    void addParameters(Object[] params) {
+        parameters.add(params);
+    }
+
+    void setUpdateCounts(int[] updateCounts) {
+        this.updateCounts = updateCounts;
+    }
+
+    public String getStatementId() {
+        return statementId;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Object[]> getParameters() {
+        return Collections.unmodifiableList(parameters);
+    }
+
+    public int[] getUpdateCounts() {
+        return updateCounts;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "statementId='" + statementId + '\'' +
+                ", batchSize=" + parameters.size() +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.mybatis.executor;
+
+import com.example.mybatis.core.StatementPlan;
+import com.example.mybatis.cursor.Cursor;
+import com.example.mybatis.result.ResultHandler;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * SQL执行器 - 负责语句的创建、参数绑定和执行
+ *
+ * SqlSession负责语句查找、安全检查和缓存，执行器只关心如何与JDBC交互，
+ * 不同执行器在语句复用和批处理策略上有所不同
+ *
+ * 执行器与所属会话一样不是线程安全的
+ */
+public interface Executor {
+
+    /**
+     * 查询并返回结果列表
+     */
+    <E> List<E> query(StatementPlan plan, Object[] params) throws SQLException;
+
+    /**
+     * 查询并逐行回调结果处理器
+     */
+    <T> void query(StatementPlan plan, Object[] params, ResultHandler<T> handler) throws SQLException;
+
+    /**
+     * 游标查询
+     */
+    <T> Cursor<T> queryCursor(StatementPlan plan, Object[] params) throws SQLException;
+
+    /**
+     * 执行INSERT/UPDATE/DELETE
+     */
+    int update(StatementPlan plan, Object[] params) throws SQLException;
+
+    /**
+     * 提交尚未执行的批处理语句，返回每条语句的执行结果
+     */
+    List<BatchResult> flushStatements() throws SQLException;
+
+    /**
+     * 提交 - 刷新未执行的语句，非Spring事务连接上同时提交
+     */
+    void commit() throws SQLException;
+
+    /**
+     * 关闭执行器并释放资源
+     */
+    void close();
+}
@@ -0,0 +1,13 @@
+package com.example.mybatis.executor;
+
+/**
+ * 执行器类型
+ */
+public enum ExecutorType {
+    /** 简单执行器：每次执行都创建新的PreparedStatement */
+    SIMPLE,
+    /** 复用执行器：在连接上按SQL缓存PreparedStatement并重复使用 */
+    REUSE,
+    /** 批量执行器：连续相同的更新语句合并为JDBC批处理 */
+    BATCH
+}
@@ -0,0 +1,150 @@
+package com.example.mybatis.executor;
+
+import com.example.mybatis.core.StatementPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 复用执行器 - 在每个连接上按SQL文本缓存PreparedStatement
+ *
+ * 同一条SQL（如findById）重复执行时只需重新绑定参数，不再每次prepare/close，
+ * 适合大量短小的OLTP查询
+ *
+ * 连接与语句的生命周期：
+ * - 非事务：执行器持有一个连接和它的语句缓存，直到会话关闭
+ * - Spring事务：使用事务连接，该连接的语句缓存在事务结束时关闭
+ * - 语句在LRU淘汰、连接释放或执行失败时关闭
+ *
+ * 游标和回调查询的语句需要保持打开，仍使用基类的独立语句
+ */
+public class ReuseExecutor extends BaseExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReuseExecutor.class);
+
+    /**
+     * 每个连接缓存的最大语句数
+     */
+    private final int statementCacheSize;
+
+    /** 非事务时持有的连接及其语句缓存 */
+    private Connection ownConnection;
+    private StatementCache ownStatements;
+
+    /** 事务连接 -> 语句缓存，事务结束时关闭并移除 */
+    private final Map<Connection, StatementCache> transactionStatements = new IdentityHashMap<>();
+
+    public ReuseExecutor(DataSource dataSource, int fetchSize, int statementCacheSize) {
+        super(dataSource, fetchSize);
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    @Override
+    public <E> List<E> query(StatementPlan plan, Object[] params) throws SQLException {
+        return execute(plan, params, ps -> {
+            try (ResultSet rs = ps.executeQuery()) {
+                return plan.<E>getListExtractor().extractData(rs);
+            }
+        });
+    }
+
+    @Override
+    public int update(StatementPlan plan, Object[] params) throws SQLException {
+        return execute(plan, params, PreparedStatement::executeUpdate);
+    }
+
+    @Override
+    public List<BatchResult> flushStatements() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public void close() {
+        if (ownStatements != null) {
+            ownStatements.closeAll();
+            ownStatements = null;
+        }
+        if (ownConnection != null) {
+            JdbcUtils.closeConnection(ownConnection);
+            ownConnection = null;
+        }
+    }
+
+    /**
+     * 取出（或创建）缓存的语句，绑定参数后执行
+     */
+    private <R> R execute(StatementPlan plan, Object[] params, StatementCallback<R> callback) throws SQLException {
+        String sql = plan.getSql();
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        Connection connection = inTransaction ? DataSourceUtils.getConnection(dataSource) : obtainOwnConnection();
+        try {
+            StatementCache statements = inTransaction ? transactionStatements(connection) : ownStatements;
+            PreparedStatement ps = statements.get(sql);
+            if (ps == null) {
+                ps = connection.prepareStatement(sql);
+                statements.put(sql, ps);
+            } else {
+                ps.clearParameters();
+            }
+            try {
+                newParameterSetter(plan, params).setValues(ps);
+                return callback.doInStatement(ps);
+            } catch (SQLException e) {
+                // 出错的语句可能已不可用，不再复用
+                statements.evict(sql);
+                throw e;
+            }
+        } finally {
+            if (inTransaction) {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        }
+    }
+
+    private Connection obtainOwnConnection() throws SQLException {
+        if (ownConnection == null) {
+            ownConnection = dataSource.getConnection();
+            ownStatements = new StatementCache(statementCacheSize);
+        }
+        return ownConnection;
+    }
+
+    /**
+     * 获取事务连接的语句缓存，首次使用时注册事务同步以便事务结束时关闭
+     */
+    private StatementCache transactionStatements(Connection connection) {
+        StatementCache statements = transactionStatements.get(connection);
+        if (statements == null) {
+            StatementCache created = new StatementCache(statementCacheSize);
+            transactionStatements.put(connection, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    created.closeAll();
+                    transactionStatements.remove(connection);
+                    logger.debug("事务结束，已关闭连接上缓存的语句");
+                }
+            });
+            statements = created;
+        }
+        return statements;
+    }
+
+    @FunctionalInterface
+    private interface StatementCallback<R> {
+        R doInStatement(PreparedStatement ps) throws SQLException;
+    }
+}
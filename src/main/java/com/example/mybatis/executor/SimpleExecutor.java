@@ -0,0 +1,35 @@
+package com.example.mybatis.executor;
+
+import com.example.mybatis.core.StatementPlan;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 简单执行器 - 每次执行都通过JdbcTemplate创建并关闭PreparedStatement
+ */
+public class SimpleExecutor extends BaseExecutor {
+
+    public SimpleExecutor(DataSource dataSource, int fetchSize) {
+        super(dataSource, fetchSize);
+    }
+
+    @Override
+    public int update(StatementPlan plan, Object[] params) {
+        if (params.length == 0) {
+            return jdbcTemplate.update(plan.getSql());
+        }
+        return jdbcTemplate.update(plan.getSql(), newParameterSetter(plan, params));
+    }
+
+    @Override
+    public List<BatchResult> flushStatements() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void close() {
+        // 没有需要释放的资源
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.mybatis.executor;
+
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.sql.PreparedStatement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PreparedStatement缓存 - 单个连接上按SQL文本缓存语句的LRU
+ *
+ * 超出容量时关闭最久未使用的语句；只能在持有该连接的线程中使用
+ */
+class StatementCache extends LinkedHashMap<String, PreparedStatement> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSize;
+
+    StatementCache(int maxSize) {
+        super(16, 0.75f, true);
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+        if (size() > maxSize) {
+            JdbcUtils.closeStatement(eldest.getValue());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 移除并关闭指定SQL的语句
+     */
+    void evict(String sql) {
+        JdbcUtils.closeStatement(remove(sql));
+    }
+
+    /**
+     * 关闭所有缓存的语句
+     */
+    void closeAll() {
+        for (PreparedStatement ps : values()) {
+            JdbcUtils.closeStatement(ps);
+        }
+        clear();
+    }
+}
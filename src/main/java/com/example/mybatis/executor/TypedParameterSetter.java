@@ -0,0 +1,38 @@
+package com.example.mybatis.executor;
+
+import org.springframework.jdbc.core.ParameterDisposer;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 按预编译的SQL类型逐位置设置参数
+ *
+ * 与ArgumentTypePreparedStatementSetter不同，集合和数组参数不会被展开，
+ * 参数位置与绑定计划严格一一对应；类型已知的null值直接setNull，不再探测参数元数据
+ */
+final class TypedParameterSetter implements PreparedStatementSetter, ParameterDisposer {
+
+    private final Object[] params;
+
+    private final int[] sqlTypes;
+
+    TypedParameterSetter(Object[] params, int[] sqlTypes) {
+        this.params = params;
+        this.sqlTypes = sqlTypes;
+    }
+
+    @Override
+    public void setValues(PreparedStatement ps) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            StatementCreatorUtils.setParameterValue(ps, i + 1, sqlTypes[i], params[i]);
+        }
+    }
+
+    @Override
+    public void cleanupParameters() {
+        StatementCreatorUtils.cleanupParameters(params);
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.mybatis.mapping;
+
+import com.example.mybatis.exception.MyBatisException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JavaBean结果映射器 - 替代每次查询新建的BeanPropertyRowMapper
+ *
+ * 工作方式：
+ * 1. 每个结果类型只内省一次，解析出构造器和属性setter的MethodHandle
+ * 2. 每种列布局（列名序列）只编译一次行映射器：列索引 -> 属性写入器，并缓存起来
+ * 3. 映射时按列索引读取并通过MethodHandle写入属性，不再按列名查找、不再反射调用
+ *
+ * 没有使用LambdaMetafactory生成setter：生成的类需要能从starter的类加载器看到实体类，
+ * 在devtools的重启类加载器等场景下无法满足，而MethodHandle没有这个限制
+ */
+public class BeanResultMapper<T> implements ResultMapper<T> {
+
+    /**
+     * 结果类型 -> 映射器，软引用避免阻止实体类卸载
+     */
+    private static final Map<Class<?>, BeanResultMapper<?>> MAPPERS = new ConcurrentReferenceHashMap<>();
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<T> mappedClass;
+
+    /** 无参构造器，签名为 ()Object */
+    private final MethodHandle constructor;
+
+    /** 规范化列名 -> 属性写入器，同时包含属性名和下划线形式 */
+    private final Map<String, PropertyWriter> writers;
+
+    /** 列布局 -> 编译后的行映射器 */
+    private final Map<ColumnLayout, CompiledBeanRowMapper<T>> compiledMappers = new ConcurrentHashMap<>();
+
+    private BeanResultMapper(Class<T> mappedClass) {
+        this.mappedClass = mappedClass;
+        this.constructor = resolveConstructor(mappedClass);
+        this.writers = resolveWriters(mappedClass);
+    }
+
+    /**
+     * 获取指定结果类型的映射器（全局共享）
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanResultMapper<T> forType(Class<T> mappedClass) {
+        return (BeanResultMapper<T>) MAPPERS.computeIfAbsent(mappedClass, BeanResultMapper::new);
+    }
+
+    @Override
+    public RowMapper<T> forResultSet(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] columns = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = normalize(JdbcUtils.lookupColumnName(metaData, i + 1));
+        }
+        ColumnLayout layout = new ColumnLayout(columns);
+        CompiledBeanRowMapper<T> mapper = compiledMappers.get(layout);
+        if (mapper == null) {
+            mapper = compiledMappers.computeIfAbsent(layout, this::compile);
+        }
+        return mapper;
+    }
+
+    /**
+     * 为一种列布局编译行映射器，未匹配到属性的列会被忽略
+     */
+    private CompiledBeanRowMapper<T> compile(ColumnLayout layout) {
+        String[] columns = layout.columns;
+        int[] indexes = new int[columns.length];
+        PropertyWriter[] matched = new PropertyWriter[columns.length];
+        int count = 0;
+        for (int i = 0; i < columns.length; i++) {
+            PropertyWriter writer = writers.get(columns[i]);
+            if (writer != null) {
+                indexes[count] = i + 1;
+                matched[count] = writer;
+                count++;
+            }
+        }
+        return new CompiledBeanRowMapper<>(mappedClass, constructor,
+                Arrays.copyOf(indexes, count), Arrays.copyOf(matched, count));
+    }
+
+    private static MethodHandle resolveConstructor(Class<?> mappedClass) {
+        try {
+            Constructor<?> ctor = mappedClass.getDeclaredConstructor();
+            ReflectionUtils.makeAccessible(ctor);
+            return MethodHandles.lookup().unreflectConstructor(ctor).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new MyBatisException("RESULT_MAPPING_ERROR",
+                    "结果类型缺少可访问的无参构造函数: " + mappedClass.getName(), e);
+        }
+    }
+
+    private static Map<String, PropertyWriter> resolveWriters(Class<?> mappedClass) {
+        Map<String, PropertyWriter> writers = new HashMap<>();
+        for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(mappedClass)) {
+            Method writeMethod = pd.getWriteMethod();
+            if (writeMethod == null) {
+                continue;
+            }
+            try {
+                ReflectionUtils.makeAccessible(writeMethod);
+                MethodHandle setter = MethodHandles.lookup().unreflect(writeMethod).asType(SETTER_TYPE);
+                PropertyWriter writer = new PropertyWriter(pd.getName(), pd.getPropertyType(), setter);
+                writers.put(normalize(pd.getName()), writer);
+                writers.put(underscoreName(pd.getName()), writer);
+            } catch (IllegalAccessException e) {
+                throw new MyBatisException("RESULT_MAPPING_ERROR",
+                        "无法访问属性setter: " + mappedClass.getName() + "." + pd.getName(), e);
+            }
+        }
+        return writers;
+    }
+
+    /**
+     * 列名/属性名规范化：小写并去掉空格
+     */
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT).replace(" ", "");
+    }
+
+    /**
+     * 驼峰属性名转下划线列名，如 stockQuantity -> stock_quantity
+     */
+    private static String underscoreName(String name) {
+        StringBuilder result = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                result.append('_').append(Character.toLowerCase(c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * 属性写入器 - 属性类型对应的列读取器 + setter句柄
+     */
+    static final class PropertyWriter {
+        final String propertyName;
+        final Class<?> propertyType;
+        final ColumnReader reader;
+        final MethodHandle setter;
+
+        PropertyWriter(String propertyName, Class<?> propertyType, MethodHandle setter) {
+            this.propertyName = propertyName;
+            this.propertyType = propertyType;
+            this.reader = ColumnReader.forType(propertyType);
+            this.setter = setter;
+        }
+    }
+
+    /**
+     * 列布局 - 规范化列名序列，哈希值预先计算
+     */
+    private static final class ColumnLayout {
+        private final String[] columns;
+        private final int hash;
+
+        ColumnLayout(String[] columns) {
+            this.columns = columns;
+            this.hash = Arrays.hashCode(columns);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ColumnLayout)) {
+                return false;
+            }
+            ColumnLayout other = (ColumnLayout) o;
+            return hash == other.hash && Arrays.equals(columns, other.columns);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.mybatis.mapping;
+
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 列读取器 - 按目标属性类型预先选定的取值方式
+ *
+ * 常用类型直接调用对应的ResultSet getter，其他类型交给Spring的JdbcUtils做类型转换
+ */
+@FunctionalInterface
+interface ColumnReader {
+
+    Object read(ResultSet rs, int index) throws SQLException;
+
+    ColumnReader STRING = ResultSet::getString;
+
+    ColumnReader BIG_DECIMAL = ResultSet::getBigDecimal;
+
+    ColumnReader LONG = (rs, index) -> {
+        long value = rs.getLong(index);
+        return value == 0 && rs.wasNull() ? null : value;
+    };
+
+    ColumnReader INTEGER = (rs, index) -> {
+        int value = rs.getInt(index);
+        return value == 0 && rs.wasNull() ? null : value;
+    };
+
+    ColumnReader DOUBLE = (rs, index) -> {
+        double value = rs.getDouble(index);
+        return value == 0 && rs.wasNull() ? null : value;
+    };
+
+    ColumnReader BOOLEAN = (rs, index) -> {
+        boolean value = rs.getBoolean(index);
+        return !value && rs.wasNull() ? null : value;
+    };
+
+    static ColumnReader forType(Class<?> type) {
+        if (String.class == type) {
+            return STRING;
+        } else if (BigDecimal.class == type) {
+            return BIG_DECIMAL;
+        } else if (Long.class == type || long.class == type) {
+            return LONG;
+        } else if (Integer.class == type || int.class == type) {
+            return INTEGER;
+        } else if (Double.class == type || double.class == type) {
+            return DOUBLE;
+        } else if (Boolean.class == type || boolean.class == type) {
+            return BOOLEAN;
+        }
+        return (rs, index) -> JdbcUtils.getResultSetValue(rs, index, type);
+    }
+}
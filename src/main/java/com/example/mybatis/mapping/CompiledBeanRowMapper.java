@@ -0,0 +1,59 @@
+package com.example.mybatis.mapping;
+
+import com.example.mybatis.exception.MyBatisException;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.lang.invoke.MethodHandle;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 编译后的行映射器 - 对应一种(结果类型, 列布局)组合
+ *
+ * 列索引和属性写入器在编译时已一一对应，映射每行时只做按索引取值和setter调用；
+ * 不持有任何结果集相关状态，线程安全
+ */
+final class CompiledBeanRowMapper<T> implements RowMapper<T> {
+
+    private final Class<T> mappedClass;
+    private final MethodHandle constructor;
+    private final int[] columnIndexes;
+    private final BeanResultMapper.PropertyWriter[] writers;
+
+    CompiledBeanRowMapper(Class<T> mappedClass, MethodHandle constructor,
+                          int[] columnIndexes, BeanResultMapper.PropertyWriter[] writers) {
+        this.mappedClass = mappedClass;
+        this.constructor = constructor;
+        this.columnIndexes = columnIndexes;
+        this.writers = writers;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Object bean;
+        try {
+            bean = (Object) constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new MyBatisException("RESULT_MAPPING_ERROR", "无法实例化结果类型: " + mappedClass.getName(), e);
+        }
+
+        for (int i = 0; i < columnIndexes.length; i++) {
+            BeanResultMapper.PropertyWriter writer = writers[i];
+            Object value = writer.reader.read(rs, columnIndexes[i]);
+            if (value == null && writer.propertyType.isPrimitive()) {
+                // 基本类型属性遇到NULL时保留默认值
+                continue;
+            }
+            try {
+                writer.setter.invokeExact(bean, value);
+            } catch (SQLException | RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new MyBatisException("RESULT_MAPPING_ERROR",
+                        "属性赋值失败: " + mappedClass.getName() + "." + writer.propertyName, e);
+            }
+        }
+        return (T) bean;
+    }
+}
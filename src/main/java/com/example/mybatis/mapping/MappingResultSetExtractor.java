@@ -0,0 +1,33 @@
+package com.example.mybatis.mapping;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列表结果提取器
+ * 每个结果集只解析一次列布局，然后逐行映射；本身无状态，可在多次查询间复用
+ */
+public class MappingResultSetExtractor<T> implements ResultSetExtractor<List<T>> {
+
+    private final ResultMapper<T> resultMapper;
+
+    public MappingResultSetExtractor(ResultMapper<T> resultMapper) {
+        this.resultMapper = resultMapper;
+    }
+
+    @Override
+    public List<T> extractData(ResultSet rs) throws SQLException {
+        RowMapper<T> rowMapper = resultMapper.forResultSet(rs);
+        List<T> results = new ArrayList<>();
+        int rowNum = 0;
+        while (rs.next()) {
+            results.add(rowMapper.mapRow(rs, rowNum++));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.mybatis.mapping;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 结果映射器 - 为一个结果集解析出对应的行映射器
+ *
+ * 列布局只在每个结果集开始时解析一次，之后每行直接复用返回的行映射器，
+ * 避免逐行按列名查找属性
+ */
+public interface ResultMapper<T> {
+
+    /**
+     * 根据结果集的列布局获取行映射器
+     */
+    RowMapper<T> forResultSet(ResultSet rs) throws SQLException;
+
+    /**
+     * 包装一个与列布局无关的行映射器（单列类型、Map结果等）
+     */
+    static <T> ResultMapper<T> of(RowMapper<T> rowMapper) {
+        return rs -> rowMapper;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.mybatis.result;
+
+/**
+ * 默认结果上下文 - 一次查询只创建一个实例，逐行复用
+ */
+public class DefaultResultContext<T> implements ResultContext<T> {
+
+    private T resultObject;
+
+    private int resultCount;
+
+    private boolean stopped;
+
+    /**
+     * 切换到下一行结果
+     */
+    public void nextResultObject(T resultObject) {
+        this.resultCount++;
+        this.resultObject = resultObject;
+    }
+
+    @Override
+    public T getResultObject() {
+        return resultObject;
+    }
+
+    @Override
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    @Override
+    public void stop() {
+        this.stopped = true;
+    }
+
+    @Override
+    public boolean isStopped() {
+        return stopped;
+    }
+}
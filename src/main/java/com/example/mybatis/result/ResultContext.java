@@ -0,0 +1,27 @@
+package com.example.mybatis.result;
+
+/**
+ * 结果上下文 - 向结果处理器提供当前行及处理进度
+ */
+public interface ResultContext<T> {
+
+    /**
+     * 当前行映射出的对象
+     */
+    T getResultObject();
+
+    /**
+     * 已处理的行数（包含当前行）
+     */
+    int getResultCount();
+
+    /**
+     * 请求停止读取后续行
+     */
+    void stop();
+
+    /**
+     * 是否已请求停止
+     */
+    boolean isStopped();
+}
@@ -0,0 +1,16 @@
+package com.example.mybatis.result;
+
+/**
+ * 结果处理器 - 推送式逐行处理查询结果
+ *
+ * 每映射出一行就回调一次，不构建中间集合，适合聚合、转发等需要常量内存的场景
+ */
+@FunctionalInterface
+public interface ResultHandler<T> {
+
+    /**
+     * 处理一行结果
+     * 上下文对象在整个查询过程中复用，不要在回调之外持有它
+     */
+    void handleResult(ResultContext<? extends T> resultContext);
+}
@@ -1,8 +1,14 @@
 package com.example.mybatis.scanner;
 
 import com.example.mybatis.annotation.*;
+import com.example.mybatis.binding.ParameterBinding;
+import com.example.mybatis.dynamic.ConditionExpression;
+import com.example.mybatis.dynamic.DynamicSqlProcessor;
+import com.example.mybatis.dynamic.SqlTemplate;
 import com.example.mybatis.core.MyBatisConfiguration;
 import com.example.mybatis.core.MappedStatement;
+import com.example.mybatis.core.StatementPlan;
+import com.example.mybatis.result.ResultHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -19,7 +25,10 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Mapper扫描器
@@ -188,7 +197,7 @@ public class MapperScanner extends ClassPathBeanDefinitionScanner {
                     select.value(),
                     returnType
             );
-            configuration.addMappedStatement(statementId, statement);
+            addMappedStatement(statement, method);
             logger.debug("注册SELECT语句: {} -> {}", statementId, select.value());
 
         } else if (method.isAnnotationPresent(SelectIf.class)) {
@@ -200,8 +209,36 @@ public class MapperScanner extends ClassPathBeanDefinitionScanner {
                     selectIf.value(),
                     returnType
             );
-            configuration.addMappedStatement(statementId, statement);
-            logger.debug("注册SelectIf语句: {} -> {}", statementId, selectIf.value());
+            statement.setConditionExpression(ConditionExpression.compile(method, selectIf.condition()));
+            DynamicSqlProcessor.validateDynamicSql(selectIf.value(), selectIf.condition());
+
+            // 每个分支注册为独立的语句，各自编译参数绑定和执行计划，调用时只选择分支
+            if (!selectIf.elseSql().isEmpty()) {
+                String elseStatementId = statementId + MappedStatement.ELSE_BRANCH_SUFFIX;
+                MappedStatement elseStatement = new MappedStatement(
+                        elseStatementId,
+                        MappedStatement.SqlCommandType.SELECT,
+                        selectIf.elseSql(),
+                        returnType
+                );
+                DynamicSqlProcessor.validateDynamicSql(selectIf.elseSql(), null);
+                addMappedStatement(elseStatement, method);
+                statement.setElseStatementId(elseStatementId);
+            }
+            addMappedStatement(statement, method);
+            logger.debug("注册SelectIf语句: {} -> {} 条件: {} 否则: {}", statementId, selectIf.value(),
+                    selectIf.condition(), selectIf.elseSql());
+
+        } else if (method.isAnnotationPresent(SelectTemplate.class)) {
+            SelectTemplate selectTemplate = method.getAnnotation(SelectTemplate.class);
+            MappedStatement statement = new MappedStatement(
+                    statementId,
+                    MappedStatement.SqlCommandType.SELECT,
+                    selectTemplate.value(),
+                    getReturnType(method)
+            );
+            addTemplateStatement(statement, method);
+            logger.debug("注册SELECT模板语句: {} -> {}", statementId, selectTemplate.value());
 
         } else if (method.isAnnotationPresent(Insert.class)) {
             Insert insert = method.getAnnotation(Insert.class);
@@ -211,7 +248,7 @@ public class MapperScanner extends ClassPathBeanDefinitionScanner {
                     insert.value(),
                     int.class
             );
-            configuration.addMappedStatement(statementId, statement);
+            addMappedStatement(statement, method);
             logger.debug("注册INSERT语句: {} -> {}", statementId, insert.value());
 
         } else if (method.isAnnotationPresent(Update.class)) {
@@ -222,9 +259,20 @@ public class MapperScanner extends ClassPathBeanDefinitionScanner {
                     update.value(),
                     int.class
             );
-            configuration.addMappedStatement(statementId, statement);
+            addMappedStatement(statement, method);
             logger.debug("注册UPDATE语句: {} -> {}", statementId, update.value());
 
+        } else if (method.isAnnotationPresent(UpdateTemplate.class)) {
+            UpdateTemplate updateTemplate = method.getAnnotation(UpdateTemplate.class);
+            MappedStatement statement = new MappedStatement(
+                    statementId,
+                    MappedStatement.SqlCommandType.UPDATE,
+                    updateTemplate.value(),
+                    int.class
+            );
+            addTemplateStatement(statement, method);
+            logger.debug("注册UPDATE模板语句: {} -> {}", statementId, updateTemplate.value());
+
         } else if (method.isAnnotationPresent(Delete.class)) {
             Delete delete = method.getAnnotation(Delete.class);
             MappedStatement statement = new MappedStatement(
@@ -233,27 +281,141 @@ public class MapperScanner extends ClassPathBeanDefinitionScanner {
                     delete.value(),
                     int.class
             );
-            configuration.addMappedStatement(statementId, statement);
+            addMappedStatement(statement, method);
             logger.debug("注册DELETE语句: {} -> {}", statementId, delete.value());
         }
     }
 
+    /**
+     * 编译参数绑定和执行计划并注册映射语句
+     * #{} 占位符改写、SQL分析和安全检查在此处一次性完成，执行时直接复用
+     */
+    private void addMappedStatement(MappedStatement statement, Method method) {
+        ParameterBinding binding = ParameterBinding.compile(method, statement.getSql());
+        statement.setSql(binding.getSql());
+        statement.setParameterBinding(binding);
+        StatementPlan plan = StatementPlan.compile(statement);
+        statement.setStatementPlan(plan);
+        applyTableDependency(statement, method);
+        applyCachePolicy(statement, method);
+        if (!plan.isValid()) {
+            logger.warn("语句未通过安全检查，执行时将被拒绝: {}", statement.getId());
+        }
+        configuration.addMappedStatement(statement.getId(), statement);
+    }
+
+    /**
+     * 编译SQL模板并注册映射语句
+     * 模板的SQL随参数变化，参数绑定和执行计划由模板按每种SQL形状分别构建
+     */
+    private void addTemplateStatement(MappedStatement statement, Method method) {
+        statement.setSqlTemplate(SqlTemplate.compile(statement, method));
+        applyTableDependency(statement, method);
+        applyCachePolicy(statement, method);
+        configuration.addMappedStatement(statement.getId(), statement);
+    }
+
+    /**
+     * 按 @TableDependency 覆盖从SQL中提取的读写表
+     */
+    private void applyTableDependency(MappedStatement statement, Method method) {
+        TableDependency dependency = method.getAnnotation(TableDependency.class);
+        if (dependency == null) {
+            return;
+        }
+        if (dependency.reads().length > 0) {
+            statement.setReadTables(dependency.reads());
+        }
+        if (dependency.writes().length > 0) {
+            statement.setWriteTables(dependency.writes());
+        }
+    }
+
+    /**
+     * 按Mapper上的 @CacheNamespace 和方法上的 @Cached 设置缓存策略，方法上的设置优先
+     */
+    private void applyCachePolicy(MappedStatement statement, Method method) {
+        CacheNamespace namespace = method.getDeclaringClass().getAnnotation(CacheNamespace.class);
+        Cached cached = method.getAnnotation(Cached.class);
+        if (namespace == null && cached == null) {
+            return;
+        }
+        Set<String> flush = new LinkedHashSet<>();
+        if (namespace != null) {
+            statement.setCacheEnabled(namespace.value());
+            statement.setCacheRegion(namespace.region().isEmpty()
+                    ? method.getDeclaringClass().getName() : namespace.region());
+            statement.setCacheExpireTime(namespace.timeUnit().toMillis(namespace.expireTime()));
+            statement.setCacheRefreshTime(namespace.timeUnit().toMillis(namespace.refreshTime()));
+            statement.setCacheMaxEntries(namespace.maxEntries());
+            flush.addAll(Arrays.asList(namespace.flush()));
+        }
+        if (cached != null) {
+            statement.setCacheEnabled(cached.value());
+            if (!cached.region().isEmpty()) {
+                statement.setCacheRegion(cached.region());
+            }
+            if (cached.expireTime() > 0) {
+                statement.setCacheExpireTime(cached.timeUnit().toMillis(cached.expireTime()));
+            }
+            if (cached.refreshTime() > 0) {
+                statement.setCacheRefreshTime(cached.timeUnit().toMillis(cached.refreshTime()));
+            }
+            if (cached.maxEntries() > 0) {
+                statement.setCacheMaxEntries(cached.maxEntries());
+            }
+            flush.addAll(Arrays.asList(cached.flush()));
+        }
+        if (statement.getCacheMaxEntries() > 0 && statement.getCacheRegion() == null) {
+            // 只限制容量时语句单独作为一个区域
+            statement.setCacheRegion(statement.getId());
+        }
+        statement.setFlushCacheRegions(flush.toArray(new String[0]));
+        logger.debug("语句 {} 的缓存策略: 缓存={} 区域={} 过期={}ms 刷新={}ms 容量={} 清除区域={}",
+                statement.getId(), statement.isCacheEnabled(), statement.getCacheRegion(),
+                statement.getCacheExpireTime(), statement.getCacheRefreshTime(),
+                statement.getCacheMaxEntries(), flush);
+    }
+
     /**
      * 获取方法的返回类型
-     * 如果是List<T>，返回T的类型
+     * 如果是List<T>，返回T的类型；
+     * 如果方法通过ResultHandler<T>参数接收结果，返回T的类型；
+     * 如果是CompletableFuture<T>或CompletableFuture<List<T>>，按其中的类型参数解析
      */
     private Class<?> getReturnType(Method method) {
-        Type returnType = method.getGenericReturnType();
+        if (void.class.equals(method.getReturnType())) {
+            Type[] parameterTypes = method.getGenericParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (ResultHandler.class.isAssignableFrom(method.getParameterTypes()[i])) {
+                    Class<?> handlerType = getFirstTypeArgument(parameterTypes[i]);
+                    return handlerType != null ? handlerType : Object.class;
+                }
+            }
+        }
 
-        if (returnType instanceof ParameterizedType) {
-            ParameterizedType paramType = (ParameterizedType) returnType;
-            Type[] actualTypes = paramType.getActualTypeArguments();
+        Type genericReturnType = method.getGenericReturnType();
+        Class<?> rawReturnType = method.getReturnType();
+        if (CompletableFuture.class.equals(rawReturnType) && genericReturnType instanceof ParameterizedType) {
+            genericReturnType = ((ParameterizedType) genericReturnType).getActualTypeArguments()[0];
+            rawReturnType = ResolvableType.forType(genericReturnType).resolve(Object.class);
+        }
+
+        Class<?> elementType = getFirstTypeArgument(genericReturnType);
+        return elementType != null ? elementType : rawReturnType;
+    }
+
+    /**
+     * 获取泛型类型的第一个类型参数，不是具体类时返回null
+     */
+    private Class<?> getFirstTypeArgument(Type type) {
+        if (type instanceof ParameterizedType) {
+            Type[] actualTypes = ((ParameterizedType) type).getActualTypeArguments();
             if (actualTypes.length > 0 && actualTypes[0] instanceof Class) {
                 return (Class<?>) actualTypes[0];
             }
         }
-
-        return method.getReturnType();
+        return null;
     }
 
     @Override
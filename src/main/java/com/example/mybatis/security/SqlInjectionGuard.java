@@ -6,6 +6,8 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -26,6 +28,18 @@ public class SqlInjectionGuard {
         "EVAL", "EXPRESSION", "ALERT", "CONFIRM", "PROMPT"
     ));
     
+    /**
+     * 危险关键词的预编译匹配模式
+     * 使用\b保证关键词为独立单词，避免"CREATED_TIME"等误判
+     */
+    private static final Map<String, Pattern> DANGEROUS_KEYWORD_PATTERNS = new LinkedHashMap<>();
+    
+    static {
+        for (String keyword : DANGEROUS_KEYWORDS) {
+            DANGEROUS_KEYWORD_PATTERNS.put(keyword, Pattern.compile("\\b" + keyword + "\\b"));
+        }
+    }
+    
     /**
      * SQL注入攻击模式
      */
@@ -51,10 +65,9 @@ public class SqlInjectionGuard {
         String upperSql = sql.toUpperCase().trim();
         
         // 检查是否包含危险关键词
-        for (String keyword : DANGEROUS_KEYWORDS) {
-            // 使用\b保证关键词为独立单词，避免"CREATED_TIME"等误判
-            String pattern = "\\b" + keyword + "\\b"; // 大写SQL已处理
-            if (Pattern.compile(pattern).matcher(upperSql).find()) {
+        for (Map.Entry<String, Pattern> entry : DANGEROUS_KEYWORD_PATTERNS.entrySet()) {
+            String keyword = entry.getKey();
+            if (entry.getValue().matcher(upperSql).find()) {
                 if (!isParameterizedSql(sql)) {
                     logger.warn("检测到潜在的SQL注入风险: {}", keyword);
                     throw new MyBatisException("SQL_INJECTION_DETECTED", 
@@ -181,7 +194,11 @@ public class SqlInjectionGuard {
     
     /**
      * 生成安全的缓存key
+     *
+     * @deprecated 只拼接了SQL和参数的hashCode，不同查询可能得到相同的key而返回错误的结果，
+     * 请使用 {@link com.example.mybatis.cache.CacheKey}
      */
+    @Deprecated
     public static String generateSafeCacheKey(String sql, Object[] parameters) {
         StringBuilder key = new StringBuilder();
         key.append(sql.hashCode());
@@ -0,0 +1,25 @@
+package com.example.mybatis.async;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程支持 - Java 21版本
+ *
+ * 打包在多版本JAR的META-INF/versions/21目录，Java 21及以上运行时替换基线版本
+ */
+final class VirtualThreadSupport {
+
+    private VirtualThreadSupport() {
+    }
+
+    static boolean isAvailable() {
+        return true;
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        ThreadFactory factory = Thread.ofVirtual().name(namePrefix + "-", 1).factory();
+        return Executors.newThreadPerTaskExecutor(factory);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.mybatis.benchmark;
+
+import com.example.mybatis.cache.CacheConfig;
+import com.example.mybatis.cache.CacheKey;
+import com.example.mybatis.cache.CacheManager;
+import com.example.mybatis.cache.CacheSnapshot;
+import com.example.mybatis.cache.CacheSnapshotWriter;
+import com.example.mybatis.cache.CacheStatistics;
+import com.example.mybatis.cache.TableVersions;
+import com.example.mybatis.cache.TinyLfuCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存快照恢复基准测试 - 启动时映射100万个缓存项的快照
+ *
+ * open 只映射文件并读取表和属性模式，耗时与缓存项数无关；
+ * restoreAll 映射后逐个读取全部缓存项（二级缓存未命中时从快照恢复并放回二级缓存），即完全预热的耗时
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CacheSnapshotBenchmark {
+
+    private static final int ENTRIES = 1_000_000;
+
+    private static final String SQL = "SELECT id, name, price FROM products WHERE id = ?";
+
+    private static final String[] TABLES = {"products"};
+
+    private Path dir;
+
+    private Path file;
+
+    private CacheKey[] keys;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws IOException {
+        dir = Files.createTempDirectory("cache-snapshot-benchmark");
+        file = dir.resolve("cache.snapshot");
+        keys = new CacheKey[ENTRIES];
+        TableVersions tableVersions = new TableVersions();
+        TinyLfuCache<CacheKey, Object> cache = new TinyLfuCache<>(ENTRIES);
+        CacheManager cacheManager = newCacheManager(cache, null, tableVersions);
+        for (int i = 0; i < ENTRIES; i++) {
+            keys[i] = new CacheKey("ProductMapper.findById", SQL, new Object[]{(long) i});
+            Map<String, Object> row = new LinkedCaseInsensitiveMap<>(3);
+            row.put("ID", (long) i);
+            row.put("NAME", "product-" + i);
+            row.put("PRICE", BigDecimal.valueOf(i, 2));
+            cacheManager.put(keys[i], Collections.singletonList(row), cacheManager.stamp(TABLES));
+        }
+        int written = new CacheSnapshotWriter(file, cache, null, tableVersions).write();
+        if (written != ENTRIES) {
+            throw new IllegalStateException("快照只写入了 " + written + " 个缓存项");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public CacheSnapshot open() {
+        return CacheSnapshot.open(file, new TableVersions(), getClass().getClassLoader());
+    }
+
+    @Benchmark
+    public int restoreAll() {
+        TableVersions tableVersions = new TableVersions();
+        CacheSnapshot snapshot = CacheSnapshot.open(file, tableVersions, getClass().getClassLoader());
+        CacheManager cacheManager = newCacheManager(new TinyLfuCache<>(ENTRIES), snapshot, tableVersions);
+        int restored = 0;
+        for (CacheKey key : keys) {
+            if (cacheManager.get(key) != null) {
+                restored++;
+            }
+        }
+        if (restored != ENTRIES) {
+            throw new IllegalStateException("只恢复了 " + restored + " 个缓存项");
+        }
+        return restored;
+    }
+
+    private static CacheManager newCacheManager(TinyLfuCache<CacheKey, Object> cache, CacheSnapshot snapshot,
+                                                TableVersions tableVersions) {
+        CacheConfig config = new CacheConfig(true, TimeUnit.HOURS.toMillis(1), ENTRIES);
+        config.setFirstLevelCacheEnabled(false);
+        return new CacheManager(config, cache, null, snapshot, tableVersions, new CacheStatistics());
+    }
+}
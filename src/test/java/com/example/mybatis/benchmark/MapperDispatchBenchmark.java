@@ -0,0 +1,220 @@
+package com.example.mybatis.benchmark;
+
+import com.example.mybatis.annotation.Delete;
+import com.example.mybatis.annotation.Insert;
+import com.example.mybatis.annotation.Select;
+import com.example.mybatis.annotation.SelectIf;
+import com.example.mybatis.annotation.Update;
+import com.example.mybatis.binding.ParameterBinding;
+import com.example.mybatis.core.MappedStatement;
+import com.example.mybatis.core.MapperProxy;
+import com.example.mybatis.core.MyBatisConfiguration;
+import com.example.mybatis.core.SqlSession;
+import com.example.mybatis.cursor.Cursor;
+import com.example.mybatis.executor.BatchResult;
+import com.example.mybatis.result.ResultHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapper方法分发基准测试 - 每次调用解析注解（原实现）与缓存MapperMethod描述符对比
+ *
+ * 会话为直接返回固定结果的桩实现，只测量代理分发本身的开销；
+ * 原实现按INFO级别记录每次调用，这里不包含日志，两者都只比较分发逻辑
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperDispatchBenchmark {
+
+    public interface ProductMapper {
+        @Select("SELECT * FROM products WHERE id = ?")
+        Map<String, Object> findById(Long id);
+
+        @Select("SELECT * FROM products WHERE category = ?")
+        List<Map<String, Object>> findByCategory(String category);
+
+        @Delete("DELETE FROM products WHERE id = ?")
+        int deleteById(Long id);
+    }
+
+    private ProductMapper legacy;
+
+    private ProductMapper cached;
+
+    @Setup
+    public void setUp() throws Exception {
+        MyBatisConfiguration configuration = new MyBatisConfiguration();
+        for (Method method : ProductMapper.class.getDeclaredMethods()) {
+            String sql = method.isAnnotationPresent(Select.class)
+                    ? method.getAnnotation(Select.class).value() : method.getAnnotation(Delete.class).value();
+            MappedStatement statement = new MappedStatement(ProductMapper.class.getName() + "." + method.getName(),
+                    method.isAnnotationPresent(Select.class)
+                            ? MappedStatement.SqlCommandType.SELECT : MappedStatement.SqlCommandType.DELETE,
+                    sql, Map.class);
+            statement.setParameterBinding(ParameterBinding.compile(method, sql));
+            configuration.addMappedStatement(statement.getId(), statement);
+        }
+        SqlSession session = new StubSqlSession(configuration);
+        legacy = newProxy(new LegacyMapperProxy(session, ProductMapper.class));
+        cached = newProxy(new MapperProxy<>(session, ProductMapper.class));
+    }
+
+    @Benchmark
+    public Object legacySelectOne() {
+        return legacy.findById(1L);
+    }
+
+    @Benchmark
+    public Object cachedSelectOne() {
+        return cached.findById(1L);
+    }
+
+    @Benchmark
+    public Object legacySelectList() {
+        return legacy.findByCategory("book");
+    }
+
+    @Benchmark
+    public Object cachedSelectList() {
+        return cached.findByCategory("book");
+    }
+
+    @Benchmark
+    public int legacyDelete() {
+        return legacy.deleteById(1L);
+    }
+
+    @Benchmark
+    public int cachedDelete() {
+        return cached.deleteById(1L);
+    }
+
+    private static ProductMapper newProxy(InvocationHandler handler) {
+        return (ProductMapper) Proxy.newProxyInstance(ProductMapper.class.getClassLoader(),
+                new Class<?>[]{ProductMapper.class}, handler);
+    }
+
+    /**
+     * 原MapperProxy的分发逻辑：每次调用拼接语句ID、逐个检查注解、按返回类型选择查询方法
+     */
+    static final class LegacyMapperProxy implements InvocationHandler {
+
+        private final SqlSession sqlSession;
+
+        private final Class<?> mapperInterface;
+
+        LegacyMapperProxy(SqlSession sqlSession, Class<?> mapperInterface) {
+            this.sqlSession = sqlSession;
+            this.mapperInterface = mapperInterface;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (Object.class.equals(method.getDeclaringClass())) {
+                return method.invoke(this, args);
+            }
+            String statementId = mapperInterface.getName() + "." + method.getName();
+            Object parameter = args != null && args.length > 0 ? args[0] : null;
+            if (method.isAnnotationPresent(Select.class)) {
+                if (method.getReturnType().isAssignableFrom(List.class)) {
+                    return sqlSession.selectList(statementId, parameter);
+                }
+                return sqlSession.selectOne(statementId, parameter);
+            } else if (method.isAnnotationPresent(SelectIf.class)) {
+                throw new UnsupportedOperationException(statementId);
+            } else if (method.isAnnotationPresent(Insert.class)) {
+                return sqlSession.insert(statementId, parameter);
+            } else if (method.isAnnotationPresent(Update.class)) {
+                return sqlSession.update(statementId, parameter);
+            } else if (method.isAnnotationPresent(Delete.class)) {
+                return sqlSession.delete(statementId, parameter);
+            }
+            throw new IllegalStateException("方法 " + method.getName() + " 没有找到对应的SQL注解");
+        }
+    }
+
+    /**
+     * 直接返回固定结果的会话
+     */
+    static final class StubSqlSession implements SqlSession {
+
+        private static final Map<String, Object> ROW = Collections.singletonMap("id", 1L);
+
+        private final MyBatisConfiguration configuration;
+
+        StubSqlSession(MyBatisConfiguration configuration) {
+            this.configuration = configuration;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T selectOne(String statement, Object parameter) {
+            return (T) ROW;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <E> List<E> selectList(String statement, Object parameter) {
+            return (List<E>) Collections.singletonList(ROW);
+        }
+
+        @Override
+        public <T> Cursor<T> selectCursor(String statement, Object parameter) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> void select(String statement, Object parameter, ResultHandler<T> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int insert(String statement, Object parameter) {
+            return 1;
+        }
+
+        @Override
+        public int update(String statement, Object parameter) {
+            return 1;
+        }
+
+        @Override
+        public int delete(String statement, Object parameter) {
+            return 1;
+        }
+
+        @Override
+        public List<BatchResult> flushStatements() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void commit() {
+        }
+
+        @Override
+        public <T> T getMapper(Class<T> type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MyBatisConfiguration getConfiguration() {
+            return configuration;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.mybatis.benchmark;
+
+import com.example.mybatis.mapping.BeanResultMapper;
+import com.example.mybatis.mapping.MappingResultSetExtractor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行映射基准测试 - 每次查询新建BeanPropertyRowMapper（原实现）与按列布局缓存的编译映射器对比
+ *
+ * 查询H2内存库，rows为每次查询返回的行数：1行时主要是每次查询的内省和列名解析开销，1000行时主要是逐行映射开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private static final String SQL =
+            "SELECT id, name, price, category, stock_quantity, created_time FROM products WHERE id <= ?";
+
+    @Param({"1", "1000"})
+    private int rows;
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private MappingResultSetExtractor<Product> compiled;
+
+    @Setup
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:row_mapper_bench", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products(id BIGINT PRIMARY KEY, name VARCHAR(100), price DECIMAL(10,2), "
+                + "category VARCHAR(50), stock_quantity INT, created_time TIMESTAMP)");
+        for (int i = 1; i <= 1000; i++) {
+            jdbcTemplate.update("INSERT INTO products VALUES(?, ?, ?, ?, ?, ?)", i, "product-" + i,
+                    BigDecimal.valueOf(i, 2), "category-" + (i % 10), i, new Timestamp(System.currentTimeMillis()));
+        }
+        compiled = new MappingResultSetExtractor<>(BeanResultMapper.forType(Product.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<Product> beanPropertyRowMapper() {
+        return jdbcTemplate.query(SQL, new BeanPropertyRowMapper<>(Product.class), rows);
+    }
+
+    @Benchmark
+    public List<Product> compiledRowMapper() {
+        return jdbcTemplate.query(SQL, compiled, rows);
+    }
+
+    public static class Product {
+        private Long id;
+        private String name;
+        private BigDecimal price;
+        private String category;
+        private Integer stockQuantity;
+        private Timestamp createdTime;
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public BigDecimal getPrice() { return price; }
+        public void setPrice(BigDecimal price) { this.price = price; }
+        public String getCategory() { return category; }
+        public void setCategory(String category) { this.category = category; }
+        public Integer getStockQuantity() { return stockQuantity; }
+        public void setStockQuantity(Integer stockQuantity) { this.stockQuantity = stockQuantity; }
+        public Timestamp getCreatedTime() { return createdTime; }
+        public void setCreatedTime(Timestamp createdTime) { this.createdTime = createdTime; }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.mybatis.benchmark;
+
+import com.example.mybatis.cache.TinyLfuCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 二级缓存并发读写基准测试 - TinyLfuCache与原实现（读写锁保护的ConcurrentHashMap）对比
+ *
+ * 键按Zipf分布（少数热点键占多数访问）从4倍缓存容量的键空间中抽取，分别以1、8、32个线程执行：
+ * read 为预先填满缓存后的纯读取，readThrough 为读取未命中时写入（查询后放入缓存）。
+ * 原实现超出容量时只清理过期项，缓存项不过期时不会缩小，并且每次写入都要扫描整个Map
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TinyLfuCacheBenchmark {
+
+    private static final int MAXIMUM_SIZE = 10_000;
+
+    private static final int KEY_SPACE = MAXIMUM_SIZE * 4;
+
+    /** 预先生成的键序列长度，2的幂 */
+    private static final int SAMPLES = 1 << 16;
+
+    private static final Object VALUE = new Object();
+
+    @Param({"tinyLfu", "rwLockMap"})
+    private String cacheType;
+
+    private BenchmarkCache cache;
+
+    private Integer[] keys;
+
+    @Setup
+    public void setUp() {
+        cache = "tinyLfu".equals(cacheType) ? new TinyLfu() : new RwLockMap();
+        keys = zipfKeys(new Random(42));
+        for (int i = 0; i < MAXIMUM_SIZE; i++) {
+            cache.put(keys[i], VALUE);
+        }
+    }
+
+    /**
+     * 每个线程从键序列的不同位置开始
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int index;
+
+        @Setup
+        public void setUp() {
+            index = new Random().nextInt(SAMPLES);
+        }
+
+        Integer next(Integer[] keys) {
+            return keys[index++ & (SAMPLES - 1)];
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object read1(Cursor cursor) {
+        return cache.get(cursor.next(keys));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object read8(Cursor cursor) {
+        return cache.get(cursor.next(keys));
+    }
+
+    @Benchmark
+    @Threads(32)
+    public Object read32(Cursor cursor) {
+        return cache.get(cursor.next(keys));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object readThrough1(Cursor cursor) {
+        return readThrough(cursor.next(keys));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object readThrough8(Cursor cursor) {
+        return readThrough(cursor.next(keys));
+    }
+
+    @Benchmark
+    @Threads(32)
+    public Object readThrough32(Cursor cursor) {
+        return readThrough(cursor.next(keys));
+    }
+
+    private Object readThrough(Integer key) {
+        Object value = cache.get(key);
+        if (value == null) {
+            cache.put(key, VALUE);
+            value = VALUE;
+        }
+        return value;
+    }
+
+    /**
+     * 按Zipf分布（指数约为1）抽取键，再打乱键的编号，使热点键在哈希表中分散
+     */
+    private static Integer[] zipfKeys(Random random) {
+        double[] cumulative = new double[KEY_SPACE];
+        double sum = 0;
+        for (int i = 0; i < KEY_SPACE; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        Integer[] ids = new Integer[KEY_SPACE];
+        for (int i = 0; i < KEY_SPACE; i++) {
+            ids[i] = i * 0x9E3779B1;
+        }
+        Integer[] keys = new Integer[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            keys[i] = ids[Math.min(rank < 0 ? -rank - 1 : rank, KEY_SPACE - 1)];
+        }
+        return keys;
+    }
+
+    interface BenchmarkCache {
+        Object get(Integer key);
+
+        void put(Integer key, Object value);
+    }
+
+    static final class TinyLfu implements BenchmarkCache {
+
+        private final TinyLfuCache<Integer, Object> cache = new TinyLfuCache<>(MAXIMUM_SIZE);
+
+        @Override
+        public Object get(Integer key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public void put(Integer key, Object value) {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * 原二级缓存：读操作持有读锁，写操作持有写锁，超出容量时扫描并移除过期项
+     */
+    static final class RwLockMap implements BenchmarkCache {
+
+        private final Map<Integer, Entry> map = new ConcurrentHashMap<>();
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        @Override
+        public Object get(Integer key) {
+            lock.readLock().lock();
+            try {
+                Entry entry = map.get(key);
+                return entry != null && !entry.isExpired() ? entry.value : null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void put(Integer key, Object value) {
+            lock.writeLock().lock();
+            try {
+                map.put(key, new Entry(value, System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(5)));
+                if (map.size() > MAXIMUM_SIZE) {
+                    map.entrySet().removeIf(e -> e.getValue().isExpired());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private static final class Entry {
+
+            private final Object value;
+
+            private final long expireTime;
+
+            Entry(Object value, long expireTime) {
+                this.value = value;
+                this.expireTime = expireTime;
+            }
+
+            boolean isExpired() {
+                return System.currentTimeMillis() > expireTime;
+            }
+        }
+    }
+}
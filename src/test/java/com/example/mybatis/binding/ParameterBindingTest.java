@@ -0,0 +1,114 @@
+package com.example.mybatis.binding;
+
+import com.example.mybatis.annotation.Param;
+import com.example.mybatis.annotation.SelectIf;
+import com.example.mybatis.exception.MyBatisException;
+import com.example.mybatis.result.ResultHandler;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 参数绑定计划编译测试
+ */
+public class ParameterBindingTest {
+
+    interface Mapper {
+        Map<String, Object> findById(Long id);
+
+        Map<String, Object> findByCategory(String category, int limit);
+
+        void scan(String category, ResultHandler<Map<String, Object>> handler);
+
+        Map<String, Object> findByName(@Param("name") String name);
+
+        Map<String, Object> find(Object[] args);
+
+        @SelectIf(value = "SELECT * FROM products WHERE price > ?", condition = "minPrice != null",
+                elseSql = "SELECT * FROM products")
+        Map<String, Object> findByPrice(BigDecimal minPrice);
+    }
+
+    /**
+     * 占位符与参数个数一致时方法实参直接作为JDBC参数
+     */
+    @Test
+    public void testPositionalIdentity() throws Exception {
+        ParameterBinding binding = compile("findById", "SELECT * FROM products WHERE id = ?");
+        assertTrue(binding.isIdentity());
+        Object[] args = {1L};
+        assertSame(args, binding.bind(args));
+    }
+
+    /**
+     * ResultHandler参数不参与绑定，不计入参数个数
+     */
+    @Test
+    public void testPositionalSkipsResultHandler() throws Exception {
+        ParameterBinding binding = compile("scan", "SELECT * FROM products WHERE category = ?");
+        assertFalse(binding.isIdentity());
+        assertArrayEquals(new Object[]{"book"}, binding.bind(new Object[]{"book", null}));
+    }
+
+    /**
+     * ? 占位符少于参数时有参数不会被绑定，注册时拒绝
+     */
+    @Test
+    public void testRejectsFewerPlaceholdersThanArguments() throws Exception {
+        MyBatisException e = assertThrows(MyBatisException.class,
+                () -> compile("findByCategory", "SELECT * FROM products WHERE category = ?"));
+        assertEquals("PARAMETER_BINDING_ERROR", e.getErrorCode());
+        assertThrows(MyBatisException.class,
+                () -> compile("scan", "SELECT * FROM products"));
+    }
+
+    /**
+     * @SelectIf 的参数可能只在条件中使用，分支SQL允许少于参数的占位符
+     */
+    @Test
+    public void testSelectIfBranchMayIgnoreArguments() throws Exception {
+        ParameterBinding binding = compile("findByPrice", "SELECT * FROM products");
+        assertArrayEquals(new Object[0], binding.bind(new Object[]{null}));
+    }
+
+    /**
+     * 引号中的 ? 不是占位符
+     */
+    @Test
+    public void testQuotedQuestionMarkIsNotPlaceholder() throws Exception {
+        assertThrows(MyBatisException.class,
+                () -> compile("findById", "SELECT * FROM products WHERE name = '?'"));
+    }
+
+    /**
+     * Object[]参数按数组展开，不校验占位符个数
+     */
+    @Test
+    public void testObjectArraySpread() throws Exception {
+        ParameterBinding binding = compile("find", "SELECT * FROM products WHERE id = ? AND name = ?");
+        assertArrayEquals(new Object[]{1L, "a"}, binding.bind(new Object[]{new Object[]{1L, "a"}}));
+    }
+
+    /**
+     * 命名占位符改写为 ? 并按名称取值
+     */
+    @Test
+    public void testNamedPlaceholder() throws Exception {
+        ParameterBinding binding = compile("findByName", "SELECT * FROM products WHERE name = #{name} OR code = #{name}");
+        assertEquals("SELECT * FROM products WHERE name = ? OR code = ?", binding.getSql());
+        assertArrayEquals(new Object[]{"x", "x"}, binding.bind(new Object[]{"x"}));
+    }
+
+    private static ParameterBinding compile(String methodName, String sql) throws Exception {
+        for (Method method : Mapper.class.getDeclaredMethods()) {
+            if (method.getName().equals(methodName)) {
+                return ParameterBinding.compile(method, sql);
+            }
+        }
+        throw new NoSuchMethodException(methodName);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.mybatis.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多级缓存的读取和统计
+ */
+public class CacheManagerTest {
+
+    private static final String[] TABLES = {"products"};
+
+    /**
+     * 一级和二级缓存保存同一个缓存项，依赖的表被写入后读取一次只记录一次失效
+     */
+    @Test
+    public void testInvalidationRecordedOncePerLookup() {
+        CacheStatistics statistics = new CacheStatistics();
+        TableVersions tableVersions = new TableVersions();
+        CacheManager cacheManager = newCacheManager(tableVersions, statistics);
+        CacheKey key = new CacheKey("test.findAll", "SELECT * FROM products", new Object[0]);
+
+        cacheManager.put(key, Collections.singletonList("a"), cacheManager.stamp(TABLES));
+        assertNotNull(cacheManager.get(key));
+        cacheManager.invalidateTables(TABLES);
+
+        assertNull(cacheManager.get(key));
+        assertEquals(1, statistics.getInvalidations());
+        assertEquals(0, statistics.getExpirations());
+        // 失效的缓存项已从两级缓存移除
+        assertNull(cacheManager.get(key));
+        assertEquals(1, statistics.getInvalidations());
+    }
+
+    /**
+     * 一级和二级缓存保存同一个缓存项，过期后读取一次只记录一次过期
+     */
+    @Test
+    public void testExpirationRecordedOncePerLookup() throws InterruptedException {
+        CacheStatistics statistics = new CacheStatistics();
+        CacheManager cacheManager = newCacheManager(new TableVersions(), statistics);
+        CacheKey key = new CacheKey("test.findAll", "SELECT * FROM products", new Object[0]);
+
+        cacheManager.put(key, Collections.singletonList("a"), null, 1, 0);
+        Thread.sleep(10);
+
+        assertNull(cacheManager.get(key));
+        assertEquals(1, statistics.getExpirations());
+        assertEquals(0, statistics.getInvalidations());
+    }
+
+    private static CacheManager newCacheManager(TableVersions tableVersions, CacheStatistics statistics) {
+        CacheConfig config = new CacheConfig(true, 60000, 100);
+        config.setFirstLevelCacheEnabled(true);
+        config.setEnableStats(true);
+        return new CacheManager(config, new TinyLfuCache<>(100), tableVersions, statistics);
+    }
+}
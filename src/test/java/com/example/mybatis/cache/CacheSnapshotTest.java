@@ -0,0 +1,220 @@
+package com.example.mybatis.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 缓存快照的写入、映射和缓存项的丢弃规则
+ */
+public class CacheSnapshotTest {
+
+    private static final String[] ORDERS = {"orders"};
+
+    private static final String[] PRODUCTS = {"products"};
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+
+    private TableVersions tableVersions;
+
+    private TinyLfuCache<CacheKey, Object> cache;
+
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void setUp() {
+        file = dir.resolve("cache.snapshot");
+        tableVersions = new TableVersions();
+        cache = new TinyLfuCache<>(100);
+        CacheConfig config = new CacheConfig(true, 60000, 100);
+        config.setFirstLevelCacheEnabled(false);
+        cacheManager = new CacheManager(config, cache, tableVersions, new CacheStatistics());
+    }
+
+    /**
+     * 写入后在新进程（新的表版本）中映射，缓存键和结果往返不变；不支持的结果和已失效的缓存项不保存
+     */
+    @Test
+    public void testWriteOpenGetRoundTrip() throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("ID", 1L);
+        row.put("PRICE", new BigDecimal("9.90"));
+        CacheKey byId = key("findById", 1L);
+        CacheKey byIds = new CacheKey("test.findByIds", "SELECT * FROM orders WHERE id IN (?)",
+                new Object[]{Arrays.asList(1L, 2L)});
+        cacheManager.put(byId, Collections.singletonList(row), cacheManager.stamp(ORDERS));
+        cacheManager.put(byIds, Arrays.asList("a", "b"), cacheManager.stamp(ORDERS));
+        cacheManager.put(key("names", 1L), Collections.singletonList(Thread.State.NEW), null);
+        CacheKey stale = key("stale", 1L);
+        cacheManager.put(stale, Collections.singletonList("x"), cacheManager.stamp(PRODUCTS));
+        tableVersions.increment(PRODUCTS);
+
+        CacheSnapshotWriter writer = new CacheSnapshotWriter(file, cache, null, tableVersions);
+        assertEquals(2, writer.write());
+        assertFalse(Files.exists(dir.resolve("cache.snapshot.tmp")));
+
+        CacheSnapshot snapshot = open();
+        assertNotNull(snapshot);
+        assertEquals(2, snapshot.getEntryCount());
+        CacheSnapshot.Restored restored = snapshot.get(key("findById", 1L));
+        assertEquals(Collections.singletonList(row), restored.value);
+        assertArrayEquals(ORDERS, restored.stamp.getTables());
+        assertTrue(restored.expireTime > System.currentTimeMillis());
+        // 参数中的集合读出为List，与对象数组或其他集合按内容相等
+        assertEquals(Arrays.asList("a", "b"), snapshot.get(new CacheKey("test.findByIds",
+                "SELECT * FROM orders WHERE id IN (?)", new Object[]{new Object[]{1L, 2L}})).value);
+        assertNull(snapshot.get(key("findById", 2L)));
+        assertNull(snapshot.get(stale));
+        assertNull(snapshot.get(key("names", 1L)));
+
+        // 本进程中写入依赖的表后不再返回
+        tableVersions = new TableVersions();
+        snapshot = open();
+        tableVersions.increment(ORDERS);
+        assertNull(snapshot.get(key("findById", 1L)));
+    }
+
+    /**
+     * 未标记完成的文件（写入期间进程退出）和不存在的文件被忽略
+     */
+    @Test
+    public void testIncompleteSnapshotIgnored() throws IOException {
+        cacheManager.put(key("findById", 1L), Collections.singletonList("a"), cacheManager.stamp(ORDERS));
+        new CacheSnapshotWriter(file, cache, null, tableVersions).write();
+        assertNotNull(open());
+
+        writeInt(CacheSnapshot.OFFSET_COMPLETE, 0);
+        assertNull(open());
+        assertNull(CacheSnapshot.open(dir.resolve("missing"), tableVersions, getClass().getClassLoader()));
+        Files.write(file, new byte[]{1, 2, 3});
+        assertNull(open());
+    }
+
+    /**
+     * 快照写完后的表写入记录在文件中，重新映射时依赖这些表（或依赖所有表）的缓存项被丢弃
+     */
+    @Test
+    public void testJournaledTableWritesDropDependentEntries() throws IOException {
+        cacheManager.put(key("orders", 1L), Collections.singletonList("o"), cacheManager.stamp(ORDERS));
+        cacheManager.put(key("products", 1L), Collections.singletonList("p"), cacheManager.stamp(PRODUCTS));
+        cacheManager.put(key("all", 1L), Collections.singletonList("*"), cacheManager.stamp(null));
+        cacheManager.put(key("none", 1L), Collections.singletonList("-"), null);
+        CacheSnapshotWriter writer = new CacheSnapshotWriter(file, cache, null, tableVersions);
+        writer.start(0);
+        try {
+            assertEquals(4, writer.write());
+            tableVersions.increment(ORDERS);
+        } finally {
+            tableVersions.setWriteListener(null);
+        }
+
+        tableVersions = new TableVersions();
+        CacheSnapshot snapshot = open();
+        assertNotNull(snapshot);
+        assertNull(snapshot.get(key("orders", 1L)));
+        assertNull(snapshot.get(key("all", 1L)));
+        assertEquals(Collections.singletonList("p"), snapshot.get(key("products", 1L)).value);
+        assertEquals(Collections.singletonList("-"), snapshot.get(key("none", 1L)).value);
+    }
+
+    /**
+     * 快照写完后发生写入表未知的写操作，整个快照作废
+     */
+    @Test
+    public void testUnknownTableWriteVoidsSnapshot() throws IOException {
+        cacheManager.put(key("none", 1L), Collections.singletonList("-"), null);
+        CacheSnapshotWriter writer = new CacheSnapshotWriter(file, cache, null, tableVersions);
+        writer.start(0);
+        try {
+            writer.write();
+            assertNotNull(open());
+            tableVersions.increment(new String[0]);
+        } finally {
+            tableVersions.setWriteListener(null);
+        }
+        assertNull(open());
+    }
+
+    /**
+     * 已过期的缓存项不返回，全部过期的快照不映射
+     */
+    @Test
+    public void testExpiredEntries() throws IOException, InterruptedException {
+        cacheManager.put(key("short", 1L), Collections.singletonList("s"), null, 50, 0);
+        cacheManager.put(key("long", 1L), Collections.singletonList("l"), null, 60000, 0);
+        new CacheSnapshotWriter(file, cache, null, tableVersions).write();
+        Thread.sleep(100);
+
+        CacheSnapshot snapshot = open();
+        assertNull(snapshot.get(key("short", 1L)));
+        assertEquals(Collections.singletonList("l"), snapshot.get(key("long", 1L)).value);
+        assertFalse(snapshot.isExpired());
+
+        cache.clear();
+        cacheManager.put(key("short", 1L), Collections.singletonList("s"), null, 50, 0);
+        new CacheSnapshotWriter(file, cache, null, tableVersions).write();
+        Thread.sleep(100);
+        assertNull(open());
+    }
+
+    /**
+     * 堆外缓存中的缓存项同样保存
+     */
+    @Test
+    public void testOffHeapEntriesWritten() throws IOException {
+        OffHeapStore offHeapStore = new OffHeapStore(4096, 4096);
+        offHeapStore.put(key("offHeap", 1L), Collections.singletonList("h"), System.currentTimeMillis() + 60000,
+                tableVersions.stamp(ORDERS));
+        assertEquals(1, new CacheSnapshotWriter(file, cache, offHeapStore, tableVersions).write());
+        assertEquals(Collections.singletonList("h"), open().get(key("offHeap", 1L)).value);
+    }
+
+    /**
+     * 损坏的缓存项视为未命中，不抛出异常
+     */
+    @Test
+    public void testCorruptEntryIsMiss() throws IOException {
+        cacheManager.put(key("findById", 1L), Collections.singletonList("a"), null);
+        new CacheSnapshotWriter(file, cache, null, tableVersions).write();
+        // 第一个缓存项紧跟在文件头之后，改写它的长度
+        writeInt(CacheSnapshot.HEADER_SIZE, Integer.MAX_VALUE);
+        CacheSnapshot snapshot = open();
+        assertNotNull(snapshot);
+        assertNull(snapshot.get(key("findById", 1L)));
+
+        writeInt(CacheSnapshot.HEADER_SIZE, 3);
+        assertNull(open().get(key("findById", 1L)));
+    }
+
+    private CacheSnapshot open() {
+        return CacheSnapshot.open(file, tableVersions, getClass().getClassLoader());
+    }
+
+    private void writeInt(long position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, value), position);
+        }
+    }
+
+    private static CacheKey key(String method, Object parameter) {
+        return new CacheKey("test." + method, "SELECT * FROM t WHERE id = ?", new Object[]{parameter});
+    }
+
+}
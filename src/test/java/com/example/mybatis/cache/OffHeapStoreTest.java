@@ -0,0 +1,131 @@
+package com.example.mybatis.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 堆外缓存层：块的分配和回收、块被改写后的读取、清空
+ */
+public class OffHeapStoreTest {
+
+    private static final int SLAB_BYTES = 256;
+
+    /** 编码后约100字节，一个块放两个 */
+    private static final String VALUE = repeat('x', 90);
+
+    /**
+     * 块数达到上限时整块回收最久未访问的块，其中的缓存项全部移除
+     */
+    @Test
+    public void testLeastRecentlyUsedSlabRecycled() throws InterruptedException {
+        OffHeapStore store = new OffHeapStore(SLAB_BYTES, 2 * SLAB_BYTES);
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(store.put(key(i), value(i), Long.MAX_VALUE, null));
+        }
+        assertEquals(4, store.size());
+        assertEquals(2L * SLAB_BYTES, store.getAllocatedBytes());
+
+        // 读取第一个块，第二个块成为最久未访问的块
+        Thread.sleep(2);
+        assertEquals(value(1), store.decode(key(1), store.get(key(1))));
+        assertTrue(store.put(key(5), value(5), Long.MAX_VALUE, null));
+
+        assertEquals(1, store.getSlabEvictionCount());
+        assertEquals(2, store.getEvictedEntryCount());
+        assertNull(store.get(key(3)));
+        assertNull(store.get(key(4)));
+        assertEquals(value(1), decode(store, 1));
+        assertEquals(value(2), decode(store, 2));
+        assertEquals(value(5), decode(store, 5));
+        assertEquals(2L * SLAB_BYTES, store.getAllocatedBytes());
+    }
+
+    /**
+     * 块被回收后，之前取得的位置代数不一致，读取视为未命中并从索引中移除
+     */
+    @Test
+    public void testGenerationMismatchIsMiss() throws InterruptedException {
+        OffHeapStore store = new OffHeapStore(SLAB_BYTES, SLAB_BYTES);
+        store.put(key(1), value(1), Long.MAX_VALUE, null);
+        store.put(key(2), value(2), Long.MAX_VALUE, null);
+        OffHeapStore.Location stale = store.get(key(1));
+
+        // 只有一个块，写不下时回收它
+        Thread.sleep(2);
+        store.put(key(3), value(3), Long.MAX_VALUE, null);
+        assertNull(store.get(key(1)));
+        assertNull(store.decode(key(1), stale));
+        assertNull(store.peek(stale));
+        assertEquals(value(3), decode(store, 3));
+
+        // 键被重新写入后，旧位置的未命中不移除新的索引项
+        store.put(key(1), value(1), Long.MAX_VALUE, null);
+        assertNull(store.decode(key(1), stale));
+        assertEquals(value(1), decode(store, 1));
+    }
+
+    /**
+     * 清空后所有位置失效，已分配的块保留并从第一个块重新写入
+     */
+    @Test
+    public void testClear() {
+        OffHeapStore store = new OffHeapStore(SLAB_BYTES, 4 * SLAB_BYTES);
+        for (int i = 1; i <= 5; i++) {
+            store.put(key(i), value(i), Long.MAX_VALUE, null);
+        }
+        OffHeapStore.Location stale = store.get(key(1));
+        long allocated = store.getAllocatedBytes();
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertNull(store.get(key(1)));
+        assertNull(store.peek(stale));
+        assertEquals(allocated, store.getAllocatedBytes());
+
+        assertTrue(store.put(key(6), value(6), Long.MAX_VALUE, null));
+        assertEquals(value(6), decode(store, 6));
+        assertEquals(allocated, store.getAllocatedBytes());
+        assertEquals(0, store.getSlabEvictionCount());
+    }
+
+    /**
+     * 超过块大小或包含不支持的类型的结果不保存
+     */
+    @Test
+    public void testRejected() {
+        OffHeapStore store = new OffHeapStore(SLAB_BYTES, SLAB_BYTES);
+        assertFalse(store.put(key(1), Collections.singletonList(repeat('y', SLAB_BYTES)), Long.MAX_VALUE, null));
+        assertFalse(store.put(key(2), Collections.singletonList(Thread.State.NEW), Long.MAX_VALUE, null));
+        assertEquals(2, store.getRejectedCount());
+        assertEquals(0, store.size());
+
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapStore(0, SLAB_BYTES));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapStore(SLAB_BYTES, SLAB_BYTES - 1));
+    }
+
+    private static List<Object> decode(OffHeapStore store, int i) {
+        OffHeapStore.Location location = store.get(key(i));
+        assertNotNull(location, "key" + i);
+        return store.decode(key(i), location);
+    }
+
+    private static CacheKey key(int i) {
+        return new CacheKey("test.find", "SELECT ?", new Object[]{i});
+    }
+
+    private static List<Object> value(int i) {
+        return Collections.singletonList(VALUE + i);
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
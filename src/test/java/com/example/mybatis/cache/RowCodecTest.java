@@ -0,0 +1,315 @@
+package com.example.mybatis.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 查询结果二进制编码的往返和拒绝编码的情况
+ */
+public class RowCodecTest {
+
+    public enum Status { ACTIVE }
+
+    public static class Product {
+        private Long id;
+        private String name;
+        private BigDecimal price;
+        private int stock;
+        private boolean active;
+        private Number amount;
+        private Object extra;
+        private Date created;
+        private byte[] data;
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public BigDecimal getPrice() { return price; }
+        public void setPrice(BigDecimal price) { this.price = price; }
+        public int getStock() { return stock; }
+        public void setStock(int stock) { this.stock = stock; }
+        public boolean isActive() { return active; }
+        public void setActive(boolean active) { this.active = active; }
+        public Number getAmount() { return amount; }
+        public void setAmount(Number amount) { this.amount = amount; }
+        public Object getExtra() { return extra; }
+        public void setExtra(Object extra) { this.extra = extra; }
+        public Date getCreated() { return created; }
+        public void setCreated(Date created) { this.created = created; }
+        public byte[] getData() { return data; }
+        public void setData(byte[] data) { this.data = data; }
+
+        /** 只有getter的派生属性 */
+        public String getLabel() {
+            return name + "#" + id;
+        }
+    }
+
+    public static class SpecialProduct extends Product {
+        private String tag;
+
+        public String getTag() { return tag; }
+        public void setTag(String tag) { this.tag = tag; }
+    }
+
+    /** 只有setter的属性无法读出 */
+    public static class WriteOnly {
+        private String secret;
+        private Long id;
+
+        public void setSecret(String secret) { this.secret = secret; }
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+    }
+
+    public static class WithEnum {
+        private Status status;
+
+        public Status getStatus() { return status; }
+        public void setStatus(Status status) { this.status = status; }
+    }
+
+    public static class WithCollection {
+        private List<String> tags;
+
+        public List<String> getTags() { return tags; }
+        public void setTags(List<String> tags) { this.tags = tags; }
+    }
+
+    public static class NoDefaultConstructor {
+        private final Long id;
+
+        public NoDefaultConstructor(Long id) { this.id = id; }
+        public Long getId() { return id; }
+    }
+
+    /**
+     * 每种类型标记的值往返后类型和值都不变：BigDecimal的精度、Timestamp的纳秒、负的Instant、byte[]
+     */
+    @Test
+    public void testScalarTagsRoundTrip() {
+        Timestamp timestamp = new Timestamp(-TimeUnit.DAYS.toMillis(400) + 123);
+        timestamp.setNanos(123456789);
+        List<Object> values = Arrays.asList(
+                "text", "", "中文", null,
+                0L, Long.MIN_VALUE, Long.MAX_VALUE,
+                -5, Integer.MIN_VALUE,
+                (short) -3, (byte) -128,
+                1.5d, -0.0d, Double.NaN, Float.MAX_VALUE,
+                true, false, 'é',
+                new BigDecimal("-123.4500"), new BigDecimal("1E+5"), new BigDecimal("0.000"),
+                new BigDecimal("123456789012345678901234567890.12"),
+                BigInteger.valueOf(-42), new BigInteger("-123456789012345678901234567890"),
+                new Date(1700000000123L), new java.sql.Date(-86400000L), new Time(3723000L), timestamp,
+                LocalDate.of(1900, 1, 1), LocalTime.of(23, 59, 59, 999999999),
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1),
+                Instant.ofEpochSecond(-1, 5), Instant.parse("1800-06-01T12:00:00.000000001Z"),
+                Instant.ofEpochSecond(1700000000L, 999999999));
+
+        List<Object> decoded = roundTrip(new RowCodec(), values);
+        assertEquals(values.size(), decoded.size());
+        for (int i = 0; i < values.size(); i++) {
+            Object expected = values.get(i);
+            Object actual = decoded.get(i);
+            assertEquals(expected, actual, "第" + i + "个值");
+            if (expected != null) {
+                assertSame(expected.getClass(), actual.getClass(), "第" + i + "个值");
+            }
+        }
+        assertEquals(4, ((BigDecimal) decoded.get(18)).scale());
+        assertEquals(-5, ((BigDecimal) decoded.get(19)).scale());
+        assertEquals(123456789, ((Timestamp) decoded.get(27)).getNanos());
+
+        byte[] bytes = {0, -1, 127, -128};
+        List<Object> decodedBytes = roundTrip(new RowCodec(), Arrays.asList(bytes, new byte[0]));
+        assertArrayEquals(bytes, (byte[]) decodedBytes.get(0));
+        assertArrayEquals(new byte[0], (byte[]) decodedBytes.get(1));
+    }
+
+    /**
+     * JavaBean：所有有setter的属性往返，声明为Number、Object、Date的属性保留值的实际类型，空值保留为null
+     */
+    @Test
+    public void testBeanRoundTrip() {
+        Timestamp created = new Timestamp(1700000000000L);
+        created.setNanos(5);
+        Product full = product(1L, "pen");
+        full.setPrice(new BigDecimal("19.90"));
+        full.setStock(-7);
+        full.setActive(true);
+        full.setAmount(new BigInteger("123456789012345678901234567890"));
+        full.setExtra(LocalDate.of(2024, 2, 29));
+        full.setCreated(created);
+        full.setData(new byte[]{1, 2, 3});
+        Product empty = new Product();
+
+        RowCodec codec = new RowCodec();
+        List<Object> decoded = roundTrip(codec, Arrays.asList(full, empty));
+        Product first = (Product) decoded.get(0);
+        assertEquals(1L, first.getId());
+        assertEquals("pen", first.getName());
+        assertEquals(new BigDecimal("19.90"), first.getPrice());
+        assertEquals(-7, first.getStock());
+        assertTrue(first.isActive());
+        assertEquals(full.getAmount(), first.getAmount());
+        assertEquals(LocalDate.of(2024, 2, 29), first.getExtra());
+        assertEquals(Timestamp.class, first.getCreated().getClass());
+        assertEquals(created, first.getCreated());
+        assertArrayEquals(new byte[]{1, 2, 3}, first.getData());
+        assertEquals("pen#1", first.getLabel());
+
+        Product second = (Product) decoded.get(1);
+        assertNull(second.getId());
+        assertNull(second.getName());
+        assertNull(second.getExtra());
+        assertEquals(0, second.getStock());
+
+        // 同一类型的属性模式只登记一次
+        RowCodec.Output out = codec.encode(Collections.singletonList(full));
+        assertNotNull(out);
+        assertEquals(1L, ((Product) codec.decode(bytes(out)).get(0)).getId());
+    }
+
+    /**
+     * Map结果：LinkedCaseInsensitiveMap解码后仍不区分大小写，列顺序和值不变
+     */
+    @Test
+    public void testMapRowsRoundTrip() {
+        List<Object> rows = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            Map<String, Object> row = new LinkedCaseInsensitiveMap<>();
+            row.put("ID", id);
+            row.put("NAME", id == 2 ? null : "p" + id);
+            row.put("PRICE", new BigDecimal("1.50"));
+            rows.add(row);
+        }
+        List<Object> decoded = roundTrip(new RowCodec(), rows);
+        assertEquals(rows, decoded);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> first = (Map<String, Object>) decoded.get(0);
+        assertTrue(first instanceof LinkedCaseInsensitiveMap);
+        assertEquals(1L, first.get("id"));
+        assertEquals(Arrays.asList("ID", "NAME", "PRICE"), new ArrayList<>(first.keySet()));
+        assertTrue(((Map<?, ?>) decoded.get(1)).containsKey("name"));
+
+        Map<String, Object> plain = new LinkedHashMap<>();
+        plain.put("id", 1L);
+        Object decodedPlain = roundTrip(new RowCodec(), Collections.singletonList(plain)).get(0);
+        assertEquals(LinkedHashMap.class, decodedPlain.getClass());
+        assertEquals(plain, decodedPlain);
+
+        assertEquals(Collections.emptyList(), roundTrip(new RowCodec(), Collections.emptyList()));
+    }
+
+    /**
+     * 不能无损往返的结果不编码
+     */
+    @Test
+    public void testUnsupportedResultsRejected() {
+        RowCodec codec = new RowCodec();
+
+        // Map的类型不一致、不是LinkedHashMap、列不一致或键不是字符串
+        Map<String, Object> plain = new LinkedHashMap<>();
+        plain.put("id", 1L);
+        Map<String, Object> caseInsensitive = new LinkedCaseInsensitiveMap<>();
+        caseInsensitive.put("id", 2L);
+        assertNull(codec.encode(Arrays.asList(plain, caseInsensitive)));
+        assertNull(codec.encode(Arrays.asList(caseInsensitive, plain)));
+        assertNull(codec.encode(Collections.singletonList(new HashMap<>(plain))));
+        Map<String, Object> otherColumns = new LinkedHashMap<>();
+        otherColumns.put("name", "x");
+        assertNull(codec.encode(Arrays.asList(plain, otherColumns)));
+        Map<Object, Object> numericKeys = new LinkedHashMap<>();
+        numericKeys.put(1, "x");
+        assertNull(codec.encode(Collections.singletonList(numericKeys)));
+        Map<String, Object> enumValue = new LinkedHashMap<>();
+        enumValue.put("status", Status.ACTIVE);
+        assertNull(codec.encode(Collections.singletonList(enumValue)));
+
+        // 子类的属性多于父类的模式；null行
+        assertNull(codec.encode(Arrays.asList(product(1L, "a"), new SpecialProduct())));
+        assertNull(codec.encode(Arrays.asList(product(1L, "a"), null)));
+
+        // 不支持的属性类型、不支持的属性值、只有setter的属性、没有无参构造器
+        WithEnum withEnum = new WithEnum();
+        withEnum.setStatus(Status.ACTIVE);
+        assertNull(codec.encode(Collections.singletonList(withEnum)));
+        assertNull(codec.encode(Collections.singletonList(new WithCollection())));
+        Product withEnumExtra = product(1L, "a");
+        withEnumExtra.setExtra(Status.ACTIVE);
+        assertNull(codec.encode(Collections.singletonList(withEnumExtra)));
+        WriteOnly writeOnly = new WriteOnly();
+        writeOnly.setSecret("s");
+        writeOnly.setId(1L);
+        assertNull(codec.encode(Collections.singletonList(writeOnly)));
+        assertNull(codec.encode(Collections.singletonList(new NoDefaultConstructor(1L))));
+
+        // 单列值中的不支持类型
+        assertNull(codec.encode(Arrays.asList("a", Status.ACTIVE)));
+
+        // 子类作为第一行时按子类的模式编码
+        SpecialProduct special = new SpecialProduct();
+        special.setId(3L);
+        special.setTag("new");
+        SpecialProduct decoded = (SpecialProduct) roundTrip(codec, Collections.singletonList(special)).get(0);
+        assertEquals(3L, decoded.getId());
+        assertEquals("new", decoded.getTag());
+    }
+
+    /**
+     * 另一个编码器实例（如上次运行）写出的结果按属性名解码
+     */
+    @Test
+    public void testForeignSchemas() {
+        RowCodec writer = new RowCodec();
+        writer.encode(Collections.singletonList(new SpecialProduct()));
+        RowCodec.Output data = writer.encode(Collections.singletonList(product(9L, "cup")));
+        RowCodec.Output schemas = new RowCodec.Output(64);
+        writer.writeSchemas(schemas);
+
+        RowCodec reader = new RowCodec();
+        RowCodec.ForeignSchemas foreign = reader.readSchemas(new RowCodec.Input(bytes(schemas)),
+                getClass().getClassLoader());
+        Product decoded = (Product) reader.decode(bytes(data), foreign).get(0);
+        assertEquals(9L, decoded.getId());
+        assertEquals("cup", decoded.getName());
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+
+    private static List<Object> roundTrip(RowCodec codec, List<?> rows) {
+        RowCodec.Output out = codec.encode(rows);
+        assertNotNull(out, "结果应可以编码");
+        return codec.decode(bytes(out));
+    }
+
+    private static byte[] bytes(RowCodec.Output out) {
+        return Arrays.copyOf(out.array(), out.size());
+    }
+}
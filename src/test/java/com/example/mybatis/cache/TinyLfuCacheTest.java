@@ -0,0 +1,220 @@
+package com.example.mybatis.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * W-TinyLFU淘汰策略测试：窗口、试用区、保护区之间的移动，准入判断和频率草图，以及时间轮过期
+ */
+public class TinyLfuCacheTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    /**
+     * 试用区中再次被访问的缓存项进入保护区，不会被之后的高频候选者淘汰；
+     * 只访问过一次的缓存项被高频候选者替换
+     */
+    @Test
+    public void testProbationHitPromotedToProtected() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+        cache.put("a", "a");
+        cache.put("b", "b");
+        // a 已从窗口进入试用区，再次访问后进入保护区
+        assertEquals("a", cache.get("a"));
+        cache.cleanUp();
+        for (char c = 'c'; c <= 'j'; c++) {
+            cache.put(String.valueOf(c), "x");
+        }
+        assertEquals(10, cache.size());
+
+        // 每个热点键写入6次，下一个热点键进入时它离开窗口成为候选者，频率高于试用区头部的牺牲者
+        for (int i = 1; i <= 9; i++) {
+            for (int n = 0; n < 6; n++) {
+                cache.put("hot" + i, "h");
+            }
+        }
+        assertEquals("a", cache.peek("a"));
+        for (char c = 'b'; c <= 'j'; c++) {
+            assertNull(cache.peek(String.valueOf(c)), String.valueOf(c));
+        }
+        for (int i = 1; i <= 9; i++) {
+            assertEquals("h", cache.peek("hot" + i));
+        }
+        assertEquals(10, cache.size());
+        assertEquals(9, cache.getEvictionCount());
+    }
+
+    /**
+     * 一次性扫描的键只在窗口中停留，不能替换试用区中频率更高的缓存项
+     */
+    @Test
+    public void testScanDoesNotFlushFrequentEntries() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 100; i++) {
+            for (int n = 0; n < 3; n++) {
+                cache.put("k" + i, "v");
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            cache.put("s" + i, "v");
+            // 新写入的键先进入窗口，写入后立即可读
+            assertEquals("v", cache.peek("s" + i));
+        }
+        for (int i = 0; i < 99; i++) {
+            assertEquals("v", cache.peek("k" + i), "k" + i);
+        }
+        // 扫描开始时 k99 还在窗口中，离开窗口时与试用区头部频率相同，不被准入
+        assertNull(cache.peek("k99"));
+        for (int i = 0; i < 199; i++) {
+            assertNull(cache.peek("s" + i), "s" + i);
+        }
+        assertEquals(100, cache.size());
+    }
+
+    /**
+     * 候选者频率高于牺牲者时总是准入；频率不高于牺牲者时，
+     * 只有超过阈值才按小概率准入，避免构造同频键让热点永远无法进入
+     */
+    @Test
+    public void testAdmissionHashFloodingThreshold() {
+        int threshold = TinyLfuCache.ADMIT_HASHDOS_THRESHOLD;
+        int admittedAboveThreshold = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(TinyLfuCache.admits(7, 3));
+            assertTrue(TinyLfuCache.admits(1, 0));
+            assertFalse(TinyLfuCache.admits(3, 7));
+            assertFalse(TinyLfuCache.admits(threshold, threshold));
+            assertFalse(TinyLfuCache.admits(threshold, 15));
+            if (TinyLfuCache.admits(threshold + 1, threshold + 1)) {
+                admittedAboveThreshold++;
+            }
+        }
+        // 期望约 10000 / 128 次
+        assertTrue(admittedAboveThreshold > 0, "超过阈值时应偶尔准入");
+        assertTrue(admittedAboveThreshold < 500, "超过阈值时只按小概率准入: " + admittedAboveThreshold);
+    }
+
+    /**
+     * 频率草图：计数上限为15，累计增加次数达到采样数时所有计数减半
+     */
+    @Test
+    public void testFrequencySketch() {
+        FrequencySketch sketch = new FrequencySketch(100);
+        assertEquals(0, sketch.frequency("a"));
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(15, sketch.frequency("a"));
+
+        // 采样数为最大容量的10倍
+        FrequencySketch small = new FrequencySketch(1);
+        for (int i = 0; i < 8; i++) {
+            small.increment("a");
+        }
+        assertEquals(8, small.frequency("a"));
+        small.increment("b");
+        small.increment("c");
+        assertEquals(4, small.frequency("a"));
+    }
+
+    /**
+     * 时间轮各层：剩余时间不同的缓存项分别放在5层中，时间推进时逐层下移，到期前不被移除，到期后移除
+     */
+    @Test
+    public void testTimerWheelExpiresEntriesOnEveryLevel() {
+        AtomicLong clock = new AtomicLong(START);
+        TinyLfuCache<String, Long> cache = new TinyLfuCache<>(100, null, v -> v, clock::get);
+        // 第0层到第4层：约1秒、1分钟、1.2小时、1.5天、6.2天以内和更远
+        long[] durations = {
+                500,
+                TimeUnit.SECONDS.toMillis(30),
+                TimeUnit.MINUTES.toMillis(30),
+                TimeUnit.HOURS.toMillis(20),
+                TimeUnit.DAYS.toMillis(30)
+        };
+        for (long duration : durations) {
+            cache.put("d" + duration, START + duration);
+        }
+        cache.put("never", TinyLfuCache.NEVER_EXPIRE);
+
+        int expired = 0;
+        for (long duration : durations) {
+            // 分段推进到到期前，缓存项在各层之间移动但不被移除
+            for (long step = duration / 4; step > 0 && clock.get() < START + duration - 2000; step /= 2) {
+                clock.set(Math.max(clock.get(), START + duration - step));
+                cache.cleanUp();
+                assertNotNull(cache.peek("d" + duration), "d" + duration + " 在到期前被移除");
+            }
+            clock.set(START + duration - 1);
+            cache.cleanUp();
+            assertNotNull(cache.peek("d" + duration), "d" + duration + " 在到期前被移除");
+
+            // 过期精度为第0层的一个刻度
+            clock.set(START + duration + (1 << 10));
+            cache.cleanUp();
+            expired++;
+            assertNull(cache.peek("d" + duration), "d" + duration + " 到期后未被移除");
+            assertEquals(expired, cache.getExpirationCount());
+        }
+        assertEquals(1, cache.size());
+        assertNotNull(cache.peek("never"));
+    }
+
+    /**
+     * 重新写入时按新值的过期时间重新放入时间轮
+     */
+    @Test
+    public void testTimerWheelReschedulesOnUpdate() {
+        AtomicLong clock = new AtomicLong(START);
+        TinyLfuCache<String, Long> cache = new TinyLfuCache<>(100, null, v -> v, clock::get);
+        cache.put("a", START + 1000);
+        cache.put("a", START + TimeUnit.MINUTES.toMillis(10));
+        clock.set(START + TimeUnit.MINUTES.toMillis(5));
+        cache.cleanUp();
+        assertNotNull(cache.peek("a"));
+        cache.put("a", TinyLfuCache.NEVER_EXPIRE);
+        clock.set(START + TimeUnit.DAYS.toMillis(60));
+        cache.cleanUp();
+        assertNotNull(cache.peek("a"));
+        assertEquals(0, cache.getExpirationCount());
+    }
+
+    /**
+     * 大量缓存项同时到期时，每次读取最多移除一批，之后的读取从中断处继续；cleanUp一次移除全部
+     */
+    @Test
+    public void testTimerWheelResumesAfterExpireBatch() {
+        int batch = TinyLfuCache.EXPIRE_BATCH;
+        AtomicLong clock = new AtomicLong(START);
+        TinyLfuCache<String, Long> cache = new TinyLfuCache<>(10 * batch, null, v -> v, clock::get);
+        int count = batch * 2 + batch / 2;
+        for (int i = 0; i < count; i++) {
+            cache.put("k" + i, START + 100);
+        }
+        cache.put("later", START + TimeUnit.HOURS.toMillis(1));
+        clock.set(START + 5000);
+
+        assertNull(cache.get("missing"));
+        assertEquals(batch, cache.getExpirationCount());
+        assertEquals(count + 1 - batch, cache.size());
+        assertNull(cache.get("missing"));
+        assertEquals(2L * batch, cache.getExpirationCount());
+        assertNull(cache.get("missing"));
+        assertEquals(count, cache.getExpirationCount());
+        assertEquals(1, cache.size());
+        assertNotNull(cache.peek("later"));
+
+        TinyLfuCache<String, Long> other = new TinyLfuCache<>(10 * batch, null, v -> v, clock::get);
+        for (int i = 0; i < count; i++) {
+            other.put("k" + i, clock.get() + 100);
+        }
+        clock.addAndGet(5000);
+        other.cleanUp();
+        assertEquals(count, other.getExpirationCount());
+        assertEquals(0, other.size());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.mybatis.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IN列表展开和分批拆分测试
+ */
+public class InListExpanderTest {
+
+    private static final int CHUNK_SIZE = 4;
+
+    /**
+     * 顶层AND连接的IN列表按批拆分，最后一批按剩余元素个数分桶
+     */
+    @Test
+    public void testSplitTopLevelConjunct() {
+        List<BoundSql> chunks = split("SELECT * FROM products WHERE category = ? AND id IN (?)",
+                "book", ids(10));
+        assertNotNull(chunks);
+        assertEquals(3, chunks.size());
+        assertEquals("SELECT * FROM products WHERE category = ? AND id IN (?, ?, ?, ?)", chunks.get(0).getPlan().getSql());
+        assertArrayEquals(new Object[]{"book", 1L, 2L, 3L, 4L}, chunks.get(0).getParameters());
+        assertArrayEquals(new Object[]{"book", 9L, 10L}, chunks.get(2).getParameters());
+    }
+
+    /**
+     * 引号中的OR和BETWEEN中的AND不影响判断
+     */
+    @Test
+    public void testSplitIgnoresLiteralsAndBetween() {
+        assertNotNull(split("SELECT * FROM products WHERE name <> 'a OR b' AND id IN (?)", ids(10)));
+        assertNotNull(split("SELECT * FROM products WHERE price BETWEEN ? AND ? AND id IN (?)", 1, 100, ids(10)));
+    }
+
+    /**
+     * OR分支中的IN列表分批执行会在每一批重复返回OR条件匹配的行，不能拆分
+     */
+    @Test
+    public void testNoSplitUnderOr() {
+        assertNull(split("SELECT * FROM products WHERE id IN (?) OR featured = 1", ids(10)));
+        assertNull(split("SELECT * FROM products WHERE featured = 1 OR id IN (?)", ids(10)));
+        assertNull(split("SELECT * FROM products WHERE category = ? AND id IN (?) OR featured = 1", "book", ids(10)));
+        assertNull(split("SELECT * FROM products WHERE (id IN (?) OR featured = 1)", ids(10)));
+    }
+
+    /**
+     * 子查询、JOIN条件和NOT中的IN列表不能拆分
+     */
+    @Test
+    public void testNoSplitOutsideOuterWhere() {
+        assertNull(split("SELECT * FROM products WHERE category IN (SELECT name FROM categories WHERE id IN (?))",
+                ids(10)));
+        assertNull(split("SELECT p.* FROM products p JOIN stock s ON s.product_id = p.id AND s.id IN (?) WHERE p.price > ?",
+                ids(10), 1));
+        assertNull(split("SELECT * FROM products WHERE NOT id IN (?)", ids(10)));
+    }
+
+    /**
+     * 不能拆分时仍按单个查询分桶展开
+     */
+    @Test
+    public void testExpandWhenNotSplit() {
+        BoundSql bound = bind("SELECT * FROM products WHERE id IN (?) OR featured = 1", ids(5));
+        BoundSql expanded = InListExpander.expand(bound);
+        assertEquals("SELECT * FROM products WHERE id IN (?, ?, ?, ?, ?, ?, ?, ?) OR featured = 1", expanded.getPlan().getSql());
+        assertEquals(8, expanded.getParameters().length);
+        assertEquals(5L, expanded.getParameters()[7]);
+    }
+
+    private static List<BoundSql> split(String sql, Object... params) {
+        return InListExpander.split(bind(sql, params), CHUNK_SIZE);
+    }
+
+    private static BoundSql bind(String sql, Object... params) {
+        MappedStatement statement = new MappedStatement("test.select", MappedStatement.SqlCommandType.SELECT, sql, Map.class);
+        return new BoundSql(statement.getStatementPlan(), params);
+    }
+
+    private static List<Long> ids(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.mybatis.core;
+
+import com.example.mybatis.exception.SqlExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 超长IN列表分批查询测试
+ */
+public class QueryChunksTest {
+
+    private static final String STATEMENT_ID = "test.Items.findByIds";
+
+    /** 查询该id时除零失败 */
+    private static final long FAILING_ID = 100;
+
+    /** 正在执行的慢查询行数，由H2函数 slow_id 维护 */
+    private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private MyBatisConfiguration configuration;
+
+    private SqlSession session;
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:query_chunks;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE items(id BIGINT PRIMARY KEY)");
+        for (long id = 1; id < 12; id++) {
+            jdbcTemplate.update("INSERT INTO items VALUES(?)", id);
+        }
+        jdbcTemplate.update("INSERT INTO items VALUES(?)", FAILING_ID);
+        jdbcTemplate.execute("CREATE ALIAS slow_id FOR \"" + QueryChunksTest.class.getName() + ".slowId\"");
+
+        configuration = new MyBatisConfiguration(dataSource);
+        configuration.setInListChunkSize(4);
+        // 每行等待一段时间，包含FAILING_ID的批次在该行除零失败
+        MappedStatement statement = new MappedStatement(STATEMENT_ID, MappedStatement.SqlCommandType.SELECT,
+                "SELECT id FROM items WHERE slow_id(id) = id AND 100 / (100 - id) >= 1 AND id IN (?)", Map.class);
+        statement.setStatementPlan(StatementPlan.compile(statement));
+        configuration.addMappedStatement(STATEMENT_ID, statement);
+        session = new DefaultSqlSessionFactory(configuration).openSession();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        session.close();
+        configuration.getAsyncExecutor().shutdown();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    /**
+     * 所有批次成功时按批次顺序拼接结果
+     */
+    @Test
+    public void testChunksConcatenatedInOrder() {
+        List<Map<String, Object>> rows = session.selectList(STATEMENT_ID, new Object[]{ids(1, 12)});
+        assertEquals(11, rows.size());
+        assertEquals(1L, ((Number) rows.get(0).get("ID")).longValue());
+        assertEquals(11L, ((Number) rows.get(10).get("ID")).longValue());
+    }
+
+    /**
+     * 第一批失败时其余批次仍在执行，等待它们结束后再抛出异常
+     */
+    @Test
+    public void testFirstChunkFailureWaitsForSubmittedChunks() {
+        List<Long> ids = ids(1, 4);
+        ids.add(FAILING_ID);
+        ids.addAll(ids(4, 12));
+        assertThrows(SqlExecutionException.class, () -> session.selectList(STATEMENT_ID, new Object[]{ids}));
+        assertEquals(0, IN_FLIGHT.get());
+    }
+
+    /**
+     * 其他批次失败时异常只包装一层，原因是数据库异常
+     */
+    @Test
+    public void testLaterChunkFailureRethrownAsIs() {
+        List<Long> ids = ids(1, 12);
+        ids.add(FAILING_ID);
+        SqlExecutionException e = assertThrows(SqlExecutionException.class,
+                () -> session.selectList(STATEMENT_ID, new Object[]{ids}));
+        assertFalse(e.getCause() instanceof SqlExecutionException);
+        assertTrue(e.getCause() instanceof DataAccessException);
+        assertEquals(0, IN_FLIGHT.get());
+    }
+
+    public static long slowId(long id) throws InterruptedException {
+        if (id == FAILING_ID) {
+            return id;
+        }
+        IN_FLIGHT.incrementAndGet();
+        try {
+            Thread.sleep(50);
+            return id;
+        } finally {
+            IN_FLIGHT.decrementAndGet();
+        }
+    }
+
+    private static List<Long> ids(long from, long to) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = from; id < to; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
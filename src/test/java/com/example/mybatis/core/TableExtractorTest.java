@@ -0,0 +1,121 @@
+package com.example.mybatis.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 从SQL中提取读取和写入的表
+ */
+public class TableExtractorTest {
+
+    /**
+     * 各种JOIN和逗号分隔的表，别名不被当作表名
+     */
+    @Test
+    public void testJoins() {
+        assertReads("SELECT o.id FROM orders o JOIN users u ON o.user_id = u.id "
+                + "LEFT OUTER JOIN items AS i ON i.order_id = o.id CROSS JOIN regions",
+                "orders", "users", "items", "regions");
+        assertReads("SELECT * FROM orders o, users AS u, items WHERE o.user_id = u.id", "orders", "users", "items");
+        assertReads("SELECT * FROM orders NATURAL JOIN users", "orders", "users");
+        assertArrayEquals(new String[0], TableExtractor.writeTables("SELECT * FROM orders JOIN users USING (id)"));
+    }
+
+    /**
+     * WHERE、SELECT列表和FROM中的子查询
+     */
+    @Test
+    public void testSubqueries() {
+        assertReads("SELECT * FROM orders WHERE user_id IN (SELECT id FROM users WHERE vip = 1)", "orders", "users");
+        assertReads("SELECT t.total FROM (SELECT user_id, SUM(amount) total FROM orders GROUP BY user_id) t",
+                "orders");
+        assertReads("SELECT u.name, (SELECT COUNT(*) FROM orders o WHERE o.user_id = u.id) FROM users u",
+                "orders", "users");
+        assertReads("SELECT * FROM users u WHERE EXISTS (SELECT 1 FROM orders o WHERE o.user_id = u.id) "
+                + "UNION SELECT * FROM admins", "users", "orders", "admins");
+        // 表函数不是表
+        assertReads("SELECT * FROM unnest(?) x");
+    }
+
+    /**
+     * INSERT / UPDATE / DELETE：第一个表是写入目标，其余是读取的表
+     */
+    @Test
+    public void testWriteStatements() {
+        String insertSelect = "INSERT INTO archive(id, name) SELECT o.id, u.name FROM orders o JOIN users u ON o.user_id = u.id";
+        assertWrites(insertSelect, "archive");
+        assertReads(insertSelect, "orders", "users");
+        assertWrites("INSERT INTO products (name, price) VALUES (?, ?)", "products");
+        assertWrites("INSERT INTO stock(id, qty) VALUES (?, ?) ON DUPLICATE KEY UPDATE qty = qty + 1", "stock");
+        assertWrites("REPLACE INTO stock(id, qty) VALUES (?, ?)", "stock");
+
+        String update = "UPDATE orders SET status = ? WHERE id IN (SELECT order_id FROM items WHERE sku = ?)";
+        assertWrites(update, "orders");
+        assertReads(update, "items");
+        assertWrites("DELETE FROM orders WHERE id = ?", "orders");
+        assertWrites("delete from Orders o where o.id = ?", "orders");
+        // SELECT ... FOR UPDATE 不是写语句
+        assertWrites("SELECT * FROM orders WHERE id = ? FOR UPDATE");
+        assertReads("SELECT * FROM orders WHERE id = ? FOR UPDATE", "orders");
+    }
+
+    /**
+     * MERGE：INTO之后是写入目标，THEN UPDATE / THEN INSERT 不是新的目标表
+     */
+    @Test
+    public void testMerge() {
+        String merge = "MERGE INTO stock s USING (SELECT id, qty FROM incoming) i ON (s.id = i.id) "
+                + "WHEN MATCHED THEN UPDATE SET s.qty = i.qty "
+                + "WHEN NOT MATCHED THEN INSERT (id, qty) VALUES (i.id, i.qty)";
+        assertWrites(merge, "stock");
+        assertReads(merge, "incoming");
+        assertWrites("MERGE INTO stock KEY(id) VALUES (?, ?)", "stock");
+    }
+
+    /**
+     * 带引号和schema前缀的表名统一为不带schema的小写表名
+     */
+    @Test
+    public void testQuotedAndQualifiedNames() {
+        assertReads("SELECT * FROM \"Public\".\"Orders\" o JOIN [dbo].[Users] u ON o.user_id = u.id "
+                + "JOIN `shop`.`Items` i ON i.order_id = o.id JOIN sales.regions r ON r.id = o.region_id",
+                "orders", "users", "items", "regions");
+        assertWrites("UPDATE \"Orders\" SET status = ?", "orders");
+        assertWrites("INSERT INTO app.audit_log(msg) VALUES (?)", "audit_log");
+        assertArrayEquals(new String[]{"products", "categories"},
+                TableExtractor.normalizeAll(new String[]{"Products", "dbo.[categories]", " ", "PRODUCTS", null}));
+    }
+
+    /**
+     * 注释和字符串常量中的关键字被忽略
+     */
+    @Test
+    public void testCommentsAndLiterals() {
+        assertReads("SELECT * /* FROM secret */ FROM orders -- JOIN users\n"
+                + "WHERE note = 'FROM fake JOIN x' AND name = 'it''s'", "orders");
+        assertWrites("/* INSERT INTO audit */ UPDATE orders SET note = 'DELETE FROM users' -- INTO x", "orders");
+        // 开头的注释不影响语句类型的识别
+        assertWrites("-- comment\nDELETE FROM orders", "orders");
+    }
+
+    /**
+     * 已知的误差：TRUNCATE没有写入表（调用方按所有表失效），EXTRACT中FROM之后的列名被当作表
+     */
+    @Test
+    public void testKnownOverApproximations() {
+        assertWrites("TRUNCATE TABLE orders");
+        assertWrites("DROP TABLE orders");
+        assertReads("SELECT EXTRACT(YEAR FROM created_at) FROM orders", "created_at", "orders");
+        assertReads("");
+        assertReads(null);
+    }
+
+    private static void assertReads(String sql, String... tables) {
+        assertArrayEquals(tables, TableExtractor.readTables(sql), sql);
+    }
+
+    private static void assertWrites(String sql, String... tables) {
+        assertArrayEquals(tables, TableExtractor.writeTables(sql), sql);
+    }
+}
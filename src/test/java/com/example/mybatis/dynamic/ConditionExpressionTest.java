@@ -0,0 +1,201 @@
+package com.example.mybatis.dynamic;
+
+import com.example.mybatis.annotation.Param;
+import com.example.mybatis.exception.MyBatisException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @SelectIf 条件表达式解析和求值测试
+ */
+public class ConditionExpressionTest {
+
+    interface Mapper {
+        void flags(@Param("a") Boolean a, @Param("b") Boolean b, @Param("c") Boolean c);
+
+        void values(@Param("name") String name, @Param("count") Long count,
+                    @Param("price") BigDecimal price, @Param("ratio") Double ratio);
+
+        void user(@Param("user") User user);
+
+        void single(User user);
+    }
+
+    public static class User {
+        private final String name;
+        private final Address address;
+
+        User(String name, Address address) {
+            this.name = name;
+            this.address = address;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+    }
+
+    public static class Address {
+        private final String city;
+
+        Address(String city) {
+            this.city = city;
+        }
+
+        public String getCity() {
+            return city;
+        }
+    }
+
+    /**
+     * and 优先于 or，括号改变结合顺序
+     */
+    @Test
+    public void testPrecedence() {
+        ConditionExpression expression = compile("flags", "a || b && c");
+        assertTrue(expression.evaluate(new Object[]{true, false, false}));
+        assertFalse(expression.evaluate(new Object[]{false, true, false}));
+
+        ConditionExpression grouped = compile("flags", "(a or b) and c");
+        assertFalse(grouped.evaluate(new Object[]{true, false, false}));
+        assertTrue(grouped.evaluate(new Object[]{true, false, true}));
+    }
+
+    /**
+     * ! 和 not 作用于紧随其后的一元表达式，!= 不被当作取反
+     */
+    @Test
+    public void testNegation() {
+        assertTrue(compile("flags", "!a && b").evaluate(new Object[]{false, true, null}));
+        assertFalse(compile("flags", "not a or b").evaluate(new Object[]{true, false, null}));
+        assertTrue(compile("flags", "not (a and b)").evaluate(new Object[]{true, false, null}));
+        assertTrue(compile("flags", "!!a").evaluate(new Object[]{true, null, null}));
+        assertTrue(compile("flags", "a != b").evaluate(new Object[]{true, false, null}));
+        assertTrue(compile("flags", "NOT a").evaluate(new Object[]{false, null, null}));
+    }
+
+    /**
+     * == null、is null、is not null 和 null 在左侧的写法
+     */
+    @Test
+    public void testNullChecks() {
+        Object[] nullName = {null, 1L, null, null};
+        Object[] withName = {"x", 1L, null, null};
+        assertTrue(compile("values", "name == null").evaluate(nullName));
+        assertTrue(compile("values", "null == name").evaluate(nullName));
+        assertTrue(compile("values", "name is null").evaluate(nullName));
+        assertTrue(compile("values", "name IS NOT NULL").evaluate(withName));
+        assertFalse(compile("values", "name != null").evaluate(nullName));
+        // null与数字比较时只有 != 为真
+        assertFalse(compile("values", "price > 0").evaluate(nullName));
+        assertTrue(compile("values", "price != 0").evaluate(nullName));
+        assertThrows(MyBatisException.class, () -> compile("values", "name > null"));
+    }
+
+    /**
+     * 单独的参数作为条件：字符串非空为真
+     */
+    @Test
+    public void testTruthy() {
+        ConditionExpression expression = compile("values", "name");
+        assertFalse(expression.evaluate(new Object[]{"", null, null, null}));
+        assertTrue(expression.evaluate(new Object[]{"x", null, null, null}));
+        assertFalse(expression.evaluate(new Object[]{null, null, null, null}));
+    }
+
+    /**
+     * Long、BigDecimal、Double参数分别按long、精确值、double与字面量比较
+     */
+    @Test
+    public void testTypedNumericComparison() {
+        assertTrue(compile("values", "count >= 5").evaluate(values(5L, null, null)));
+        assertTrue(compile("values", "count == 5.0").evaluate(values(5L, null, null)));
+        assertTrue(compile("values", "count < 5.5").evaluate(values(5L, null, null)));
+        assertTrue(compile("values", "count > 4.5").evaluate(values(5L, null, null)));
+        assertTrue(compile("values", "count > -0.5").evaluate(values(0L, null, null)));
+        assertTrue(compile("values", "count < -0.5").evaluate(values(-1L, null, null)));
+        assertTrue(compile("values", "count < 1e30").evaluate(values(Long.MAX_VALUE, null, null)));
+        assertTrue(compile("values", "count > -1e30").evaluate(values(Long.MIN_VALUE, null, null)));
+
+        assertTrue(compile("values", "price == 19.90").evaluate(values(null, new BigDecimal("19.9"), null)));
+        assertTrue(compile("values", "price > 19.899999999999999999").evaluate(values(null, new BigDecimal("19.9"), null)));
+
+        assertTrue(compile("values", "ratio > 0.5").evaluate(values(null, null, 0.75)));
+        // NaN与任何值都不相等，也不参与大小比较
+        assertTrue(compile("values", "ratio != ratio").evaluate(values(null, null, Double.NaN)));
+        assertFalse(compile("values", "ratio > 0").evaluate(values(null, null, Double.NaN)));
+
+        // 两个参数之间：long与BigDecimal按精确值比较
+        assertTrue(compile("values", "count < price").evaluate(values(19L, new BigDecimal("19.5"), null)));
+        assertTrue(compile("values", "count == price").evaluate(values(20L, new BigDecimal("20.00"), null)));
+    }
+
+    /**
+     * 数字字面量按BigDecimal精确解析，不会因转换为double而与整数相等
+     */
+    @Test
+    public void testDecimalLiteralIsExact() {
+        assertFalse(compile("values", "count == 5.0000000000000001").evaluate(values(5L, null, null)));
+        assertTrue(compile("values", "count < 5.0000000000000001").evaluate(values(5L, null, null)));
+        assertTrue(compile("values", "5.0000000000000001 > count").evaluate(values(5L, null, null)));
+        assertFalse(compile("values", "price == 5.0000000000000001").evaluate(values(null, new BigDecimal("5"), null)));
+    }
+
+    /**
+     * 字符串字面量比较
+     */
+    @Test
+    public void testStringComparison() {
+        assertTrue(compile("values", "name == 'book'").evaluate(new Object[]{"book", null, null, null}));
+        assertTrue(compile("values", "name <> \"book\"").evaluate(new Object[]{"pen", null, null, null}));
+        assertTrue(compile("values", "name < 'b'").evaluate(new Object[]{"a", null, null, null}));
+    }
+
+    /**
+     * 属性路径：带参数名的路径和唯一参数直接写属性名
+     */
+    @Test
+    public void testPropertyPaths() {
+        User user = new User("alice", new Address("Paris"));
+        assertTrue(compile("user", "user.address.city == 'Paris'").evaluate(new Object[]{user}));
+        assertTrue(compile("user", "user.name != null and user.address != null").evaluate(new Object[]{user}));
+        assertTrue(compile("single", "address.city == 'Paris'").evaluate(new Object[]{user}));
+        assertFalse(compile("user", "user.address.city == 'Paris'")
+                .evaluate(new Object[]{new User("bob", new Address("Rome"))}));
+        assertThrows(MyBatisException.class, () -> compile("user", "user.missing != null"));
+    }
+
+    /**
+     * 语法错误和未知参数在编译时报告
+     */
+    @Test
+    public void testCompileErrors() {
+        assertThrows(MyBatisException.class, () -> compile("values", "name == 'x"));
+        assertThrows(MyBatisException.class, () -> compile("values", "(name != null"));
+        assertThrows(MyBatisException.class, () -> compile("values", "unknown != null"));
+        assertThrows(MyBatisException.class, () -> compile("values", "${name} != null"));
+        assertThrows(MyBatisException.class, () -> compile("values", "name != null extra"));
+        assertTrue(compile("values", "true").isAlwaysTrue());
+    }
+
+    private static Object[] values(Long count, BigDecimal price, Double ratio) {
+        return new Object[]{null, count, price, ratio};
+    }
+
+    private static ConditionExpression compile(String methodName, String condition) {
+        for (Method method : Mapper.class.getDeclaredMethods()) {
+            if (method.getName().equals(methodName)) {
+                return ConditionExpression.compile(method, condition);
+            }
+        }
+        throw new IllegalArgumentException(methodName);
+    }
+}
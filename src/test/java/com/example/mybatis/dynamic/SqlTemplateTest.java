@@ -0,0 +1,204 @@
+package com.example.mybatis.dynamic;
+
+import com.example.mybatis.annotation.Param;
+import com.example.mybatis.core.BoundSql;
+import com.example.mybatis.core.MappedStatement;
+import com.example.mybatis.exception.MyBatisException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SQL模板解析、渲染和形状缓存测试
+ */
+public class SqlTemplateTest {
+
+    interface Mapper {
+        List<Map<String, Object>> search(@Param("category") String category, @Param("minPrice") Long minPrice,
+                                         @Param("ids") List<Long> ids);
+
+        int patch(@Param("id") Long id, @Param("name") String name, @Param("stock") Integer stock);
+
+        int insertAll(@Param("items") List<Item> items);
+    }
+
+    public static class Item {
+        private final String name;
+
+        Item(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static final String SEARCH = "SELECT * FROM products <where>"
+            + "<if test=\"category != null\">AND category = #{category}</if>"
+            + "<if test=\"minPrice != null\"> OR price &gt;= #{minPrice}</if>"
+            + "<if test=\"ids != null and !ids.empty\"> AND id IN "
+            + "<foreach collection=\"ids\" item=\"id\" open=\"(\" separator=\", \" close=\")\">#{id}</foreach></if>"
+            + "</where> ORDER BY id";
+
+    private static final String PATCH = "UPDATE products <set>"
+            + "<if test=\"name != null\">name = #{name},</if>"
+            + "<if test=\"stock != null\">stock_quantity = #{stock},</if>"
+            + "</set> WHERE id = #{id}";
+
+    /**
+     * where：没有条件成立时不输出WHERE，去掉开头的AND/OR
+     */
+    @Test
+    public void testWhereTrimming() {
+        SqlTemplate template = compile("search", SEARCH);
+        assertEquals("SELECT * FROM products ORDER BY id", sql(template.bind(new Object[]{null, null, null})));
+        assertEquals("SELECT * FROM products WHERE category = ? ORDER BY id",
+                sql(template.bind(new Object[]{"book", null, null})));
+        assertEquals("SELECT * FROM products WHERE price >= ? ORDER BY id",
+                sql(template.bind(new Object[]{null, 5L, null})));
+        BoundSql bound = template.bind(new Object[]{"book", null, Arrays.asList(1L, 2L)});
+        assertEquals("SELECT * FROM products WHERE category = ? AND id IN (?, ?) ORDER BY id", sql(bound));
+        assertArrayEquals(new Object[]{"book", 1L, 2L}, bound.getParameters());
+    }
+
+    /**
+     * set：去掉多余的逗号
+     */
+    @Test
+    public void testSetTrimming() {
+        SqlTemplate template = compile("patch", PATCH);
+        BoundSql bound = template.bind(new Object[]{1L, "pen", 3});
+        assertEquals("UPDATE products SET name = ?,stock_quantity = ? WHERE id = ?", sql(bound));
+        assertArrayEquals(new Object[]{"pen", 3, 1L}, bound.getParameters());
+        assertEquals("UPDATE products SET stock_quantity = ? WHERE id = ?", sql(template.bind(new Object[]{1L, null, 3})));
+    }
+
+    /**
+     * set中没有任何内容时每次调用都抛出异常，该形状不缓存
+     */
+    @Test
+    public void testEmptySetFailsFast() {
+        SqlTemplate template = compile("patch", PATCH);
+        MyBatisException e = assertThrows(MyBatisException.class, () -> template.bind(new Object[]{1L, null, null}));
+        assertEquals("DYNAMIC_SQL_ERROR", e.getErrorCode());
+        assertTrue(e.getOriginalMessage().contains("test.Mapper.patch"));
+        assertThrows(MyBatisException.class, () -> template.bind(new Object[]{1L, null, null}));
+        assertEquals(0, template.getShapeCount());
+    }
+
+    /**
+     * IN之后的foreach集合为空或为null时抛出异常；用if包裹时不输出条件
+     */
+    @Test
+    public void testEmptyForeachInListFailsFast() {
+        SqlTemplate unguarded = compile("search", "SELECT * FROM products WHERE id IN "
+                + "<foreach collection=\"ids\" item=\"id\" open=\"(\" separator=\",\" close=\")\">#{id}</foreach>");
+        assertThrows(MyBatisException.class, () -> unguarded.bind(new Object[]{null, null, Collections.emptyList()}));
+        assertThrows(MyBatisException.class, () -> unguarded.bind(new Object[]{null, null, null}));
+        assertEquals("SELECT * FROM products WHERE id IN (?)", sql(unguarded.bind(new Object[]{null, null,
+                Collections.singletonList(1L)})));
+
+        SqlTemplate parenthesized = compile("search", "SELECT * FROM products WHERE id not in ("
+                + "<foreach collection=\"ids\" item=\"id\" separator=\",\">#{id}</foreach>)");
+        assertThrows(MyBatisException.class, () -> parenthesized.bind(new Object[]{null, null, Collections.emptyList()}));
+
+        SqlTemplate guarded = compile("search", SEARCH);
+        assertEquals("SELECT * FROM products ORDER BY id",
+                sql(guarded.bind(new Object[]{null, null, Collections.emptyList()})));
+    }
+
+    /**
+     * foreach的item属性和index
+     */
+    @Test
+    public void testForeachItemAndIndex() {
+        SqlTemplate template = compile("insertAll", "INSERT INTO items(pos, name) VALUES "
+                + "<foreach collection=\"items\" item=\"it\" index=\"i\" separator=\", \">(#{i}, #{it.name})</foreach>");
+        BoundSql bound = template.bind(new Object[]{Arrays.asList(new Item("a"), new Item("b"))});
+        assertEquals("INSERT INTO items(pos, name) VALUES (?, ?), (?, ?)", sql(bound));
+        assertArrayEquals(new Object[]{0, "a", 1, "b"}, bound.getParameters());
+    }
+
+    /**
+     * 相同形状复用同一个执行计划，不同元素值不产生新形状，元素个数不同时产生新形状
+     */
+    @Test
+    public void testShapeCacheReuse() {
+        SqlTemplate template = compile("search", SEARCH);
+        BoundSql first = template.bind(new Object[]{"book", null, Arrays.asList(1L, 2L)});
+        BoundSql second = template.bind(new Object[]{"pen", null, Arrays.asList(3L, 4L)});
+        assertSame(first.getPlan(), second.getPlan());
+        assertEquals(1, template.getShapeCount());
+        assertArrayEquals(new Object[]{"pen", 3L, 4L}, second.getParameters());
+
+        BoundSql third = template.bind(new Object[]{"book", null, Arrays.asList(1L, 2L, 3L)});
+        assertNotSame(first.getPlan(), third.getPlan());
+        assertEquals(2, template.getShapeCount());
+    }
+
+    /**
+     * 形状的缓存键与查找用的实例按内容比较
+     */
+    @Test
+    public void testTemplateShapeEquality() {
+        TemplateShape lookup = new TemplateShape(2);
+        lookup.add(1);
+        int slot = lookup.reserve();
+        lookup.add(0);
+        lookup.set(slot, 7);
+        TemplateShape key = lookup.copy();
+        assertEquals(key, lookup);
+        assertEquals(key.hashCode(), lookup.hashCode());
+        assertEquals(7, key.get(1));
+
+        lookup.reset();
+        lookup.add(1);
+        lookup.add(7);
+        assertNotEquals(key, lookup);
+        lookup.add(0);
+        assertEquals(key, lookup);
+    }
+
+    /**
+     * 模板语法错误在编译时报告
+     */
+    @Test
+    public void testParseErrors() {
+        assertThrows(MyBatisException.class, () -> compile("patch", "UPDATE products SET name = ? WHERE id = #{id}"));
+        assertThrows(MyBatisException.class, () -> compile("patch", "UPDATE products SET name = ${name}"));
+        assertThrows(MyBatisException.class, () -> compile("patch", "UPDATE products <set>name = #{name}"));
+        assertThrows(MyBatisException.class, () -> compile("patch", "UPDATE products <set>name = #{name}</where>"));
+        assertThrows(MyBatisException.class, () -> compile("patch", "SELECT 1 <if>x</if>"));
+        assertThrows(MyBatisException.class, () -> compile("patch", "SELECT 1 <if test=\"unknown != null\">x</if>"));
+        // 不是标签的 < 按SQL文本保留
+        assertEquals("SELECT * FROM products WHERE stock_quantity < ?",
+                sql(compile("patch", "SELECT * FROM products WHERE stock_quantity < #{stock}")
+                        .bind(new Object[]{1L, null, 5})));
+    }
+
+    /**
+     * 渲染结果中标签前后的空白按原样保留，比较时合并连续空白
+     */
+    private static String sql(BoundSql bound) {
+        return bound.getPlan().getSql().replaceAll("\\s+", " ");
+    }
+
+    private static SqlTemplate compile(String methodName, String template) {
+        for (Method method : Mapper.class.getDeclaredMethods()) {
+            if (method.getName().equals(methodName)) {
+                MappedStatement statement = new MappedStatement("test.Mapper." + methodName,
+                        methodName.startsWith("search") ? MappedStatement.SqlCommandType.SELECT
+                                : MappedStatement.SqlCommandType.UPDATE, template, Map.class);
+                return SqlTemplate.compile(statement, method);
+            }
+        }
+        throw new IllegalArgumentException(methodName);
+    }
+}